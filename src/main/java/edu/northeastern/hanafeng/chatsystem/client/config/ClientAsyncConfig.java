@@ -1,7 +1,9 @@
 package edu.northeastern.hanafeng.chatsystem.client.config;
 
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -69,9 +71,11 @@ public class ClientAsyncConfig {
       * Configure message consumer threads pool
       * one thread to consume messages from the shared message queue
       * and send to the websocket server
+      * only for the thread-pool send engine; the event-loop engine runs its own loop threads
       */
 
       @Bean(name = "messageSenderExecutor")
+      @ConditionalOnProperty(name = "client.send-engine", havingValue = "thread-pool")
       public Executor messageSenderExecutor() {
           ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
           
@@ -98,7 +102,7 @@ public class ClientAsyncConfig {
        */
 
        @Bean(name = "sharedMessageQueue")
-       public BlockingQueue<String> sharedMessageQueue() {
+       public BlockingQueue<ChatMessage> sharedMessageQueue() {
            int queueCapacity = clientConfig.getMessageQueueCapacity();
            log.info("Shared message queue configured: capacity={}", queueCapacity);
            return new LinkedBlockingQueue<>(queueCapacity);
@@ -2,6 +2,7 @@ package edu.northeastern.hanafeng.chatsystem.client.config;
 
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -15,6 +16,27 @@ public class ClientConfig {
 
     private String wsBase;
 
+    /**
+     * Wire format negotiated with the server: "json" (default, text frames)
+     * or "binary" (chat.binary.v1 subprotocol, falls back to JSON if the server declines)
+     */
+    @Pattern(regexp = "json|binary", message = "wireFormat must be json or binary")
+    private String wireFormat = "json";
+
+    /**
+     * Acknowledgement mode requested from the server: "full" (default, echo of every message),
+     * "compact" (small ACK per message) or "cumulative" (range ACKs for consecutive successes)
+     */
+    @Pattern(regexp = "full|compact|cumulative", message = "ackMode must be full, compact or cumulative")
+    private String ackMode = "full";
+
+    /**
+     * Connection layout: "per-room" (default, one shared connection per room)
+     * or "per-user" (every user owns its own connection, on Netty event loops)
+     */
+    @Pattern(regexp = "per-room|per-user", message = "connectionMode must be per-room or per-user")
+    private String connectionMode = "per-room";
+
     @Min(value = 1, message = "numUsers must be at least 1")
     @Max(value = 1000000, message = "numUsers cannot exceed 1,000,000")
     private int numUsers;
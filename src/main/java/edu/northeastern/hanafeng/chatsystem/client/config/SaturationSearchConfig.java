@@ -0,0 +1,103 @@
+package edu.northeastern.hanafeng.chatsystem.client.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Saturation search (client.saturation.*): instead of one fixed run, ramp the open-loop offered load step
+ * by step and bisect to the highest rate that still meets the SLO. client.total-messages is the message
+ * budget for all steps together.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "client.saturation")
+@Validated
+public class SaturationSearchConfig {
+
+    private boolean enabled = false;
+
+    /**
+     * Offered load of the first step, messages/s
+     */
+    @DecimalMin(value = "1.0", message = "startRate must be at least 1 msg/s")
+    private double startRate = 500;
+
+    /**
+     * Ramp factor between steps until the first step misses the SLO
+     */
+    @DecimalMin(value = "1.05", message = "growthFactor must be at least 1.05")
+    private double growthFactor = 2.0;
+
+    @DecimalMin(value = "1.0", message = "maxRate must be at least 1 msg/s")
+    private double maxRate = 200000;
+
+    /**
+     * Bisection stops once the bracket around the knee is within this fraction of its upper end
+     */
+    @DecimalMin(value = "0.001", message = "tolerance must be at least 0.001")
+    @DecimalMax(value = "0.5", message = "tolerance cannot exceed 0.5")
+    private double tolerance = 0.05;
+
+    @Min(value = 1, message = "maxSteps must be at least 1")
+    @Max(value = 100, message = "maxSteps cannot exceed 100")
+    private int maxSteps = 20;
+
+    /**
+     * Unmeasured run at the start rate before the first step, so every user has joined and both sides are
+     * warmed up; a cold first step would otherwise cap the search
+     */
+    @Min(value = 0, message = "initialWarmupMs must be >= 0")
+    private long initialWarmupMs = 15000;
+
+    /**
+     * Time at a new rate before measuring, so queues settle
+     */
+    @Min(value = 0, message = "warmupMs must be >= 0")
+    private long warmupMs = 5000;
+
+    @Min(value = 1000, message = "stepDurationMs must be at least 1000")
+    private long stepDurationMs = 20000;
+
+    /**
+     * Longest pause after a step for the backlog to drain before the next one
+     */
+    @Min(value = 0, message = "cooldownMs must be >= 0")
+    private long cooldownMs = 30000;
+
+    @Valid
+    private Slo slo = new Slo();
+
+    /**
+     * What a step must meet to count as sustainable.
+     */
+    @Data
+    public static class Slo {
+
+        @Min(value = 1, message = "ackP99Ms must be at least 1")
+        private long ackP99Ms = 200;
+
+        @Min(value = 1, message = "broadcastP99Ms must be at least 1")
+        private long broadcastP99Ms = 1000;
+
+        /**
+         * Error responses, ACK timeouts and send failures per message sent
+         */
+        @DecimalMin(value = "0.0", message = "errorRate must be >= 0")
+        @DecimalMax(value = "1.0", message = "errorRate cannot exceed 1")
+        private double errorRate = 0.01;
+
+        /**
+         * Achieved ACK rate over offered rate; below it the server is falling behind the offered load
+         */
+        @DecimalMin(value = "0.0", message = "minAchievedRatio must be >= 0")
+        @DecimalMax(value = "1.0", message = "minAchievedRatio cannot exceed 1")
+        private double minAchievedRatio = 0.95;
+    }
+}
@@ -0,0 +1,71 @@
+package edu.northeastern.hanafeng.chatsystem.client.config;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Declarative workload shape (client.workload.*), set in properties or YAML, e.g. a Spring profile such as
+ * application-workload-production.properties. The defaults reproduce the uniform load: users round-robin over
+ * rooms, equal message counts, texts from the built-in pool, one session per user, unpaced.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "client.workload")
+@Validated
+public class WorkloadProfile {
+
+    /**
+     * Name shown in the run's logs
+     */
+    private String name = "uniform";
+
+    /**
+     * Seed for assigning users to rooms and rate classes, so a profile always produces the same population
+     */
+    private long seed = 42;
+
+    /**
+     * Zipf exponent of room popularity: room k gets users in proportion to 1/k^s. 0 assigns users
+     * round-robin, about 1 gives a few hot rooms and a long tail
+     */
+    @DecimalMin(value = "0.0", message = "roomSkew must be >= 0")
+    private double roomSkew = 0;
+
+    /**
+     * Rate classes as "name:share:weight,...": share of the users in the class, and their relative message
+     * count and send rate (think time is divided by the weight). Empty for one class of equal users
+     */
+    private String rateClasses = "";
+
+    /**
+     * TEXT size histogram as "maxChars:weight,..." with ascending bounds up to 5000; sizes are uniform
+     * within a bucket. Empty for the built-in text pool
+     */
+    private String messageSizes = "";
+
+    /**
+     * Message bodies pre-generated from the size histogram and reused at random
+     */
+    @Min(value = 16, message = "bodyPoolSize must be at least 16")
+    @Max(value = 1000000, message = "bodyPoolSize cannot exceed 1,000,000")
+    private int bodyPoolSize = 4096;
+
+    /**
+     * JOIN ... LEAVE sessions per user; more than one models join/leave churn, with the user's TEXTs
+     * spread over its sessions
+     */
+    @Min(value = 1, message = "sessionsPerUser must be at least 1")
+    @Max(value = 1000, message = "sessionsPerUser cannot exceed 1000")
+    private int sessionsPerUser = 1;
+
+    /**
+     * Phase schedule as "duration:rate,..." (e.g. "20s:2000,5s:20000,10s:0"): the offered load in messages/s
+     * for each phase, repeated until the run ends. On/off bursts are a two-phase schedule. Empty for unpaced
+     */
+    private String phases = "";
+}
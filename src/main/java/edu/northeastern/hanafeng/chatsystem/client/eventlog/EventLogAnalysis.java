@@ -0,0 +1,249 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What the analyzer computes over a contiguous range of event records. Ranges are analyzed independently
+ * and merged left to right, so every statistic is kept in a form whose merge is exact: counts and
+ * histograms add up, and per-user ordering keeps the first and last sequence seen in the range, so a
+ * decrease across the boundary of two ranges is counted when they are merged.
+ *
+ * Ordering is checked per user on SEND, ACK and BROADCAST events: a user's messages share one room
+ * connection, so their ACKs and broadcasts should come back in the order they went out. A record whose
+ * sequence is below the previous one of the same user and kind is a violation, an equal one a duplicate.
+ * SEND violations are messages the client itself wrote out of order (concurrent senders), so ACK and
+ * broadcast violations beyond those point at the server.
+ */
+final class EventLogAnalysis {
+
+    static final String[] ORDERED_KIND_NAMES = {"SEND", "ACK", "BROADCAST"};
+    static final int ORDERED_KINDS = ORDERED_KIND_NAMES.length;
+    static final int SEND_KIND = 0;
+    static final int ACK_KIND = 1;
+    static final int BROADCAST_KIND = 2;
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final long startEpochMicros;
+    private final long bucketMicros;
+
+    long records;
+    long firstMicros = Long.MAX_VALUE;
+    long lastMicros = Long.MIN_VALUE;
+    // [event type][message type]
+    final long[][] counts = new long[8][4];
+
+    // Per kind (SEND, ACK, BROADCAST) and user: first and last sequence seen, violations and duplicates inside
+    private int[][] firstSequence = new int[ORDERED_KINDS][];
+    private int[][] lastSequence = new int[ORDERED_KINDS][];
+    private int[][] violations = new int[ORDERED_KINDS][];
+    final long[] duplicates = new long[ORDERED_KINDS];
+
+    // Per room: ACKs and sends per time bucket since the run start
+    final Map<Integer, long[]> acksPerBucket = new TreeMap<>();
+    final Map<Integer, long[]> sendsPerBucket = new TreeMap<>();
+
+    // [SEND, ACK, BROADCAST][message type]; sends are never timed
+    final Histogram[][] latency = new Histogram[ORDERED_KINDS][4];
+
+    EventLogAnalysis(long startEpochMicros, long bucketMicros) {
+        this.startEpochMicros = startEpochMicros;
+        this.bucketMicros = bucketMicros;
+        for (int kind = 0; kind < ORDERED_KINDS; kind++) {
+            firstSequence[kind] = newSequences(1024);
+            lastSequence[kind] = newSequences(1024);
+            violations[kind] = new int[1024];
+        }
+    }
+
+    /**
+     * SEND, ACK and BROADCAST map to their ordered kinds, anything else to -1.
+     */
+    static int orderedKind(byte eventType) {
+        return switch (eventType) {
+            case EventRecord.SEND -> SEND_KIND;
+            case EventRecord.ACK -> ACK_KIND;
+            case EventRecord.BROADCAST -> BROADCAST_KIND;
+            default -> -1;
+        };
+    }
+
+    void add(ByteBuffer records, int offset) {
+        this.records++;
+        long timestamp = EventRecord.timestampMicros(records, offset);
+        firstMicros = Math.min(firstMicros, timestamp);
+        lastMicros = Math.max(lastMicros, timestamp);
+        byte eventType = EventRecord.eventType(records, offset);
+        byte messageType = EventRecord.messageType(records, offset);
+        counts[eventType & 7][messageType & 3]++;
+
+        int roomId = EventRecord.roomId(records, offset);
+        if (eventType == EventRecord.ACK) {
+            bucket(acksPerBucket, roomId, timestamp);
+        } else if (eventType == EventRecord.SEND) {
+            bucket(sendsPerBucket, roomId, timestamp);
+        }
+
+        int kind = orderedKind(eventType);
+        if (kind < 0) {
+            return;
+        }
+        int latencyMicros = EventRecord.latencyMicros(records, offset);
+        if (latencyMicros >= 0) {
+            Histogram histogram = latency[kind][messageType & 3];
+            if (histogram == null) {
+                histogram = new Histogram(3);
+                latency[kind][messageType & 3] = histogram;
+            }
+            histogram.recordValue(latencyMicros);
+        }
+
+        int sequence = EventRecord.sequence(records, offset);
+        int userId = EventRecord.userId(records, offset);
+        if (sequence < 0 || userId <= 0) {
+            return;
+        }
+        ensureUsers(userId);
+        int last = lastSequence[kind][userId];
+        if (last == NONE) {
+            firstSequence[kind][userId] = sequence;
+        } else if (sequence < last) {
+            violations[kind][userId]++;
+        } else if (sequence == last) {
+            duplicates[kind]++;
+        }
+        lastSequence[kind][userId] = sequence;
+    }
+
+    /**
+     * Fold in the analysis of the range that directly follows this one.
+     */
+    EventLogAnalysis merge(EventLogAnalysis next) {
+        records += next.records;
+        firstMicros = Math.min(firstMicros, next.firstMicros);
+        lastMicros = Math.max(lastMicros, next.lastMicros);
+        for (int e = 0; e < counts.length; e++) {
+            for (int t = 0; t < counts[e].length; t++) {
+                counts[e][t] += next.counts[e][t];
+            }
+        }
+        mergeBuckets(acksPerBucket, next.acksPerBucket);
+        mergeBuckets(sendsPerBucket, next.sendsPerBucket);
+
+        ensureUsers(next.firstSequence[0].length - 1);
+        for (int kind = 0; kind < ORDERED_KINDS; kind++) {
+            duplicates[kind] += next.duplicates[kind];
+            int[] nextFirst = next.firstSequence[kind];
+            for (int userId = 1; userId < nextFirst.length; userId++) {
+                if (nextFirst[userId] == NONE) {
+                    continue;
+                }
+                int last = lastSequence[kind][userId];
+                if (last == NONE) {
+                    firstSequence[kind][userId] = nextFirst[userId];
+                } else if (nextFirst[userId] < last) {
+                    violations[kind][userId]++;
+                } else if (nextFirst[userId] == last) {
+                    duplicates[kind]++;
+                }
+                lastSequence[kind][userId] = next.lastSequence[kind][userId];
+                violations[kind][userId] += next.violations[kind][userId];
+            }
+
+            for (int type = 0; type < 4; type++) {
+                Histogram other = next.latency[kind][type];
+                if (other == null) {
+                    continue;
+                }
+                if (latency[kind][type] == null) {
+                    latency[kind][type] = other;
+                } else {
+                    latency[kind][type].add(other);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Violations of one ordered kind per user, indexed by user ID.
+     */
+    int[] violations(int kind) {
+        return violations[kind];
+    }
+
+    long bucketMicros() {
+        return bucketMicros;
+    }
+
+    /**
+     * All latencies of one ordered kind, every message type together; empty if none were timed.
+     */
+    Histogram latency(int kind) {
+        Histogram all = new Histogram(3);
+        for (Histogram histogram : latency[kind]) {
+            if (histogram != null) {
+                all.add(histogram);
+            }
+        }
+        return all;
+    }
+
+    private void bucket(Map<Integer, long[]> buckets, int roomId, long timestamp) {
+        int index = (int) Math.max(0, (timestamp - startEpochMicros) / bucketMicros);
+        long[] perBucket = buckets.get(roomId);
+        if (perBucket == null || perBucket.length <= index) {
+            perBucket = perBucket == null
+                    ? new long[Math.max(64, index + 1)]
+                    : Arrays.copyOf(perBucket, Math.max(perBucket.length * 2, index + 1));
+            buckets.put(roomId, perBucket);
+        }
+        perBucket[index]++;
+    }
+
+    private static void mergeBuckets(Map<Integer, long[]> into, Map<Integer, long[]> from) {
+        from.forEach((roomId, buckets) -> {
+            long[] target = into.get(roomId);
+            if (target == null) {
+                into.put(roomId, buckets);
+                return;
+            }
+            if (target.length < buckets.length) {
+                target = Arrays.copyOf(target, buckets.length);
+                into.put(roomId, target);
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                target[i] += buckets[i];
+            }
+        });
+    }
+
+    private void ensureUsers(int userId) {
+        if (userId < firstSequence[0].length) {
+            return;
+        }
+        int size = Math.max(firstSequence[0].length * 2, userId + 1);
+        for (int kind = 0; kind < ORDERED_KINDS; kind++) {
+            firstSequence[kind] = grow(firstSequence[kind], size);
+            lastSequence[kind] = grow(lastSequence[kind], size);
+            violations[kind] = Arrays.copyOf(violations[kind], size);
+        }
+    }
+
+    private static int[] grow(int[] sequences, int size) {
+        int oldSize = sequences.length;
+        int[] grown = Arrays.copyOf(sequences, size);
+        Arrays.fill(grown, oldSize, size, NONE);
+        return grown;
+    }
+
+    private static int[] newSequences(int size) {
+        int[] sequences = new int[size];
+        Arrays.fill(sequences, NONE);
+        return sequences;
+    }
+}
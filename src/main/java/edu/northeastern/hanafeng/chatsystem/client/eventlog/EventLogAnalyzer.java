@@ -0,0 +1,467 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.RunSummaryWriter.RunSummary;
+import org.HdrHistogram.Histogram;
+import org.knowm.xchart.BitmapEncoder;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.XYSeries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Post-run analysis of the binary user event log in one parallel pass: the mapped segments are split into
+ * record ranges analyzed by fork/join tasks (see {@link EventLogAnalysis} for how the ranges merge), while
+ * one shared {@link MessageLedger} tracks which messages were sent, settled and broadcast back.
+ *
+ * Reports per-user ordering violations of sends, ACKs and broadcasts, messages missing their ACK or broadcast,
+ * send and ACK throughput per room over time and the ACK and broadcast latency distributions; compares
+ * them with the run's run_summary_*.json when it is next to the segments, and writes a JSON report, a
+ * timeline CSV and PNG charts.
+ */
+public final class EventLogAnalyzer {
+
+    private static final int MIN_LEAF_RECORDS = 1 << 16;
+    private static final int TOP_USERS = 20;
+    private static final double[] PERCENTILES = {0, 50, 75, 90, 95, 99, 99.5, 99.9, 99.95, 99.99};
+
+    private final List<EventLogSegment> segments = new ArrayList<>();
+    private final long[] segmentStarts;
+    private final long totalRecords;
+    private final long startEpochMicros;
+    private final long bucketMicros;
+    private final int parallelism;
+    private final long leafRecords;
+    private final MessageLedger ledger = new MessageLedger();
+
+    private EventLogAnalysis analysis;
+    private long analysisNanos;
+
+    /**
+     * @param bucketMillis width of the throughput timeline buckets
+     * @param parallelism worker threads of the fork/join pool
+     */
+    public EventLogAnalyzer(List<Path> files, long bucketMillis, int parallelism) throws IOException {
+        this(files, bucketMillis, parallelism, 0);
+    }
+
+    /**
+     * @param leafRecords records scanned sequentially by one task, or 0 to size leaves from the record count
+     */
+    EventLogAnalyzer(List<Path> files, long bucketMillis, int parallelism, long leafRecords) throws IOException {
+        segmentStarts = new long[files.size() + 1];
+        long start = Long.MAX_VALUE;
+        for (int i = 0; i < files.size(); i++) {
+            EventLogSegment segment = EventLogSegment.open(files.get(i));
+            segments.add(segment);
+            segmentStarts[i + 1] = segmentStarts[i] + segment.getRecordCount();
+            start = Math.min(start, segment.getStartEpochMicros());
+        }
+        this.totalRecords = segmentStarts[files.size()];
+        this.startEpochMicros = start == Long.MAX_VALUE ? 0 : start;
+        this.bucketMicros = Math.max(1, bucketMillis) * 1000;
+        this.parallelism = Math.max(1, parallelism);
+        this.leafRecords = leafRecords > 0
+                ? leafRecords
+                : Math.max(MIN_LEAF_RECORDS, totalRecords / (this.parallelism * 4L) + 1);
+    }
+
+    public void analyze() {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            analysis = pool.invoke(new RangeTask(0, totalRecords));
+        } finally {
+            pool.shutdown();
+        }
+        analysisNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Records [from, to) across all segments, split in halves down to leaf ranges that are scanned
+     * sequentially; the left half is always merged with the right one in that order.
+     */
+    private final class RangeTask extends RecursiveTask<EventLogAnalysis> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+
+        private RangeTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected EventLogAnalysis compute() {
+            if (to - from <= leafRecords) {
+                return scan(from, to);
+            }
+            long middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, middle);
+            left.fork();
+            EventLogAnalysis right = new RangeTask(middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private EventLogAnalysis scan(long from, long to) {
+        EventLogAnalysis result = new EventLogAnalysis(startEpochMicros, bucketMicros);
+        int segment = Arrays.binarySearch(segmentStarts, from);
+        segment = segment >= 0 ? segment : -segment - 2;
+        long position = from;
+        while (position < to && segment < segments.size()) {
+            // Skip empty segments
+            if (position >= segmentStarts[segment + 1]) {
+                segment++;
+                continue;
+            }
+            ByteBuffer records = segments.get(segment).records();
+            int first = (int) (position - segmentStarts[segment]);
+            int last = (int) (Math.min(to, segmentStarts[segment + 1]) - segmentStarts[segment]);
+            for (int index = first; index < last; index++) {
+                int offset = index * EventRecord.SIZE;
+                result.add(records, offset);
+                ledger.record(EventRecord.eventType(records, offset), EventRecord.userId(records, offset),
+                        EventRecord.sequence(records, offset));
+            }
+            position = segmentStarts[segment] + last;
+            segment++;
+        }
+        return result;
+    }
+
+    /**
+     * Print the results and write the JSON report, the timeline CSV and the charts to the directory.
+     */
+    public void report(Path outputDir, PrintStream out) throws IOException {
+        int users = ledger.maxUserId() + 1;
+        int[] missingAcks = new int[users];
+        int[] missingBroadcasts = new int[users];
+        long sent = ledger.summarize(missingAcks, missingBroadcasts);
+        long totalMissingAcks = Arrays.stream(missingAcks).asLongStream().sum();
+        boolean broadcastsLogged = analysis.counts[EventRecord.BROADCAST][EventRecord.JOIN]
+                + analysis.counts[EventRecord.BROADCAST][EventRecord.TEXT]
+                + analysis.counts[EventRecord.BROADCAST][EventRecord.LEAVE] > 0;
+        long totalMissingBroadcasts = broadcastsLogged ? Arrays.stream(missingBroadcasts).asLongStream().sum() : 0;
+        double spanSeconds = analysis.records > 0 ? (analysis.lastMicros - analysis.firstMicros) / 1e6 : 0;
+
+        out.printf("Analyzed %d records in %d segments in %.3f s (%d threads)%n", analysis.records, segments.size(),
+                analysisNanos / 1e9, parallelism);
+        out.printf("Run span %.3f s; %d messages sent, %d missing an ACK (%d users), %d duplicate ACKs%n",
+                spanSeconds, sent, totalMissingAcks, countPositive(missingAcks), ledger.getDuplicateAcks());
+        if (broadcastsLogged) {
+            out.printf("%d settled messages never broadcast back within the latency tracking timeout (%d users)%n",
+                    totalMissingBroadcasts, countPositive(missingBroadcasts));
+        } else {
+            out.println("No broadcasts logged (client.latency.enabled=false); broadcast checks skipped");
+        }
+
+        Map<String, Object> ordering = new LinkedHashMap<>();
+        for (int kind = 0; kind < EventLogAnalysis.ORDERED_KINDS; kind++) {
+            int[] violations = analysis.violations(kind);
+            long total = Arrays.stream(violations).asLongStream().sum();
+            String name = EventLogAnalysis.ORDERED_KIND_NAMES[kind];
+            out.printf("%-9s ordering: %d violations across %d users, %d duplicates%n", name, total,
+                    countPositive(violations), analysis.duplicates[kind]);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("violations", total);
+            entry.put("usersAffected", countPositive(violations));
+            entry.put("duplicates", analysis.duplicates[kind]);
+            ordering.put(name, entry);
+        }
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (int kind : new int[] {EventLogAnalysis.ACK_KIND, EventLogAnalysis.BROADCAST_KIND}) {
+            String name = EventLogAnalysis.ORDERED_KIND_NAMES[kind];
+            Map<String, Object> perType = new LinkedHashMap<>();
+            Histogram all = analysis.latency(kind);
+            perType.put("ALL", latencySummary(all));
+            for (byte type = EventRecord.JOIN; type <= EventRecord.LEAVE; type++) {
+                Histogram histogram = analysis.latency[kind][type];
+                if (histogram != null) {
+                    perType.put(EventRecord.messageName(type), latencySummary(histogram));
+                }
+            }
+            latency.put(name, perType);
+            if (all.getTotalCount() > 0) {
+                out.printf("%s latency ms: p50=%.3f p99=%.3f p99.9=%.3f max=%.3f (%d timed)%n", name,
+                        all.getValueAtPercentile(50) / 1000.0, all.getValueAtPercentile(99) / 1000.0,
+                        all.getValueAtPercentile(99.9) / 1000.0, all.getMaxValue() / 1000.0, all.getTotalCount());
+            }
+        }
+
+        Map<String, Object> counts = new LinkedHashMap<>();
+        for (byte event = EventRecord.SEND; event <= EventRecord.ACK_FAILED; event++) {
+            Map<String, Long> perType = new LinkedHashMap<>();
+            for (byte type = 0; type <= EventRecord.LEAVE; type++) {
+                perType.put(EventRecord.messageName(type), analysis.counts[event][type]);
+            }
+            counts.put(EventRecord.eventName(event), perType);
+        }
+
+        Map<String, Object> messages = new LinkedHashMap<>();
+        messages.put("sent", sent);
+        messages.put("missingAcks", totalMissingAcks);
+        messages.put("usersMissingAcks", countPositive(missingAcks));
+        messages.put("duplicateAcks", ledger.getDuplicateAcks());
+        messages.put("missingBroadcasts", broadcastsLogged ? totalMissingBroadcasts : null);
+
+        RunSummary runSummary = findRunSummary();
+        Map<String, Object> runCheck = null;
+        if (runSummary != null) {
+            long acked = analysis.counts[EventRecord.ACK][EventRecord.JOIN]
+                    + analysis.counts[EventRecord.ACK][EventRecord.TEXT]
+                    + analysis.counts[EventRecord.ACK][EventRecord.LEAVE];
+            out.printf("Run summary: %d sent, %d successful, %d events dropped by the logger; log: %d sent, %d ACKs%n",
+                    runSummary.sent(), runSummary.success(), runSummary.eventLogDropped(), sent, acked);
+            if (runSummary.eventLogDropped() > 0) {
+                out.println("WARNING: the event log dropped events; missing ACKs and ordering are approximate");
+            }
+            runCheck = new LinkedHashMap<>();
+            runCheck.put("summary", runSummary);
+            runCheck.put("sentInLog", sent);
+            runCheck.put("acksInLog", acked);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("segments", segments.stream().map(segment -> segment.getFile().toString()).toList());
+        report.put("records", analysis.records);
+        report.put("spanSeconds", spanSeconds);
+        report.put("analysisSeconds", analysisNanos / 1e9);
+        report.put("counts", counts);
+        report.put("messages", messages);
+        report.put("ordering", ordering);
+        report.put("latency", latency);
+        report.put("topUsers", topUsers(missingAcks, broadcastsLogged ? missingBroadcasts : new int[users]));
+        report.put("runSummary", runCheck);
+
+        String suffix = runTimestamp();
+        Files.createDirectories(outputDir);
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(outputDir.resolve("event_analysis_" + suffix + ".json").toFile(), report);
+        writeTimeline(outputDir.resolve("event_analysis_timeline_" + suffix + ".csv"));
+        if (analysis.records > 0) {
+            writeThroughputChart(outputDir.resolve("event_analysis_throughput_" + suffix));
+            writeLatencyChart(outputDir.resolve("event_analysis_latency_" + suffix));
+        }
+        out.printf("Analysis written to %s (event_analysis_*_%s)%n", outputDir.toAbsolutePath(), suffix);
+    }
+
+    private List<Map<String, Object>> topUsers(int[] missingAcks, int[] missingBroadcasts) {
+        int[] sendViolations = analysis.violations(EventLogAnalysis.SEND_KIND);
+        int[] ackViolations = analysis.violations(EventLogAnalysis.ACK_KIND);
+        int[] broadcastViolations = analysis.violations(EventLogAnalysis.BROADCAST_KIND);
+        int users = Math.max(ackViolations.length, missingAcks.length);
+        List<int[]> rows = new ArrayList<>();
+        for (int userId = 1; userId < users; userId++) {
+            int[] row = {userId, at(sendViolations, userId), at(ackViolations, userId),
+                    at(broadcastViolations, userId), at(missingAcks, userId), at(missingBroadcasts, userId)};
+            if (row[1] + row[2] + row[3] + row[4] + row[5] > 0) {
+                rows.add(row);
+            }
+        }
+        return rows.stream()
+                .sorted(Comparator.comparingInt((int[] row) -> row[2] + row[3] + row[4] + row[5])
+                        .reversed())
+                .limit(TOP_USERS)
+                .map(row -> {
+                    Map<String, Object> user = new LinkedHashMap<>();
+                    user.put("userId", row[0]);
+                    user.put("sendOrderViolations", row[1]);
+                    user.put("ackOrderViolations", row[2]);
+                    user.put("broadcastOrderViolations", row[3]);
+                    user.put("missingAcks", row[4]);
+                    user.put("missingBroadcasts", row[5]);
+                    return user;
+                })
+                .toList();
+    }
+
+    private void writeTimeline(Path file) throws IOException {
+        int buckets = 0;
+        for (long[] perBucket : analysis.acksPerBucket.values()) {
+            buckets = Math.max(buckets, perBucket.length);
+        }
+        for (long[] perBucket : analysis.sendsPerBucket.values()) {
+            buckets = Math.max(buckets, perBucket.length);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("bucketStartSeconds,roomId,sends,acks\n");
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                double seconds = bucket * (bucketMicros / 1e6);
+                for (Integer roomId : rooms()) {
+                    long sends = at(analysis.sendsPerBucket.get(roomId), bucket);
+                    long acks = at(analysis.acksPerBucket.get(roomId), bucket);
+                    if (sends + acks > 0) {
+                        writer.write(String.format("%.3f,%d,%d,%d%n", seconds, roomId, sends, acks));
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeThroughputChart(Path file) throws IOException {
+        XYChart chart = new XYChartBuilder()
+                .width(1200).height(700)
+                .title("ACK throughput per room")
+                .xAxisTitle("Seconds since run start")
+                .yAxisTitle("ACKs/s")
+                .build();
+        double bucketSeconds = bucketMicros / 1e6;
+        int buckets = analysis.acksPerBucket.values().stream().mapToInt(perBucket -> perBucket.length).max().orElse(0);
+        // Trailing empty buckets of the arrays' spare capacity are not part of the run
+        int lastBucket = (int) Math.min(buckets, (analysis.lastMicros - startEpochMicros) / bucketMicros + 1);
+        if (lastBucket <= 0) {
+            return;
+        }
+        double[] x = new double[lastBucket];
+        double[] total = new double[lastBucket];
+        for (int bucket = 0; bucket < lastBucket; bucket++) {
+            x[bucket] = bucket * bucketSeconds;
+        }
+
+        // Busiest rooms get their own line; all rooms together are the total
+        List<Integer> busiest = analysis.acksPerBucket.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Integer, long[]> entry) ->
+                        Arrays.stream(entry.getValue()).sum()).reversed())
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+        for (Map.Entry<Integer, long[]> entry : analysis.acksPerBucket.entrySet()) {
+            double[] rate = new double[lastBucket];
+            for (int bucket = 0; bucket < lastBucket; bucket++) {
+                rate[bucket] = at(entry.getValue(), bucket) / bucketSeconds;
+                total[bucket] += rate[bucket];
+            }
+            if (busiest.contains(entry.getKey())) {
+                chart.addSeries("room " + entry.getKey(), x, rate)
+                        .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line);
+            }
+        }
+        chart.addSeries("all rooms", x, total).setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line);
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+
+    private void writeLatencyChart(Path file) throws IOException {
+        XYChart chart = new XYChartBuilder()
+                .width(900).height(600)
+                .title("Latency distribution")
+                .xAxisTitle("Percentile (nines: 1 = p90, 2 = p99, 3 = p99.9)")
+                .yAxisTitle("Latency (ms)")
+                .build();
+        boolean any = false;
+        for (int kind : new int[] {EventLogAnalysis.ACK_KIND, EventLogAnalysis.BROADCAST_KIND}) {
+            Histogram histogram = analysis.latency(kind);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            double[] x = new double[PERCENTILES.length];
+            double[] y = new double[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                x[i] = -Math.log10(1 - PERCENTILES[i] / 100);
+                y[i] = histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0;
+            }
+            chart.addSeries(EventLogAnalysis.ORDERED_KIND_NAMES[kind], x, y);
+            any = true;
+        }
+        if (any) {
+            BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+        }
+    }
+
+    private List<Integer> rooms() {
+        List<Integer> rooms = new ArrayList<>(analysis.acksPerBucket.keySet());
+        analysis.sendsPerBucket.keySet().stream().filter(room -> !rooms.contains(room)).forEach(rooms::add);
+        rooms.sort(Integer::compare);
+        return rooms;
+    }
+
+    private static Map<String, Object> latencySummary(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            summary.put("meanMs", histogram.getMean() / 1000.0);
+            summary.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+            summary.put("p90Ms", histogram.getValueAtPercentile(90) / 1000.0);
+            summary.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+            summary.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+            summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+        }
+        return summary;
+    }
+
+    /**
+     * The run_summary_*.json of this run: the first one written after the run's segments, in their directory.
+     */
+    private RunSummary findRunSummary() {
+        if (segments.isEmpty()) {
+            return null;
+        }
+        Path directory = segments.get(0).getFile().toAbsolutePath().getParent();
+        String runStart = "run_summary_" + runTimestamp();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path file = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith("run_summary_") && name.endsWith(".json") && name.compareTo(runStart) >= 0;
+            }).min(Comparator.naturalOrder()).orElse(null);
+            if (file == null) {
+                return null;
+            }
+            return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .readValue(file.toFile(), RunSummary.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The timestamp in the segment file names (user_events_&lt;timestamp&gt;_&lt;index&gt;.bin), or now.
+     */
+    private String runTimestamp() {
+        if (!segments.isEmpty()) {
+            String name = segments.get(0).getFile().getFileName().toString();
+            String prefix = EventLogSegment.runPrefix("");
+            if (name.startsWith(prefix) && name.length() >= prefix.length() + 15) {
+                return name.substring(prefix.length(), prefix.length() + 15);
+            }
+        }
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+    }
+
+    private static int countPositive(int[] values) {
+        int count = 0;
+        for (int value : values) {
+            if (value > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int at(int[] values, int index) {
+        return index < values.length ? values[index] : 0;
+    }
+
+    private static long at(long[] values, int index) {
+        return values != null && index < values.length ? values[index] : 0;
+    }
+}
@@ -0,0 +1,117 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One segment file of the binary event log, mapped read-only.
+ *
+ * A segment starts with a 64-byte header followed by {@link EventRecord}s:
+ * <pre>
+ *  0  int   magic "CEVT"
+ *  4  short format version
+ *  6  short record size
+ *  8  int   segment index within the run
+ * 16  long  run start, epoch microseconds
+ * 24  long  committed record count
+ * </pre>
+ */
+public final class EventLogSegment {
+
+    public static final int HEADER_SIZE = 64;
+    static final int MAGIC = 0x43455654;
+    static final short VERSION = 1;
+    static final int COUNT_OFFSET = 24;
+
+    // File names of the segments written by one run: user_events_<yyyyMMdd_HHmmss>_<index>.bin
+    private static final String FILE_PREFIX = "user_events_";
+    private static final int RUN_PREFIX_LENGTH = FILE_PREFIX.length() + "yyyyMMdd_HHmmss".length();
+
+    private final Path file;
+    private final int index;
+    private final long startEpochMicros;
+    private final int recordCount;
+    private final ByteBuffer records;
+
+    private EventLogSegment(Path file, int index, long startEpochMicros, int recordCount, ByteBuffer records) {
+        this.file = file;
+        this.index = index;
+        this.startEpochMicros = startEpochMicros;
+        this.recordCount = recordCount;
+        this.records = records;
+    }
+
+    public static EventLogSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(file + " is not an event log segment (too short)");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getShort(4) != VERSION || mapped.getShort(6) != EventRecord.SIZE) {
+                throw new IOException(file + " is not a version " + VERSION + " event log segment");
+            }
+            // A segment still being written (or cut short) may be longer than its committed count
+            long count = Math.min(mapped.getLong(COUNT_OFFSET), (size - HEADER_SIZE) / EventRecord.SIZE);
+            ByteBuffer records = mapped.position(HEADER_SIZE).limit(HEADER_SIZE + (int) count * EventRecord.SIZE)
+                    .slice();
+            return new EventLogSegment(file, mapped.getInt(8), mapped.getLong(16), (int) count, records);
+        }
+    }
+
+    /**
+     * The segments a path stands for, in order: a segment file itself, or for a directory every segment
+     * of the most recent run in it.
+     */
+    public static List<Path> segmentsOf(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        List<Path> all;
+        try (Stream<Path> files = Files.list(path)) {
+            all = files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(".bin") && name.length() > RUN_PREFIX_LENGTH;
+            }).sorted().toList();
+        }
+        if (all.isEmpty()) {
+            return all;
+        }
+        String latestRun = all.get(all.size() - 1).getFileName().toString().substring(0, RUN_PREFIX_LENGTH);
+        return all.stream().filter(file -> file.getFileName().toString().startsWith(latestRun)).toList();
+    }
+
+    static String runPrefix(String timestamp) {
+        return FILE_PREFIX + timestamp;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * The committed records, from position 0; read them with the {@link EventRecord} accessors at
+     * multiples of {@link EventRecord#SIZE}. Every call returns an independent view.
+     */
+    public ByteBuffer records() {
+        return records.duplicate();
+    }
+}
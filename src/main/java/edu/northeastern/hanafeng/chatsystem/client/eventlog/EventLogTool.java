@@ -0,0 +1,240 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline reader of the binary user event log.
+ *
+ * <pre>
+ * eventlog csv   &lt;segment or logs dir&gt;... [--out=events.csv] [filters]   records as CSV (stdout by default)
+ * eventlog stats &lt;segment or logs dir&gt;... [filters]                    counts, per-room totals and latencies
+ * eventlog analyze &lt;segment or logs dir&gt;... [--out-dir=&lt;dir&gt;] [--bucket-ms=1000] [--parallelism=&lt;n&gt;]
+ *                                                                    ordering, missing ACKs, timelines and charts
+ *
+ * filters (csv and stats only): --user=&lt;id&gt; --room=&lt;id&gt;
+ *     --event=SEND|ACK|BROADCAST|ERROR|ACK_FAILED --type=JOIN|TEXT|LEAVE
+ * </pre>
+ *
+ * A directory stands for every segment of the most recent run in it. The analysis goes next to the
+ * segments unless --out-dir is given; see {@link EventLogAnalyzer}.
+ */
+public final class EventLogTool {
+
+    private static final String USAGE = "usage: eventlog csv|stats <segment or directory>... [--out=<file>] "
+            + "[--user=<id>] [--room=<id>] [--event=<type>] [--type=JOIN|TEXT|LEAVE]\n"
+            + "       eventlog analyze <segment or directory>... [--out-dir=<dir>] [--bucket-ms=<ms>] "
+            + "[--parallelism=<threads>]";
+
+    private final List<Path> segments = new ArrayList<>();
+    private Path out;
+    private int user = -1;
+    private int room = -1;
+    private byte event = -1;
+    private byte messageType = -1;
+    private Path outDir;
+    private long bucketMillis = 1000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private EventLogTool() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        EventLogTool tool = new EventLogTool();
+        try {
+            tool.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (tool.segments.isEmpty()) {
+            System.err.println("No event log segments found");
+            System.exit(1);
+        }
+        switch (args[0]) {
+            case "csv" -> tool.csv();
+            case "stats" -> tool.stats();
+            case "analyze" -> tool.analyze();
+            default -> {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+    }
+
+    private void parse(String[] args) throws IOException {
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                segments.addAll(EventLogSegment.segmentsOf(Paths.get(arg)));
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Option needs a value: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "out" -> out = Paths.get(value);
+                case "out-dir" -> outDir = Paths.get(value);
+                case "bucket-ms" -> bucketMillis = Long.parseLong(value);
+                case "parallelism" -> parallelism = Integer.parseInt(value);
+                case "user" -> user = Integer.parseInt(value);
+                case "room" -> room = Integer.parseInt(value);
+                case "event" -> {
+                    event = EventRecord.eventType(value);
+                    if (event < 0) {
+                        throw new IllegalArgumentException("Unknown event type: " + value);
+                    }
+                }
+                case "type" -> {
+                    messageType = EventRecord.messageType(value.toUpperCase());
+                    if (messageType == EventRecord.UNKNOWN_TYPE) {
+                        throw new IllegalArgumentException("Unknown message type: " + value);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private boolean matches(ByteBuffer records, int offset) {
+        return (user < 0 || EventRecord.userId(records, offset) == user)
+                && (room < 0 || EventRecord.roomId(records, offset) == room)
+                && (event < 0 || EventRecord.eventType(records, offset) == event)
+                && (messageType < 0 || EventRecord.messageType(records, offset) == messageType);
+    }
+
+    private void csv() throws IOException {
+        Writer target = out != null
+                ? Files.newBufferedWriter(out, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        long rows = 0;
+        try (BufferedWriter writer = new BufferedWriter(target, 1 << 16)) {
+            writer.write("timestampMicros,userId,roomId,eventType,messageType,sequence,latencyMicros\n");
+            StringBuilder row = new StringBuilder(96);
+            for (Path file : segments) {
+                EventLogSegment segment = EventLogSegment.open(file);
+                ByteBuffer records = segment.records();
+                int end = segment.getRecordCount() * EventRecord.SIZE;
+                for (int offset = 0; offset < end; offset += EventRecord.SIZE) {
+                    if (!matches(records, offset)) {
+                        continue;
+                    }
+                    row.setLength(0);
+                    row.append(EventRecord.timestampMicros(records, offset)).append(',')
+                            .append(EventRecord.userId(records, offset)).append(',')
+                            .append(EventRecord.roomId(records, offset)).append(',')
+                            .append(EventRecord.eventName(EventRecord.eventType(records, offset))).append(',')
+                            .append(EventRecord.messageName(EventRecord.messageType(records, offset))).append(',')
+                            .append(EventRecord.sequence(records, offset)).append(',')
+                            .append(EventRecord.latencyMicros(records, offset)).append('\n');
+                    writer.append(row);
+                    rows++;
+                }
+            }
+        }
+        if (out != null) {
+            System.out.printf("%d rows written to %s%n", rows, out.toAbsolutePath());
+        }
+    }
+
+    private void stats() throws IOException {
+        long total = 0;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        long[][] byType = new long[8][4];
+        Map<Integer, long[]> byRoom = new TreeMap<>();
+        Histogram ackLatency = new Histogram(3);
+        Histogram broadcastLatency = new Histogram(3);
+
+        for (Path file : segments) {
+            EventLogSegment segment = EventLogSegment.open(file);
+            ByteBuffer records = segment.records();
+            int end = segment.getRecordCount() * EventRecord.SIZE;
+            for (int offset = 0; offset < end; offset += EventRecord.SIZE) {
+                if (!matches(records, offset)) {
+                    continue;
+                }
+                total++;
+                long timestamp = EventRecord.timestampMicros(records, offset);
+                first = Math.min(first, timestamp);
+                last = Math.max(last, timestamp);
+                byte eventType = EventRecord.eventType(records, offset);
+                byte type = EventRecord.messageType(records, offset);
+                byType[eventType & 7][type & 3]++;
+                byRoom.computeIfAbsent(EventRecord.roomId(records, offset), r -> new long[8])[eventType & 7]++;
+
+                int latency = EventRecord.latencyMicros(records, offset);
+                if (latency >= 0) {
+                    if (eventType == EventRecord.ACK) {
+                        ackLatency.recordValue(latency);
+                    } else if (eventType == EventRecord.BROADCAST) {
+                        broadcastLatency.recordValue(latency);
+                    }
+                }
+            }
+        }
+
+        System.out.printf("Segments: %d, records: %d%n", segments.size(), total);
+        if (total == 0) {
+            return;
+        }
+        double seconds = (last - first) / 1e6;
+        System.out.printf("Span: %.3f s (%.0f events/s)%n", seconds, seconds > 0 ? total / seconds : 0);
+
+        System.out.printf("%n%-11s %12s %12s %12s %12s%n", "event", "JOIN", "TEXT", "LEAVE", "UNKNOWN");
+        for (byte eventType = EventRecord.SEND; eventType <= EventRecord.ACK_FAILED; eventType++) {
+            long[] counts = byType[eventType];
+            System.out.printf("%-11s %12d %12d %12d %12d%n", EventRecord.eventName(eventType),
+                    counts[EventRecord.JOIN], counts[EventRecord.TEXT], counts[EventRecord.LEAVE],
+                    counts[EventRecord.UNKNOWN_TYPE]);
+        }
+
+        System.out.printf("%n%-6s %12s %12s %12s %12s %12s%n", "room", "SEND", "ACK", "BROADCAST", "ERROR",
+                "ACK_FAILED");
+        byRoom.forEach((roomId, counts) -> System.out.printf("%-6d %12d %12d %12d %12d %12d%n", roomId,
+                counts[EventRecord.SEND], counts[EventRecord.ACK], counts[EventRecord.BROADCAST],
+                counts[EventRecord.ERROR], counts[EventRecord.ACK_FAILED]));
+
+        System.out.println();
+        printLatency("ACK", ackLatency);
+        printLatency("BROADCAST", broadcastLatency);
+    }
+
+    private void analyze() throws IOException {
+        EventLogAnalyzer analyzer = new EventLogAnalyzer(segments, bucketMillis, parallelism);
+        analyzer.analyze();
+        Path directory = outDir != null ? outDir : segments.get(0).toAbsolutePath().getParent();
+        analyzer.report(directory, System.out);
+    }
+
+    private static void printLatency(String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            System.out.printf("%-9s latency: not timed%n", name);
+            return;
+        }
+        System.out.printf("%-9s latency ms: count=%d mean=%.3f p50=%.3f p95=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+                name, histogram.getTotalCount(), histogram.getMean() / 1000.0,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(95) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
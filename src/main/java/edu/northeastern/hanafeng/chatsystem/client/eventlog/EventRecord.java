@@ -0,0 +1,100 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of one user event in the binary event log: 32 bytes, big-endian.
+ *
+ * <pre>
+ *  0  long  timestamp, epoch microseconds
+ *  8  int   userId (the sender; 0 if unknown)
+ * 12  int   roomId
+ * 16  int   the user's message sequence (0 = JOIN), -1 if unknown
+ * 20  int   latency in microseconds since the send (ACK and BROADCAST), -1 if not timed
+ * 24  byte  event type
+ * 25  byte  message type
+ * 26  6 bytes reserved, zero
+ * </pre>
+ */
+public final class EventRecord {
+
+    public static final int SIZE = 32;
+
+    public static final byte SEND = 1;
+    public static final byte ACK = 2;
+    public static final byte BROADCAST = 3;
+    public static final byte ERROR = 4;
+    public static final byte ACK_FAILED = 5;
+
+    public static final byte UNKNOWN_TYPE = 0;
+    public static final byte JOIN = 1;
+    public static final byte TEXT = 2;
+    public static final byte LEAVE = 3;
+
+    private static final String[] EVENT_NAMES = {"UNKNOWN", "SEND", "ACK", "BROADCAST", "ERROR", "ACK_FAILED"};
+    private static final String[] MESSAGE_NAMES = {"UNKNOWN", "JOIN", "TEXT", "LEAVE"};
+
+    private EventRecord() {}
+
+    public static byte messageType(String messageType) {
+        if (messageType == null) {
+            return UNKNOWN_TYPE;
+        }
+        return switch (messageType) {
+            case "JOIN" -> JOIN;
+            case "TEXT" -> TEXT;
+            case "LEAVE" -> LEAVE;
+            default -> UNKNOWN_TYPE;
+        };
+    }
+
+    public static String eventName(byte eventType) {
+        return eventType > 0 && eventType < EVENT_NAMES.length ? EVENT_NAMES[eventType] : EVENT_NAMES[0];
+    }
+
+    /**
+     * The event type with the given name, ignoring case; -1 if there is none.
+     */
+    public static byte eventType(String name) {
+        for (byte i = 1; i < EVENT_NAMES.length; i++) {
+            if (EVENT_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static String messageName(byte messageType) {
+        return messageType > 0 && messageType < MESSAGE_NAMES.length ? MESSAGE_NAMES[messageType] : MESSAGE_NAMES[0];
+    }
+
+    // Accessors over a buffer of records, offset being the start of the record
+
+    public static long timestampMicros(ByteBuffer records, int offset) {
+        return records.getLong(offset);
+    }
+
+    public static int userId(ByteBuffer records, int offset) {
+        return records.getInt(offset + 8);
+    }
+
+    public static int roomId(ByteBuffer records, int offset) {
+        return records.getInt(offset + 12);
+    }
+
+    public static int sequence(ByteBuffer records, int offset) {
+        return records.getInt(offset + 16);
+    }
+
+    public static int latencyMicros(ByteBuffer records, int offset) {
+        return records.getInt(offset + 20);
+    }
+
+    public static byte eventType(ByteBuffer records, int offset) {
+        return records.get(offset + 24);
+    }
+
+    public static byte messageType(ByteBuffer records, int offset) {
+        return records.get(offset + 25);
+    }
+}
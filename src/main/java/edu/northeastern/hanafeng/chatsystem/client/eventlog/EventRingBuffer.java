@@ -0,0 +1,105 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free multi-producer, single-consumer ring of event records, each held as four longs in the byte
+ * layout of {@link EventRecord}. A producer claims a sequence with one CAS, fills its slot and publishes
+ * it by storing the sequence in the slot's stamp; the consumer drains published slots in order. A full
+ * ring never blocks a producer: the event is dropped and counted.
+ */
+final class EventRingBuffer {
+
+    /**
+     * Receives drained records in order.
+     */
+    interface RecordSink {
+        void accept(long word0, long word1, long word2, long word3);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] slots;
+    // Slot i holds sequence s once published[i] == s + 1
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    // Next sequence to consume; written by the consumer only
+    private volatile long head;
+
+    EventRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new long[capacity * 4];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * @return false if the ring was full and the event dropped
+     */
+    boolean offer(long timestampMicros, int userId, int roomId, int sequence, int latencyMicros,
+                  byte eventType, byte messageType) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= capacity) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+
+        int index = (int) (claimed & mask);
+        int base = index << 2;
+        slots[base] = timestampMicros;
+        slots[base + 1] = ((long) userId << 32) | (roomId & 0xFFFFFFFFL);
+        slots[base + 2] = ((long) sequence << 32) | (latencyMicros & 0xFFFFFFFFL);
+        slots[base + 3] = ((long) (eventType & 0xFF) << 56) | ((long) (messageType & 0xFF) << 48);
+        published.setRelease(index, claimed + 1);
+        return true;
+    }
+
+    /**
+     * Hand up to max published records to the sink, in sequence order.
+     *
+     * @return the number of records drained
+     */
+    int drain(RecordSink sink, int max) {
+        long next = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (next & mask);
+            if (published.getAcquire(index) != next + 1) {
+                break;
+            }
+            int base = index << 2;
+            sink.accept(slots[base], slots[base + 1], slots[base + 2], slots[base + 3]);
+            next++;
+            drained++;
+        }
+        if (drained > 0) {
+            head = next;
+        }
+        return drained;
+    }
+
+    /**
+     * Records claimed but not yet drained.
+     */
+    long getPending() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,113 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends event records to memory-mapped segment files of a fixed size, rolling over to the next segment
+ * when one is full. The record count in the segment header is updated after every batch, so a reader
+ * (or a crashed run) sees every committed record; a closed segment is truncated to its records.
+ * Single-threaded: only the event writer thread uses it.
+ */
+final class EventSegmentWriter implements Closeable {
+
+    private final Path directory;
+    private final String prefix;
+    private final long segmentBytes;
+    private final long startEpochMicros;
+    private final List<Path> segments = new ArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentRecords;
+    private long totalRecords;
+
+    /**
+     * @param prefix file name prefix; segments are prefix_00000.bin, prefix_00001.bin, ...
+     */
+    EventSegmentWriter(Path directory, String prefix, long segmentBytes, long startEpochMicros) throws IOException {
+        if (segmentBytes < EventLogSegment.HEADER_SIZE + EventRecord.SIZE || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between one record and 2 GB, got " + segmentBytes);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        // Whole records only
+        this.segmentBytes = EventLogSegment.HEADER_SIZE
+                + (segmentBytes - EventLogSegment.HEADER_SIZE) / EventRecord.SIZE * EventRecord.SIZE;
+        this.startEpochMicros = startEpochMicros;
+        openSegment();
+    }
+
+    void write(long word0, long word1, long word2, long word3) {
+        if (buffer.remaining() < EventRecord.SIZE) {
+            try {
+                finishSegment();
+                openSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        buffer.putLong(word0);
+        buffer.putLong(word1);
+        buffer.putLong(word2);
+        buffer.putLong(word3);
+        segmentRecords++;
+        totalRecords++;
+    }
+
+    /**
+     * Make the records written so far visible to readers through the header count.
+     */
+    void commit() {
+        buffer.putLong(EventLogSegment.COUNT_OFFSET, segmentRecords);
+    }
+
+    long getTotalRecords() {
+        return totalRecords;
+    }
+
+    List<Path> getSegments() {
+        return segments;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            finishSegment();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path file = directory.resolve(String.format("%s_%05d.bin", prefix, segments.size()));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(EventLogSegment.MAGIC);
+        buffer.putShort(EventLogSegment.VERSION);
+        buffer.putShort((short) EventRecord.SIZE);
+        buffer.putInt(segments.size());
+        buffer.putInt(0);
+        buffer.putLong(startEpochMicros);
+        buffer.putLong(0);
+        buffer.position(EventLogSegment.HEADER_SIZE);
+        segments.add(file);
+        segmentRecords = 0;
+    }
+
+    private void finishSegment() throws IOException {
+        commit();
+        buffer.force();
+        buffer = null;
+        // Unused mapped space is dropped; the mapping itself is never touched again
+        channel.truncate(EventLogSegment.HEADER_SIZE + segmentRecords * EventRecord.SIZE);
+        channel.close();
+        channel = null;
+    }
+}
@@ -0,0 +1,113 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Which messages of each user were sent, settled (ACKed or given up on) and broadcast back, as bits per
+ * sequence number: memory stays at a few bits per message however the records are split up, and all
+ * analyzer tasks share one ledger. Each user's bits are guarded by that user's own lock, so tasks only
+ * contend when they hit the same user at the same time.
+ */
+final class MessageLedger {
+
+    private static final class UserBits {
+        final BitSet sent = new BitSet();
+        final BitSet settled = new BitSet();
+        final BitSet broadcast = new BitSet();
+    }
+
+    private volatile AtomicReferenceArray<UserBits> users = new AtomicReferenceArray<>(1024);
+    private final LongAdder duplicateAcks = new LongAdder();
+
+    void record(byte eventType, int userId, int sequence) {
+        if (userId <= 0 || sequence < 0) {
+            return;
+        }
+        UserBits bits = user(userId);
+        synchronized (bits) {
+            switch (eventType) {
+                case EventRecord.SEND -> bits.sent.set(sequence);
+                case EventRecord.ACK -> {
+                    if (bits.settled.get(sequence)) {
+                        duplicateAcks.increment();
+                    }
+                    bits.settled.set(sequence);
+                }
+                case EventRecord.ACK_FAILED -> bits.settled.set(sequence);
+                case EventRecord.BROADCAST -> bits.broadcast.set(sequence);
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Per-user totals, once every record went through {@link #record}.
+     *
+     * @param missingAcks per user: sent but never ACKed nor given up on
+     * @param missingBroadcasts per user: ACKed but never broadcast back
+     * @return messages sent in total
+     */
+    long summarize(int[] missingAcks, int[] missingBroadcasts) {
+        AtomicReferenceArray<UserBits> current = users;
+        long sent = 0;
+        for (int userId = 1; userId < current.length() && userId < missingAcks.length; userId++) {
+            UserBits bits = current.get(userId);
+            if (bits == null) {
+                continue;
+            }
+            synchronized (bits) {
+                sent += bits.sent.cardinality();
+                BitSet unsettled = (BitSet) bits.sent.clone();
+                unsettled.andNot(bits.settled);
+                missingAcks[userId] = unsettled.cardinality();
+                BitSet unbroadcast = (BitSet) bits.settled.clone();
+                unbroadcast.and(bits.sent);
+                unbroadcast.andNot(bits.broadcast);
+                missingBroadcasts[userId] = unbroadcast.cardinality();
+            }
+        }
+        return sent;
+    }
+
+    int maxUserId() {
+        AtomicReferenceArray<UserBits> current = users;
+        for (int userId = current.length() - 1; userId > 0; userId--) {
+            if (current.get(userId) != null) {
+                return userId;
+            }
+        }
+        return 0;
+    }
+
+    long getDuplicateAcks() {
+        return duplicateAcks.sum();
+    }
+
+    private UserBits user(int userId) {
+        AtomicReferenceArray<UserBits> current = users;
+        UserBits bits = userId < current.length() ? current.get(userId) : null;
+        return bits != null ? bits : createUser(userId);
+    }
+
+    // Every write to the user arrays happens here, so growing never loses a user added concurrently
+    private synchronized UserBits createUser(int userId) {
+        AtomicReferenceArray<UserBits> current = users;
+        if (userId >= current.length()) {
+            AtomicReferenceArray<UserBits> grown =
+                    new AtomicReferenceArray<>(Math.max(current.length() * 2, userId + 1));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            users = grown;
+            current = grown;
+        }
+        UserBits bits = current.get(userId);
+        if (bits == null) {
+            bits = new UserBits();
+            current.set(userId, bits);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,210 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import edu.northeastern.hanafeng.chatsystem.client.support.MessageIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-user event log of a run: every frame sent, ACK, first broadcast of an own message, error response
+ * and given-up ACK, as fixed-width binary records (see {@link EventRecord}) in memory-mapped segment files
+ * user_events_&lt;timestamp&gt;_&lt;index&gt;.bin in the logs directory.
+ *
+ * Senders and receivers only claim a slot in a lock-free ring and never wait; one writer thread copies
+ * the ring into the mapped segment. When the ring is full the event is dropped and counted rather than
+ * slowing the run down. {@link EventLogTool} turns the segments into CSV, aggregates or a full analysis offline.
+ */
+@Slf4j
+@Service
+public class UserEventLogger {
+
+    private static final int DRAIN_BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long SHUTDOWN_WAIT_MS = 5000;
+
+    @Value("${client.logs.directory:./logs}")
+    private String logsDirectory;
+
+    @Value("${client.event-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${client.event-log.ring-capacity:1048576}")
+    private int ringCapacity;
+
+    @Value("${client.event-log.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    // What producers log into; null before initialize, after shutdown and when disabled
+    private volatile EventRingBuffer ring;
+    private EventRingBuffer writerRing;
+    private volatile boolean running;
+    private volatile boolean writeFailed;
+    // Set when shutdown stops waiting for the writer, which then closes the segment itself when it stops
+    private volatile boolean abandoned;
+    private volatile boolean writerExited;
+    private final AtomicBoolean segmentClosed = new AtomicBoolean();
+    private EventSegmentWriter segmentWriter;
+    private Thread writerThread;
+    private long startNanos;
+    private long startEpochMicros;
+
+    public void initialize() {
+        if (!enabled) {
+            log.info("UserEventLogger disabled (client.event-log.enabled=false)");
+            return;
+        }
+        try {
+            Path logsPath = Paths.get(logsDirectory);
+            Files.createDirectories(logsPath);
+
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            startNanos = System.nanoTime();
+            segmentWriter = new EventSegmentWriter(logsPath, EventLogSegment.runPrefix(timestamp), segmentBytes,
+                    startEpochMicros);
+
+            running = true;
+            writerRing = new EventRingBuffer(ringCapacity);
+            ring = writerRing;
+            EventSegmentWriter writer = segmentWriter;
+            writerThread = new Thread(() -> processEvents(writer));
+            writerThread.setName("user-event-writer");
+            writerThread.setDaemon(false);
+            writerThread.start();
+
+            log.info("✅ UserEventLogger initialized: {}/{}_*.bin (ring {} events, segments of {} bytes)",
+                    logsDirectory, EventLogSegment.runPrefix(timestamp), ringCapacity, segmentBytes);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Failed to initialize UserEventLogger", e);
+        }
+    }
+
+    /**
+     * Record an event without blocking; dropped and counted if the ring is full.
+     *
+     * @param eventType one of the {@link EventRecord} event types
+     * @param userId the sender of the message, 0 if unknown
+     * @param messageId the message's ID, for its sequence; null if unknown
+     * @param latencyMicros time since the message was sent, -1 if not timed
+     */
+    public void logEvent(byte eventType, int userId, int roomId, String messageType, String messageId,
+                         long latencyMicros) {
+        EventRingBuffer target = ring;
+        if (target == null) {
+            return;
+        }
+        long timestamp = startEpochMicros + (System.nanoTime() - startNanos) / 1000;
+        target.offer(timestamp, userId, roomId, MessageIds.sequence(messageId),
+                (int) Math.min(latencyMicros, Integer.MAX_VALUE), eventType, EventRecord.messageType(messageType));
+    }
+
+    private void processEvents(EventSegmentWriter writer) {
+        try {
+            while (!abandoned) {
+                boolean stopping = !running;
+                int drained;
+                try {
+                    drained = writerRing.drain(writer::write, DRAIN_BATCH);
+                    if (drained > 0) {
+                        writer.commit();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to write user events; event logging stops", e);
+                    writeFailed = true;
+                    ring = null;
+                    return;
+                }
+                if (drained == 0) {
+                    if (stopping) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } finally {
+            // Pairs with shutdown: at least one of the two sees the other's flag and closes the segment
+            writerExited = true;
+            if (abandoned && closeSegment(writer)) {
+                log.warn("UserEventLogger writer stopped after shutdown; {} events written, {} left in the ring "
+                        + "were abandoned", writer.getTotalRecords(), writerRing.getPending());
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (segmentWriter == null) {
+            return;
+        }
+        try {
+            log.info("Shutting down UserEventLogger...");
+            // Stop taking events, then let the writer drain what is in the ring
+            ring = null;
+            running = false;
+
+            if (writerThread != null) {
+                writerThread.join(SHUTDOWN_WAIT_MS);
+                if (!writerExited) {
+                    abandoned = true;
+                    if (!writerExited) {
+                        // Closing the segment under a writer still copying into it would fault on the unmapped buffer
+                        log.warn("UserEventLogger writer still busy after {} ms; abandoning {} events left in the ring, "
+                                + "the writer closes the segment when it stops", SHUTDOWN_WAIT_MS,
+                                writerRing.getPending());
+                        segmentWriter = null;
+                        return;
+                    }
+                }
+            }
+            closeSegment(segmentWriter);
+
+            long dropped = writerRing.getDropped();
+            log.info("✅ UserEventLogger closed. Events logged: {}, dropped: {}{}, segments: {}",
+                    segmentWriter.getTotalRecords(), dropped, writeFailed ? " (write failed)" : "",
+                    segmentWriter.getSegments());
+            if (dropped > 0) {
+                log.warn("{} user events were dropped with a full ring; raise client.event-log.ring-capacity",
+                        dropped);
+            }
+            segmentWriter = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted during UserEventLogger shutdown", e);
+        } catch (Exception e) {
+            log.error("Error during UserEventLogger shutdown", e);
+        }
+    }
+
+    /**
+     * Close the segment once, from whichever of shutdown and the writer thread gets here first.
+     *
+     * @return whether this call closed it
+     */
+    private boolean closeSegment(EventSegmentWriter writer) {
+        if (!segmentClosed.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("Failed to close user event segment", e);
+        }
+        return true;
+    }
+
+    /**
+     * Events dropped because the ring was full.
+     */
+    public long getDroppedCount() {
+        return writerRing != null ? writerRing.getDropped() : 0;
+    }
+}
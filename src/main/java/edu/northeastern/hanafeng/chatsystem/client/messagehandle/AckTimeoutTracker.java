@@ -0,0 +1,209 @@
+package edu.northeastern.hanafeng.chatsystem.client.messagehandle;
+
+import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.EventRecord;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.UserEventLogger;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.AckTimeoutStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Times the confirmation of every message sent, so a lost ACK cannot leave a user waiting forever.
+ *
+ * Timeouts live in one hashed timing wheel: arming and cancelling a timeout is O(1), and a single wheel
+ * thread expires them all. When a message's ACK does not arrive within client.ack-timeout-ms (or the send
+ * engine gave up on it), it is resent with the same messageId after an exponential backoff, up to
+ * client.ack.max-resends times per message and client.ack.max-resends-per-user times per user; after
+ * that it is marked failed and the user's lifecycle moves on without it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AckTimeoutTracker {
+
+    private final ClientConfig clientConfig;
+    private final UserHandlerManager userHandlerManager;
+    private final MessageSender messageSender;
+    private final AckTimeoutStatistics statistics;
+    private final UserEventLogger userEventLogger;
+
+    @Value("${client.ack.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${client.ack.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${client.ack.max-resends:3}")
+    private int maxResends;
+
+    @Value("${client.ack.max-resends-per-user:10}")
+    private int maxResendsPerUser;
+
+    @Value("${client.ack.backoff-ms:500}")
+    private long backoffMs;
+
+    @Value("${client.ack.max-backoff-ms:8000}")
+    private long maxBackoffMs;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private HashedWheelTimer wheel;
+    private ExecutorService resendExecutor;
+    private AtomicIntegerArray userResends;
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedWheelTimer(new DefaultThreadFactory("ack-wheel", true),
+                tickMs, TimeUnit.MILLISECONDS, wheelSize);
+        // Resends may block on the send engine's backpressure, so they never run on the wheel thread
+        resendExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ack-resend");
+            t.setDaemon(true);
+            return t;
+        });
+        userResends = new AtomicIntegerArray(clientConfig.getNumUsers() + 1);
+        userHandlerManager.setConfirmationListener(this::confirmed);
+        log.info("ACK timeouts: timeout={}ms, maxResends={}, maxResendsPerUser={}, backoff={}-{}ms, tick={}ms",
+                clientConfig.getAckTimeoutMs(), maxResends, maxResendsPerUser, backoffMs, maxBackoffMs, tickMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        resendExecutor.shutdownNow();
+    }
+
+    /**
+     * Send a message and time its confirmation. Blocks while the send engine applies backpressure.
+     */
+    public void send(ChatMessage message) {
+        Pending entry = new Pending(message);
+        pending.put(message.getMessageId(), entry);
+        dispatch(entry);
+    }
+
+    private void dispatch(Pending entry) {
+        messageSender.sendMessageAsync(entry.message)
+                .whenComplete((sent, error) -> sendCompleted(entry, error == null && Boolean.TRUE.equals(sent)));
+    }
+
+    private void sendCompleted(Pending entry, boolean sent) {
+        if (!isPending(entry)) {
+            return;
+        }
+        if (!sent) {
+            statistics.recordSendFailure();
+            resendOrFail(entry);
+            return;
+        }
+        entry.timeout = wheel.newTimeout(t -> expired(entry), clientConfig.getAckTimeoutMs(), TimeUnit.MILLISECONDS);
+        // The ACK may have arrived while the timeout was being armed
+        if (!isPending(entry)) {
+            entry.timeout.cancel();
+        }
+    }
+
+    /**
+     * The server confirmed a message; its timeout, if armed, is cancelled.
+     */
+    private void confirmed(String messageId) {
+        Pending entry = pending.remove(messageId);
+        if (entry == null) {
+            return;
+        }
+        Timeout timeout = entry.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        if (entry.resends > 0) {
+            statistics.recordConfirmedLate();
+        }
+    }
+
+    private void expired(Pending entry) {
+        if (!isPending(entry)) {
+            return;
+        }
+        statistics.recordTimeout();
+        log.debug("[ACK TIMEOUT] User={} | Type={} | MessageId={} | Resends={}", entry.message.getUserId(),
+                entry.message.getMessageType(), entry.message.getMessageId(), entry.resends);
+        resendOrFail(entry);
+    }
+
+    /**
+     * Only one attempt of a message is in flight at a time, so its resend count is never updated concurrently.
+     */
+    private void resendOrFail(Pending entry) {
+        if (entry.resends >= maxResends) {
+            fail(entry, false);
+            return;
+        }
+        if (userResends.incrementAndGet(entry.userId) > maxResendsPerUser) {
+            fail(entry, true);
+            return;
+        }
+        entry.resends++;
+        long delay = Math.min(maxBackoffMs, backoffMs << Math.min(entry.resends - 1, 20));
+        wheel.newTimeout(t -> resend(entry), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void resend(Pending entry) {
+        if (!isPending(entry)) {
+            return;
+        }
+        statistics.recordResend();
+        try {
+            resendExecutor.execute(() -> dispatch(entry));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void fail(Pending entry, boolean userBudget) {
+        if (!pending.remove(entry.message.getMessageId(), entry)) {
+            return;
+        }
+        statistics.recordFailed(userBudget);
+        log.warn("[ACK FAILED] User={} | Type={} | MessageId={} | no confirmation after {} resends{}",
+                entry.message.getUserId(), entry.message.getMessageType(), entry.message.getMessageId(),
+                entry.resends, userBudget ? " (user resend budget exhausted)" : "");
+        userEventLogger.logEvent(EventRecord.ACK_FAILED, entry.userId, Integer.parseInt(entry.message.getRoomId()),
+                entry.message.getMessageType(), entry.message.getMessageId(), -1);
+        userHandlerManager.handleAckFailure(entry.userId, entry.message.getMessageType(), entry.message.getMessageId());
+    }
+
+    private boolean isPending(Pending entry) {
+        return pending.get(entry.message.getMessageId()) == entry;
+    }
+
+    /**
+     * A message awaiting its confirmation and the timeout currently armed for it.
+     */
+    private static final class Pending {
+        private final ChatMessage message;
+        private final int userId;
+        private volatile int resends;
+        private volatile Timeout timeout;
+
+        private Pending(ChatMessage message) {
+            this.message = message;
+            this.userId = Integer.parseInt(message.getUserId());
+        }
+    }
+}
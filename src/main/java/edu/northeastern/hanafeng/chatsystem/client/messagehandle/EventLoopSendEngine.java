@@ -0,0 +1,314 @@
+package edu.northeastern.hanafeng.chatsystem.client.messagehandle;
+
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ClientMetricsAggregator;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.FlowControlStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.transport.ChatConnection;
+import edu.northeastern.hanafeng.chatsystem.client.transport.WebSocketClientManager;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Event-loop send engine: every connection (per room, or per user in per-user connection mode) has a
+ * lock-free queue drained by a single writer, run on a small, fixed set of loop threads instead of a
+ * thread per in-flight send.
+ *
+ * Nothing on a loop thread blocks. Retries are scheduled on the loop after the retry delay; a message
+ * without a flow-control credit stays at the head of its queue until a grant arrives (or the credit wait
+ * times out), and a closed connection is reopened on a separate reconnect thread while its queue waits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "client.send-engine", havingValue = "event-loop", matchIfMissing = true)
+public class EventLoopSendEngine implements MessageSender {
+
+    // Messages one drain writes before yielding its loop thread to the other connections
+    private static final int DRAIN_BATCH = 256;
+
+    private final WebSocketClientManager wsClientManager;
+    private final ClientMetricsAggregator metricsAggregator;
+    private final FlowControlStatistics flowControlStatistics;
+
+    @Value("${client.event-loop.threads:4}")
+    private int loopThreads;
+
+    @Value("${client.event-loop.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${client.sender.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${client.sender.retry-delay-ms:100}")
+    private long retryDelayMs;
+
+    @Value("${client.flow-control.credit-wait-ms:5000}")
+    private long creditWaitMs;
+
+    private ScheduledExecutorService[] loops;
+    private ExecutorService reconnectExecutor;
+    private Semaphore pendingPermits;
+    private final Map<Integer, Lane> lanes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        loops = new ScheduledExecutorService[loopThreads];
+        for (int i = 0; i < loopThreads; i++) {
+            String name = "send-loop-" + i;
+            loops[i] = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        reconnectExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r);
+            t.setName("reconnect-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+        pendingPermits = new Semaphore(maxPending);
+        log.info("Event-loop send engine: {} loop threads, max pending={}, maxRetries={}, retryDelay={}ms",
+                loopThreads, maxPending, maxRetries, retryDelayMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ScheduledExecutorService loop : loops) {
+            loop.shutdownNow();
+        }
+        reconnectExecutor.shutdownNow();
+    }
+
+    /**
+     * Queue a message on its connection. Blocks the calling dispatcher only while max-pending
+     * messages are already queued, as backpressure.
+     */
+    @Override
+    public CompletableFuture<Boolean> sendMessageAsync(ChatMessage chatMessage) {
+        try {
+            int roomId = Integer.parseInt(chatMessage.getRoomId());
+            int key = wsClientManager.connectionKey(chatMessage);
+            wsClientManager.recordSent(roomId);
+
+            pendingPermits.acquire();
+            Outgoing outgoing = new Outgoing(chatMessage, roomId);
+            lanes.computeIfAbsent(key, Lane::new).submit(outgoing);
+            return outgoing.result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(false);
+        } catch (Exception e) {
+            log.error("[ERROR] Failed to queue message", e);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    private void succeed(Outgoing outgoing) {
+        wsClientManager.recordSuccess(outgoing.roomId);
+        metricsAggregator.incrementMessagesSent();
+        log.debug("[SUCCESS] Room={} | MessageId={}", outgoing.roomId, outgoing.message.getMessageId());
+        pendingPermits.release();
+        outgoing.result.complete(true);
+    }
+
+    private void fail(Outgoing outgoing, String error) {
+        log.warn("[FAILED] Room={} | MessageId={} | Error={}", outgoing.roomId, outgoing.message.getMessageId(), error);
+        wsClientManager.recordFailure(outgoing.roomId);
+        metricsAggregator.incrementMessagesFailed();
+        pendingPermits.release();
+        outgoing.result.complete(false);
+    }
+
+    /**
+     * A message and its failed attempts so far; only touched by its lane's writer.
+     */
+    private static final class Outgoing {
+        private final ChatMessage message;
+        private final int roomId;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private int attempts;
+
+        private Outgoing(ChatMessage message, int roomId) {
+            this.message = message;
+            this.roomId = roomId;
+        }
+    }
+
+    /**
+     * One connection's queue and its writer. Producers only offer to the queue and schedule a drain; the
+     * drain runs on the connection's loop thread, and the scheduled flag keeps at most one drain queued or running,
+     * so everything but the queue and the flags is confined to that thread.
+     */
+    private final class Lane {
+        private final int key;
+        private final ScheduledExecutorService loop;
+        private final Queue<Outgoing> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean reconnecting = new AtomicBoolean();
+
+        // Loop-thread state: a message held back for a credit or a reconnect, and the credit wait
+        private Outgoing head;
+        private boolean waitingForCredit;
+        private long creditWaitStart;
+        private ChatConnection listeningTo;
+
+        private Lane(int key) {
+            this.key = key;
+            this.loop = loops[Math.floorMod(key, loops.length)];
+        }
+
+        private void submit(Outgoing outgoing) {
+            queue.offer(outgoing);
+            wake();
+        }
+
+        private void wake() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    loop.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            for (int written = 0; written < DRAIN_BATCH; written++) {
+                Outgoing next = head != null ? head : queue.poll();
+                if (next == null) {
+                    break;
+                }
+                head = null;
+                if (!write(next)) {
+                    head = next;
+                    break;
+                }
+            }
+            scheduled.set(false);
+            // A submit, credit grant or reconnect may have seen the flag still set; check once more
+            if (head == null ? !queue.isEmpty() : canResume()) {
+                wake();
+            }
+        }
+
+        /**
+         * Attempt one message.
+         *
+         * @return false if it must wait at the head of the queue for a credit or a reconnect
+         */
+        private boolean write(Outgoing outgoing) {
+            ChatConnection connection = wsClientManager.getOpenConnection(key);
+            if (connection == null) {
+                if (reconnecting.get()) {
+                    return false;
+                }
+                if (++outgoing.attempts >= maxRetries) {
+                    fail(outgoing, "connection " + key + " not open");
+                    return true;
+                }
+                // Reconnect right away the first time, after the retry delay on later attempts
+                reconnect(outgoing.attempts == 1 ? 0 : retryDelayMs);
+                return false;
+            }
+            if (connection != listeningTo) {
+                connection.setCreditListener(this::wake);
+                listeningTo = connection;
+            }
+
+            if (!connection.tryAcquireCredit()) {
+                long now = System.nanoTime();
+                if (!waitingForCredit) {
+                    waitingForCredit = true;
+                    creditWaitStart = now;
+                    loop.schedule(this::wake, creditWaitMs, TimeUnit.MILLISECONDS);
+                    return false;
+                }
+                if (now - creditWaitStart < TimeUnit.MILLISECONDS.toNanos(creditWaitMs)) {
+                    return false;
+                }
+                waitingForCredit = false;
+                flowControlStatistics.recordWait(now - creditWaitStart, false);
+                retry(outgoing, "No send credit on connection " + key + " within " + creditWaitMs + " ms");
+                return true;
+            }
+            if (connection.isFlowControlled()) {
+                if (waitingForCredit) {
+                    waitingForCredit = false;
+                    flowControlStatistics.recordWait(System.nanoTime() - creditWaitStart, true);
+                } else {
+                    flowControlStatistics.recordImmediateSend();
+                }
+            }
+
+            try {
+                connection.writeChatMessage(outgoing.message);
+            } catch (Exception e) {
+                retry(outgoing, e.getMessage());
+                return true;
+            }
+            succeed(outgoing);
+            return true;
+        }
+
+        private void retry(Outgoing outgoing, String error) {
+            if (++outgoing.attempts >= maxRetries) {
+                fail(outgoing, error);
+                return;
+            }
+            loop.schedule(() -> submit(outgoing), retryDelayMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Reopen the connection off the loop, since connecting blocks until the handshake completes.
+         */
+        private void reconnect(long delayMs) {
+            reconnecting.set(true);
+            loop.schedule(() -> {
+                try {
+                    reconnectExecutor.execute(() -> {
+                        try {
+                            wsClientManager.getConnection(key);
+                        } finally {
+                            reconnecting.set(false);
+                            wake();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    reconnecting.set(false);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Whether the held-back head message can make progress now.
+         */
+        private boolean canResume() {
+            if (reconnecting.get()) {
+                return false;
+            }
+            ChatConnection connection = wsClientManager.getOpenConnection(key);
+            return connection == null || connection.hasCredit();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package edu.northeastern.hanafeng.chatsystem.client.messagehandle;
 
 import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -17,8 +18,13 @@ import java.util.concurrent.Executors;
 @RequiredArgsConstructor
 public class MessageDispatcher {
 
-    private final BlockingQueue<String> sharedMessageQueue;
-    private final MessageSendingService messageSendingService;
+    /**
+     * Sentinel queued once per dispatcher by the producer to stop dispatching (compared by identity)
+     */
+    public static final ChatMessage POISON_PILL = new ChatMessage();
+
+    private final BlockingQueue<ChatMessage> sharedMessageQueue;
+    private final AckTimeoutTracker ackTimeoutTracker;
     private final ClientConfig clientConfig;
 
 
@@ -42,14 +48,14 @@ public class MessageDispatcher {
                 log.info("Dispatcher-{} started", dispatcherId);
                 try {
                     while (true) {
-                        String jsonMessage = sharedMessageQueue.take();
+                        ChatMessage message = sharedMessageQueue.take();
                         
-                        if ("POISON_PILL".equals(jsonMessage)) {
+                        if (message == POISON_PILL) {
                             log.info("Dispatcher-{} received POISON_PILL, stopping", dispatcherId);
                             break;
                         }
                         
-                        messageSendingService.sendMessageAsync(jsonMessage);
+                        ackTimeoutTracker.send(message);
                     }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
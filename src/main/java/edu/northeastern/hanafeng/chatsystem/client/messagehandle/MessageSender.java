@@ -0,0 +1,19 @@
+package edu.northeastern.hanafeng.chatsystem.client.messagehandle;
+
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends chat messages from the dispatchers to their room connections, selected by client.send-engine:
+ * {@link EventLoopSendEngine} (event-loop, default) or {@link MessageSendingService} (thread-pool).
+ */
+public interface MessageSender {
+
+    /**
+     * Hand a message over for sending, retrying per the sender's policy.
+     *
+     * @return completes with whether the message was written to the connection
+     */
+    CompletableFuture<Boolean> sendMessageAsync(ChatMessage chatMessage);
+}
@@ -1,56 +1,68 @@
 package edu.northeastern.hanafeng.chatsystem.client.messagehandle;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.northeastern.hanafeng.chatsystem.client.metrics.ClientMetricsAggregator;
 import edu.northeastern.hanafeng.chatsystem.client.transport.WebSocketClientManager;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
 
+/**
+ * Thread-pool sender (client.send-engine=thread-pool): every message is an @Async task on the
+ * messageSenderExecutor, which blocks its pool thread for credit waits, reconnects and retry delays.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class MessageSendingService {
+@ConditionalOnProperty(name = "client.send-engine", havingValue = "thread-pool")
+public class MessageSendingService implements MessageSender {
 
     private final WebSocketClientManager wsClientManager;
-    private final ObjectMapper objectMapper;
     private final ClientMetricsAggregator metricsAggregator;
 
+    @Value("${client.sender.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${client.sender.retry-delay-ms:100}")
+    private long retryDelayMs;
+
+    @Override
     @Async("messageSenderExecutor")
-    public CompletableFuture<Boolean> sendMessageAsync(String jsonMessage) {
+    public CompletableFuture<Boolean> sendMessageAsync(ChatMessage chatMessage) {
         try {
-            ChatMessage chatMessage = objectMapper.readValue(jsonMessage, ChatMessage.class);
             int roomId = Integer.parseInt(chatMessage.getRoomId());
             String messageId = chatMessage.getMessageId();
 
+            int key = wsClientManager.connectionKey(chatMessage);
+
             wsClientManager.recordSent(roomId);
 
-            var connection = wsClientManager.getConnection(roomId);
-            int maxRetries = 3;
+            var connection = wsClientManager.getConnection(key);
             boolean sent = false;
 
             for (int retry = 0; retry < maxRetries && !sent; retry++) {
                 if (connection != null && connection.isOpen()) {
                     try {
-                        connection.send(jsonMessage);
+                        connection.sendChatMessage(chatMessage);
                         sent = true;
                         wsClientManager.recordSuccess(roomId);
                         metricsAggregator.incrementMessagesSent();
                         log.debug("[SUCCESS] Room={} | MessageId={}", roomId, messageId);
                     } catch (Exception e) {
                         if (retry < maxRetries - 1) {
-                            Thread.sleep(100);
+                            Thread.sleep(retryDelayMs);
                         } else {
                             log.warn("[FAILED] Room={} | MessageId={} | Error={}", roomId, messageId, e.getMessage());
                         }
                     }
                 } else if (retry < maxRetries - 1) {
-                    Thread.sleep(100);
-                    connection = wsClientManager.getConnection(roomId);
+                    Thread.sleep(retryDelayMs);
+                    connection = wsClientManager.getConnection(key);
                 }
             }
 
@@ -1,9 +1,9 @@
 package edu.northeastern.hanafeng.chatsystem.client.messagehandle;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
 import edu.northeastern.hanafeng.chatsystem.client.metrics.ClientMetricsAggregator;
 import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
+import edu.northeastern.hanafeng.chatsystem.client.workload.WorkloadPlan;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +11,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -18,6 +20,8 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * Message producer - generates messages in sequence from all users.
  * Supports multiple producer workers via @Async.
+ * With a phase schedule in the workload profile every message waits for its send slot first, so the
+ * offered load follows the schedule across all producers.
  */
 @Slf4j
 @Component
@@ -25,37 +29,57 @@ import java.util.concurrent.atomic.AtomicLong;
 public class MessageSequenceGenerator {
 
     private final UserHandlerManager userHandlerManager;
-    private final BlockingQueue<String> sharedMessageQueue;
+    private final BlockingQueue<ChatMessage> sharedMessageQueue;
     private final ClientConfig clientConfig;
-    private final ObjectMapper objectMapper;
     private final ClientMetricsAggregator metricsAggregator;
+    private final WorkloadPlan workloadPlan;
 
     @Value("${client.metrics.batch-size:10000}")
     private int metricBatchSize;
 
     private final AtomicLong producedCount = new AtomicLong(0);
     private final AtomicBoolean poisonPillsSent = new AtomicBoolean(false);
+    private final AtomicBoolean stopRequested = new AtomicBoolean(false);
 
     public void resetState() {
         producedCount.set(0);
         poisonPillsSent.set(false);
+        stopRequested.set(false);
+    }
+
+    /**
+     * Stop producing before totalMessages is reached, e.g. when the saturation search is done; the
+     * dispatchers still get their poison pills.
+     */
+    public void stop() {
+        stopRequested.set(true);
+    }
+
+    public long getProducedCount() {
+        return producedCount.get();
     }
 
     @Async("messageProducerExecutor")
     public void startProducingAsync() {
         final long totalMessages = clientConfig.getTotalMessages();
         final int numDispatchers = clientConfig.getDispatcherThreads();
+        final long startNanos = System.nanoTime();
+        final long startAllocated = allocatedBytes();
+        long generated = 0;
+        long generatingNanos = 0;
 
         try {
             while (true) {
                 long currentProduced = producedCount.get();
-                if (currentProduced >= totalMessages) {
+                if (currentProduced >= totalMessages || stopRequested.get()) {
                     break;
                 }
 
                 ChatMessage message;
+                long generateStart = System.nanoTime();
                 try {
                     message = userHandlerManager.getNextMessage();
+                    generatingNanos += System.nanoTime() - generateStart;
                 } catch (IllegalStateException ex) {
                     log.trace("Producer {} skipped user: {}", Thread.currentThread().getName(), ex.getMessage());
                     continue;
@@ -69,8 +93,17 @@ public class MessageSequenceGenerator {
                     continue;
                 }
 
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                sharedMessageQueue.put(jsonMessage);
+                // Only real messages take send slots, so the schedule holds while no user is eligible
+                if (workloadPlan.awaitSendSlot()) {
+                    message.setTimestamp(Instant.now());
+                }
+                if (stopRequested.get()) {
+                    break;
+                }
+
+                // Serialization happens once at send time, in the connection's negotiated wire format
+                sharedMessageQueue.put(message);
+                generated++;
 
                 long afterIncrement = producedCount.incrementAndGet();
 
@@ -100,10 +133,11 @@ public class MessageSequenceGenerator {
         } catch (Exception e) {
             log.error("Producer error", e);
         } finally {
+            logGenerationCost(generated, generatingNanos, System.nanoTime() - startNanos, startAllocated);
             if (poisonPillsSent.compareAndSet(false, true)) {
                 try {
                     for (int i = 0; i < numDispatchers; i++) {
-                        sharedMessageQueue.put("POISON_PILL");
+                        sharedMessageQueue.put(MessageDispatcher.POISON_PILL);
                     }
                     log.info("Sent {} POISON_PILL signals", numDispatchers);
                 } catch (InterruptedException e) {
@@ -113,4 +147,26 @@ public class MessageSequenceGenerator {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Generation cost of one producer: time spent generating messages (excluding waits on the queue),
+     * the resulting generation rate, and heap allocated per message produced.
+     */
+    private void logGenerationCost(long generated, long generatingNanos, long elapsedNanos, long startAllocated) {
+        if (generated == 0) {
+            return;
+        }
+        long allocated = allocatedBytes() - startAllocated;
+        log.info("Producer {} generated {} messages: {} ms generating ({} msg/s) in {} ms total, {} bytes allocated per message",
+                Thread.currentThread().getName(), generated, generatingNanos / 1_000_000,
+                String.format("%.0f", generated / (generatingNanos / 1e9)), elapsedNanos / 1_000_000,
+                startAllocated < 0 ? "n/a" : allocated / generated);
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ACK timeouts on the load client: messages whose confirmation did not arrive in time, how many of them
+ * were resent, how many were given up on, and how many confirmations still arrived after a timeout.
+ */
+@Slf4j
+@Component
+public class AckTimeoutStatistics {
+
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder resends = new LongAdder();
+    private final LongAdder confirmedLate = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder userBudgetExhausted = new LongAdder();
+
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * The send engine gave up on a message before it reached the server.
+     */
+    public void recordSendFailure() {
+        sendFailures.increment();
+    }
+
+    public void recordResend() {
+        resends.increment();
+    }
+
+    public void recordConfirmedLate() {
+        confirmedLate.increment();
+    }
+
+    /**
+     * @param userBudget whether the user's resend budget, rather than the message's, ran out
+     */
+    public void recordFailed(boolean userBudget) {
+        failed.increment();
+        if (userBudget) {
+            userBudgetExhausted.increment();
+        }
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getSendFailures() {
+        return sendFailures.sum();
+    }
+
+    public long getResends() {
+        return resends.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public void printStatistics() {
+        log.info("=== ACK Timeouts ===");
+        log.info("Timeouts={}, send failures={}, resends={}, confirmed late={}",
+                timeouts.sum(), sendFailures.sum(), resends.sum(), confirmedLate.sum());
+        log.info("Given up={} (user resend budget exhausted: {})", failed.sum(), userBudgetExhausted.sum());
+        log.info("====================");
+    }
+}
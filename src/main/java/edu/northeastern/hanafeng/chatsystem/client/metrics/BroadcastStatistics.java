@@ -0,0 +1,112 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Broadcast delivery on the load client. With one connection per room, every message the server accepted
+ * (a successful ACK) should come back once as a broadcast on that room's connection; with per-user
+ * connections, once on every connection open in the room. The receipts per room against that expected
+ * fan-out give delivery completeness, and their rate gives fan-out throughput.
+ */
+@Slf4j
+@Component
+public class BroadcastStatistics {
+
+    private final Map<Integer, RoomCounters> rooms = new ConcurrentHashMap<>();
+    private final LongAdder totalExpected = new LongAdder();
+    private final LongAdder totalReceived = new LongAdder();
+
+    /**
+     * A message accepted by the server in a room, expected back as a broadcast.
+     */
+    public void recordAccepted(int roomId) {
+        RoomCounters counters = room(roomId);
+        int fanOut = Math.max(1, counters.receivers.get());
+        counters.expected.add(fanOut);
+        totalExpected.add(fanOut);
+    }
+
+    /**
+     * A per-user connection opened in a room; until the first one, a room counts as one receiver.
+     */
+    public void addReceiver(int roomId) {
+        room(roomId).receivers.incrementAndGet();
+    }
+
+    public void removeReceiver(int roomId) {
+        room(roomId).receivers.decrementAndGet();
+    }
+
+    /**
+     * A broadcast received on a room's connection.
+     *
+     * @param own whether it was matched to a message this client sent (only known while latency tracking is on)
+     */
+    public void recordReceived(int roomId, boolean own) {
+        RoomCounters counters = room(roomId);
+        counters.received.increment();
+        if (own) {
+            counters.own.increment();
+        }
+        totalReceived.increment();
+    }
+
+    public long getExpected() {
+        return totalExpected.sum();
+    }
+
+    public long getReceived() {
+        return totalReceived.sum();
+    }
+
+    /**
+     * @param runtimeSeconds run time including the drain phase
+     * @param drainMillis time spent draining broadcasts after the last ACK
+     */
+    public void printStatistics(long runtimeSeconds, long drainMillis) {
+        log.info("=== Broadcast Delivery ===");
+        long expected = 0;
+        long received = 0;
+        long own = 0;
+        for (Map.Entry<Integer, RoomCounters> entry : new TreeMap<>(rooms).entrySet()) {
+            RoomCounters counters = entry.getValue();
+            long roomExpected = counters.expected.sum();
+            long roomReceived = counters.received.sum();
+            log.info("Room {}: expected={}, received={}, own={}, completeness={}",
+                    entry.getKey(), roomExpected, roomReceived, counters.own.sum(),
+                    completeness(roomReceived, roomExpected));
+            expected += roomExpected;
+            received += roomReceived;
+            own += counters.own.sum();
+        }
+        log.info("Total: expected={}, received={}, own={}, completeness={}",
+                expected, received, own, completeness(received, expected));
+        log.info("Drain: {} ms after the last ACK", drainMillis);
+        if (runtimeSeconds > 0) {
+            log.info("Fan-out throughput: {} broadcasts/s", String.format("%.2f", (double) received / runtimeSeconds));
+        }
+        log.info("==========================");
+    }
+
+    private RoomCounters room(int roomId) {
+        return rooms.computeIfAbsent(roomId, id -> new RoomCounters());
+    }
+
+    private static String completeness(long received, long expected) {
+        return expected == 0 ? "n/a" : String.format("%.2f%%", received * 100.0 / expected);
+    }
+
+    private static final class RoomCounters {
+        private final AtomicInteger receivers = new AtomicInteger();
+        private final LongAdder expected = new LongAdder();
+        private final LongAdder received = new LongAdder();
+        private final LongAdder own = new LongAdder();
+    }
+}
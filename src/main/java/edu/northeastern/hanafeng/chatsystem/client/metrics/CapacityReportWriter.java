@@ -0,0 +1,120 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.knowm.xchart.BitmapEncoder;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.XYSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes the capacity report of a saturation search next to the user event log: a CSV of the steps, a JSON
+ * report with the knee point and the SLO it was found against, and PNG charts of latency against achieved
+ * throughput and of achieved against offered load.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CapacityReportWriter {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${client.logs.directory:./logs}")
+    private String logsDirectory;
+
+    /**
+     * @param kneeRate highest offered rate that met the SLO, 0 if none did
+     * @param outcome why the search stopped
+     * @param slo the SLO the steps were judged against
+     */
+    public void writeReport(List<CapacityStep> steps, double kneeRate, String outcome, Object slo) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        try {
+            Path directory = Paths.get(logsDirectory);
+            Files.createDirectories(directory);
+
+            writeCsv(directory.resolve("capacity_steps_" + timestamp + ".csv"), steps);
+            writeJson(directory.resolve("capacity_report_" + timestamp + ".json"), steps, kneeRate, outcome, slo);
+            if (!steps.isEmpty()) {
+                List<CapacityStep> byRate = steps.stream()
+                        .sorted(Comparator.comparingDouble(CapacityStep::offeredRate))
+                        .toList();
+                writeLatencyCurve(directory.resolve("capacity_latency_curve_" + timestamp), byRate);
+                writeThroughputCurve(directory.resolve("capacity_throughput_curve_" + timestamp), byRate);
+            }
+            log.info("Capacity report written to {} (suffix {})", directory.toAbsolutePath(), timestamp);
+        } catch (IOException e) {
+            log.error("Failed to write capacity report", e);
+        }
+    }
+
+    private void writeCsv(Path file, List<CapacityStep> steps) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("step,offeredRate,achievedRate,acks,ackP50Ms,ackP99Ms,broadcastP99Ms,broadcasts,sent,"
+                    + "errors,errorRate,broadcastBacklog,passed,violations\n");
+            for (CapacityStep s : steps) {
+                writer.write(String.format("%d,%.1f,%.1f,%d,%.3f,%.3f,%.3f,%d,%d,%d,%.5f,%d,%s,\"%s\"%n",
+                        s.step(), s.offeredRate(), s.achievedRate(), s.acks(), s.ackP50Ms(), s.ackP99Ms(),
+                        s.broadcastP99Ms(), s.broadcasts(), s.sent(), s.errors(), s.errorRate(),
+                        s.broadcastBacklog(), s.passed(), s.violations()));
+            }
+        }
+    }
+
+    private void writeJson(Path file, List<CapacityStep> steps, double kneeRate, String outcome, Object slo)
+            throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("kneeRate", kneeRate);
+        report.put("outcome", outcome);
+        report.put("slo", slo);
+        report.put("steps", steps);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private void writeLatencyCurve(Path file, List<CapacityStep> steps) throws IOException {
+        XYChart chart = new XYChartBuilder()
+                .width(900).height(600)
+                .title("Latency vs achieved throughput")
+                .xAxisTitle("Achieved (msg/s)")
+                .yAxisTitle("Latency (ms)")
+                .build();
+        addSeries(chart, "ACK p50", steps, CapacityStep::achievedRate, CapacityStep::ackP50Ms);
+        addSeries(chart, "ACK p99", steps, CapacityStep::achievedRate, CapacityStep::ackP99Ms);
+        addSeries(chart, "BROADCAST p99", steps, CapacityStep::achievedRate, CapacityStep::broadcastP99Ms);
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+
+    private void writeThroughputCurve(Path file, List<CapacityStep> steps) throws IOException {
+        XYChart chart = new XYChartBuilder()
+                .width(900).height(600)
+                .title("Achieved vs offered load")
+                .xAxisTitle("Offered (msg/s)")
+                .yAxisTitle("Messages/s")
+                .build();
+        addSeries(chart, "achieved", steps, CapacityStep::offeredRate, CapacityStep::achievedRate);
+        addSeries(chart, "offered", steps, CapacityStep::offeredRate, CapacityStep::offeredRate);
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+
+    private void addSeries(XYChart chart, String name, List<CapacityStep> steps,
+                           ToDoubleFunction<CapacityStep> x, ToDoubleFunction<CapacityStep> y) {
+        chart.addSeries(name, steps.stream().mapToDouble(x).toArray(), steps.stream().mapToDouble(y).toArray())
+                .setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line);
+    }
+}
@@ -0,0 +1,11 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+/**
+ * One measured step of the saturation search: the offered load, what the server sustained, and whether
+ * the step met the SLO (violations lists what it missed).
+ */
+public record CapacityStep(int step, double offeredRate, double achievedRate, long acks,
+                           double ackP50Ms, double ackP99Ms, double broadcastP99Ms, long broadcasts,
+                           long sent, long errors, double errorRate, long broadcastBacklog,
+                           boolean passed, String violations) {
+}
@@ -0,0 +1,67 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * permessage-deflate compression ratio and CPU time on the load client.
+ * Outbound frames are deflated by the client; inbound frames were deflated by the server,
+ * so the inbound ratio is the server's egress saving.
+ */
+@Slf4j
+@Component
+public class CompressionStatistics {
+
+    private final LongAdder framesDeflated = new LongAdder();
+    private final LongAdder framesBelowThreshold = new LongAdder();
+    private final LongAdder deflateBytesIn = new LongAdder();
+    private final LongAdder deflateBytesOut = new LongAdder();
+    private final LongAdder deflateNanos = new LongAdder();
+
+    private final LongAdder framesInflated = new LongAdder();
+    private final LongAdder inflateBytesIn = new LongAdder();
+    private final LongAdder inflateBytesOut = new LongAdder();
+    private final LongAdder inflateNanos = new LongAdder();
+
+    public void recordDeflated(int originalBytes, int compressedBytes, long nanos) {
+        framesDeflated.increment();
+        deflateBytesIn.add(originalBytes);
+        deflateBytesOut.add(compressedBytes);
+        deflateNanos.add(nanos);
+    }
+
+    public void recordBelowThreshold() {
+        framesBelowThreshold.increment();
+    }
+
+    public void recordInflated(int compressedBytes, int originalBytes, long nanos) {
+        framesInflated.increment();
+        inflateBytesIn.add(compressedBytes);
+        inflateBytesOut.add(originalBytes);
+        inflateNanos.add(nanos);
+    }
+
+    public void printStatistics() {
+        long deflated = framesDeflated.sum();
+        long inflated = framesInflated.sum();
+
+        log.info("=== Compression Statistics (permessage-deflate) ===");
+        log.info("Outbound: deflated={}, below threshold={}, bytes {} -> {}, ratio={}, avg deflate={} ns",
+                deflated, framesBelowThreshold.sum(), deflateBytesIn.sum(), deflateBytesOut.sum(),
+                ratio(deflateBytesOut.sum(), deflateBytesIn.sum()), average(deflateNanos.sum(), deflated));
+        log.info("Inbound: inflated={}, bytes {} -> {}, ratio={}, avg inflate={} ns",
+                inflated, inflateBytesIn.sum(), inflateBytesOut.sum(),
+                ratio(inflateBytesIn.sum(), inflateBytesOut.sum()), average(inflateNanos.sum(), inflated));
+        log.info("===================================================");
+    }
+
+    private static String ratio(long compressed, long original) {
+        return original == 0 ? "n/a" : String.format("%.3f", (double) compressed / original);
+    }
+
+    private static String average(long total, long count) {
+        return count == 0 ? "n/a" : String.format("%.1f", (double) total / count);
+    }
+}
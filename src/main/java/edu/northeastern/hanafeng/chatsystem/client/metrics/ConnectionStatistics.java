@@ -0,0 +1,133 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user connections on the load client: connect attempts, successes and failures by reason, handshake
+ * time, the connect rate of the initial connect phase, and the memory it took per connection.
+ */
+@Slf4j
+@Component
+public class ConnectionStatistics {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder closedAfterOpen = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final ConcurrentHistogram handshakeMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+
+    private long phaseStartNanos;
+    private long phaseNanos;
+    private long phaseConnected;
+    private long heapBefore;
+    private long heapAfter;
+    private long bufferBefore;
+    private long bufferAfter;
+    private long openFileDescriptors = -1;
+
+    public void recordAttempt() {
+        attempts.increment();
+    }
+
+    /**
+     * @param handshakeNanos from the start of the TCP connect to the end of the WebSocket handshake
+     */
+    public void recordConnected(long handshakeNanos) {
+        connected.increment();
+        handshakeMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(handshakeNanos),
+                handshakeMicros.getHighestTrackableValue()));
+        peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+    }
+
+    public void recordFailure(String reason) {
+        failures.computeIfAbsent(reason, r -> new LongAdder()).increment();
+    }
+
+    /**
+     * An established connection closed, by either side.
+     */
+    public void recordClosed() {
+        open.decrementAndGet();
+        closedAfterOpen.increment();
+    }
+
+    /**
+     * @param heapUsed heap in use before the first connect, after a GC
+     * @param bufferMemory network buffer memory in use before the first connect
+     */
+    public synchronized void startConnectPhase(long heapUsed, long bufferMemory) {
+        phaseStartNanos = System.nanoTime();
+        heapBefore = heapUsed;
+        bufferBefore = bufferMemory;
+    }
+
+    /**
+     * @param heapUsed heap in use once every connect attempt finished, after a GC
+     * @param bufferMemory network buffer memory in use once every connect attempt finished
+     * @param fileDescriptors open file descriptors of the process, -1 if unknown
+     */
+    public synchronized void finishConnectPhase(long heapUsed, long bufferMemory, long fileDescriptors) {
+        phaseNanos = System.nanoTime() - phaseStartNanos;
+        phaseConnected = open.get();
+        heapAfter = heapUsed;
+        bufferAfter = bufferMemory;
+        openFileDescriptors = fileDescriptors;
+    }
+
+    public long getConnected() {
+        return connected.sum();
+    }
+
+    public long getFailed() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public synchronized double getConnectRate() {
+        return phaseNanos > 0 ? phaseConnected / (phaseNanos / 1e9) : 0;
+    }
+
+    /**
+     * Heap per connection established in the connect phase; 0 before it finished.
+     */
+    public synchronized long getHeapBytesPerConnection() {
+        return phaseConnected > 0 ? Math.max(0, heapAfter - heapBefore) / phaseConnected : 0;
+    }
+
+    public synchronized long getBufferBytesPerConnection() {
+        return phaseConnected > 0 ? Math.max(0, bufferAfter - bufferBefore) / phaseConnected : 0;
+    }
+
+    public synchronized void printStatistics() {
+        log.info("=== Per-User Connections ===");
+        log.info("Attempts={}, connected={}, failed={}, open now={}, peak open={}, closed after open={}",
+                attempts.sum(), connected.sum(), getFailed(), open.get(), peakOpen.get(), closedAfterOpen.sum());
+        log.info("Connect phase: {} connections in {} s, {} connections/s",
+                phaseConnected, String.format("%.1f", phaseNanos / 1e9), String.format("%.1f", getConnectRate()));
+        if (handshakeMicros.getTotalCount() > 0) {
+            log.info("Connect + handshake time: p50={} p99={} max={} ms",
+                    ms(handshakeMicros.getValueAtPercentile(50)), ms(handshakeMicros.getValueAtPercentile(99)),
+                    ms(handshakeMicros.getMaxValue()));
+        }
+        log.info("Memory per connection: heap={} bytes, network buffers={} bytes (heap {} -> {} MB), open fds={}",
+                getHeapBytesPerConnection(), getBufferBytesPerConnection(),
+                heapBefore / (1024 * 1024), heapAfter / (1024 * 1024),
+                openFileDescriptors < 0 ? "n/a" : openFileDescriptors);
+        new TreeMap<>(failures).forEach((reason, count) -> log.info("Failure [{}]: {}", reason, count.sum()));
+        log.info("============================");
+    }
+
+    private static String ms(long micros) {
+        return String.format("%.3f", micros / 1000.0);
+    }
+}
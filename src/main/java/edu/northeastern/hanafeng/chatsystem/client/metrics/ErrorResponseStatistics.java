@@ -0,0 +1,37 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Error responses from the server (validation failures, rate limiting, shedding), counted by error text.
+ * They carry no echo, so without this they would only show up later as ACK timeouts.
+ */
+@Slf4j
+@Component
+public class ErrorResponseStatistics {
+
+    private final Map<String, LongAdder> byError = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    public void recordError(String error) {
+        byError.computeIfAbsent(error != null ? error : "unknown", key -> new LongAdder()).increment();
+        total.increment();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public void printStatistics() {
+        log.info("=== Error Responses ===");
+        log.info("Total={}", total.sum());
+        new TreeMap<>(byError).forEach((error, count) -> log.info("{}: {}", error, count.sum()));
+        log.info("=======================");
+    }
+}
@@ -0,0 +1,52 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Credit-based flow control on the load client: how often senders had to wait for credits,
+ * how long they waited, and how often the wait timed out.
+ */
+@Slf4j
+@Component
+public class FlowControlStatistics {
+
+    private final LongAdder grantsReceived = new LongAdder();
+    private final LongAdder creditsReceived = new LongAdder();
+
+    private final LongAdder sendsWithoutWait = new LongAdder();
+    private final LongAdder sendsAfterWait = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    public void recordGrant(int credits) {
+        grantsReceived.increment();
+        creditsReceived.add(credits);
+    }
+
+    public void recordImmediateSend() {
+        sendsWithoutWait.increment();
+    }
+
+    public void recordWait(long nanos, boolean acquired) {
+        waitNanos.add(nanos);
+        if (acquired) {
+            sendsAfterWait.increment();
+        } else {
+            waitTimeouts.increment();
+        }
+    }
+
+    public void printStatistics() {
+        long waited = sendsAfterWait.sum() + waitTimeouts.sum();
+
+        log.info("=== Flow Control Statistics (credits) ===");
+        log.info("Grants: received={}, credits={}", grantsReceived.sum(), creditsReceived.sum());
+        log.info("Sends: immediate={}, after wait={}, wait timeouts={}, avg wait={} ms",
+                sendsWithoutWait.sum(), sendsAfterWait.sum(), waitTimeouts.sum(),
+                waited == 0 ? "n/a" : String.format("%.2f", waitNanos.sum() / 1_000_000.0 / waited));
+        log.info("=========================================");
+    }
+}
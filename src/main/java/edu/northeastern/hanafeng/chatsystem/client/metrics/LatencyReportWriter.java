@@ -0,0 +1,154 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.knowm.xchart.BitmapEncoder;
+import org.knowm.xchart.CategoryChart;
+import org.knowm.xchart.CategoryChartBuilder;
+import org.knowm.xchart.XYChart;
+import org.knowm.xchart.XYChartBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes the end-of-run latency report next to the user event log: a CSV and a JSON summary of the
+ * percentiles per room and message type, and PNG charts of the run-wide percentiles, latency over time
+ * and throughput over time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LatencyReportWriter {
+
+    private static final List<String> PERCENTILE_LABELS = List.of("p50", "p90", "p99", "p99.9", "max");
+
+    private final LatencyStatistics latencyStatistics;
+    private final ObjectMapper objectMapper;
+
+    @Value("${client.logs.directory:./logs}")
+    private String logsDirectory;
+
+    public void writeReports() {
+        if (!latencyStatistics.isEnabled()) {
+            return;
+        }
+        latencyStatistics.finish();
+        List<LatencyStatistics.SeriesSummary> summaries = latencyStatistics.summarize();
+        List<LatencyStatistics.IntervalSample> intervals = latencyStatistics.getIntervals();
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        try {
+            Path directory = Paths.get(logsDirectory);
+            Files.createDirectories(directory);
+
+            writeCsv(directory.resolve("latency_summary_" + timestamp + ".csv"), summaries);
+            writeJson(directory.resolve("latency_summary_" + timestamp + ".json"), summaries, intervals);
+            if (summaries.stream().anyMatch(summary -> summary.count() > 0)) {
+                writePercentileChart(directory.resolve("latency_percentiles_" + timestamp), summaries);
+                writeLatencyOverTimeChart(directory.resolve("latency_over_time_" + timestamp), intervals);
+                writeThroughputChart(directory.resolve("throughput_over_time_" + timestamp), intervals);
+            }
+            log.info("Latency reports written to {} (suffix {})", directory.toAbsolutePath(), timestamp);
+        } catch (IOException e) {
+            log.error("Failed to write latency reports", e);
+        }
+    }
+
+    private void writeCsv(Path file, List<LatencyStatistics.SeriesSummary> summaries) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("kind,roomId,messageType,count,meanMs,p50Ms,p90Ms,p99Ms,p999Ms,maxMs\n");
+            for (LatencyStatistics.SeriesSummary s : summaries) {
+                writer.write(String.format("%s,%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                        s.kind(), s.roomId() == 0 ? "ALL" : s.roomId(), s.messageType(), s.count(), s.meanMs(),
+                        s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs()));
+            }
+        }
+    }
+
+    private void writeJson(Path file, List<LatencyStatistics.SeriesSummary> summaries,
+                           List<LatencyStatistics.IntervalSample> intervals) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("series", summaries);
+        report.put("intervals", intervals);
+        report.put("untrackedSends", latencyStatistics.getUntrackedCount());
+        report.put("unacknowledged", latencyStatistics.getUnacknowledgedCount());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private void writePercentileChart(Path file, List<LatencyStatistics.SeriesSummary> summaries) throws IOException {
+        CategoryChart chart = new CategoryChartBuilder()
+                .width(900).height(600)
+                .title("Round-trip latency percentiles")
+                .xAxisTitle("Percentile")
+                .yAxisTitle("Latency (ms)")
+                .build();
+        for (LatencyStatistics.SeriesSummary s : summaries) {
+            if (s.roomId() == 0 && s.count() > 0) {
+                chart.addSeries(s.kind().name(), PERCENTILE_LABELS,
+                        List.of(s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs()));
+            }
+        }
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+
+    private void writeLatencyOverTimeChart(Path file, List<LatencyStatistics.IntervalSample> intervals)
+            throws IOException {
+        XYChart chart = new XYChartBuilder()
+                .width(900).height(600)
+                .title("Round-trip latency over time")
+                .xAxisTitle("Elapsed (s)")
+                .yAxisTitle("Latency (ms)")
+                .build();
+        for (LatencyStatistics.Kind kind : LatencyStatistics.Kind.values()) {
+            addSeries(chart, kind + " p50", intervals, kind, sample -> sample.p50Micros() / 1000.0, true);
+            addSeries(chart, kind + " p99", intervals, kind, sample -> sample.p99Micros() / 1000.0, true);
+        }
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+
+    private void writeThroughputChart(Path file, List<LatencyStatistics.IntervalSample> intervals) throws IOException {
+        XYChart chart = new XYChartBuilder()
+                .width(900).height(600)
+                .title("Throughput over time")
+                .xAxisTitle("Elapsed (s)")
+                .yAxisTitle("Messages/s")
+                .build();
+        for (LatencyStatistics.Kind kind : LatencyStatistics.Kind.values()) {
+            addSeries(chart, kind + "/s", intervals, kind, LatencyStatistics.IntervalSample::ratePerSecond, false);
+        }
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+
+    /**
+     * Add one kind's interval values; empty intervals are skipped for latency, where they have no value.
+     */
+    private void addSeries(XYChart chart, String name, List<LatencyStatistics.IntervalSample> intervals,
+                           LatencyStatistics.Kind kind, ToDoubleFunction<LatencyStatistics.IntervalSample> value,
+                           boolean skipEmpty) {
+        List<Double> x = new ArrayList<>();
+        List<Double> y = new ArrayList<>();
+        for (LatencyStatistics.IntervalSample sample : intervals) {
+            if (sample.kind() == kind && (!skipEmpty || sample.count() > 0)) {
+                x.add(sample.elapsedSeconds());
+                y.add(value.applyAsDouble(sample));
+            }
+        }
+        if (!x.isEmpty()) {
+            chart.addSeries(name, x, y);
+        }
+    }
+}
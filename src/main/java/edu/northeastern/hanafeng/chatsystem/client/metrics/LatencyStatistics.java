@@ -0,0 +1,322 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Round-trip latency on the load client: the send time of every message is tracked by message id, and
+ * the time until its ACK (echo or compact ACK) and until its broadcast comes back on the room connection is
+ * recorded in HDR histograms per room and message type.
+ *
+ * Senders and receivers only write to lock-free {@link Recorder}s; every report interval their samples are
+ * folded into the run totals and the interval's percentiles and throughput are logged and kept for the
+ * final charts. Callers that measure their own windows, like the saturation search, take per-kind window
+ * histograms of everything recorded since their last take.
+ */
+@Slf4j
+@Component
+public class LatencyStatistics {
+
+    public enum Kind { ACK, BROADCAST }
+
+    @Value("${client.latency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${client.latency.tracking-capacity:1048576}")
+    private int trackingCapacity;
+
+    @Value("${client.latency.tracking-timeout-ms:60000}")
+    private long trackingTimeoutMs;
+
+    private MessageCorrelationTable inFlight;
+    private long highestTrackableMicros;
+    private long startNanos;
+    private long lastIntervalNanos;
+    private boolean finished;
+
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final Map<Kind, Recorder> windows = new EnumMap<>(Kind.class);
+    private final List<IntervalSample> intervals = new ArrayList<>();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder unacknowledged = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        inFlight = new MessageCorrelationTable(trackingCapacity);
+        highestTrackableMicros = TimeUnit.MILLISECONDS.toMicros(trackingTimeoutMs);
+        for (Kind kind : Kind.values()) {
+            windows.put(kind, new Recorder(highestTrackableMicros, 3));
+        }
+        startNanos = System.nanoTime();
+        lastIntervalNanos = startNanos;
+        log.info("Latency tracking {}: capacity={}, timeout={}ms", enabled ? "enabled" : "disabled",
+                trackingCapacity, trackingTimeoutMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start (or, for a retry, restart) timing a message as it is written to the connection.
+     */
+    public void recordSend(String messageId) {
+        if (!enabled) {
+            return;
+        }
+        UUID id = parse(messageId);
+        if (id == null || !inFlight.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), System.nanoTime())) {
+            untracked.increment();
+        }
+    }
+
+    /**
+     * @return the send-to-ACK latency in microseconds, -1 if the message was not being timed
+     */
+    public long recordAck(int roomId, String messageType, String messageId) {
+        return record(Kind.ACK, MessageCorrelationTable.ACKED, roomId, messageType, messageId);
+    }
+
+    /**
+     * @return the send-to-broadcast latency in microseconds if the broadcast is of a message this client sent
+     *         and is still tracking, otherwise -1
+     */
+    public long recordBroadcast(int roomId, String messageType, String messageId) {
+        return record(Kind.BROADCAST, MessageCorrelationTable.BROADCAST, roomId, messageType, messageId);
+    }
+
+    private long record(Kind kind, int event, int roomId, String messageType, String messageId) {
+        if (!enabled) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        UUID id = parse(messageId);
+        if (id == null) {
+            return -1;
+        }
+        long sentAt = inFlight.complete(id.getMostSignificantBits(), id.getLeastSignificantBits(), event);
+        if (sentAt < 0) {
+            // Not sent by this client, already seen, or expired
+            return -1;
+        }
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(now - sentAt), highestTrackableMicros);
+        String type = messageType != null ? messageType : "UNKNOWN";
+        series.computeIfAbsent(new SeriesKey(kind, roomId, type), key -> new Series(highestTrackableMicros))
+                .recorder.recordValue(micros);
+        windows.get(kind).recordValue(micros);
+        return micros;
+    }
+
+    @Scheduled(
+        initialDelayString = "${client.latency.report-interval-ms:5000}",
+        fixedDelayString   = "${client.latency.report-interval-ms:5000}"
+    )
+    public void reportInterval() {
+        IntervalSample[] samples;
+        synchronized (this) {
+            if (!enabled || finished) {
+                return;
+            }
+            samples = collectInterval();
+        }
+        for (IntervalSample sample : samples) {
+            if (sample.count() > 0) {
+                log.info("Latency [{}] {}s: n={}, rate={}/s, p50={} p90={} p99={} p99.9={} max={} ms",
+                        sample.kind(), String.format("%.1f", sample.elapsedSeconds()), sample.count(),
+                        String.format("%.1f", sample.ratePerSecond()), ms(sample.p50Micros()), ms(sample.p90Micros()),
+                        ms(sample.p99Micros()), ms(sample.p999Micros()), ms(sample.maxMicros()));
+            }
+        }
+    }
+
+    /**
+     * Fold the recorders into the run totals and keep one sample per kind for the interval just ended.
+     * Called with this object's monitor held.
+     */
+    private IntervalSample[] collectInterval() {
+        long now = System.nanoTime();
+        double intervalSeconds = Math.max(1e-9, (now - lastIntervalNanos) / 1e9);
+        lastIntervalNanos = now;
+
+        Map<Kind, Histogram> byKind = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            byKind.put(kind, new Histogram(highestTrackableMicros, 3));
+        }
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            Series s = entry.getValue();
+            s.interval = s.recorder.getIntervalHistogram(s.interval);
+            s.total.add(s.interval);
+            byKind.get(entry.getKey().kind()).add(s.interval);
+        }
+
+        unacknowledged.add(inFlight.expire(now - TimeUnit.MILLISECONDS.toNanos(trackingTimeoutMs)));
+
+        double elapsedSeconds = (now - startNanos) / 1e9;
+        IntervalSample[] samples = new IntervalSample[Kind.values().length];
+        for (Kind kind : Kind.values()) {
+            Histogram histogram = byKind.get(kind);
+            IntervalSample sample = new IntervalSample(kind, elapsedSeconds, histogram.getTotalCount(),
+                    histogram.getTotalCount() / intervalSeconds,
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue());
+            samples[kind.ordinal()] = sample;
+            intervals.add(sample);
+        }
+        return samples;
+    }
+
+    /**
+     * End the run: collect the last, partial interval and stop interval reporting. Later calls do nothing.
+     */
+    public synchronized void finish() {
+        if (enabled && !finished) {
+            collectInterval();
+            finished = true;
+        }
+    }
+
+    /**
+     * Run-wide percentiles, one row per kind, room and message type, plus one "all rooms" row per kind
+     * (roomId 0, messageType "ALL").
+     */
+    public synchronized List<SeriesSummary> summarize() {
+        List<SeriesSummary> rows = new ArrayList<>();
+        Map<Kind, Histogram> overall = new EnumMap<>(Kind.class);
+        Map<SeriesKey, Series> ordered = new TreeMap<>(Comparator.comparing(SeriesKey::kind)
+                .thenComparingInt(SeriesKey::roomId)
+                .thenComparing(SeriesKey::messageType));
+        ordered.putAll(series);
+        for (Map.Entry<SeriesKey, Series> entry : ordered.entrySet()) {
+            SeriesKey key = entry.getKey();
+            rows.add(SeriesSummary.of(key.kind(), key.roomId(), key.messageType(), entry.getValue().total));
+            overall.computeIfAbsent(key.kind(), kind -> new Histogram(highestTrackableMicros, 3))
+                    .add(entry.getValue().total);
+        }
+        overall.forEach((kind, histogram) -> rows.add(SeriesSummary.of(kind, 0, "ALL", histogram)));
+        return rows;
+    }
+
+    /**
+     * Everything of a kind recorded since the previous call for that kind.
+     */
+    public Histogram takeWindow(Kind kind) {
+        return windows.get(kind).getIntervalHistogram();
+    }
+
+    public synchronized List<IntervalSample> getIntervals() {
+        return List.copyOf(intervals);
+    }
+
+    /**
+     * Sends that could not be tracked because the correlation table was full.
+     */
+    public long getUntrackedCount() {
+        return untracked.sum();
+    }
+
+    /**
+     * Tracked messages with no ACK within the tracking timeout.
+     */
+    public long getUnacknowledgedCount() {
+        return unacknowledged.sum();
+    }
+
+    public synchronized void printStatistics() {
+        if (!enabled) {
+            return;
+        }
+        finish();
+        List<SeriesSummary> rows = summarize();
+        log.info("=== Round-Trip Latency (ms) ===");
+        for (SeriesSummary row : rows) {
+            if (row.roomId() == 0) {
+                log.info("{} (all rooms): n={}, mean={}, p50={}, p90={}, p99={}, p99.9={}, max={}",
+                        row.kind(), row.count(), String.format("%.3f", row.meanMs()), String.format("%.3f", row.p50Ms()),
+                        String.format("%.3f", row.p90Ms()), String.format("%.3f", row.p99Ms()),
+                        String.format("%.3f", row.p999Ms()), String.format("%.3f", row.maxMs()));
+            }
+        }
+        Map<String, Histogram> byType = new TreeMap<>();
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            SeriesKey key = entry.getKey();
+            byType.computeIfAbsent(key.kind() + " " + key.messageType(), k -> new Histogram(highestTrackableMicros, 3))
+                    .add(entry.getValue().total);
+        }
+        byType.forEach((name, histogram) -> log.info("{}: n={}, p50={}, p99={}, max={}", name,
+                histogram.getTotalCount(), ms(histogram.getValueAtPercentile(50)),
+                ms(histogram.getValueAtPercentile(99)), ms(histogram.getMaxValue())));
+        log.info("Untracked sends (table full)={}, unacknowledged after {}ms={}, still in flight={}",
+                untracked.sum(), trackingTimeoutMs, unacknowledged.sum(), inFlight.size());
+        log.info("===============================");
+    }
+
+    private static UUID parse(String messageId) {
+        if (messageId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(messageId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String ms(long micros) {
+        return String.format("%.3f", micros / 1000.0);
+    }
+
+    private record SeriesKey(Kind kind, int roomId, String messageType) {}
+
+    /**
+     * Recorder written by senders and receivers; total and the recycled interval histogram are only touched
+     * while collecting an interval.
+     */
+    private static final class Series {
+        private final Recorder recorder;
+        private final Histogram total;
+        private Histogram interval;
+
+        private Series(long highestTrackableMicros) {
+            this.recorder = new Recorder(highestTrackableMicros, 3);
+            this.total = new Histogram(highestTrackableMicros, 3);
+        }
+    }
+
+    /**
+     * Latency of one report interval, all rooms and message types of a kind together.
+     */
+    public record IntervalSample(Kind kind, double elapsedSeconds, long count, double ratePerSecond,
+                                 long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {}
+
+    /**
+     * Run-wide latency of one series, in milliseconds.
+     */
+    public record SeriesSummary(Kind kind, int roomId, String messageType, long count, double meanMs,
+                                double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        private static SeriesSummary of(Kind kind, int roomId, String messageType, Histogram histogram) {
+            return new SeriesSummary(kind, roomId, messageType, histogram.getTotalCount(),
+                    histogram.getMean() / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+}
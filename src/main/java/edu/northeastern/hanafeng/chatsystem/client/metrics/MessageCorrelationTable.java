@@ -0,0 +1,192 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+/**
+ * Send timestamps of in-flight messages keyed by their UUID message id, kept in primitive arrays:
+ * a fixed number of lock-striped, open-addressing tables with linear probing, so tracking a message
+ * allocates nothing and a lookup touches a few adjacent array slots.
+ *
+ * An entry is removed once both its ACK and its broadcast were seen, or when it expires.
+ * Registering fails instead of growing when a stripe is three-quarters full.
+ */
+public class MessageCorrelationTable {
+
+    public static final int ACKED = 2;
+    public static final int BROADCAST = 4;
+
+    private static final int OCCUPIED = 1;
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public MessageCorrelationTable(int capacity) {
+        int perStripe = Integer.highestOneBit(Math.max(16, capacity / STRIPES - 1) << 1);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Record the send time of a message; a resend of the same id restarts its timing.
+     *
+     * @return false if the table is full and the message is not tracked
+     */
+    public boolean register(long mostSigBits, long leastSigBits, long sendNanos) {
+        int hash = hash(mostSigBits, leastSigBits);
+        Stripe stripe = stripes[hash >>> 26];
+        synchronized (stripe) {
+            return stripe.put(hash, mostSigBits, leastSigBits, sendNanos);
+        }
+    }
+
+    /**
+     * Mark an event (ACKED or BROADCAST) for a message.
+     *
+     * @return the message's send time, or -1 if it is not tracked or the event was already seen
+     */
+    public long complete(long mostSigBits, long leastSigBits, int event) {
+        int hash = hash(mostSigBits, leastSigBits);
+        Stripe stripe = stripes[hash >>> 26];
+        synchronized (stripe) {
+            return stripe.complete(hash, mostSigBits, leastSigBits, event);
+        }
+    }
+
+    /**
+     * Remove entries sent before the cutoff.
+     *
+     * @return the number of removed entries that were never acknowledged
+     */
+    public int expire(long sentBeforeNanos) {
+        int unacknowledged = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                unacknowledged += stripe.expire(sentBeforeNanos);
+            }
+        }
+        return unacknowledged;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private static int hash(long mostSigBits, long leastSigBits) {
+        long mixed = (mostSigBits ^ leastSigBits) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32);
+    }
+
+    /**
+     * One open-addressing table; guarded by its own monitor.
+     */
+    private static final class Stripe {
+        private final int mask;
+        private final int maxSize;
+        private final long[] mostSigBits;
+        private final long[] leastSigBits;
+        private final long[] sendNanos;
+        private final byte[] state;
+        private int size;
+
+        private Stripe(int capacity) {
+            this.mask = capacity - 1;
+            this.maxSize = capacity * 3 / 4;
+            this.mostSigBits = new long[capacity];
+            this.leastSigBits = new long[capacity];
+            this.sendNanos = new long[capacity];
+            this.state = new byte[capacity];
+        }
+
+        private boolean put(int hash, long msb, long lsb, long nanos) {
+            int slot = find(hash, msb, lsb);
+            if (state[slot] != 0) {
+                sendNanos[slot] = nanos;
+                state[slot] = OCCUPIED;
+                return true;
+            }
+            if (size == maxSize) {
+                return false;
+            }
+            mostSigBits[slot] = msb;
+            leastSigBits[slot] = lsb;
+            sendNanos[slot] = nanos;
+            state[slot] = OCCUPIED;
+            size++;
+            return true;
+        }
+
+        private long complete(int hash, long msb, long lsb, int event) {
+            int slot = find(hash, msb, lsb);
+            if (state[slot] == 0 || (state[slot] & event) != 0) {
+                return -1;
+            }
+            long nanos = sendNanos[slot];
+            state[slot] |= (byte) event;
+            if ((state[slot] & (ACKED | BROADCAST)) == (ACKED | BROADCAST)) {
+                remove(slot);
+            }
+            return nanos;
+        }
+
+        private int expire(long sentBeforeNanos) {
+            int unacknowledged = 0;
+            int slot = 0;
+            while (slot <= mask) {
+                if (state[slot] != 0 && sendNanos[slot] - sentBeforeNanos < 0) {
+                    if ((state[slot] & ACKED) == 0) {
+                        unacknowledged++;
+                    }
+                    // Removal may shift a later entry into this slot, so check it again
+                    remove(slot);
+                } else {
+                    slot++;
+                }
+            }
+            return unacknowledged;
+        }
+
+        /**
+         * The slot holding the key, or the empty slot where it would be inserted.
+         */
+        private int find(int hash, long msb, long lsb) {
+            int slot = hash & mask;
+            while (state[slot] != 0 && (mostSigBits[slot] != msb || leastSigBits[slot] != lsb)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Backward-shift deletion: move later entries of the probe run into the hole so lookups never
+         * stop early at it.
+         */
+        private void remove(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (state[next] == 0) {
+                    break;
+                }
+                int home = hash(mostSigBits[next], leastSigBits[next]) & mask;
+                boolean homeAfterHole = hole <= next
+                        ? home > hole && home <= next
+                        : home > hole || home <= next;
+                if (!homeAfterHole) {
+                    mostSigBits[hole] = mostSigBits[next];
+                    leastSigBits[hole] = leastSigBits[next];
+                    sendNanos[hole] = sendNanos[next];
+                    state[hole] = state[next];
+                    hole = next;
+                }
+            }
+            state[hole] = 0;
+            size--;
+        }
+    }
+}
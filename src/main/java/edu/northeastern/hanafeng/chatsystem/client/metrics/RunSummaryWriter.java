@@ -0,0 +1,84 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.UserEventLogger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes the headline numbers of a run as run_summary_*.json in the logs directory, for tools that compare
+ * runs (such as the parameter sweep) rather than read logs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RunSummaryWriter {
+
+    /**
+     * Headline numbers of one run. Throughput is successful sends over the sending phase, from starting the
+     * producers until every user finished (connect and broadcast drain excluded); latencies are all rooms
+     * and message types together, 0 without latency tracking. eventLogDropped counts user events lost to a
+     * full event log ring.
+     */
+    public record RunSummary(long sent, long success, long failed, long sendingMillis, long runtimeMillis,
+                             double throughput, double ackP50Ms, double ackP99Ms, double broadcastP99Ms,
+                             long broadcastsExpected, long broadcastsReceived, long ackTimeouts,
+                             long ackFailures, long errorResponses, long eventLogDropped) {
+    }
+
+    private final LatencyStatistics latencyStatistics;
+    private final BroadcastStatistics broadcastStatistics;
+    private final AckTimeoutStatistics ackTimeoutStatistics;
+    private final ErrorResponseStatistics errorResponseStatistics;
+    private final UserEventLogger userEventLogger;
+    private final ObjectMapper objectMapper;
+
+    @Value("${client.logs.directory:./logs}")
+    private String logsDirectory;
+
+    public RunSummary writeSummary(long sent, long success, long failed, long sendingMillis, long runtimeMillis) {
+        double ackP50 = 0;
+        double ackP99 = 0;
+        double broadcastP99 = 0;
+        if (latencyStatistics.isEnabled()) {
+            latencyStatistics.finish();
+            for (LatencyStatistics.SeriesSummary row : latencyStatistics.summarize()) {
+                if (row.roomId() != 0) {
+                    continue;
+                }
+                if (row.kind() == LatencyStatistics.Kind.ACK) {
+                    ackP50 = row.p50Ms();
+                    ackP99 = row.p99Ms();
+                } else {
+                    broadcastP99 = row.p99Ms();
+                }
+            }
+        }
+        RunSummary summary = new RunSummary(sent, success, failed, sendingMillis, runtimeMillis,
+                sendingMillis > 0 ? success * 1000.0 / sendingMillis : 0, ackP50, ackP99, broadcastP99,
+                broadcastStatistics.getExpected(), broadcastStatistics.getReceived(),
+                ackTimeoutStatistics.getTimeouts(), ackTimeoutStatistics.getFailed(),
+                errorResponseStatistics.getTotal(), userEventLogger.getDroppedCount());
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        try {
+            Path directory = Paths.get(logsDirectory);
+            Files.createDirectories(directory);
+            Path file = directory.resolve("run_summary_" + timestamp + ".json");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), summary);
+            log.info("Run summary written to {}", file.toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to write run summary", e);
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,51 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bytes on the wire and serialization CPU per message for the negotiated wire format.
+ * Used to compare the text JSON and binary subprotocols from the load client.
+ */
+@Slf4j
+@Component
+public class WireFormatStatistics {
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    public void recordSent(int payloadBytes, long serializationNanos) {
+        framesSent.increment();
+        bytesSent.add(payloadBytes);
+        encodeNanos.add(serializationNanos);
+    }
+
+    public void recordReceived(int payloadBytes, long deserializationNanos) {
+        framesReceived.increment();
+        bytesReceived.add(payloadBytes);
+        decodeNanos.add(deserializationNanos);
+    }
+
+    public void printStatistics(String wireFormat) {
+        long sent = framesSent.sum();
+        long received = framesReceived.sum();
+
+        log.info("=== Wire Format Statistics ({}) ===", wireFormat);
+        log.info("Sent: frames={}, bytes={}, avg bytes/frame={}, avg encode={} ns",
+                sent, bytesSent.sum(), average(bytesSent.sum(), sent), average(encodeNanos.sum(), sent));
+        log.info("Received: frames={}, bytes={}, avg bytes/frame={}, avg decode={} ns",
+                received, bytesReceived.sum(), average(bytesReceived.sum(), received), average(decodeNanos.sum(), received));
+        log.info("====================================");
+    }
+
+    private static String average(long total, long count) {
+        return count == 0 ? "n/a" : String.format("%.1f", (double) total / count);
+    }
+}
@@ -1,15 +1,24 @@
 package edu.northeastern.hanafeng.chatsystem.client.runner;
 
 import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.UserEventLogger;
 import edu.northeastern.hanafeng.chatsystem.client.messagehandle.MessageDispatcher;
 import edu.northeastern.hanafeng.chatsystem.client.messagehandle.MessageSequenceGenerator;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.AckTimeoutStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.BroadcastStatistics;
 import edu.northeastern.hanafeng.chatsystem.client.metrics.ClientMetricsAggregator;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.LatencyReportWriter;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.RunSummaryWriter;
+import edu.northeastern.hanafeng.chatsystem.client.transport.UserConnectionPool;
 import edu.northeastern.hanafeng.chatsystem.client.transport.WebSocketClientManager;
 import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
-import edu.northeastern.hanafeng.chatsystem.client.support.UserEventLogger;
+import edu.northeastern.hanafeng.chatsystem.client.workload.WorkloadPlan;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.CompletableFuture;
@@ -19,6 +28,8 @@ import java.util.stream.IntStream;
 /**
  * Main client execution coordinator.
  * Implements CommandLineRunner for automatic execution after Spring context initialization.
+ * With client.saturation.enabled the producers are driven by a {@link SaturationSearch} instead of
+ * running to completion.
  */
 @Slf4j
 @Component
@@ -29,10 +40,31 @@ public class ClientRunner implements CommandLineRunner {
     private final ClientConfig clientConfig;
     private final UserHandlerManager userHandlerManager;
     private final WebSocketClientManager wsClientManager;
+    private final UserConnectionPool userConnectionPool;
     private final MessageSequenceGenerator messageSequenceGenerator;
     private final MessageDispatcher messageDispatcher;
     private final UserEventLogger userEventLogger;
     private final ClientMetricsAggregator metricsAggregator;
+    private final LatencyReportWriter latencyReportWriter;
+    private final RunSummaryWriter runSummaryWriter;
+    private final BroadcastStatistics broadcastStatistics;
+    private final AckTimeoutStatistics ackTimeoutStatistics;
+    private final WorkloadPlan workloadPlan;
+    private final SaturationSearch saturationSearch;
+    private final ApplicationContext applicationContext;
+
+    @Value("${client.drain.timeout-ms:60000}")
+    private long drainTimeoutMs;
+
+    @Value("${client.drain.no-progress-ms:60000}")
+    private long drainNoProgressMs;
+
+    // Exit the JVM once the run is done, e.g. for runs driven by the parameter sweep
+    @Value("${client.exit-on-finish:false}")
+    private boolean exitOnFinish;
+
+    private long drainMillis;
+    private long sendingMillis;
 
     @Override
     public void run(String... args) throws Exception {
@@ -42,53 +74,59 @@ public class ClientRunner implements CommandLineRunner {
         initializeUsers();
         preCreateAllConnections();
         startDispatcher();
-        startProducer();
-        waitForCompletion();
-        
-        long runtime = (System.currentTimeMillis() - startTime) / 1000;
+        if (saturationSearch.isEnabled()) {
+            saturationSearch.prepare();
+            startProducer();
+            saturationSearch.run();
+        } else {
+            long sendingStart = System.currentTimeMillis();
+            startProducer();
+            waitForCompletion();
+            sendingMillis = System.currentTimeMillis() - sendingStart;
+            drainBroadcasts();
+        }
+
+        long runtimeMillis = System.currentTimeMillis() - startTime;
+        long runtime = runtimeMillis / 1000;
         log.info("Client runtime: {}s", runtime);
         wsClientManager.setRuntimeSeconds(runtime);
         metricsAggregator.flush();
         userEventLogger.shutdown();
 
         printStatisticsAndShutdown();
-        
+        runSummaryWriter.writeSummary(wsClientManager.getTotalSentCount(), wsClientManager.getTotalSuccessCount(),
+                wsClientManager.getTotalFailedCount(), sendingMillis, runtimeMillis);
+
         log.info("=== Client Finished ===");
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
     }
 
     /**
-     * Initialize all user handlers with calculated message distribution.
+     * Initialize all user handlers with the message distribution of the workload plan.
      */
     private void initializeUsers() {
-        long totalMessagesNeeded = clientConfig.getTotalMessages();
-        int numUsers = clientConfig.getNumUsers();
-        int numRooms = clientConfig.getNumRooms();
-        
-        long messagesPerUser = totalMessagesNeeded / numUsers;
-        int textMessagesPerUser = (int) (messagesPerUser - 2);
-        if (textMessagesPerUser < 0) {
-            textMessagesPerUser = 0;
-        }
-        
-        long actualTotal = (long) numUsers * (textMessagesPerUser + 2);
-        long leftover = totalMessagesNeeded - actualTotal;
-        
         log.info("=== Message Distribution ===");
-        log.info("Total Users: {}", numUsers);
-        log.info("Total Rooms: {}", numRooms);
-        log.info("Total Messages: {}", totalMessagesNeeded);
-        log.info("Text Messages per User: {}", textMessagesPerUser);
-        log.info("Leftover: {}", leftover);
+        log.info("Total Users: {}", clientConfig.getNumUsers());
+        log.info("Total Rooms: {}", clientConfig.getNumRooms());
+        log.info("Total Messages: {}", clientConfig.getTotalMessages());
+        log.info("Sessions per User: {}", workloadPlan.getSessionsPerUser());
         log.info("============================");
-        
-        userHandlerManager.initializeUsers(numUsers, numRooms, textMessagesPerUser, leftover);
+
+        userHandlerManager.initializeUsers(workloadPlan);
     }
 
     /**
      * Pre-create all WebSocket connections in parallel before sending messages.
      * This avoids lazy initialization bottleneck during message sending.
+     * In per-user mode this opens one paced connection per user instead of one per room.
      */
     private void preCreateAllConnections() throws Exception {
+        if (wsClientManager.isPerUser()) {
+            userConnectionPool.connectAll();
+            return;
+        }
         int numRooms = clientConfig.getNumRooms();
         
         log.info("=== Pre-creating WebSocket Connections ===");
@@ -152,9 +190,12 @@ public class ClientRunner implements CommandLineRunner {
             
             long now = System.currentTimeMillis();
             if (now - lastLogTime > 5000) {
-                log.info("Progress: Completed users={}/{}",
+                log.info("Progress: Completed users={}/{}, ACK timeouts={}, resends={}, given up={}",
                         userHandlerManager.getCompletedUserCount(),
-                        userHandlerManager.getTotalUsers());
+                        userHandlerManager.getTotalUsers(),
+                        ackTimeoutStatistics.getTimeouts(),
+                        ackTimeoutStatistics.getResends(),
+                        ackTimeoutStatistics.getFailed());
                 lastLogTime = now;
             }
 
@@ -165,9 +206,51 @@ public class ClientRunner implements CommandLineRunner {
             }
         }
         
-        // Additional wait for async sends to complete
-        log.info("All messages generated, waiting for async sends to complete...");
-        TimeUnit.SECONDS.sleep(5);
+        log.info("All messages sent and acknowledged");
+    }
+
+    /**
+     * Wait for the broadcasts of acknowledged messages to come back, until every one has arrived, the
+     * drain timeout passes, or no broadcast has arrived for the no-progress period.
+     */
+    private void drainBroadcasts() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        long lastProgressTime = start;
+        long lastLogTime = start;
+        long lastReceived = broadcastStatistics.getReceived();
+        log.info("Draining broadcasts: received {}/{} (timeout {}ms, no-progress {}ms)",
+                lastReceived, broadcastStatistics.getExpected(), drainTimeoutMs, drainNoProgressMs);
+
+        String outcome;
+        while (true) {
+            long now = System.currentTimeMillis();
+            long received = broadcastStatistics.getReceived();
+            if (received >= broadcastStatistics.getExpected()) {
+                outcome = "all broadcasts received";
+                break;
+            }
+            if (received > lastReceived) {
+                lastReceived = received;
+                lastProgressTime = now;
+            }
+            if (now - start >= drainTimeoutMs) {
+                outcome = "drain timeout";
+                break;
+            }
+            if (now - lastProgressTime >= drainNoProgressMs) {
+                outcome = "no progress for " + drainNoProgressMs + "ms";
+                break;
+            }
+            if (now - lastLogTime > 5000) {
+                log.info("Draining broadcasts: received {}/{}", received, broadcastStatistics.getExpected());
+                lastLogTime = now;
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        drainMillis = System.currentTimeMillis() - start;
+        log.info("Drain finished after {}ms ({}): received {}/{} broadcasts", drainMillis, outcome,
+                broadcastStatistics.getReceived(), broadcastStatistics.getExpected());
     }
 
     /**
@@ -175,6 +258,8 @@ public class ClientRunner implements CommandLineRunner {
      */
     private void printStatisticsAndShutdown() {
         wsClientManager.printFinalStatistics();
+        broadcastStatistics.printStatistics(wsClientManager.getRuntimeSeconds(), drainMillis);
+        latencyReportWriter.writeReports();
         wsClientManager.closeAllConnections();
     }
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package edu.northeastern.hanafeng.chatsystem.client.runner;
+
+import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.config.SaturationSearchConfig;
+import edu.northeastern.hanafeng.chatsystem.client.messagehandle.MessageSequenceGenerator;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.AckTimeoutStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.BroadcastStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.CapacityReportWriter;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.CapacityStep;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ErrorResponseStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.LatencyStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.transport.WebSocketClientManager;
+import edu.northeastern.hanafeng.chatsystem.client.workload.RatePacer;
+import edu.northeastern.hanafeng.chatsystem.client.workload.WorkloadPlan;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the server's knee point: the producers are paced open-loop at a rate this search sets, which grows
+ * step by step until a step misses the SLO and is then bisected between the highest passing and the lowest
+ * failing rate. An unmeasured warmup at the start rate comes first. Each step runs for a warmup, then
+ * measures ACK latency, error rate, broadcast latency and the achieved ACK rate over its window; a pause
+ * after each step lets the backlog drain.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SaturationSearch {
+
+    private final SaturationSearchConfig config;
+    private final ClientConfig clientConfig;
+    private final WorkloadPlan workloadPlan;
+    private final MessageSequenceGenerator messageSequenceGenerator;
+    private final WebSocketClientManager wsClientManager;
+    private final LatencyStatistics latencyStatistics;
+    private final BroadcastStatistics broadcastStatistics;
+    private final AckTimeoutStatistics ackTimeoutStatistics;
+    private final ErrorResponseStatistics errorResponseStatistics;
+    private final CapacityReportWriter capacityReportWriter;
+
+    private final RatePacer pacer = new RatePacer();
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Hold the producers until the first step; call before they start.
+     */
+    public void prepare() {
+        pacer.setRate(0);
+        workloadPlan.paceBy(pacer);
+    }
+
+    /**
+     * Run the search, then release and stop the producers and write the capacity report.
+     */
+    public void run() throws InterruptedException {
+        if (!latencyStatistics.isEnabled()) {
+            log.error("Saturation search needs latency tracking (client.latency.enabled=true); skipping it");
+            finish(List.of(), 0, "latency tracking disabled");
+            return;
+        }
+        log.info("=== Saturation Search ===");
+        log.info("Start {} msg/s x{} up to {} msg/s, tolerance {}, steps of {} ms after {} ms warmup",
+                config.getStartRate(), config.getGrowthFactor(), config.getMaxRate(), config.getTolerance(),
+                config.getStepDurationMs(), config.getWarmupMs());
+        log.info("SLO: ACK p99 <= {} ms, broadcast p99 <= {} ms, error rate <= {}, achieved >= {} of offered",
+                config.getSlo().getAckP99Ms(), config.getSlo().getBroadcastP99Ms(), config.getSlo().getErrorRate(),
+                config.getSlo().getMinAchievedRatio());
+
+        if (config.getInitialWarmupMs() > 0) {
+            log.info("Warming up at {} msg/s for {} ms", format(config.getStartRate()), config.getInitialWarmupMs());
+            pacer.setRate(Math.min(config.getStartRate(), config.getMaxRate()));
+            TimeUnit.MILLISECONDS.sleep(config.getInitialWarmupMs());
+            cooldown();
+        }
+
+        List<CapacityStep> steps = new ArrayList<>();
+        double passing = 0;
+        double failing = Double.POSITIVE_INFINITY;
+        double rate = Math.min(config.getStartRate(), config.getMaxRate());
+        String outcome = "step limit reached";
+
+        for (int step = 1; step <= config.getMaxSteps(); step++) {
+            CapacityStep result = runStep(step, rate);
+            steps.add(result);
+            log.info("Step {}: offered {} msg/s, achieved {} msg/s, ACK p50/p99 {}/{} ms, broadcast p99 {} ms, "
+                            + "error rate {} -> {}",
+                    step, format(result.offeredRate()), format(result.achievedRate()), format(result.ackP50Ms()),
+                    format(result.ackP99Ms()), format(result.broadcastP99Ms()),
+                    String.format("%.4f", result.errorRate()),
+                    result.passed() ? "PASS" : "FAIL (" + result.violations() + ")");
+
+            if (budgetExhausted()) {
+                outcome = "message budget (client.total-messages) exhausted";
+                break;
+            }
+            if (result.passed()) {
+                passing = Math.max(passing, rate);
+            } else {
+                failing = Math.min(failing, rate);
+            }
+
+            if (failing == Double.POSITIVE_INFINITY) {
+                if (rate >= config.getMaxRate()) {
+                    outcome = "max rate met the SLO";
+                    break;
+                }
+                rate = Math.min(rate * config.getGrowthFactor(), config.getMaxRate());
+            } else {
+                if (failing - passing <= config.getTolerance() * failing) {
+                    outcome = "converged";
+                    break;
+                }
+                rate = (passing + failing) / 2;
+            }
+            cooldown();
+        }
+
+        finish(steps, passing, outcome);
+    }
+
+    private CapacityStep runStep(int step, double rate) throws InterruptedException {
+        pacer.setRate(rate);
+        TimeUnit.MILLISECONDS.sleep(config.getWarmupMs());
+
+        latencyStatistics.takeWindow(LatencyStatistics.Kind.ACK);
+        latencyStatistics.takeWindow(LatencyStatistics.Kind.BROADCAST);
+        long sentBefore = wsClientManager.getTotalSentCount();
+        long errorsBefore = errorCount();
+        long start = System.nanoTime();
+
+        TimeUnit.MILLISECONDS.sleep(config.getStepDurationMs());
+
+        Histogram acks = latencyStatistics.takeWindow(LatencyStatistics.Kind.ACK);
+        Histogram broadcasts = latencyStatistics.takeWindow(LatencyStatistics.Kind.BROADCAST);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long sent = wsClientManager.getTotalSentCount() - sentBefore;
+        long errors = errorCount() - errorsBefore;
+
+        double achieved = acks.getTotalCount() / seconds;
+        double ackP50 = acks.getValueAtPercentile(50) / 1000.0;
+        double ackP99 = acks.getValueAtPercentile(99) / 1000.0;
+        double broadcastP99 = broadcasts.getValueAtPercentile(99) / 1000.0;
+        double errorRate = sent == 0 ? 0 : (double) errors / sent;
+
+        SaturationSearchConfig.Slo slo = config.getSlo();
+        List<String> violations = new ArrayList<>();
+        if (achieved < slo.getMinAchievedRatio() * rate) {
+            violations.add("achieved " + format(achieved) + " < " + slo.getMinAchievedRatio() + " x offered");
+        }
+        if (ackP99 > slo.getAckP99Ms()) {
+            violations.add("ACK p99 " + format(ackP99) + " ms");
+        }
+        if (broadcastP99 > slo.getBroadcastP99Ms()) {
+            violations.add("broadcast p99 " + format(broadcastP99) + " ms");
+        }
+        if (errorRate > slo.getErrorRate()) {
+            violations.add("error rate " + String.format("%.4f", errorRate));
+        }
+
+        return new CapacityStep(step, rate, achieved, acks.getTotalCount(), ackP50, ackP99, broadcastP99,
+                broadcasts.getTotalCount(), sent, errors, errorRate,
+                broadcastStatistics.getExpected() - broadcastStatistics.getReceived(),
+                violations.isEmpty(), String.join("; ", violations));
+    }
+
+    /**
+     * Hold the producers until ACKs stop arriving, so the next step does not start on this one's backlog.
+     */
+    private void cooldown() throws InterruptedException {
+        pacer.setRate(0);
+        long deadline = System.currentTimeMillis() + config.getCooldownMs();
+        latencyStatistics.takeWindow(LatencyStatistics.Kind.ACK);
+        while (System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(500);
+            if (latencyStatistics.takeWindow(LatencyStatistics.Kind.ACK).getTotalCount() == 0) {
+                return;
+            }
+        }
+        log.warn("Backlog still draining after {} ms cooldown", config.getCooldownMs());
+    }
+
+    private long errorCount() {
+        return errorResponseStatistics.getTotal() + ackTimeoutStatistics.getTimeouts()
+                + ackTimeoutStatistics.getSendFailures();
+    }
+
+    private boolean budgetExhausted() {
+        return messageSequenceGenerator.getProducedCount() >= clientConfig.getTotalMessages();
+    }
+
+    private void finish(List<CapacityStep> steps, double kneeRate, String outcome) {
+        pacer.release();
+        messageSequenceGenerator.stop();
+
+        log.info("=== Capacity Report ===");
+        log.info(String.format("%-5s %12s %12s %10s %10s %12s %10s  %s",
+                "step", "offered/s", "achieved/s", "ACK p50", "ACK p99", "bcast p99", "errors", "verdict"));
+        for (CapacityStep s : steps) {
+            log.info(String.format("%-5d %12.1f %12.1f %10.3f %10.3f %12.3f %10d  %s",
+                    s.step(), s.offeredRate(), s.achievedRate(), s.ackP50Ms(), s.ackP99Ms(), s.broadcastP99Ms(),
+                    s.errors(), s.passed() ? "PASS" : "FAIL"));
+        }
+        if (kneeRate > 0) {
+            log.info("Knee point: {} msg/s offered ({})", format(kneeRate), outcome);
+        } else {
+            log.info("No step met the SLO ({})", outcome);
+        }
+        log.info("=======================");
+        capacityReportWriter.writeReport(steps, kneeRate, outcome, config.getSlo());
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,66 @@
+package edu.northeastern.hanafeng.chatsystem.client.support;
+
+import java.util.UUID;
+
+/**
+ * Message IDs built from (userId, sequence) in the UUID shape the server requires, instead of a random UUID
+ * per message: {@code rrrrrrrr-rrrr-rrrr-uuuu-uuuussssssss}, where r is a random run ID drawn once per client
+ * process (so reruns never repeat an ID), u the user ID and s the user's message sequence, all in hex.
+ *
+ * Formatting takes no shared random source and parsing allocates nothing, so a user tracks its pending
+ * confirmations by sequence number rather than by ID string.
+ */
+public final class MessageIds {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final long RUN_ID = UUID.randomUUID().getMostSignificantBits();
+
+    // Run ID part shared by every message of this process, including the dash after it
+    private static final String RUN_PREFIX = format(0, 0).substring(0, 19);
+
+    private MessageIds() {}
+
+    /**
+     * @param sequence the user's message sequence, 0 for JOIN
+     */
+    public static String format(int userId, int sequence) {
+        char[] chars = new char[36];
+        writeHex(chars, 0, RUN_ID >>> 32, 8);
+        chars[8] = '-';
+        writeHex(chars, 9, RUN_ID >>> 16, 4);
+        chars[13] = '-';
+        writeHex(chars, 14, RUN_ID, 4);
+        chars[18] = '-';
+        writeHex(chars, 19, userId >>> 16, 4);
+        chars[23] = '-';
+        writeHex(chars, 24, userId, 4);
+        writeHex(chars, 28, sequence, 8);
+        return new String(chars);
+    }
+
+    /**
+     * The sequence of a message ID issued by this process, or -1 for any other ID.
+     */
+    public static int sequence(String messageId) {
+        if (messageId == null || messageId.length() != 36 || !messageId.startsWith(RUN_PREFIX)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 28; i < 36; i++) {
+            int digit = Character.digit(messageId.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return (int) value;
+    }
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
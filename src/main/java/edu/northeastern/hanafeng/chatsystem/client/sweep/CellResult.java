@@ -0,0 +1,112 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import edu.northeastern.hanafeng.chatsystem.client.metrics.RunSummaryWriter.RunSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The runs of one configuration in the sweep and their statistics: mean, standard deviation and a 95%
+ * confidence interval (Student's t) of the mean over the successful runs.
+ */
+final class CellResult {
+
+    // Two-sided 95% t critical values for 1..30 degrees of freedom; 1.96 beyond
+    private static final double[] T_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    /**
+     * Mean of a metric with its standard deviation and the half-width of its 95% confidence interval
+     * (NaN with fewer than two runs).
+     */
+    record Estimate(double mean, double stddev, double ci95) {
+
+        boolean overlaps(Estimate other) {
+            if (Double.isNaN(ci95) || Double.isNaN(other.ci95)) {
+                return false;
+            }
+            return mean - ci95 <= other.mean + other.ci95 && other.mean - other.ci95 <= mean + ci95;
+        }
+    }
+
+    private final int index;
+    private final Map<String, String> settings;
+    private final List<RunSummary> runs = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+
+    CellResult(int index, Map<String, String> settings) {
+        this.index = index;
+        this.settings = settings;
+    }
+
+    int index() {
+        return index;
+    }
+
+    Map<String, String> settings() {
+        return settings;
+    }
+
+    List<RunSummary> runs() {
+        return runs;
+    }
+
+    List<String> failures() {
+        return failures;
+    }
+
+    void addRun(RunSummary run) {
+        runs.add(run);
+    }
+
+    void addFailure(String reason) {
+        failures.add(reason);
+    }
+
+    Estimate throughput() {
+        return estimate(RunSummary::throughput);
+    }
+
+    Estimate ackP99() {
+        return estimate(RunSummary::ackP99Ms);
+    }
+
+    Estimate broadcastP99() {
+        return estimate(RunSummary::broadcastP99Ms);
+    }
+
+    long errors() {
+        return runs.stream().mapToLong(run -> run.failed() + run.ackFailures() + run.errorResponses()).sum();
+    }
+
+    String label() {
+        StringBuilder label = new StringBuilder();
+        settings.forEach((property, value) -> {
+            if (label.length() > 0) {
+                label.append(", ");
+            }
+            label.append(property.startsWith("client.") ? property.substring("client.".length()) : property)
+                    .append('=').append(value);
+        });
+        return label.toString();
+    }
+
+    private Estimate estimate(ToDoubleFunction<RunSummary> metric) {
+        int n = runs.size();
+        if (n == 0) {
+            return new Estimate(Double.NaN, Double.NaN, Double.NaN);
+        }
+        double mean = runs.stream().mapToDouble(metric).average().orElse(Double.NaN);
+        if (n == 1) {
+            return new Estimate(mean, Double.NaN, Double.NaN);
+        }
+        double squares = runs.stream().mapToDouble(run -> Math.pow(metric.applyAsDouble(run) - mean, 2)).sum();
+        double stddev = Math.sqrt(squares / (n - 1));
+        double t = n - 1 <= T_95.length ? T_95[n - 2] : 1.96;
+        return new Estimate(mean, stddev, t * stddev / Math.sqrt(n));
+    }
+}
@@ -0,0 +1,138 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.client.ChatClientApplication;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.RunSummaryWriter.RunSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Parameter sweep over client settings such as client.sender-threads, client.dispatcher-threads,
+ * client.message-queue-capacity or client.sender-task-queue-capacity. Every cell of the matrix runs as a
+ * separate client JVM against the target given by the pass-through arguments (the local server by default),
+ * repeated --sweep.repeats times. Repetitions are interleaved across cells, so drift of the target over the
+ * sweep spreads over all cells instead of biasing the last ones. See {@link SweepOptions} for the options.
+ *
+ * <pre>
+ * ./gradlew sweep --args='--sweep.axis=client.sender-threads:32,64,128 \
+ *     --sweep.axis=client.dispatcher-threads:2,5,10 --sweep.repeats=3 --client.total-messages=200000'
+ * </pre>
+ */
+@Slf4j
+public final class ParameterSweep {
+
+    private final SweepOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private ParameterSweep(SweepOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SweepOptions options;
+        try {
+            options = SweepOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            log.error("{}", e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new ParameterSweep(options).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Files.createDirectories(options.outputDir());
+        List<CellResult> cells = new ArrayList<>();
+        for (Map<String, String> settings : options.cells()) {
+            cells.add(new CellResult(cells.size() + 1, settings));
+        }
+
+        int total = cells.size() * options.repeats();
+        log.info("=== Parameter Sweep: {} cells x {} repeats = {} runs ===", cells.size(), options.repeats(), total);
+        for (SweepOptions.Axis axis : options.axes()) {
+            log.info("  {}: {}", axis.property(), axis.values());
+        }
+        log.info("  client args: {}", options.clientArgs());
+
+        int run = 0;
+        for (int repeat = 1; repeat <= options.repeats(); repeat++) {
+            for (CellResult cell : cells) {
+                if (run > 0 && options.pauseSeconds() > 0) {
+                    TimeUnit.SECONDS.sleep(options.pauseSeconds());
+                }
+                run++;
+                Path runDir = options.outputDir().resolve("cell-" + cell.index()).resolve("rep-" + repeat);
+                log.info("Run {}/{}: cell {} ({}) repeat {}", run, total, cell.index(), cell.label(), repeat);
+                runCell(cell, runDir);
+            }
+        }
+
+        new SweepReport(options, objectMapper).write(cells);
+    }
+
+    private void runCell(CellResult cell, Path runDir) throws IOException, InterruptedException {
+        Files.createDirectories(runDir);
+        Process process = new ProcessBuilder(command(cell, runDir))
+                .redirectErrorStream(true)
+                .redirectOutput(runDir.resolve("client.log").toFile())
+                .start();
+
+        if (!process.waitFor(options.timeoutSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+            fail(cell, runDir, "timed out after " + options.timeoutSeconds() + " s");
+            return;
+        }
+        if (process.exitValue() != 0) {
+            fail(cell, runDir, "exit code " + process.exitValue());
+            return;
+        }
+        Optional<Path> summaryFile = findSummary(runDir);
+        if (summaryFile.isEmpty()) {
+            fail(cell, runDir, "no run summary written");
+            return;
+        }
+        RunSummary summary = objectMapper.readValue(summaryFile.get().toFile(), RunSummary.class);
+        cell.addRun(summary);
+        log.info("  -> {} msg/s, ACK p99 {} ms, {} failed sends, {} ACK timeouts",
+                String.format("%.1f", summary.throughput()), String.format("%.3f", summary.ackP99Ms()),
+                summary.failed(), summary.ackTimeouts());
+    }
+
+    private void fail(CellResult cell, Path runDir, String reason) {
+        log.warn("  -> run failed: {} (see {})", reason, runDir.resolve("client.log"));
+        cell.addFailure(runDir.getFileName() + ": " + reason);
+    }
+
+    private List<String> command(CellResult cell, Path runDir) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options.jvmArgs());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ChatClientApplication.class.getName());
+        command.addAll(options.clientArgs());
+        cell.settings().forEach((property, value) -> command.add("--" + property + "=" + value));
+        command.add("--client.logs.directory=" + runDir.toAbsolutePath());
+        command.add("--client.exit-on-finish=true");
+        return command;
+    }
+
+    private static Optional<Path> findSummary(Path runDir) throws IOException {
+        try (Stream<Path> files = Files.list(runDir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("run_summary_"))
+                    .max(Path::compareTo);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of the parameter sweep. Options start with --sweep.; every other argument is passed to each
+ * client run unchanged (e.g. --client.ws-base=... to target an endpoint, --spring.profiles.active=...).
+ *
+ * <pre>
+ * --sweep.axis=client.sender-threads:32,64,128   one axis of the matrix; repeat for more axes
+ * --sweep.repeats=3                              runs per cell
+ * --sweep.timeout-seconds=900                    a run still going after this counts as failed
+ * --sweep.pause-seconds=5                        pause between runs so the target settles
+ * --sweep.output-dir=./logs/sweep_...            where runs, tables and charts go
+ * --sweep.jvm-args=-Xmx2g                        JVM options of each client run, space separated
+ * --sweep.rank-by=throughput|p99                 highest mean throughput or lowest mean ACK p99 first
+ * </pre>
+ */
+record SweepOptions(List<Axis> axes, int repeats, long timeoutSeconds, long pauseSeconds, Path outputDir,
+                    List<String> jvmArgs, String rankBy, List<String> clientArgs) {
+
+    /**
+     * One client property and the values it takes in the sweep.
+     */
+    record Axis(String property, List<String> values) {
+
+        /**
+         * Property name without the common client. prefix, for tables and charts.
+         */
+        String shortName() {
+            return property.startsWith("client.") ? property.substring("client.".length()) : property;
+        }
+    }
+
+    static SweepOptions parse(String[] args) {
+        List<Axis> axes = new ArrayList<>();
+        int repeats = 3;
+        long timeoutSeconds = 900;
+        long pauseSeconds = 5;
+        Path outputDir = Paths.get("logs",
+                "sweep_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
+        List<String> jvmArgs = List.of();
+        String rankBy = "throughput";
+        List<String> clientArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--sweep.")) {
+                clientArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Sweep option needs a value: " + arg);
+            }
+            String name = arg.substring("--sweep.".length(), equals);
+            String value = arg.substring(equals + 1);
+            switch (name) {
+                case "axis" -> axes.add(parseAxis(value));
+                case "repeats" -> repeats = Integer.parseInt(value);
+                case "timeout-seconds" -> timeoutSeconds = Long.parseLong(value);
+                case "pause-seconds" -> pauseSeconds = Long.parseLong(value);
+                case "output-dir" -> outputDir = Paths.get(value);
+                case "jvm-args" -> jvmArgs = value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+                case "rank-by" -> rankBy = value;
+                default -> throw new IllegalArgumentException("Unknown sweep option: " + arg);
+            }
+        }
+
+        if (axes.isEmpty()) {
+            throw new IllegalArgumentException("At least one --sweep.axis=<property>:<v1>,<v2>,... is required");
+        }
+        if (repeats < 1 || timeoutSeconds < 1 || pauseSeconds < 0) {
+            throw new IllegalArgumentException("repeats and timeout-seconds must be positive, pause-seconds >= 0");
+        }
+        if (!rankBy.equals("throughput") && !rankBy.equals("p99")) {
+            throw new IllegalArgumentException("rank-by must be throughput or p99");
+        }
+        return new SweepOptions(List.copyOf(axes), repeats, timeoutSeconds, pauseSeconds, outputDir, jvmArgs,
+                rankBy, List.copyOf(clientArgs));
+    }
+
+    private static Axis parseAxis(String value) {
+        int colon = value.indexOf(':');
+        if (colon <= 0 || colon == value.length() - 1) {
+            throw new IllegalArgumentException("Invalid axis '" + value + "' (property:v1,v2,...)");
+        }
+        List<String> values = Arrays.stream(value.substring(colon + 1).split(","))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .toList();
+        return new Axis(value.substring(0, colon).trim(), values);
+    }
+
+    /**
+     * Every combination of axis values, the first axis varying slowest.
+     */
+    List<Map<String, String>> cells() {
+        List<Map<String, String>> cells = new ArrayList<>();
+        cells.add(new LinkedHashMap<>());
+        for (Axis axis : axes) {
+            List<Map<String, String>> expanded = new ArrayList<>();
+            for (Map<String, String> cell : cells) {
+                for (String value : axis.values()) {
+                    Map<String, String> next = new LinkedHashMap<>(cell);
+                    next.put(axis.property(), value);
+                    expanded.add(next);
+                }
+            }
+            cells = expanded;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,204 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.knowm.xchart.BitmapEncoder;
+import org.knowm.xchart.HeatMapChart;
+import org.knowm.xchart.HeatMapChartBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ranks the cells of a sweep and writes the results: a ranked table in the log, sweep_results.csv,
+ * sweep_report.json with every run, and heatmaps of mean throughput and mean ACK p99 over the first two
+ * axes (one pair per combination of the remaining axes).
+ */
+@Slf4j
+final class SweepReport {
+
+    private final SweepOptions options;
+    private final ObjectMapper objectMapper;
+
+    SweepReport(SweepOptions options, ObjectMapper objectMapper) {
+        this.options = options;
+        this.objectMapper = objectMapper;
+    }
+
+    void write(List<CellResult> cells) throws IOException {
+        List<CellResult> ranked = rank(cells);
+        CellResult best = ranked.isEmpty() || ranked.get(0).runs().isEmpty() ? null : ranked.get(0);
+
+        logTable(ranked, best);
+        writeCsv(options.outputDir().resolve("sweep_results.csv"), ranked, best);
+        writeJson(options.outputDir().resolve("sweep_report.json"), ranked);
+        writeHeatmaps(cells);
+        log.info("Sweep results written to {}", options.outputDir().toAbsolutePath());
+    }
+
+    private List<CellResult> rank(List<CellResult> cells) {
+        Comparator<CellResult> order = options.rankBy().equals("p99")
+                ? Comparator.comparingDouble(cell -> cell.ackP99().mean())
+                : Comparator.comparingDouble((CellResult cell) -> cell.throughput().mean()).reversed();
+        // Cells without a successful run go last whatever the order
+        return cells.stream()
+                .sorted(Comparator.comparing((CellResult cell) -> cell.runs().isEmpty()).thenComparing(order))
+                .toList();
+    }
+
+    /**
+     * Whether a cell cannot be told apart from the best one: their 95% intervals of the ranking metric overlap.
+     */
+    private boolean tiesBest(CellResult cell, CellResult best) {
+        if (best == null || cell == best) {
+            return false;
+        }
+        return options.rankBy().equals("p99")
+                ? cell.ackP99().overlaps(best.ackP99())
+                : cell.throughput().overlaps(best.throughput());
+    }
+
+    private void logTable(List<CellResult> ranked, CellResult best) {
+        log.info("=== Parameter Sweep Results (ranked by {}) ===", options.rankBy());
+        log.info(String.format("%-4s %-5s %18s %18s %10s %5s %7s  %s",
+                "rank", "cell", "throughput/s", "ACK p99 ms", "bcast p99", "runs", "errors", "settings"));
+        int rank = 1;
+        for (CellResult cell : ranked) {
+            CellResult.Estimate throughput = cell.throughput();
+            CellResult.Estimate ackP99 = cell.ackP99();
+            log.info(String.format("%-4s %-5d %18s %18s %10.3f %2d/%-2d %7d  %s%s",
+                    cell.runs().isEmpty() ? "-" : String.valueOf(rank++), cell.index(),
+                    withInterval(throughput, "%.1f"), withInterval(ackP99, "%.3f"), cell.broadcastP99().mean(),
+                    cell.runs().size(), options.repeats(), cell.errors(), cell.label(),
+                    tiesBest(cell, best) ? "  (within CI of best)" : ""));
+        }
+        log.info("==============================================");
+    }
+
+    private static String withInterval(CellResult.Estimate estimate, String format) {
+        if (Double.isNaN(estimate.ci95())) {
+            return String.format(format, estimate.mean());
+        }
+        return String.format(format + " +/-" + format, estimate.mean(), estimate.ci95());
+    }
+
+    private void writeCsv(Path file, List<CellResult> ranked, CellResult best) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            StringBuilder header = new StringBuilder("rank,cell");
+            for (SweepOptions.Axis axis : options.axes()) {
+                header.append(',').append(axis.property());
+            }
+            header.append(",runs,failedRuns,throughputMean,throughputStddev,throughputCi95,ackP99MeanMs,"
+                    + "ackP99StddevMs,ackP99Ci95Ms,broadcastP99MeanMs,errors,withinCiOfBest\n");
+            writer.write(header.toString());
+
+            int rank = 1;
+            for (CellResult cell : ranked) {
+                StringBuilder row = new StringBuilder();
+                row.append(cell.runs().isEmpty() ? "" : String.valueOf(rank++)).append(',').append(cell.index());
+                for (SweepOptions.Axis axis : options.axes()) {
+                    row.append(',').append(cell.settings().get(axis.property()));
+                }
+                CellResult.Estimate throughput = cell.throughput();
+                CellResult.Estimate ackP99 = cell.ackP99();
+                row.append(String.format(",%d,%d,%.1f,%.1f,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%s%n",
+                        cell.runs().size(), cell.failures().size(), throughput.mean(), throughput.stddev(),
+                        throughput.ci95(), ackP99.mean(), ackP99.stddev(), ackP99.ci95(),
+                        cell.broadcastP99().mean(), cell.errors(), tiesBest(cell, best)));
+                writer.write(row.toString());
+            }
+        }
+    }
+
+    private void writeJson(Path file, List<CellResult> ranked) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (CellResult cell : ranked) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("cell", cell.index());
+            row.put("settings", cell.settings());
+            row.put("throughput", cell.throughput());
+            row.put("ackP99Ms", cell.ackP99());
+            row.put("broadcastP99Ms", cell.broadcastP99());
+            row.put("errors", cell.errors());
+            row.put("runs", cell.runs());
+            row.put("failures", cell.failures());
+            rows.add(row);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rankBy", options.rankBy());
+        report.put("repeats", options.repeats());
+        report.put("axes", options.axes());
+        report.put("clientArgs", options.clientArgs());
+        report.put("cells", rows);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private void writeHeatmaps(List<CellResult> cells) throws IOException {
+        List<SweepOptions.Axis> axes = options.axes();
+        SweepOptions.Axis xAxis = axes.get(0);
+        SweepOptions.Axis yAxis = axes.size() > 1 ? axes.get(1) : null;
+
+        // One chart pair per combination of the axes beyond the first two
+        Map<String, List<CellResult>> slices = new LinkedHashMap<>();
+        for (CellResult cell : cells) {
+            StringBuilder key = new StringBuilder();
+            for (SweepOptions.Axis axis : axes.subList(Math.min(2, axes.size()), axes.size())) {
+                key.append(key.length() > 0 ? "_" : "").append(axis.shortName()).append('-')
+                        .append(cell.settings().get(axis.property()));
+            }
+            slices.computeIfAbsent(key.toString(), k -> new ArrayList<>()).add(cell);
+        }
+
+        for (Map.Entry<String, List<CellResult>> slice : slices.entrySet()) {
+            String suffix = slice.getKey().isEmpty() ? "" : "_" + slice.getKey();
+            writeHeatmap(options.outputDir().resolve("sweep_heatmap_throughput" + suffix),
+                    "Mean throughput (msg/s)" + title(slice.getKey()), xAxis, yAxis, slice.getValue(),
+                    cell -> cell.throughput().mean());
+            writeHeatmap(options.outputDir().resolve("sweep_heatmap_ack_p99" + suffix),
+                    "Mean ACK p99 (ms)" + title(slice.getKey()), xAxis, yAxis, slice.getValue(),
+                    cell -> cell.ackP99().mean());
+        }
+    }
+
+    private static String title(String slice) {
+        return slice.isEmpty() ? "" : " @ " + slice.replace('_', ' ');
+    }
+
+    private void writeHeatmap(Path file, String title, SweepOptions.Axis xAxis, SweepOptions.Axis yAxis,
+                              List<CellResult> cells, Function<CellResult, Double> metric) throws IOException {
+        List<String> xValues = xAxis.values();
+        List<String> yValues = yAxis == null ? List.of("-") : yAxis.values();
+        List<Number[]> data = new ArrayList<>();
+        for (CellResult cell : cells) {
+            double value = metric.apply(cell);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            int x = xValues.indexOf(cell.settings().get(xAxis.property()));
+            int y = yAxis == null ? 0 : yValues.indexOf(cell.settings().get(yAxis.property()));
+            data.add(new Number[]{x, y, Math.round(value * 10) / 10.0});
+        }
+        if (data.isEmpty()) {
+            return;
+        }
+
+        HeatMapChart chart = new HeatMapChartBuilder()
+                .width(900).height(600)
+                .title(title)
+                .xAxisTitle(xAxis.shortName())
+                .yAxisTitle(yAxis == null ? "" : yAxis.shortName())
+                .build();
+        chart.getStyler().setShowValue(true);
+        chart.getStyler().setLegendVisible(true);
+        chart.addSeries(title, xValues, yValues, data);
+        BitmapEncoder.saveBitmap(chart, file.toString(), BitmapEncoder.BitmapFormat.PNG);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+
+/**
+ * A client connection chat messages are sent over: a Java-WebSocket client shared by a room
+ * ({@link WebSocketChatClient}) or a Netty channel owned by one user ({@link UserConnection}).
+ */
+public interface ChatConnection {
+
+    boolean isOpen();
+
+    /**
+     * Send a message, first waiting for a flow-control credit if the server granted flow control.
+     */
+    void sendChatMessage(ChatMessage message) throws JsonProcessingException;
+
+    /**
+     * Send a message without taking a flow-control credit; for callers that took one through
+     * {@link #tryAcquireCredit()}.
+     */
+    void writeChatMessage(ChatMessage message) throws JsonProcessingException;
+
+    boolean isFlowControlled();
+
+    boolean tryAcquireCredit();
+
+    boolean hasCredit();
+
+    void setCreditListener(Runnable creditListener);
+}
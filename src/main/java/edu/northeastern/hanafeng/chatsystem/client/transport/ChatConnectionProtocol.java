@@ -0,0 +1,427 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.EventRecord;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.UserEventLogger;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.BroadcastStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ErrorResponseStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.FlowControlStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.LatencyStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.WireFormatStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.model.CompactAck;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.ResponseMessage;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The chat protocol of one client connection, independent of the WebSocket library carrying it:
+ * encodes outgoing messages in the negotiated wire format, tracks compact-ACK sequences and flow-control
+ * credits, and handles incoming responses, ACKs, credit grants and broadcasts.
+ *
+ * Used by {@link WebSocketChatClient} (one Java-WebSocket client per room) and {@link UserConnection}
+ * (one Netty channel per user).
+ */
+@Slf4j
+public class ChatConnectionProtocol {
+
+    /**
+     * Writes encoded frames to the underlying connection.
+     */
+    public interface FrameSink {
+        void sendText(String payload);
+
+        void sendBinary(byte[] payload);
+    }
+
+    // Fields a serialized ResponseMessage can start with
+    private static final Set<String> RESPONSE_FIELDS = Set.of("echo", "serverTimestamp", "status", "error");
+
+    private final int roomId;
+    private final UserHandlerManager userHandlerManager;
+    private final ObjectMapper objectMapper;
+    private final WireFormatStatistics wireFormatStatistics;
+    private final FlowControlStatistics flowControlStatistics;
+    private final LatencyStatistics latencyStatistics;
+    private final BroadcastStatistics broadcastStatistics;
+    private final ErrorResponseStatistics errorResponseStatistics;
+    private final UserEventLogger userEventLogger;
+    private final long creditWaitMs;
+
+    // Negotiated during the handshake
+    private volatile boolean binary;
+
+    // ACK mode accepted by the server; compact modes identify messages by per-connection sequence
+    private volatile AckMode ackMode = AckMode.FULL;
+    private final Object sendLock = new Object();
+    private long sendSequence;
+    private final Map<Long, PendingAck> pendingAcks = new ConcurrentHashMap<>();
+
+    // Credit-based flow control accepted by the server; each send consumes one granted credit
+    private volatile boolean flowControl;
+    private final Semaphore credits = new Semaphore(0);
+    private volatile Runnable creditListener;
+
+    public ChatConnectionProtocol(
+            int roomId,
+            UserHandlerManager userHandlerManager,
+            ObjectMapper objectMapper,
+            WireFormatStatistics wireFormatStatistics,
+            FlowControlStatistics flowControlStatistics,
+            LatencyStatistics latencyStatistics,
+            BroadcastStatistics broadcastStatistics,
+            ErrorResponseStatistics errorResponseStatistics,
+            UserEventLogger userEventLogger,
+            long creditWaitMs) {
+        this.roomId = roomId;
+        this.userHandlerManager = userHandlerManager;
+        this.objectMapper = objectMapper;
+        this.wireFormatStatistics = wireFormatStatistics;
+        this.flowControlStatistics = flowControlStatistics;
+        this.latencyStatistics = latencyStatistics;
+        this.broadcastStatistics = broadcastStatistics;
+        this.errorResponseStatistics = errorResponseStatistics;
+        this.userEventLogger = userEventLogger;
+        this.creditWaitMs = creditWaitMs;
+    }
+
+    /**
+     * Apply what the server accepted in its handshake response.
+     *
+     * @param ackModeHeader  the {@link AckMode#HEADER} response header, null if absent
+     * @param flowControlHeader the {@link CreditGrant#HEADER} response header, null if absent
+     * @param subprotocol the accepted subprotocol, null or empty if none
+     */
+    public void onHandshake(String ackModeHeader, String flowControlHeader, String subprotocol) {
+        ackMode = AckMode.fromValue(ackModeHeader);
+        flowControl = CreditGrant.MODE_CREDITS.equalsIgnoreCase(flowControlHeader);
+        binary = ChatBinaryCodec.SUBPROTOCOL.equals(subprotocol);
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public AckMode getAckMode() {
+        return ackMode;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Serialize a chat message in the negotiated wire format and send it.
+     * With flow control, first waits for a send credit; a timeout throws so the caller's retry applies.
+     * Round-trip timing starts after the credit wait, as the frame is written.
+     */
+    public void sendChatMessage(ChatMessage message, FrameSink sink) throws JsonProcessingException {
+        if (flowControl) {
+            acquireCredit();
+        }
+        writeChatMessage(message, sink);
+    }
+
+    /**
+     * Serialize and send a chat message without taking a flow-control credit; for callers that took one
+     * through {@link #tryAcquireCredit()}.
+     */
+    public void writeChatMessage(ChatMessage message, FrameSink sink) throws JsonProcessingException {
+        if (binary) {
+            long start = System.nanoTime();
+            byte[] payload = ChatBinaryCodec.encodeChatMessage(message);
+            wireFormatStatistics.recordSent(payload.length, System.nanoTime() - start);
+            latencyStatistics.recordSend(message.getMessageId());
+            logSend(message);
+            if (ackMode == AckMode.FULL) {
+                sink.sendBinary(payload);
+            } else {
+                sendSequenced(message, () -> sink.sendBinary(payload));
+            }
+        } else {
+            long start = System.nanoTime();
+            String payload = objectMapper.writeValueAsString(message);
+            wireFormatStatistics.recordSent(utf8Length(payload), System.nanoTime() - start);
+            latencyStatistics.recordSend(message.getMessageId());
+            logSend(message);
+            if (ackMode == AckMode.FULL) {
+                sink.sendText(payload);
+            } else {
+                sendSequenced(message, () -> sink.sendText(payload));
+            }
+        }
+    }
+
+    private void logSend(ChatMessage message) {
+        userEventLogger.logEvent(EventRecord.SEND, Integer.parseInt(message.getUserId()), roomId,
+                message.getMessageType(), message.getMessageId(), -1);
+    }
+
+    /**
+     * Send under a lock so the local sequence number matches the order the server receives frames in.
+     */
+    private void sendSequenced(ChatMessage message, Runnable send) {
+        synchronized (sendLock) {
+            long sequence = ++sendSequence;
+            pendingAcks.put(sequence, new PendingAck(
+                    Integer.parseInt(message.getUserId()), message.getMessageType(), message.getMessageId()));
+            try {
+                send.run();
+            } catch (RuntimeException e) {
+                pendingAcks.remove(sequence);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Whether the server accepted credit-based flow control for this connection.
+     */
+    public boolean isFlowControlled() {
+        return flowControl;
+    }
+
+    /**
+     * Take a send credit if one is available, without waiting; always succeeds without flow control.
+     */
+    public boolean tryAcquireCredit() {
+        return !flowControl || credits.tryAcquire();
+    }
+
+    /**
+     * Whether a send credit is available now, without taking it; always true without flow control.
+     */
+    public boolean hasCredit() {
+        return !flowControl || credits.availablePermits() > 0;
+    }
+
+    /**
+     * Called on the receiving thread after every credit grant, so a non-blocking sender can resume.
+     */
+    public void setCreditListener(Runnable creditListener) {
+        this.creditListener = creditListener;
+    }
+
+    private void acquireCredit() {
+        if (credits.tryAcquire()) {
+            flowControlStatistics.recordImmediateSend();
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = credits.tryAcquire(creditWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for send credit", e);
+        }
+        flowControlStatistics.recordWait(System.nanoTime() - start, acquired);
+        if (!acquired) {
+            throw new IllegalStateException("No send credit from room " + roomId + " within " + creditWaitMs + " ms");
+        }
+    }
+
+    /**
+     * Text frames are classified by their first field name before any parsing: compact ACKs and credit
+     * grants start with their "t" type field, responses with a ResponseMessage field, and anything else is
+     * a broadcast chat message, which is only parsed when latency tracking needs its message id.
+     */
+    public void onText(String message) {
+        try {
+            long start = System.nanoTime();
+            String firstField = firstFieldName(message);
+            if ("t".equals(firstField)) {
+                JsonNode node = objectMapper.readTree(message);
+                if (CreditGrant.TYPE.equals(node.get("t").asText())) {
+                    wireFormatStatistics.recordReceived(utf8Length(message), System.nanoTime() - start);
+                    handleCreditGrant(node.get("n").asInt());
+                    return;
+                }
+                CompactAck ack = objectMapper.treeToValue(node, CompactAck.class);
+                wireFormatStatistics.recordReceived(utf8Length(message), System.nanoTime() - start);
+                handleCompactAck(ack);
+                return;
+            }
+            if (!RESPONSE_FIELDS.contains(firstField)) {
+                if (!latencyStatistics.isEnabled()) {
+                    wireFormatStatistics.recordReceived(utf8Length(message), 0);
+                    broadcastStatistics.recordReceived(roomId, false);
+                    return;
+                }
+                ChatMessage broadcast = objectMapper.readValue(message, ChatMessage.class);
+                wireFormatStatistics.recordReceived(utf8Length(message), System.nanoTime() - start);
+                handleBroadcast(broadcast);
+                return;
+            }
+            ResponseMessage response = objectMapper.readValue(message, ResponseMessage.class);
+            wireFormatStatistics.recordReceived(utf8Length(message), System.nanoTime() - start);
+
+            handleResponse(response);
+        } catch (Exception e) {
+            log.warn("Failed to parse message from room {}: {}", roomId, e.getMessage());
+        }
+    }
+
+    public void onBinary(ByteBuffer bytes) {
+        try {
+            int length = bytes.remaining();
+            byte frameType = ChatBinaryCodec.frameType(bytes);
+            if (frameType == ChatBinaryCodec.FRAME_CREDIT) {
+                long start = System.nanoTime();
+                CreditGrant grant = ChatBinaryCodec.decodeCreditGrant(bytes);
+                wireFormatStatistics.recordReceived(length, System.nanoTime() - start);
+
+                handleCreditGrant(grant.getCredits());
+                return;
+            }
+            if (frameType == ChatBinaryCodec.FRAME_ACK || frameType == ChatBinaryCodec.FRAME_ACK_RANGE) {
+                long start = System.nanoTime();
+                CompactAck ack = ChatBinaryCodec.decodeCompactAck(bytes);
+                wireFormatStatistics.recordReceived(length, System.nanoTime() - start);
+
+                handleCompactAck(ack);
+                return;
+            }
+            if (frameType == ChatBinaryCodec.FRAME_CHAT_MESSAGE) {
+                if (!latencyStatistics.isEnabled()) {
+                    // Broadcast frames carry no echo; only decoded for latency tracking
+                    wireFormatStatistics.recordReceived(length, 0);
+                    broadcastStatistics.recordReceived(roomId, false);
+                    return;
+                }
+                long start = System.nanoTime();
+                ChatMessage broadcast = ChatBinaryCodec.decodeChatMessage(bytes);
+                wireFormatStatistics.recordReceived(length, System.nanoTime() - start);
+
+                handleBroadcast(broadcast);
+                return;
+            }
+            if (frameType != ChatBinaryCodec.FRAME_RESPONSE) {
+                wireFormatStatistics.recordReceived(length, 0);
+                return;
+            }
+
+            long start = System.nanoTime();
+            ResponseMessage response = ChatBinaryCodec.decodeResponse(bytes);
+            wireFormatStatistics.recordReceived(length, System.nanoTime() - start);
+
+            handleResponse(response);
+        } catch (Exception e) {
+            log.warn("Failed to decode binary message from room {}: {}", roomId, e.getMessage());
+        }
+    }
+
+    private void handleResponse(ResponseMessage response) {
+        if (response.getEcho() != null) {
+            int userId = Integer.parseInt(response.getEcho().getUserId());
+            String messageType = response.getEcho().getMessageType();
+            String messageId = response.getEcho().getMessageId();
+
+            long latencyMicros = latencyStatistics.recordAck(roomId, messageType, messageId);
+            userEventLogger.logEvent(EventRecord.ACK, userId, roomId, messageType, messageId, latencyMicros);
+            broadcastStatistics.recordAccepted(roomId);
+            userHandlerManager.handleEchoback(userId, messageType, messageId);
+
+            log.debug("Echoback received: Room={}, User={}, Type={}", roomId, userId, messageType);
+        } else if ("error".equals(response.getStatus())) {
+            errorResponseStatistics.recordError(response.getError());
+            userEventLogger.logEvent(EventRecord.ERROR, 0, roomId, null, null, -1);
+        }
+    }
+
+    /**
+     * Resolve a compact ACK back to the messages it acknowledges through the pending sequence table.
+     * Errors carry no echo in full mode either, so only successes are reported as echobacks.
+     */
+    private void handleCompactAck(CompactAck ack) {
+        long from = ack.isRange() ? ack.getFromSequence() : ack.getSequence();
+        for (long sequence = from; sequence <= ack.getSequence(); sequence++) {
+            PendingAck pending = pendingAcks.remove(sequence);
+            if (pending == null) {
+                log.debug("ACK for unknown sequence {} in room {}", sequence, roomId);
+                continue;
+            }
+            if (ack.getStatus() == CompactAck.STATUS_SUCCESS) {
+                long latencyMicros = latencyStatistics.recordAck(roomId, pending.messageType(), pending.messageId());
+                userEventLogger.logEvent(EventRecord.ACK, pending.userId(), roomId, pending.messageType(),
+                        pending.messageId(), latencyMicros);
+                broadcastStatistics.recordAccepted(roomId);
+                userHandlerManager.handleEchoback(pending.userId(), pending.messageType(), pending.messageId());
+            } else {
+                errorResponseStatistics.recordError("compact ACK status " + ack.getStatus());
+                userEventLogger.logEvent(EventRecord.ERROR, pending.userId(), roomId, pending.messageType(),
+                        pending.messageId(), -1);
+            }
+        }
+    }
+
+    /**
+     * A message broadcast to the room; the ones this client sent complete their broadcast round trip, and
+     * only that first delivery goes to the event log.
+     */
+    private void handleBroadcast(ChatMessage broadcast) {
+        long latencyMicros = latencyStatistics.recordBroadcast(roomId, broadcast.getMessageType(),
+                broadcast.getMessageId());
+        boolean own = latencyMicros >= 0;
+        if (own) {
+            userEventLogger.logEvent(EventRecord.BROADCAST, Integer.parseInt(broadcast.getUserId()), roomId,
+                    broadcast.getMessageType(), broadcast.getMessageId(), latencyMicros);
+        }
+        broadcastStatistics.recordReceived(roomId, own);
+    }
+
+    private void handleCreditGrant(int granted) {
+        flowControlStatistics.recordGrant(granted);
+        credits.release(granted);
+        log.debug("Room {} granted {} credits", roomId, granted);
+        Runnable listener = creditListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * The name of the first field of a JSON object, without parsing the rest; null if there is none.
+     */
+    static String firstFieldName(String json) {
+        int open = json.indexOf('"');
+        if (open < 0) {
+            return null;
+        }
+        int close = json.indexOf('"', open + 1);
+        return close < 0 ? null : json.substring(open + 1, close);
+    }
+
+    private record PendingAck(int userId, String messageType, String messageId) {}
+
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,49 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces connection handshakes: at most a fixed number per second, and at most a fixed number in flight
+ * (connected but not yet upgraded), so opening tens of thousands of connections neither floods the
+ * server's accept queue nor piles up half-open sockets when the server slows down.
+ */
+public class HandshakePacer {
+
+    private final long intervalNanos;
+    private final Semaphore inFlight;
+    private long nextSlotNanos;
+
+    /**
+     * @param ratePerSecond handshakes started per second, 0 for no rate limit
+     * @param maxInFlight handshakes in flight at once
+     */
+    public HandshakePacer(int ratePerSecond, int maxInFlight) {
+        this.intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Wait for an in-flight slot and the next rate slot; every successful call must be paired with
+     * {@link #release()} once the handshake finished or failed.
+     */
+    public void acquire() throws InterruptedException {
+        inFlight.acquire();
+        if (intervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long slot;
+        synchronized (this) {
+            slot = Math.max(now, nextSlotNanos);
+            nextSlotNanos = slot + intervalNanos;
+        }
+        if (slot > now) {
+            TimeUnit.NANOSECONDS.sleep(slot - now);
+        }
+    }
+
+    public void release() {
+        inFlight.release();
+    }
+}
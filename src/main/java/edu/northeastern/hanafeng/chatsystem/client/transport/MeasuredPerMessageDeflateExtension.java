@@ -0,0 +1,114 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import edu.northeastern.hanafeng.chatsystem.client.metrics.CompressionStatistics;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.extensions.ExtensionRequestData;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+
+/**
+ * Client-side permessage-deflate with configurable context takeover, a size threshold and
+ * compression metrics.
+ *
+ * The underlying extension is written from the server's point of view: its "server" flag resets the
+ * deflater after each message and its "client" flag resets the inflater. On the client this maps to
+ * our own client_no_context_takeover (outbound) and the server's accepted server_no_context_takeover
+ * (inbound); the inflater is only reset when the server confirmed it in the handshake response.
+ */
+public class MeasuredPerMessageDeflateExtension extends PerMessageDeflateExtension {
+
+    private static final String EXTENSION_NAME = "permessage-deflate";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final int thresholdBytes;
+    private final boolean requestClientNoContextTakeover;
+    private final boolean requestServerNoContextTakeover;
+    private final CompressionStatistics compressionStatistics;
+
+    public MeasuredPerMessageDeflateExtension(
+            int thresholdBytes,
+            boolean clientNoContextTakeover,
+            boolean serverNoContextTakeover,
+            CompressionStatistics compressionStatistics) {
+        this.thresholdBytes = thresholdBytes;
+        this.requestClientNoContextTakeover = clientNoContextTakeover;
+        this.requestServerNoContextTakeover = serverNoContextTakeover;
+        this.compressionStatistics = compressionStatistics;
+
+        setThreshold(thresholdBytes);
+        setServerNoContextTakeover(clientNoContextTakeover);
+        setClientNoContextTakeover(false);
+    }
+
+    @Override
+    public String getProvidedExtensionAsClient() {
+        StringBuilder offer = new StringBuilder(EXTENSION_NAME);
+        if (requestServerNoContextTakeover) {
+            offer.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (requestClientNoContextTakeover) {
+            offer.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return offer.toString();
+    }
+
+    @Override
+    public boolean acceptProvidedExtensionAsClient(String inputExtension) {
+        for (String extension : inputExtension.split(",")) {
+            ExtensionRequestData data = ExtensionRequestData.parseExtensionRequest(extension);
+            if (EXTENSION_NAME.equalsIgnoreCase(data.getExtensionName())) {
+                setClientNoContextTakeover(data.getExtensionParameters().containsKey(SERVER_NO_CONTEXT_TAKEOVER));
+                if (data.getExtensionParameters().containsKey(CLIENT_NO_CONTEXT_TAKEOVER)) {
+                    setServerNoContextTakeover(true);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void encodeFrame(Framedata inputFrame) {
+        if (!(inputFrame instanceof DataFrame)) {
+            super.encodeFrame(inputFrame);
+            return;
+        }
+
+        int originalBytes = inputFrame.getPayloadData().remaining();
+        long start = System.nanoTime();
+        super.encodeFrame(inputFrame);
+        long nanos = System.nanoTime() - start;
+
+        if (inputFrame.isRSV1()) {
+            compressionStatistics.recordDeflated(originalBytes, inputFrame.getPayloadData().remaining(), nanos);
+        } else {
+            compressionStatistics.recordBelowThreshold();
+        }
+    }
+
+    @Override
+    public void decodeFrame(Framedata inputFrame) throws InvalidDataException {
+        if (!(inputFrame instanceof DataFrame) || !inputFrame.isRSV1()) {
+            super.decodeFrame(inputFrame);
+            return;
+        }
+
+        int compressedBytes = inputFrame.getPayloadData().remaining();
+        long start = System.nanoTime();
+        super.decodeFrame(inputFrame);
+        compressionStatistics.recordInflated(
+                compressedBytes, inputFrame.getPayloadData().remaining(), System.nanoTime() - start);
+    }
+
+    /**
+     * Each connection gets its own deflater/inflater pair with the same settings.
+     */
+    @Override
+    public IExtension copyInstance() {
+        return new MeasuredPerMessageDeflateExtension(
+                thresholdBytes, requestClientNoContextTakeover, requestServerNoContextTakeover, compressionStatistics);
+    }
+}
@@ -0,0 +1,103 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local addresses for per-user connections. A TCP connection is identified by its source and destination
+ * address and port, so one source IP reaches one server address with at most one connection per source
+ * port: about 28k with Linux's default ephemeral range. Spreading connections round-robin over several
+ * source IPs (addresses configured on the load box's interface), and optionally over an explicit source
+ * port range instead of the ephemeral range, lifts that limit.
+ */
+@Slf4j
+public class SourceAddressAllocator {
+
+    private static final Path EPHEMERAL_RANGE = Path.of("/proc/sys/net/ipv4/ip_local_port_range");
+
+    private final List<InetAddress> addresses;
+    private final int firstPort;
+    private final int portCount;
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * @param addresses comma-separated source IPs; empty to let the kernel choose
+     * @param portRange source port range as "first-last"; empty to bind to ephemeral ports
+     */
+    public SourceAddressAllocator(String addresses, String portRange) throws UnknownHostException {
+        this.addresses = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            if (!address.isBlank()) {
+                this.addresses.add(InetAddress.getByName(address.trim()));
+            }
+        }
+        if (portRange.isBlank()) {
+            this.firstPort = 0;
+            this.portCount = 0;
+        } else {
+            String[] bounds = portRange.trim().split("-");
+            int first = Integer.parseInt(bounds[0].trim());
+            int last = Integer.parseInt(bounds[1].trim());
+            if (first < 1 || last > 65535 || first > last) {
+                throw new IllegalArgumentException("Invalid source port range: " + portRange);
+            }
+            this.firstPort = first;
+            this.portCount = last - first + 1;
+        }
+        if (portCount > 0 && this.addresses.isEmpty()) {
+            this.addresses.add(InetAddress.getByName("0.0.0.0"));
+        }
+    }
+
+    /**
+     * The local address to bind the next connection to, or null to let the kernel choose.
+     */
+    public InetSocketAddress next() {
+        if (addresses.isEmpty()) {
+            return null;
+        }
+        long index = next.getAndIncrement();
+        InetAddress address = addresses.get((int) (index % addresses.size()));
+        int port = portCount == 0 ? 0 : firstPort + (int) ((index / addresses.size()) % portCount);
+        return new InetSocketAddress(address, port);
+    }
+
+    public boolean bindsExplicitPorts() {
+        return portCount > 0;
+    }
+
+    /**
+     * How many connections to one server address fit, or -1 if the ephemeral range is unknown.
+     */
+    public long capacity() {
+        int ports = portCount > 0 ? portCount : ephemeralPortCount();
+        if (ports < 0) {
+            return -1;
+        }
+        return (long) ports * Math.max(1, addresses.size());
+    }
+
+    public String describe() {
+        return (addresses.isEmpty() ? "kernel-chosen source IP" : addresses.size() + " source IPs " + addresses)
+                + ", " + (portCount > 0 ? "ports " + firstPort + "-" + (firstPort + portCount - 1) : "ephemeral ports");
+    }
+
+    private static int ephemeralPortCount() {
+        try {
+            String[] range = Files.readString(EPHEMERAL_RANGE).trim().split("\\s+");
+            return Integer.parseInt(range[1]) - Integer.parseInt(range[0]) + 1;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ephemeral port range unavailable: {}", e.getMessage());
+            return -1;
+        }
+    }
+}
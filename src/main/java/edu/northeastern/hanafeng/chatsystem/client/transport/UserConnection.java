@@ -0,0 +1,213 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated user's own WebSocket connection, on a Netty channel shared with thousands of others on
+ * the same event loop. It is the channel's handler as well, so a connection costs one object besides its
+ * channel, pipeline and protocol state: it runs the HTTP upgrade, then hands text and binary frames to
+ * its {@link ChatConnectionProtocol}.
+ */
+@Slf4j
+public class UserConnection extends SimpleChannelInboundHandler<Object> implements ChatConnection {
+
+    /**
+     * Raised when the server does not finish the upgrade in time.
+     */
+    public static final class HandshakeTimeoutException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private HandshakeTimeoutException(long timeoutMs) {
+            super("No handshake response within " + timeoutMs + " ms", null, false, false);
+        }
+    }
+
+    private final int userId;
+    private final ChatConnectionProtocol protocol;
+    private final WebSocketClientHandshaker handshaker;
+    private final long handshakeTimeoutMs;
+    private final int maxFramePayload;
+    private final Runnable onClose;
+    private final CompletableFuture<UserConnection> handshakeFuture = new CompletableFuture<>();
+    private volatile Channel channel;
+    private volatile boolean open;
+
+    private final ChatConnectionProtocol.FrameSink sink = new ChatConnectionProtocol.FrameSink() {
+        @Override
+        public void sendText(String payload) {
+            write(new TextWebSocketFrame(payload));
+        }
+
+        @Override
+        public void sendBinary(byte[] payload) {
+            write(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(payload)));
+        }
+    };
+
+    /**
+     * @param onClose called once if the connection closes after its handshake completed
+     */
+    public UserConnection(int userId, ChatConnectionProtocol protocol, WebSocketClientHandshaker handshaker,
+                          long handshakeTimeoutMs, int maxFramePayload, Runnable onClose) {
+        this.userId = userId;
+        this.protocol = protocol;
+        this.handshaker = handshaker;
+        this.handshakeTimeoutMs = handshakeTimeoutMs;
+        this.maxFramePayload = maxFramePayload;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Completes once the upgrade finished, or exceptionally with the connect or handshake failure.
+     */
+    public CompletableFuture<UserConnection> handshakeFuture() {
+        return handshakeFuture;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getRoomId() {
+        return protocol.getRoomId();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        channel = ctx.channel();
+        handshaker.handshake(channel);
+        ctx.executor().schedule(() -> {
+            if (!handshakeFuture.isDone()) {
+                handshakeFuture.completeExceptionally(new HandshakeTimeoutException(handshakeTimeoutMs));
+                ctx.close();
+            }
+        }, handshakeTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        if (!handshakeFuture.isDone()) {
+            handshakeFuture.completeExceptionally(new ClosedChannelException());
+        }
+        if (open) {
+            open = false;
+            onClose.run();
+            log.debug("User {} connection closed", userId);
+        }
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+        if (!handshaker.isHandshakeComplete()) {
+            FullHttpResponse response = (FullHttpResponse) msg;
+            // Throws WebSocketClientHandshakeException on a rejected upgrade, failing the handshake below
+            handshaker.finishHandshake(ctx.channel(), response);
+            ctx.pipeline().addBefore(ctx.name(), "ws-aggregator", new WebSocketFrameAggregator(maxFramePayload));
+            protocol.onHandshake(response.headers().get(AckMode.HEADER), response.headers().get(CreditGrant.HEADER),
+                    handshaker.actualSubprotocol());
+            open = true;
+            handshakeFuture.complete(this);
+            return;
+        }
+
+        if (msg instanceof TextWebSocketFrame text) {
+            protocol.onText(text.text());
+        } else if (msg instanceof BinaryWebSocketFrame binary) {
+            protocol.onBinary(binary.content().nioBuffer());
+        } else if (msg instanceof PingWebSocketFrame ping) {
+            ctx.writeAndFlush(new PongWebSocketFrame(ping.content().retain()), ctx.voidPromise());
+        } else if (msg instanceof CloseWebSocketFrame) {
+            ctx.close();
+        } else if (!(msg instanceof WebSocketFrame)) {
+            log.debug("Unexpected message on user {} connection: {}", userId, msg.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if (!handshakeFuture.isDone()) {
+            handshakeFuture.completeExceptionally(cause);
+        } else {
+            log.debug("User {} connection error: {}", userId, cause.toString());
+        }
+        ctx.close();
+    }
+
+    /**
+     * Frames are queued on the channel's event loop; a write that fails there closes the channel.
+     */
+    private void write(WebSocketFrame frame) {
+        Channel ch = channel;
+        if (!open || ch == null) {
+            frame.release();
+            throw new IllegalStateException("Connection of user " + userId + " is not open");
+        }
+        ch.writeAndFlush(frame, ch.voidPromise());
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void sendChatMessage(ChatMessage message) throws JsonProcessingException {
+        protocol.sendChatMessage(message, sink);
+    }
+
+    @Override
+    public void writeChatMessage(ChatMessage message) throws JsonProcessingException {
+        protocol.writeChatMessage(message, sink);
+    }
+
+    @Override
+    public boolean isFlowControlled() {
+        return protocol.isFlowControlled();
+    }
+
+    @Override
+    public boolean tryAcquireCredit() {
+        return protocol.tryAcquireCredit();
+    }
+
+    @Override
+    public boolean hasCredit() {
+        return protocol.hasCredit();
+    }
+
+    @Override
+    public void setCreditListener(Runnable creditListener) {
+        protocol.setCreditListener(creditListener);
+    }
+
+    /**
+     * Start a clean close; the channel closes once the close frame is written.
+     */
+    public void close() {
+        Channel ch = channel;
+        if (ch != null && ch.isActive()) {
+            ch.writeAndFlush(new CloseWebSocketFrame()).addListener(future -> ch.close());
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package edu.northeastern.hanafeng.chatsystem.client.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.UnixOperatingSystemMXBean;
+import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.UserEventLogger;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.BroadcastStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ConnectionStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ErrorResponseStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.FlowControlStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.LatencyStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.WireFormatStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.support.ClientConstants;
+import edu.northeastern.hanafeng.chatsystem.client.user.UserHandler;
+import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakeException;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-user connections (client.connection-mode=per-user): every simulated user owns a WebSocket to its
+ * room, all of them multiplexed over a few Netty NIO event loops with small socket and read buffers.
+ *
+ * The initial connect phase is paced by a {@link HandshakePacer} and spread over source addresses by a
+ * {@link SourceAddressAllocator}; connect rate, memory per connection and failures by reason go to
+ * {@link ConnectionStatistics}. Nothing is started until the connect phase, so the per-room mode pays
+ * nothing for this bean.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserConnectionPool {
+
+    private final ClientConfig clientConfig;
+    private final UserHandlerManager userHandlerManager;
+    private final ObjectMapper objectMapper;
+    private final WireFormatStatistics wireFormatStatistics;
+    private final FlowControlStatistics flowControlStatistics;
+    private final LatencyStatistics latencyStatistics;
+    private final BroadcastStatistics broadcastStatistics;
+    private final ErrorResponseStatistics errorResponseStatistics;
+    private final UserEventLogger userEventLogger;
+    private final ConnectionStatistics connectionStatistics;
+
+    @Value("${client.per-user.event-loops:4}")
+    private int eventLoops;
+
+    @Value("${client.per-user.connect-rate:2000}")
+    private int connectRate;
+
+    @Value("${client.per-user.max-pending-handshakes:1000}")
+    private int maxPendingHandshakes;
+
+    @Value("${client.per-user.handshake-timeout-ms:10000}")
+    private long handshakeTimeoutMs;
+
+    @Value("${client.per-user.socket-buffer-bytes:8192}")
+    private int socketBufferBytes;
+
+    @Value("${client.per-user.read-buffer-bytes:2048}")
+    private int readBufferBytes;
+
+    @Value("${client.per-user.max-frame-bytes:65536}")
+    private int maxFrameBytes;
+
+    @Value("${client.per-user.source-addresses:}")
+    private String sourceAddresses;
+
+    @Value("${client.per-user.source-port-range:}")
+    private String sourcePortRange;
+
+    @Value("${client.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${client.flow-control.enabled:false}")
+    private boolean flowControlEnabled;
+
+    @Value("${client.flow-control.credit-wait-ms:5000}")
+    private long creditWaitMs;
+
+    private EventLoopGroup group;
+    private Bootstrap bootstrap;
+    private HandshakePacer pacer;
+    private SourceAddressAllocator sourceAllocator;
+    private AtomicReferenceArray<UserConnection> connections;
+
+    /**
+     * Open one connection per user, paced, and wait until every attempt succeeded or failed.
+     */
+    public synchronized void connectAll() throws Exception {
+        start();
+        int numUsers = clientConfig.getNumUsers();
+        checkLimits(numUsers);
+
+        log.info("=== Opening {} per-user connections ({} event loops, {} handshakes/s, {} in flight) ===",
+                numUsers, eventLoops, connectRate > 0 ? connectRate : "unlimited", maxPendingHandshakes);
+        System.gc();
+        connectionStatistics.startConnectPhase(heapUsed(), bufferMemoryUsed());
+
+        CountDownLatch done = new CountDownLatch(numUsers);
+        long lastLog = System.currentTimeMillis();
+        for (int userId = 1; userId <= numUsers; userId++) {
+            pacer.acquire();
+            connect(userId).whenComplete((connection, error) -> {
+                pacer.release();
+                done.countDown();
+            });
+            long now = System.currentTimeMillis();
+            if (now - lastLog > 5000) {
+                log.info("Connecting: started={}/{}, connected={}, failed={}", userId, numUsers,
+                        connectionStatistics.getConnected(), connectionStatistics.getFailed());
+                lastLog = now;
+            }
+        }
+        done.await();
+
+        System.gc();
+        connectionStatistics.finishConnectPhase(heapUsed(), bufferMemoryUsed(), openFileDescriptors());
+        log.info("Per-user connections open: {}/{} in connect phase, {} connections/s, ~{} heap bytes and ~{} "
+                        + "buffer bytes per connection", connectionStatistics.getConnected(), numUsers,
+                String.format("%.1f", connectionStatistics.getConnectRate()),
+                connectionStatistics.getHeapBytesPerConnection(), connectionStatistics.getBufferBytesPerConnection());
+    }
+
+    /**
+     * The user's connection if it is open, without reconnecting; null otherwise.
+     */
+    public UserConnection getOpenConnection(int userId) {
+        UserConnection connection = connections != null ? connections.get(userId) : null;
+        return connection != null && connection.isOpen() ? connection : null;
+    }
+
+    /**
+     * The user's connection, reconnecting (blocking, paced) if it is missing or closed; null if that fails.
+     */
+    public UserConnection getConnection(int userId) {
+        UserConnection existing = getOpenConnection(userId);
+        if (existing != null) {
+            return existing;
+        }
+        if (connections == null) {
+            return null;
+        }
+        try {
+            pacer.acquire();
+            try {
+                return connect(userId).get(clientConfig.getConnectTimeoutSeconds() * 1000L + handshakeTimeoutMs,
+                        TimeUnit.MILLISECONDS);
+            } finally {
+                pacer.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Failed to reconnect user {}: {}", userId, failureReason(e));
+            return null;
+        }
+    }
+
+    private void start() throws Exception {
+        if (group != null) {
+            return;
+        }
+        connections = new AtomicReferenceArray<>(clientConfig.getNumUsers() + 1);
+        pacer = new HandshakePacer(connectRate, maxPendingHandshakes);
+        sourceAllocator = new SourceAddressAllocator(sourceAddresses, sourcePortRange);
+        group = new NioEventLoopGroup(eventLoops, new DefaultThreadFactory("user-conn", true));
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, clientConfig.getConnectTimeoutSeconds() * 1000)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_REUSEADDR, sourceAllocator.bindsExplicitPorts())
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(readBufferBytes));
+        if (socketBufferBytes > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, socketBufferBytes)
+                    .option(ChannelOption.SO_SNDBUF, socketBufferBytes);
+        }
+        if (compressionEnabled) {
+            log.warn("permessage-deflate is not offered on per-user connections; sending uncompressed");
+        }
+    }
+
+    /**
+     * Start connecting a user; the future completes when the handshake finished or failed.
+     */
+    private CompletableFuture<UserConnection> connect(int userId) {
+        UserHandler user = userHandlerManager.getUserHandler(userId);
+        int roomId = user.getRoomId();
+        URI uri = URI.create(ClientConstants.buildRoomWebSocketUrl(clientConfig.getWsBase(), roomId));
+
+        ChatConnectionProtocol protocol = new ChatConnectionProtocol(roomId, userHandlerManager, objectMapper,
+                wireFormatStatistics, flowControlStatistics, latencyStatistics, broadcastStatistics,
+                errorResponseStatistics, userEventLogger, creditWaitMs);
+        UserConnection connection = new UserConnection(userId, protocol, handshaker(uri), handshakeTimeoutMs,
+                maxFrameBytes, () -> {
+                    connectionStatistics.recordClosed();
+                    broadcastStatistics.removeReceiver(roomId);
+                });
+        long start = System.nanoTime();
+        connectionStatistics.recordAttempt();
+
+        Bootstrap b = bootstrap.clone().handler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(SocketChannel ch) {
+                ch.pipeline().addLast(
+                        new HttpClientCodec(),
+                        new HttpObjectAggregator(8192),
+                        connection);
+            }
+        });
+        InetSocketAddress remote = InetSocketAddress.createUnresolved(uri.getHost(), port(uri));
+        InetSocketAddress local = sourceAllocator.next();
+        ChannelFuture connectFuture = local != null ? b.connect(remote, local) : b.connect(remote);
+        connectFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                connection.handshakeFuture().completeExceptionally(future.cause());
+            }
+        });
+
+        return connection.handshakeFuture().whenComplete((opened, error) -> {
+            if (error == null) {
+                connections.set(userId, connection);
+                connectionStatistics.recordConnected(System.nanoTime() - start);
+                broadcastStatistics.addReceiver(roomId);
+            } else {
+                String reason = failureReason(error);
+                connectionStatistics.recordFailure(reason);
+                log.debug("User {} connection failed: {}", userId, reason);
+            }
+        });
+    }
+
+    private WebSocketClientHandshaker handshaker(URI uri) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        AckMode ackMode = AckMode.fromValue(clientConfig.getAckMode());
+        if (ackMode != AckMode.FULL) {
+            headers.add(AckMode.HEADER, ackMode.headerValue());
+        }
+        if (flowControlEnabled) {
+            headers.add(CreditGrant.HEADER, CreditGrant.MODE_CREDITS);
+        }
+        String subprotocol = "binary".equals(clientConfig.getWireFormat()) ? ChatBinaryCodec.SUBPROTOCOL : null;
+        return WebSocketClientHandshakerFactory.newHandshaker(
+                uri, WebSocketVersion.V13, subprotocol, false, headers, maxFrameBytes);
+    }
+
+    /**
+     * Warn up front when the run cannot fit the process's file descriptor limit or the source address space.
+     */
+    private void checkLimits(int numUsers) {
+        long maxFds = maxFileDescriptors();
+        if (maxFds > 0 && maxFds < numUsers + 1024L) {
+            log.warn("File descriptor limit {} is below {} connections plus headroom; raise it with ulimit -n",
+                    maxFds, numUsers);
+        }
+        long capacity = sourceAllocator.capacity();
+        log.info("Source addressing: {} (room for {} connections per server address)", sourceAllocator.describe(),
+                capacity < 0 ? "unknown" : capacity);
+        if (capacity >= 0 && capacity < numUsers) {
+            log.warn("{} connections exceed the {} source address/port pairs per server address; add source IPs "
+                    + "(client.per-user.source-addresses) or widen the port range", numUsers, capacity);
+        }
+    }
+
+    /**
+     * A short, countable reason for a failed connect or handshake.
+     */
+    static String failureReason(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof ConnectTimeoutException) {
+            return "connect timeout";
+        }
+        if (cause instanceof UserConnection.HandshakeTimeoutException) {
+            return "handshake timeout";
+        }
+        if (cause instanceof WebSocketClientHandshakeException handshake) {
+            return handshake.response() != null
+                    ? "handshake rejected (HTTP " + handshake.response().status().code() + ")"
+                    : "handshake rejected";
+        }
+        if (cause instanceof BindException) {
+            return "bind failed (source address/port in use)";
+        }
+        if (cause instanceof NoRouteToHostException) {
+            return "no route to host";
+        }
+        if (cause instanceof ConnectException) {
+            return cause.getMessage() != null && cause.getMessage().contains("refused")
+                    ? "connection refused" : "connect failed";
+        }
+        if (cause instanceof ClosedChannelException) {
+            return "closed during handshake";
+        }
+        if (cause.getMessage() != null && cause.getMessage().contains("Too many open files")) {
+            return "too many open files";
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() > 0) {
+            return uri.getPort();
+        }
+        return "wss".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long bufferMemoryUsed() {
+        if (ByteBufAllocator.DEFAULT instanceof ByteBufAllocatorMetricProvider provider) {
+            return provider.metric().usedDirectMemory() + provider.metric().usedHeapMemory();
+        }
+        return 0;
+    }
+
+    private static long openFileDescriptors() {
+        return ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os
+                ? os.getOpenFileDescriptorCount() : -1;
+    }
+
+    private static long maxFileDescriptors() {
+        return ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os
+                ? os.getMaxFileDescriptorCount() : -1;
+    }
+
+    public boolean isStarted() {
+        return group != null;
+    }
+
+    /**
+     * Close every connection and stop the event loops.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (group == null) {
+            return;
+        }
+        log.info("Closing per-user connections...");
+        for (int userId = 1; userId < connections.length(); userId++) {
+            UserConnection connection = connections.get(userId);
+            if (connection != null) {
+                connection.close();
+            }
+        }
+        group.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        group = null;
+        log.info("Per-user connections closed");
+    }
+}
@@ -1,63 +1,105 @@
 package edu.northeastern.hanafeng.chatsystem.client.transport;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
-import edu.northeastern.hanafeng.chatsystem.model.ResponseMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
 import lombok.extern.slf4j.Slf4j;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
 import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.protocols.IProtocol;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 
 /**
  * WebSocket client for a specific chat room.
- * Handles connection lifecycle and message receiving.
+ * Handles connection lifecycle; the chat protocol itself is in {@link ChatConnectionProtocol}.
  */
 @Slf4j
-public class WebSocketChatClient extends WebSocketClient {
-    
+public class WebSocketChatClient extends WebSocketClient implements ChatConnection {
+
     private final int roomId;
-    private final UserHandlerManager userHandlerManager;
-    private final ObjectMapper objectMapper;
-
-    public WebSocketChatClient(
-            URI serverUri,
-            int roomId,
-            UserHandlerManager userHandlerManager,
-            ObjectMapper objectMapper) {
-        super(serverUri);
-        this.roomId = roomId;
-        this.userHandlerManager = userHandlerManager;
-        this.objectMapper = objectMapper;
+    private final ChatConnectionProtocol protocol;
+    private final ChatConnectionProtocol.FrameSink sink = new ChatConnectionProtocol.FrameSink() {
+        @Override
+        public void sendText(String payload) {
+            send(payload);
+        }
+
+        @Override
+        public void sendBinary(byte[] payload) {
+            send(payload);
+        }
+    };
+
+    public WebSocketChatClient(URI serverUri, Draft draft, ChatConnectionProtocol protocol) {
+        super(serverUri, draft);
+        this.roomId = protocol.getRoomId();
+        this.protocol = protocol;
     }
 
     @Override
     public void onOpen(ServerHandshake handshake) {
-        log.info("Room {} connected successfully (status: {})", roomId, handshake.getHttpStatus());
+        IProtocol accepted = getProtocol();
+        protocol.onHandshake(handshake.getFieldValue(AckMode.HEADER), handshake.getFieldValue(CreditGrant.HEADER),
+                accepted != null ? accepted.getProvidedProtocol() : null);
+        log.info("Room {} connected successfully (status: {}, binary: {}, ackMode: {}, flowControl: {})",
+                roomId, handshake.getHttpStatus(), protocol.isBinary(), protocol.getAckMode(),
+                protocol.isFlowControlled());
+    }
+
+    /**
+     * Whether the server accepted the binary subprotocol for this connection.
+     */
+    public boolean isBinary() {
+        return protocol.isBinary();
     }
 
     @Override
-    public void onMessage(String message) {
-        try {
-            ResponseMessage response = objectMapper.readValue(message, ResponseMessage.class);
+    public void sendChatMessage(ChatMessage message) throws JsonProcessingException {
+        protocol.sendChatMessage(message, sink);
+    }
 
-            if (response.getEcho() != null) {
-                int userId = Integer.parseInt(response.getEcho().getUserId());
-                String messageType = response.getEcho().getMessageType();
-                String messageId = response.getEcho().getMessageId();
+    @Override
+    public void writeChatMessage(ChatMessage message) throws JsonProcessingException {
+        protocol.writeChatMessage(message, sink);
+    }
 
-                userHandlerManager.handleEchoback(userId, messageType, messageId);
+    @Override
+    public boolean isFlowControlled() {
+        return protocol.isFlowControlled();
+    }
 
-                log.debug("Echoback received: Room={}, User={}, Type={}", roomId, userId, messageType);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to parse message from room {}: {}", roomId, e.getMessage());
-        }
+    @Override
+    public boolean tryAcquireCredit() {
+        return protocol.tryAcquireCredit();
+    }
+
+    @Override
+    public boolean hasCredit() {
+        return protocol.hasCredit();
+    }
+
+    @Override
+    public void setCreditListener(Runnable creditListener) {
+        protocol.setCreditListener(creditListener);
+    }
+
+    @Override
+    public void onMessage(String message) {
+        protocol.onText(message);
+    }
+
+    @Override
+    public void onMessage(ByteBuffer bytes) {
+        protocol.onBinary(bytes);
     }
 
     @Override
     public void onClose(int code, String reason, boolean remote) {
-        log.info("Room {} connection closed (code={}, reason={}, remote={})", 
+        log.info("Room {} connection closed (code={}, reason={}, remote={})",
                 roomId, code, reason, remote);
     }
 
@@ -69,4 +111,4 @@ public class WebSocketChatClient extends WebSocketClient {
     public int getRoomId() {
         return roomId;
     }
-}
\ No newline at end of file
+}
@@ -2,21 +2,44 @@ package edu.northeastern.hanafeng.chatsystem.client.transport;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.eventlog.UserEventLogger;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.AckTimeoutStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.BroadcastStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.CompressionStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ConnectionStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ErrorResponseStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.FlowControlStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.LatencyStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.WireFormatStatistics;
 import edu.northeastern.hanafeng.chatsystem.client.support.ClientConstants;
 import edu.northeastern.hanafeng.chatsystem.client.user.UserHandlerManager;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.protocols.IProtocol;
+import org.java_websocket.protocols.Protocol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * WebSocket connection pool manager.
  * Spring-managed service for managing WebSocket connections to chat rooms.
+ * In per-user connection mode every user has its own connection, held by the {@link UserConnectionPool};
+ * connections are then looked up by user ID instead of room ID (see {@link #connectionKey(ChatMessage)}).
  */
 @Slf4j
 @Service
@@ -27,9 +50,39 @@ public class WebSocketClientManager {
     private final UserHandlerManager userHandlerManager;
     private final ClientConfig clientConfig;
     private final ObjectMapper objectMapper;
+    private final WireFormatStatistics wireFormatStatistics;
+    private final CompressionStatistics compressionStatistics;
+    private final FlowControlStatistics flowControlStatistics;
+    private final LatencyStatistics latencyStatistics;
+    private final BroadcastStatistics broadcastStatistics;
+    private final ErrorResponseStatistics errorResponseStatistics;
+    private final UserEventLogger userEventLogger;
+    private final ConnectionStatistics connectionStatistics;
+    private final AckTimeoutStatistics ackTimeoutStatistics;
+    private final UserConnectionPool userConnectionPool;
+
+    // permessage-deflate settings
+    @Value("${client.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${client.compression.threshold-bytes:256}")
+    private int compressionThresholdBytes;
+
+    @Value("${client.compression.client-no-context-takeover:true}")
+    private boolean clientNoContextTakeover;
+
+    @Value("${client.compression.server-no-context-takeover:true}")
+    private boolean serverNoContextTakeover;
+
+    // Credit-based flow control settings
+    @Value("${client.flow-control.enabled:false}")
+    private boolean flowControlEnabled;
+
+    @Value("${client.flow-control.credit-wait-ms:5000}")
+    private long creditWaitMs;
 
     // Internal state
-    private final Map<Integer, WebSocketClient> connectionPool = new ConcurrentHashMap<>();
+    private final Map<Integer, WebSocketChatClient> connectionPool = new ConcurrentHashMap<>();
     private final Map<Integer, AtomicLong> sentMessagesPerRoom = new ConcurrentHashMap<>();
     private final Map<Integer, AtomicLong> successMessagesPerRoom = new ConcurrentHashMap<>();
     private final Map<Integer, AtomicLong> failedMessagesPerRoom = new ConcurrentHashMap<>();
@@ -39,15 +92,48 @@ public class WebSocketClientManager {
         this.runtimeSeconds = runtimeSeconds;
     }
 
+    public long getRuntimeSeconds() {
+        return runtimeSeconds;
+    }
+
+    public boolean isPerUser() {
+        return "per-user".equals(clientConfig.getConnectionMode());
+    }
+
+    /**
+     * The key a message's connection is looked up by: its user ID in per-user mode, its room ID otherwise.
+     */
+    public int connectionKey(ChatMessage message) {
+        return isPerUser() ? Integer.parseInt(message.getUserId()) : Integer.parseInt(message.getRoomId());
+    }
+
     /**
-     * Get or create WebSocket connection for a room.
+     * Get or create the connection for a key (see {@link #connectionKey(ChatMessage)}).
      * Auto-heal: if missing or closed, try to recreate.
      */
-    public WebSocketClient getConnection(int roomId) {
-        WebSocketClient existing = connectionPool.get(roomId);
+    public ChatConnection getConnection(int key) {
+        if (isPerUser()) {
+            return userConnectionPool.getConnection(key);
+        }
+        return getRoomConnection(key);
+    }
+
+    /**
+     * The connection for a key if it is open, without reconnecting; null otherwise.
+     */
+    public ChatConnection getOpenConnection(int key) {
+        if (isPerUser()) {
+            return userConnectionPool.getOpenConnection(key);
+        }
+        WebSocketChatClient existing = connectionPool.get(key);
+        return existing != null && existing.isOpen() ? existing : null;
+    }
+
+    private WebSocketChatClient getRoomConnection(int roomId) {
+        WebSocketChatClient existing = connectionPool.get(roomId);
         if (existing == null || !existing.isOpen()) {
             try {
-                WebSocketClient fresh = createRoomConnection(roomId);
+                WebSocketChatClient fresh = createRoomConnection(roomId);
                 connectionPool.put(roomId, fresh);
                 return fresh;
             } catch (Exception e) {
@@ -65,12 +151,27 @@ public class WebSocketClientManager {
         );
         URI serverUri = new URI(fullUrl);
 
-        WebSocketChatClient wsClient = new WebSocketChatClient(
-                serverUri,
+        ChatConnectionProtocol protocol = new ChatConnectionProtocol(
                 roomId,
                 userHandlerManager,
-                objectMapper
+                objectMapper,
+                wireFormatStatistics,
+                flowControlStatistics,
+                latencyStatistics,
+                broadcastStatistics,
+                errorResponseStatistics,
+                userEventLogger,
+                creditWaitMs
         );
+        WebSocketChatClient wsClient = new WebSocketChatClient(serverUri, createDraft(), protocol);
+
+        AckMode ackMode = AckMode.fromValue(clientConfig.getAckMode());
+        if (ackMode != AckMode.FULL) {
+            wsClient.addHeader(AckMode.HEADER, ackMode.headerValue());
+        }
+        if (flowControlEnabled) {
+            wsClient.addHeader(CreditGrant.HEADER, CreditGrant.MODE_CREDITS);
+        }
 
         // Connect (blocking with timeout)
         wsClient.connectBlocking(
@@ -94,6 +195,23 @@ public class WebSocketClientManager {
         return wsClient;
     }
 
+    /**
+     * Build the handshake draft for the configured wire format and compression.
+     * Binary mode offers the binary subprotocol first and keeps the empty protocol
+     * as a fallback, so a server that declines it still speaks text JSON.
+     * Compression offers permessage-deflate; a server that declines it leaves frames uncompressed.
+     */
+    private Draft createDraft() {
+        List<IExtension> extensions = compressionEnabled
+                ? List.of(new MeasuredPerMessageDeflateExtension(
+                        compressionThresholdBytes, clientNoContextTakeover, serverNoContextTakeover, compressionStatistics))
+                : Collections.emptyList();
+        List<IProtocol> protocols = "binary".equals(clientConfig.getWireFormat())
+                ? List.of(new Protocol(ChatBinaryCodec.SUBPROTOCOL), new Protocol(""))
+                : List.of(new Protocol(""));
+        return new Draft_6455(extensions, protocols);
+    }
+
     /**
      * Record a message send attempt
      */
@@ -125,7 +243,7 @@ public class WebSocketClientManager {
         long totalSuccess = 0;
         long totalFailed = 0;
 
-        for (Integer roomId : connectionPool.keySet()) {
+        for (Integer roomId : new TreeSet<>(sentMessagesPerRoom.keySet())) {
             long sent = sentMessagesPerRoom.getOrDefault(roomId, new AtomicLong(0)).get();
             long success = successMessagesPerRoom.getOrDefault(roomId, new AtomicLong(0)).get();
             long failed = failedMessagesPerRoom.getOrDefault(roomId, new AtomicLong(0)).get();
@@ -147,6 +265,20 @@ public class WebSocketClientManager {
             log.info("Total Runtime: not set (skipping throughput calculation)");
         }
         log.info("================================\n");
+
+        wireFormatStatistics.printStatistics(clientConfig.getWireFormat());
+        if (compressionEnabled) {
+            compressionStatistics.printStatistics();
+        }
+        if (flowControlEnabled) {
+            flowControlStatistics.printStatistics();
+        }
+        latencyStatistics.printStatistics();
+        ackTimeoutStatistics.printStatistics();
+        errorResponseStatistics.printStatistics();
+        if (isPerUser()) {
+            connectionStatistics.printStatistics();
+        }
     }
 
     /**
@@ -154,7 +286,7 @@ public class WebSocketClientManager {
      */
     public void closeAllConnections() {
         log.info("Closing all WebSocket connections...");
-        for (WebSocketClient client : connectionPool.values()) {
+        for (WebSocketChatClient client : connectionPool.values()) {
             if (client != null && client.isOpen()) {
                 try {
                     client.close();
@@ -164,6 +296,7 @@ public class WebSocketClientManager {
             }
         }
         connectionPool.clear();
+        userConnectionPool.close();
         log.info("All connections closed");
     }
 
@@ -178,4 +311,18 @@ public class WebSocketClientManager {
                 .mapToLong(AtomicLong::get)
                 .sum();
     }
+
+    public long getTotalSuccessCount() {
+        return successMessagesPerRoom.values()
+                .stream()
+                .mapToLong(AtomicLong::get)
+                .sum();
+    }
+
+    public long getTotalFailedCount() {
+        return failedMessagesPerRoom.values()
+                .stream()
+                .mapToLong(AtomicLong::get)
+                .sum();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package edu.northeastern.hanafeng.chatsystem.client.user;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the pause a simulated user takes after each message before it may send the next.
+ */
+public enum ThinkTime {
+
+    /** Send again as soon as the in-flight window allows */
+    NONE,
+    /** Always exactly the mean */
+    CONSTANT,
+    /** Uniform between 0 and twice the mean */
+    UNIFORM,
+    /** Exponential with the given mean: Poisson arrivals per user, like independent humans */
+    EXPONENTIAL;
+
+    public static ThinkTime fromValue(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown think-time distribution '" + value + "' (none, constant, uniform or exponential)");
+        }
+    }
+
+    /**
+     * A think time in nanoseconds for the given mean.
+     */
+    public long sampleNanos(long meanNanos) {
+        if (meanNanos <= 0) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (this) {
+            case NONE -> 0;
+            case CONSTANT -> meanNanos;
+            case UNIFORM -> random.nextLong(2 * meanNanos + 1);
+            case EXPONENTIAL -> (long) (-Math.log(1.0 - random.nextDouble()) * meanNanos);
+        };
+    }
+}
@@ -1,15 +1,27 @@
 package edu.northeastern.hanafeng.chatsystem.client.user;
 
-import edu.northeastern.hanafeng.chatsystem.client.support.MessageTextPool;
+import edu.northeastern.hanafeng.chatsystem.client.support.MessageIds;
+import edu.northeastern.hanafeng.chatsystem.client.workload.MessageBodies;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import java.time.Instant;
-import java.util.*;
+import java.util.BitSet;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class handles the lifecycle of a single user message sequence
  * It ensures the message order
  * Thread-safe: getNextMessageToSend() and handleEchoback() are synchronized
+ *
+ * Messages are numbered per user in sending order (JOIN is 0, TEXTs 1..n, LEAVE n+1 for a single session)
+ * and their IDs derived from that sequence (see {@link MessageIds}), so pending TEXT confirmations are bits
+ * in a set rather than ID strings.
+ *
+ * A user may go through several JOIN ... LEAVE sessions (join/leave churn): after a confirmed LEAVE it starts
+ * over from INIT until all sessions are done, its TEXTs spread evenly over them.
+ *
+ * A user may have at most maxInFlight unconfirmed TEXTs (0 for no limit) and pauses for a think time after
+ * every message. The user sits in the manager's eligible index for its state only while it can send now,
+ * so producers never sample users whose window is full or who are still thinking.
  */
 public class UserHandler {
 
@@ -29,25 +41,61 @@ public class UserHandler {
     private State currentState;
     private final int totalTextMessages;
     private int textMessagesSent;
+    private final int sessions;
+    private int sessionsCompleted;
+    // Value of textMessagesSent at which the current session has sent all its TEXTs
+    private int sessionTextLimit;
+    private int nextSequence;
 
-    private final Set<String> pendingTextConfirmations;
+    // Bit n set: TEXT with sequence n sent and not yet confirmed
+    private final BitSet pendingTextConfirmations;
+    private int pendingTextCount;
     private final ThreadLocalRandom random;
+    private final MessageBodies bodies;
+
+    // In-flight window and think time
+    private final int maxInFlight;
+    private final ThinkTime thinkTime;
+    private final long thinkTimeMeanNanos;
+    private boolean thinking;
+
+    // The manager's eligible index this user is in, null while it cannot send
+    private State indexedState;
 
     private final UserHandlerManager manager;
 
-    public UserHandler(int userId, int roomId, int totalTextMessages, UserHandlerManager manager) {
+    /**
+     * @param sessions JOIN ... LEAVE sessions to go through, at least 1
+     * @param maxInFlight unconfirmed TEXTs allowed at once, 0 for no limit
+     * @param thinkTimeMeanNanos mean pause after each message
+     */
+    public UserHandler(int userId, int roomId, int totalTextMessages, int sessions, int maxInFlight,
+                       ThinkTime thinkTime, long thinkTimeMeanNanos, MessageBodies bodies,
+                       UserHandlerManager manager) {
         this.userId = userId;
         this.roomId = roomId;
         this.totalTextMessages = totalTextMessages;
+        this.sessions = sessions;
+        this.bodies = bodies;
+        this.maxInFlight = maxInFlight;
+        this.thinkTime = thinkTime;
+        this.thinkTimeMeanNanos = thinkTimeMeanNanos;
         this.random = ThreadLocalRandom.current();
         this.username = generateUsername();
         this.currentState = State.INIT;
         this.textMessagesSent = 0;
-        this.pendingTextConfirmations = Collections.synchronizedSet(new HashSet<>());
+        this.pendingTextConfirmations = new BitSet(totalTextMessages + 2 * sessions);
         this.manager = manager;
     }
 
+    /**
+     * The next message of this user, or null if it cannot send now: a producer may have sampled it from the
+     * index just before another one filled its window or started its think time.
+     */
     public synchronized ChatMessage getNextMessageToSend() {
+        if (thinking || !windowOpen() || !hasMessageToSend()) {
+            return null;
+        }
 
         ChatMessage message = new ChatMessage();
 
@@ -56,32 +104,33 @@ public class UserHandler {
         message.setUsername(username);
         message.setTimestamp(Instant.now());
 
-        String messageId = java.util.UUID.randomUUID().toString();
-        message.setMessageId(messageId);
+        int sequence = nextSequence;
+        message.setMessageId(MessageIds.format(userId, sequence));
 
         switch (currentState) {
             case INIT:
                 message.setMessageType("JOIN");
                 message.setMessage("JOIN");
+                sessionTextLimit = (int) ((long) totalTextMessages * (sessionsCompleted + 1) / sessions);
                 changeState(State.JOIN_SENT);
                 break;
             
             case JOINED:
                 message.setMessageType("TEXT");
-                message.setMessage(MessageTextPool.POOL[random.nextInt(MessageTextPool.POOL.length)]);
-                pendingTextConfirmations.add(messageId);
+                message.setMessage(bodies.next());
+                markPending(sequence);
                 textMessagesSent++;
                 changeState(State.TEXTING);
                 break;
 
             case TEXTING:
-                if (textMessagesSent >= totalTextMessages) {
-                    throw new IllegalStateException("Cannot send more TEXT messages - already sent " + textMessagesSent + "/" + totalTextMessages);
+                if (textMessagesSent >= sessionTextLimit) {
+                    throw new IllegalStateException("Cannot send more TEXT messages - already sent " + textMessagesSent + "/" + sessionTextLimit);
                 }
 
                 message.setMessageType("TEXT");
-                message.setMessage(MessageTextPool.POOL[random.nextInt(MessageTextPool.POOL.length)]);
-                pendingTextConfirmations.add(messageId);
+                message.setMessage(bodies.next());
+                markPending(sequence);
                 textMessagesSent++;
                 break;
 
@@ -94,22 +143,67 @@ public class UserHandler {
             default:
                 throw new IllegalStateException("Cannot send message in state: " + currentState);
         }
-        
+
+        nextSequence++;
+        startThinking();
+        reindex();
         return message;
     }
 
+    private void startThinking() {
+        long pause = thinkTime.sampleNanos(thinkTimeMeanNanos);
+        if (pause > 0) {
+            thinking = true;
+            manager.scheduleWake(this, System.nanoTime() + pause);
+        }
+    }
+
+    /**
+     * The think time after the last message is over.
+     */
+    synchronized void wake() {
+        thinking = false;
+        reindex();
+    }
+
+    /**
+     * Put this user in, move it between, or take it out of the manager's eligible indexes to match
+     * whether and in which state it can send now.
+     */
+    synchronized void reindex() {
+        State target = !thinking && hasMessageToSend() && windowOpen() ? currentState : null;
+        if (target != indexedState) {
+            manager.moveIndex(userId, indexedState, target);
+            indexedState = target;
+        }
+    }
+
+    private boolean windowOpen() {
+        return maxInFlight <= 0 || pendingTextCount < maxInFlight;
+    }
+
+    private void markPending(int sequence) {
+        pendingTextConfirmations.set(sequence);
+        pendingTextCount++;
+    }
+
     public synchronized void handleEchoback(String messageType, String messageId) {
         switch (messageType) {
             case "JOIN":
                 if (currentState == State.JOIN_SENT) {
-                    changeState(State.JOINED);
+                    // A session without TEXTs goes straight on to its LEAVE
+                    changeState(textMessagesSent < sessionTextLimit ? State.JOINED : State.ALL_TEXTS_CONFIRMED);
                 }
                 break;
 
             case "TEXT":
-                pendingTextConfirmations.remove(messageId);
+                int sequence = MessageIds.sequence(messageId);
+                if (sequence > 0 && pendingTextConfirmations.get(sequence)) {
+                    pendingTextConfirmations.clear(sequence);
+                    pendingTextCount--;
+                }
 
-                if (textMessagesSent >= totalTextMessages && pendingTextConfirmations.isEmpty()) {
+                if (textMessagesSent >= sessionTextLimit && pendingTextCount == 0) {
                     if (currentState == State.TEXTING) {
                         changeState(State.ALL_TEXTS_CONFIRMED);
                     }
@@ -118,10 +212,20 @@ public class UserHandler {
 
             case "LEAVE":
                 if (currentState == State.LEAVE_SENT) {
-                    changeState(State.DONE);
+                    sessionsCompleted++;
+                    changeState(sessionsCompleted < sessions ? State.INIT : State.DONE);
                 }
                 break;
         }
+        reindex();
+    }
+
+    /**
+     * Give up on a message whose confirmation never arrived: the lifecycle moves on as if it had been
+     * confirmed, so one lost ACK cannot stall the user.
+     */
+    public synchronized void handleAckFailure(String messageType, String messageId) {
+        handleEchoback(messageType, messageId);
     }
 
     private void changeState(State newState) {
@@ -136,7 +240,7 @@ public class UserHandler {
 
     public boolean hasMessageToSend() {
         if (currentState == State.TEXTING) {
-            return textMessagesSent < totalTextMessages;
+            return textMessagesSent < sessionTextLimit;
         }
 
         return currentState == State.INIT ||
@@ -150,8 +254,8 @@ public class UserHandler {
     }
 
     @SuppressWarnings("unused")
-    public boolean allTextMessagesConfirmed() {
-        return pendingTextConfirmations.isEmpty() && textMessagesSent >= totalTextMessages;
+    public synchronized boolean allTextMessagesConfirmed() {
+        return pendingTextCount == 0 && textMessagesSent >= totalTextMessages;
     }
 
     private String generateUsername() {
@@ -176,7 +280,7 @@ public class UserHandler {
         return roomId;
     }
 
-    public int getPendingTextConfirmationCount() {
-        return pendingTextConfirmations.size();
+    public synchronized int getPendingTextConfirmationCount() {
+        return pendingTextCount;
     }
 }
\ No newline at end of file
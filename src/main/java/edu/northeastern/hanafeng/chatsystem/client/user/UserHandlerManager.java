@@ -1,79 +1,116 @@
 package edu.northeastern.hanafeng.chatsystem.client.user;
 
+import edu.northeastern.hanafeng.chatsystem.client.workload.WorkloadPlan;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.DelayQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * UserHandlerManager manages all user handlers in the system.
  * This is a Spring-managed component that coordinates message generation
  * across all simulated users.
+ * Users that can send now are indexed by state in {@link UserIndex} sets, so picking a random one is O(1);
+ * users whose in-flight window is full or who are thinking are out of the indexes, and thinking users wait
+ * in a delay queue that producers drain as they look for the next message.
  */
 @Slf4j
 @Component
 public class UserHandlerManager {
 
-    private final Map<Integer, UserHandler> userHandlers;
-    private final Set<Integer> usersInInit;
-    private final Set<Integer> usersInJoined;
-    private final Set<Integer> usersInTexting;
-    private final Set<Integer> usersInAllTextsConfirmed;
+    private UserHandler[] userHandlers = new UserHandler[1];
+    private UserIndex usersInInit = new UserIndex(0);
+    private UserIndex usersInJoined = new UserIndex(0);
+    private UserIndex usersInTexting = new UserIndex(0);
+    private UserIndex usersInAllTextsConfirmed = new UserIndex(0);
+    private final AtomicInteger completedUsers = new AtomicInteger();
+    private final DelayQueue<Wake> thinkingUsers = new DelayQueue<>();
+
+    // Unconfirmed TEXTs a user may have at once, 0 for no limit
+    @Value("${client.user.max-in-flight:0}")
+    private int maxInFlight = 0;
+
+    @Value("${client.user.think-time.distribution:none}")
+    private String thinkTimeDistribution = "none";
+
+    @Value("${client.user.think-time.mean-ms:0}")
+    private long thinkTimeMeanMs = 0;
 
     private final ThreadLocalRandom random;
 
     @Getter
     private int totalUsers;
 
+    // Told the messageId of every confirmation, e.g. to cancel its ACK timeout
+    private volatile Consumer<String> confirmationListener = messageId -> { };
+
     public UserHandlerManager() {
-        this.userHandlers = new ConcurrentHashMap<>();
-        this.usersInInit = ConcurrentHashMap.newKeySet();
-        this.usersInJoined = ConcurrentHashMap.newKeySet();
-        this.usersInTexting = ConcurrentHashMap.newKeySet();
-        this.usersInAllTextsConfirmed = ConcurrentHashMap.newKeySet();
         this.random = ThreadLocalRandom.current();
         this.totalUsers = 0;
     }
 
     /**
-     * Initialize users with support for leftover message distribution.
+     * Initialize users as laid out by the workload plan: room, TEXT count, sessions and message bodies per
+     * user, with the think time scaled down by the weight of the user's rate class.
      */
-    public void initializeUsers(int totalUsers, int totalRooms, int totalTextMessages, long leftoverMessages) {
+    public void initializeUsers(WorkloadPlan plan) {
+        int totalUsers = plan.getNumUsers();
         this.totalUsers = totalUsers;
+        this.userHandlers = new UserHandler[totalUsers + 1];
+        this.usersInInit = new UserIndex(totalUsers);
+        this.usersInJoined = new UserIndex(totalUsers);
+        this.usersInTexting = new UserIndex(totalUsers);
+        this.usersInAllTextsConfirmed = new UserIndex(totalUsers);
+        this.completedUsers.set(0);
+        this.thinkingUsers.clear();
+        ThinkTime thinkTime = ThinkTime.fromValue(thinkTimeDistribution);
+        long thinkTimeMeanNanos = TimeUnit.MILLISECONDS.toNanos(thinkTimeMeanMs);
 
         for (int userId = 1; userId <= totalUsers; userId++) {
-            int roomId = ((userId - 1) % totalRooms) + 1;
-
-            int textMessagesForThisUser = totalTextMessages;
-            if (userId <= leftoverMessages) {
-                textMessagesForThisUser += 1;
-            }
-
             UserHandler handler = new UserHandler(
                 userId,
-                roomId,
-                textMessagesForThisUser,
+                plan.roomOf(userId),
+                plan.textsOf(userId),
+                plan.getSessionsPerUser(),
+                maxInFlight,
+                thinkTime,
+                (long) (thinkTimeMeanNanos / plan.rateClassOf(userId).weight()),
+                plan.getBodies(),
                 this
             );
 
-            userHandlers.put(userId, handler);
-            usersInInit.add(userId);
+            userHandlers[userId] = handler;
+            handler.reindex();
         }
 
-        log.info("Initialized {} users across {} rooms", totalUsers, totalRooms);
+        log.info("Initialized {} users across {} rooms", totalUsers, plan.getNumRooms());
+        log.info("Per-user window: maxInFlight={}, think time={} (mean {} ms)",
+                maxInFlight > 0 ? maxInFlight : "unlimited", thinkTime.name().toLowerCase(), thinkTimeMeanMs);
     }
 
     /**
      * Get the next message to send from any eligible user.
-     * Simple and reliable: directly sample from Sets.
+     * Simple and reliable: directly sample from the state indexes.
      */
     public ChatMessage getNextMessage() {
+        // Users whose think time is over can send again
+        for (Wake wake = thinkingUsers.poll(); wake != null; wake = thinkingUsers.poll()) {
+            wake.handler.wake();
+        }
+
         // Collect non-empty sets
-        List<Set<Integer>> eligibleSets = new ArrayList<>(4);
+        List<UserIndex> eligibleSets = new ArrayList<>(4);
         if (!usersInInit.isEmpty()) eligibleSets.add(usersInInit);
         if (!usersInJoined.isEmpty()) eligibleSets.add(usersInJoined);
         if (!usersInTexting.isEmpty()) eligibleSets.add(usersInTexting);
@@ -85,19 +122,14 @@ public class UserHandlerManager {
 
         // Try up to 5 times
         for (int attempt = 0; attempt < 5; attempt++) {
-            // Pick a random set
-            Set<Integer> selectedSet = eligibleSets.get(random.nextInt(eligibleSets.size()));
-            
-            // Convert to array for random access
-            Integer[] users = selectedSet.toArray(new Integer[0]);
-            if (users.length == 0) {
+            // Pick a random set, then a random user in it
+            UserIndex selectedSet = eligibleSets.get(random.nextInt(eligibleSets.size()));
+            int userId = selectedSet.pickRandom();
+            if (userId < 0) {
                 continue;
             }
-            
-            // Pick random user
-            Integer userId = users[random.nextInt(users.length)];
-            
-            UserHandler handler = userHandlers.get(userId);
+
+            UserHandler handler = userHandlers[userId];
             if (handler != null && handler.hasMessageToSend()) {
                 ChatMessage msg = handler.getNextMessageToSend();
                 if (msg != null) {
@@ -110,51 +142,76 @@ public class UserHandlerManager {
     }
 
     public void notifyStateChange(int userId, UserHandler.State oldState, UserHandler.State newState) {
-        removeFromStateIndex(userId, oldState);
-        addToStateIndex(userId, newState);
+        if (newState == UserHandler.State.DONE) {
+            completedUsers.incrementAndGet();
+        }
     }
 
-    private void removeFromStateIndex(int userId, UserHandler.State state) {
-        switch (state) {
-            case INIT: usersInInit.remove(userId); break;
-            case JOINED: usersInJoined.remove(userId); break;
-            case TEXTING: usersInTexting.remove(userId); break;
-            case ALL_TEXTS_CONFIRMED: usersInAllTextsConfirmed.remove(userId); break;
-            default: break;
+    /**
+     * Move a user between eligible indexes; a null state means not eligible.
+     */
+    void moveIndex(int userId, UserHandler.State from, UserHandler.State to) {
+        UserIndex fromIndex = stateIndex(from);
+        if (fromIndex != null) {
+            fromIndex.remove(userId);
+        }
+        UserIndex toIndex = stateIndex(to);
+        if (toIndex != null) {
+            toIndex.add(userId);
         }
     }
 
-    private void addToStateIndex(int userId, UserHandler.State state) {
+    private UserIndex stateIndex(UserHandler.State state) {
+        if (state == null) {
+            return null;
+        }
         switch (state) {
-            case INIT: usersInInit.add(userId); break;
-            case JOINED: usersInJoined.add(userId); break;
-            case TEXTING: usersInTexting.add(userId); break;
-            case ALL_TEXTS_CONFIRMED: usersInAllTextsConfirmed.add(userId); break;
-            default: break;
+            case INIT: return usersInInit;
+            case JOINED: return usersInJoined;
+            case TEXTING: return usersInTexting;
+            case ALL_TEXTS_CONFIRMED: return usersInAllTextsConfirmed;
+            default: return null;
         }
     }
 
+    void scheduleWake(UserHandler handler, long readyAtNanos) {
+        thinkingUsers.offer(new Wake(handler, readyAtNanos));
+    }
+
     public void handleEchoback(int userId, String messageType, String messageId) {
-        UserHandler handler = userHandlers.get(userId);
+        UserHandler handler = getUserHandler(userId);
         if (handler != null) {
             handler.handleEchoback(messageType, messageId);
+            confirmationListener.accept(messageId);
         } else {
             log.warn("Received echoback for unknown userId: {}", userId);
         }
     }
 
     /**
-     * Utility method: Get handler for specific user (for debugging/testing)
+     * A message was given up on after its ACK timed out too often; the user moves on without it.
+     */
+    public void handleAckFailure(int userId, String messageType, String messageId) {
+        UserHandler handler = getUserHandler(userId);
+        if (handler != null) {
+            handler.handleAckFailure(messageType, messageId);
+        }
+    }
+
+    public void setConfirmationListener(Consumer<String> confirmationListener) {
+        this.confirmationListener = confirmationListener;
+    }
+
+    /**
+     * Get handler for specific user, or null for an unknown userId
      */
-    @SuppressWarnings("unused")
     public UserHandler getUserHandler(int userId) {
-        return userHandlers.get(userId);
+        UserHandler[] handlers = userHandlers;
+        return userId > 0 && userId < handlers.length ? handlers[userId] : null;
     }
 
     public int getCompletedUserCount() {
-        return (int) userHandlers.values().stream()
-            .filter(UserHandler::isComplete)
-            .count();
+        return completedUsers.get();
     }
 
     public boolean areAllUsersComplete() {
@@ -166,8 +223,32 @@ public class UserHandlerManager {
      */
     @SuppressWarnings("unused")
     public int getTotalPendingConfirmations() {
-        return userHandlers.values().stream()
+        return Arrays.stream(userHandlers)
+            .filter(handler -> handler != null)
             .mapToInt(UserHandler::getPendingTextConfirmationCount)
             .sum();
     }
-}
\ No newline at end of file
+
+    /**
+     * A thinking user and when it may send again.
+     */
+    private static final class Wake implements Delayed {
+        private final UserHandler handler;
+        private final long readyAtNanos;
+
+        private Wake(UserHandler handler, long readyAtNanos) {
+            this.handler = handler;
+            this.readyAtNanos = readyAtNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAtNanos, ((Wake) other).readyAtNanos);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package edu.northeastern.hanafeng.chatsystem.client.user;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A set of user IDs (1..maxUserId) with O(1) add, remove and uniform random pick: members are packed in an
+ * array, and each user's slot in it is kept in a second array so removal can swap the last member in.
+ */
+class UserIndex {
+
+    private final int[] members;
+    private final int[] slots;
+    private int size;
+
+    UserIndex(int maxUserId) {
+        this.members = new int[maxUserId];
+        this.slots = new int[maxUserId + 1];
+        Arrays.fill(slots, -1);
+    }
+
+    synchronized void add(int userId) {
+        if (slots[userId] >= 0) {
+            return;
+        }
+        members[size] = userId;
+        slots[userId] = size++;
+    }
+
+    synchronized void remove(int userId) {
+        int slot = slots[userId];
+        if (slot < 0) {
+            return;
+        }
+        int last = members[--size];
+        members[slot] = last;
+        slots[last] = slot;
+        slots[userId] = -1;
+    }
+
+    /**
+     * A uniformly random member, or -1 if the set is empty.
+     */
+    synchronized int pickRandom() {
+        return size == 0 ? -1 : members[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,104 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import edu.northeastern.hanafeng.chatsystem.client.support.MessageTextPool;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TEXT message bodies, drawn at random from a pool built once up front: either the built-in text pool, or
+ * bodies whose lengths follow a size histogram. Drawing one is an array lookup, so sizes never cost the
+ * generator anything at send time.
+ */
+public final class MessageBodies {
+
+    // The server accepts messages of 1-5000 characters
+    public static final int MAX_LENGTH = 5000;
+
+    private static final String FILLER = filler();
+
+    private final String[] pool;
+
+    private MessageBodies(String[] pool) {
+        this.pool = pool;
+    }
+
+    public static MessageBodies builtIn() {
+        return new MessageBodies(MessageTextPool.POOL);
+    }
+
+    /**
+     * @param histogram "maxChars:weight,..." with ascending bounds; empty for the built-in pool
+     */
+    public static MessageBodies of(String histogram, int poolSize, Random random) {
+        if (histogram == null || histogram.isBlank()) {
+            return builtIn();
+        }
+        String[] buckets = histogram.split(",");
+        int[] bounds = new int[buckets.length];
+        double[] cumulative = new double[buckets.length];
+        double total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            String[] parts = buckets[i].trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid message size bucket '" + buckets[i] + "' (maxChars:weight)");
+            }
+            bounds[i] = Integer.parseInt(parts[0].trim());
+            double weight = Double.parseDouble(parts[1].trim());
+            if (bounds[i] < 1 || bounds[i] > MAX_LENGTH || (i > 0 && bounds[i] <= bounds[i - 1]) || weight < 0) {
+                throw new IllegalArgumentException("Invalid message size histogram: " + histogram);
+            }
+            total += weight;
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Message size histogram has no weight: " + histogram);
+        }
+
+        String[] pool = new String[poolSize];
+        for (int n = 0; n < poolSize; n++) {
+            double pick = random.nextDouble() * total;
+            int bucket = 0;
+            while (bucket < bounds.length - 1 && pick >= cumulative[bucket]) {
+                bucket++;
+            }
+            int min = bucket == 0 ? 1 : bounds[bucket - 1] + 1;
+            int length = min + random.nextInt(bounds[bucket] - min + 1);
+            pool[n] = body(length, random);
+        }
+        return new MessageBodies(pool);
+    }
+
+    public String next() {
+        return pool[ThreadLocalRandom.current().nextInt(pool.length)];
+    }
+
+    public double getMeanLength() {
+        return Arrays.stream(pool).mapToInt(String::length).average().orElse(0);
+    }
+
+    public int getMaxLength() {
+        return Arrays.stream(pool).mapToInt(String::length).max().orElse(0);
+    }
+
+    /**
+     * A slice of readable filler text of exactly the given length that starts with a word.
+     */
+    private static String body(int length, Random random) {
+        int offset = random.nextInt(FILLER.length() - length + 1);
+        while (FILLER.charAt(offset) == ' ') {
+            offset = (offset + 1) % (FILLER.length() - length + 1);
+        }
+        return FILLER.substring(offset, offset + length);
+    }
+
+    private static String filler() {
+        String pool = String.join(" ", MessageTextPool.POOL);
+        StringBuilder filler = new StringBuilder(2 * MAX_LENGTH + pool.length());
+        while (filler.length() < 2 * MAX_LENGTH) {
+            filler.append(pool).append(' ');
+        }
+        return filler.toString();
+    }
+}
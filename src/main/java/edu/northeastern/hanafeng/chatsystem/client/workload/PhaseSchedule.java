@@ -0,0 +1,112 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop pacing of the producers by a repeating phase schedule: within a phase the n-th message is due at
+ * a fixed offset given by the phase's rate, so the offered load follows the schedule no matter how many
+ * producers share it. A rate of 0 pauses the load for the phase.
+ */
+public final class PhaseSchedule {
+
+    /**
+     * One phase: how long it lasts and its rate in messages per second.
+     */
+    public record Phase(long durationNanos, double rate) {
+    }
+
+    private final List<Phase> phases;
+    // Per phase: offset of its start in the cycle and messages sent in the cycle before it
+    private final long[] startNanos;
+    private final long[] messagesBefore;
+    private final long cycleNanos;
+    private final long cycleMessages;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong originNanos = new AtomicLong(Long.MIN_VALUE);
+
+    private PhaseSchedule(List<Phase> phases) {
+        this.phases = phases;
+        this.startNanos = new long[phases.size()];
+        this.messagesBefore = new long[phases.size()];
+        long start = 0;
+        long messages = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            startNanos[i] = start;
+            messagesBefore[i] = messages;
+            start += phases.get(i).durationNanos();
+            messages += (long) (phases.get(i).rate() * phases.get(i).durationNanos() / 1e9);
+        }
+        this.cycleNanos = start;
+        this.cycleMessages = messages;
+    }
+
+    /**
+     * @param schedule "duration:rate,..." with durations such as 500ms, 30s or 2m; empty for no pacing
+     * @return the schedule, or null for no pacing
+     */
+    public static PhaseSchedule parse(String schedule) {
+        if (schedule == null || schedule.isBlank()) {
+            return null;
+        }
+        List<Phase> phases = new ArrayList<>();
+        for (String phase : schedule.split(",")) {
+            String[] parts = phase.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid phase '" + phase + "' (duration:rate)");
+            }
+            long nanos = DurationStyle.detectAndParse(parts[0].trim()).toNanos();
+            double rate = Double.parseDouble(parts[1].trim());
+            if (nanos <= 0 || rate < 0) {
+                throw new IllegalArgumentException("Invalid phase '" + phase + "'");
+            }
+            phases.add(new Phase(nanos, rate));
+        }
+        PhaseSchedule parsed = new PhaseSchedule(List.copyOf(phases));
+        if (parsed.cycleMessages == 0) {
+            throw new IllegalArgumentException("Phase schedule never sends a message: " + schedule);
+        }
+        return parsed;
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Wait until the next message is due. The schedule starts with the first call.
+     */
+    public void awaitSlot() throws InterruptedException {
+        long now = System.nanoTime();
+        originNanos.compareAndSet(Long.MIN_VALUE, now);
+        long due = originNanos.get() + dueNanos(issued.getAndIncrement());
+        long wait = due - now;
+        while (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+            wait = due - System.nanoTime();
+        }
+    }
+
+    /**
+     * Offset from the start of the schedule at which message n is due.
+     */
+    long dueNanos(long n) {
+        long cycle = n / cycleMessages;
+        long inCycle = n % cycleMessages;
+        int phase = phases.size() - 1;
+        while (messagesBefore[phase] > inCycle) {
+            phase--;
+        }
+        // Zero-rate phases send nothing, so a message is never due inside one
+        while (phases.get(phase).rate() == 0) {
+            phase++;
+        }
+        long intoPhase = (long) ((inCycle - messagesBefore[phase]) * 1e9 / phases.get(phase).rate());
+        return cycle * cycleNanos + startNanos[phase] + intoPhase;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open-loop pacing at a rate that can be changed while the producers run: after each change the n-th
+ * message is due n / rate seconds later. A rate of 0 holds the producers until the next change, and
+ * releasing the pacer lets every waiting producer go for good.
+ */
+public final class RatePacer {
+
+    private double rate;
+    private long originNanos;
+    private long issued;
+    private boolean released;
+
+    /**
+     * @param rate messages per second, 0 to pause
+     */
+    public synchronized void setRate(double rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must be >= 0");
+        }
+        this.rate = rate;
+        this.originNanos = System.nanoTime();
+        this.issued = 0;
+        notifyAll();
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized void release() {
+        released = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait until the next message is due at the current rate.
+     */
+    public void awaitSlot() throws InterruptedException {
+        long due;
+        synchronized (this) {
+            while (rate == 0 && !released) {
+                wait();
+            }
+            if (released) {
+                return;
+            }
+            due = originNanos + (long) (issued++ * 1e9 / rate);
+        }
+        long wait = due - System.nanoTime();
+        while (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+            wait = due - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.config.WorkloadProfile;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * The run's workload, computed once from the {@link WorkloadProfile} before any message is sent: the room and
+ * rate class of every user, how many TEXTs each user sends, the pool of message bodies and the phase
+ * schedule. Producers only look values up, so a skewed or bursty profile costs nothing at generation time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkloadPlan {
+
+    /**
+     * A group of users: its share of the population and its relative message count and rate.
+     */
+    public record RateClass(String name, double share, double weight) {
+    }
+
+    private final ClientConfig clientConfig;
+    private final WorkloadProfile profile;
+
+    @Getter
+    private int numUsers;
+    @Getter
+    private int numRooms;
+    @Getter
+    private int sessionsPerUser;
+    @Getter
+    private List<RateClass> rateClasses;
+    @Getter
+    private MessageBodies bodies;
+    @Getter
+    private PhaseSchedule phaseSchedule;
+
+    // Set by the saturation search, which then drives the offered load instead of the phase schedule
+    private volatile RatePacer ratePacer;
+
+    // Indexed by userId, slot 0 unused
+    private int[] roomOfUser;
+    private byte[] classOfUser;
+    private int[] textsOfUser;
+
+    @PostConstruct
+    public void build() {
+        numUsers = clientConfig.getNumUsers();
+        numRooms = clientConfig.getNumRooms();
+        sessionsPerUser = profile.getSessionsPerUser();
+        Random random = new Random(profile.getSeed());
+
+        roomOfUser = assignRooms(random);
+        rateClasses = parseRateClasses(profile.getRateClasses());
+        classOfUser = assignClasses(random);
+        textsOfUser = distributeTexts();
+        bodies = MessageBodies.of(profile.getMessageSizes(), profile.getBodyPoolSize(), random);
+        phaseSchedule = PhaseSchedule.parse(profile.getPhases());
+
+        logSummary();
+    }
+
+    public int roomOf(int userId) {
+        return roomOfUser[userId];
+    }
+
+    public int textsOf(int userId) {
+        return textsOfUser[userId];
+    }
+
+    public RateClass rateClassOf(int userId) {
+        return rateClasses.get(classOfUser[userId]);
+    }
+
+    /**
+     * Wait for the next send slot of the rate pacer or the phase schedule; returns at once when unpaced.
+     *
+     * @return whether sends are paced
+     */
+    public boolean awaitSendSlot() throws InterruptedException {
+        RatePacer pacer = ratePacer;
+        if (pacer != null) {
+            pacer.awaitSlot();
+            return true;
+        }
+        if (phaseSchedule == null) {
+            return false;
+        }
+        phaseSchedule.awaitSlot();
+        return true;
+    }
+
+    /**
+     * Pace all sends by the given pacer from now on, overriding the phase schedule.
+     */
+    public void paceBy(RatePacer pacer) {
+        this.ratePacer = pacer;
+    }
+
+    /**
+     * Users per room follow Zipf(roomSkew) over the rooms, room 1 the most popular, and are spread over
+     * userIds by a seeded shuffle. Without skew users go round-robin as they always have.
+     */
+    private int[] assignRooms(Random random) {
+        int[] rooms = new int[numUsers + 1];
+        if (profile.getRoomSkew() == 0) {
+            for (int userId = 1; userId <= numUsers; userId++) {
+                rooms[userId] = ((userId - 1) % numRooms) + 1;
+            }
+            return rooms;
+        }
+        double[] popularity = new double[numRooms];
+        for (int rank = 1; rank <= numRooms; rank++) {
+            popularity[rank - 1] = 1.0 / Math.pow(rank, profile.getRoomSkew());
+        }
+        long[] usersPerRoom = apportion(numUsers, popularity);
+        int userId = 1;
+        for (int room = 0; room < numRooms; room++) {
+            for (long n = 0; n < usersPerRoom[room]; n++) {
+                rooms[userId++] = room + 1;
+            }
+        }
+        shuffle(rooms, random);
+        return rooms;
+    }
+
+    private byte[] assignClasses(Random random) {
+        long[] usersPerClass = apportion(numUsers, rateClasses.stream().mapToDouble(RateClass::share).toArray());
+        int[] classes = new int[numUsers + 1];
+        int userId = 1;
+        for (int c = 0; c < usersPerClass.length; c++) {
+            for (long n = 0; n < usersPerClass[c]; n++) {
+                classes[userId++] = c;
+            }
+        }
+        shuffle(classes, random);
+        byte[] packed = new byte[numUsers + 1];
+        for (int i = 1; i <= numUsers; i++) {
+            packed[i] = (byte) classes[i];
+        }
+        return packed;
+    }
+
+    /**
+     * Every session costs a JOIN and a LEAVE; the remaining messages are TEXTs, split over users in
+     * proportion to their class weight so the run still sends exactly totalMessages.
+     */
+    private int[] distributeTexts() {
+        long lifecycleMessages = 2L * sessionsPerUser * numUsers;
+        long texts = clientConfig.getTotalMessages() - lifecycleMessages;
+        if (texts < 0) {
+            log.warn("totalMessages {} is below the {} JOIN/LEAVE messages of {} users x {} sessions; sending no TEXTs",
+                    clientConfig.getTotalMessages(), lifecycleMessages, numUsers, sessionsPerUser);
+            texts = 0;
+        }
+        double[] weights = new double[numUsers];
+        for (int userId = 1; userId <= numUsers; userId++) {
+            weights[userId - 1] = rateClassOf(userId).weight();
+        }
+        long[] perUser = apportion(texts, weights);
+        int[] result = new int[numUsers + 1];
+        for (int userId = 1; userId <= numUsers; userId++) {
+            if (perUser[userId - 1] > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("User " + userId + " would send more than " + Integer.MAX_VALUE + " TEXTs");
+            }
+            result[userId] = (int) perUser[userId - 1];
+        }
+        return result;
+    }
+
+    /**
+     * Split total into integer parts proportional to weights, largest remainders first, so the parts sum
+     * to exactly total.
+     */
+    static long[] apportion(long total, double[] weights) {
+        double sum = 0;
+        for (double weight : weights) {
+            sum += weight;
+        }
+        long[] parts = new long[weights.length];
+        Integer[] byRemainder = new Integer[weights.length];
+        double[] remainders = new double[weights.length];
+        long assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double exact = total * weights[i] / sum;
+            parts[i] = (long) Math.floor(exact);
+            remainders[i] = exact - parts[i];
+            assigned += parts[i];
+            byRemainder[i] = i;
+        }
+        Arrays.sort(byRemainder, (a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int i = 0; assigned < total; i = (i + 1) % weights.length) {
+            parts[byRemainder[i]]++;
+            assigned++;
+        }
+        return parts;
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        // Fisher-Yates over slots 1..n
+        for (int i = values.length - 1; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    static List<RateClass> parseRateClasses(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return List.of(new RateClass("all", 1, 1));
+        }
+        List<RateClass> classes = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid rate class '" + entry + "' (name:share:weight)");
+            }
+            double share = Double.parseDouble(parts[1].trim());
+            double weight = Double.parseDouble(parts[2].trim());
+            if (share < 0 || weight <= 0) {
+                throw new IllegalArgumentException("Invalid rate class '" + entry + "'");
+            }
+            classes.add(new RateClass(parts[0].trim(), share, weight));
+        }
+        if (classes.size() > Byte.MAX_VALUE || classes.stream().mapToDouble(RateClass::share).sum() <= 0) {
+            throw new IllegalArgumentException("Invalid rate classes: " + spec);
+        }
+        return List.copyOf(classes);
+    }
+
+    private void logSummary() {
+        log.info("=== Workload Profile: {} ===", profile.getName());
+        if (profile.getRoomSkew() == 0) {
+            log.info("Rooms: {} users round-robin over {} rooms", numUsers, numRooms);
+        } else {
+            int[] usersPerRoom = new int[numRooms + 1];
+            for (int userId = 1; userId <= numUsers; userId++) {
+                usersPerRoom[roomOfUser[userId]]++;
+            }
+            log.info("Rooms: zipf s={} over {} rooms, users per room {}", profile.getRoomSkew(), numRooms,
+                    Arrays.toString(Arrays.copyOfRange(usersPerRoom, 1, numRooms + 1)));
+        }
+        long[] textsPerClass = new long[rateClasses.size()];
+        int[] usersPerClass = new int[rateClasses.size()];
+        for (int userId = 1; userId <= numUsers; userId++) {
+            textsPerClass[classOfUser[userId]] += textsOfUser[userId];
+            usersPerClass[classOfUser[userId]]++;
+        }
+        for (int c = 0; c < rateClasses.size(); c++) {
+            log.info("Rate class {}: {} users, weight {}, {} TEXTs", rateClasses.get(c).name(), usersPerClass[c],
+                    rateClasses.get(c).weight(), textsPerClass[c]);
+        }
+        log.info("Sessions per user: {}", sessionsPerUser);
+        log.info("Message bodies: {}", profile.getMessageSizes().isBlank()
+                ? "built-in pool"
+                : String.format("%s, mean %.0f chars, max %d", profile.getMessageSizes(),
+                        bodies.getMeanLength(), bodies.getMaxLength()));
+        log.info("Phases: {}", phaseSchedule == null ? "unpaced" : phaseSchedule.getPhases().stream()
+                .map(phase -> String.format("%d ms @ %.0f msg/s", phase.durationNanos() / 1_000_000, phase.rate()))
+                .collect(Collectors.joining(", ")));
+        log.info("============================");
+    }
+}
@@ -42,6 +42,9 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix(threadNamePrefix);
 
+        // Stamp enqueue time so load shedding can read the queue sojourn time
+        executor.setTaskDecorator(new SojournTimeTaskDecorator());
+
         // Set rejection policy to handle task overflow gracefully
         // CallerRunsPolicy: The caller thread executes the task when pool is exhausted
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
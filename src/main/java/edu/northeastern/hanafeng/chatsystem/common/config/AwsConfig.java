@@ -3,6 +3,7 @@ package edu.northeastern.hanafeng.chatsystem.common.config;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
@@ -11,7 +12,11 @@ import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
+/**
+ * Clients for the real AWS services; the aws-emulator profile replaces them with {@link AwsEmulatorConfig}.
+ */
 @Configuration
+@Profile("!aws-emulator")
 @Slf4j
 public class AwsConfig {
 
@@ -0,0 +1,90 @@
+package edu.northeastern.hanafeng.chatsystem.common.config;
+
+import edu.northeastern.hanafeng.chatsystem.common.emulator.CloudWatchEmulator;
+import edu.northeastern.hanafeng.chatsystem.common.emulator.DynamoDbEmulator;
+import edu.northeastern.hanafeng.chatsystem.common.emulator.SqsEmulator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
+
+import java.time.Clock;
+
+/**
+ * In-JVM emulators in place of the AWS clients, for running servers, consumers and load tests without an
+ * AWS account: activate the aws-emulator profile alongside server or consumer. Each bean is the concrete
+ * emulator, so tests can inject it to configure latency and throttling and to assert on captured calls.
+ * State lives in the process, so a server and a consumer only share it when they run in the same JVM.
+ */
+@Configuration
+@Profile("aws-emulator")
+@Slf4j
+public class AwsEmulatorConfig {
+
+    @Value("${websocketchat.emulator.call-log-capacity:10000}")
+    private int callLogCapacity;
+
+    @Bean(destroyMethod = "close")
+    public SqsEmulator sqsClient(
+            @Value("${websocketchat.emulator.sqs.latency-ms:0}") long latencyMillis,
+            @Value("${websocketchat.emulator.sqs.max-requests-per-second:0}") int maxRequestsPerSecond) {
+        log.info("Creating SQS emulator (latency {} ms, max {} requests/s)", latencyMillis, maxRequestsPerSecond);
+        SqsEmulator sqs = new SqsEmulator(Clock.systemUTC(), callLogCapacity);
+        sqs.setLatencyMillis(latencyMillis);
+        sqs.setMaxRequestsPerSecond(maxRequestsPerSecond);
+        return sqs;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloudWatchEmulator cloudWatchClient(
+            @Value("${websocketchat.emulator.cloudwatch.latency-ms:0}") long latencyMillis,
+            @Value("${websocketchat.emulator.cloudwatch.max-requests-per-second:0}") int maxRequestsPerSecond) {
+        log.info("Creating CloudWatch emulator (latency {} ms, max {} requests/s)", latencyMillis, maxRequestsPerSecond);
+        CloudWatchEmulator cloudWatch = new CloudWatchEmulator(Clock.systemUTC(), callLogCapacity);
+        cloudWatch.setLatencyMillis(latencyMillis);
+        cloudWatch.setMaxRequestsPerSecond(maxRequestsPerSecond);
+        return cloudWatch;
+    }
+
+    @Bean(destroyMethod = "close")
+    public DynamoDbEmulator dynamoDbClient(
+            @Value("${websocketchat.emulator.dynamodb.latency-ms:0}") long latencyMillis,
+            @Value("${websocketchat.emulator.dynamodb.max-requests-per-second:0}") int maxRequestsPerSecond,
+            @Value("${websocketchat.emulator.dynamodb.ttl-deletion-delay-seconds:0}") long ttlDeletionDelaySeconds,
+            @Value("${websocketchat.consumer.registry.table-name}") String registryTableName) {
+        log.info("Creating DynamoDB emulator (latency {} ms, max {} requests/s)", latencyMillis, maxRequestsPerSecond);
+        DynamoDbEmulator dynamoDb = new DynamoDbEmulator(Clock.systemUTC(), callLogCapacity);
+        dynamoDb.setTtlDeletionDelaySeconds(ttlDeletionDelaySeconds);
+
+        // Same schema as the consumer registry table in the CDK stack
+        dynamoDb.createTable(CreateTableRequest.builder()
+                .tableName(registryTableName)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName("roomId").keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName("consumerId").keyType(KeyType.RANGE).build())
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("roomId").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("consumerId").attributeType(ScalarAttributeType.S).build())
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .build());
+        dynamoDb.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                .tableName(registryTableName)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder().enabled(true).attributeName("expiresAt").build())
+                .build());
+        dynamoDb.resetCalls();
+
+        // Applied after the table setup so the setup calls are neither delayed nor throttled
+        dynamoDb.setLatencyMillis(latencyMillis);
+        dynamoDb.setMaxRequestsPerSecond(maxRequestsPerSecond);
+        return dynamoDb;
+    }
+}
@@ -0,0 +1,41 @@
+package edu.northeastern.hanafeng.chatsystem.common.config;
+
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLogger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Creates the hot-path event logger from websocketchat.logging.hot-path.* properties, starts its
+ * appender thread and installs it behind {@link HotPathLog}. Each category uses
+ * {@code <category>.sample-rate} / {@code <category>.max-per-second}, falling back to the
+ * {@code default.*} values.
+ */
+@Configuration
+@Slf4j
+public class HotPathLoggingConfig {
+
+    private static final String PREFIX = "websocketchat.logging.hot-path.";
+
+    @Bean(destroyMethod = "stop")
+    public HotPathLogger hotPathLogger(Environment environment) {
+        HotPathLogger hotPathLogger = new HotPathLogger(
+                environment.getProperty(PREFIX + "buffer-size", Integer.class, 8192));
+
+        double defaultSampleRate = environment.getProperty(PREFIX + "default.sample-rate", Double.class, 0.0);
+        int defaultMaxPerSecond = environment.getProperty(PREFIX + "default.max-per-second", Integer.class, 0);
+        for (HotPathCategory category : HotPathCategory.values()) {
+            hotPathLogger.configure(category,
+                    environment.getProperty(PREFIX + category.key() + ".sample-rate", Double.class, defaultSampleRate),
+                    environment.getProperty(PREFIX + category.key() + ".max-per-second", Integer.class, defaultMaxPerSecond));
+        }
+
+        hotPathLogger.start();
+        HotPathLog.install(hotPathLogger);
+        log.info("Hot-path logging configured: {}", hotPathLogger.describe().get("categories"));
+        return hotPathLogger;
+    }
+}
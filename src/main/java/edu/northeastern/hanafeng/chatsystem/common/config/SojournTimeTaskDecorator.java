@@ -0,0 +1,43 @@
+package edu.northeastern.hanafeng.chatsystem.common.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Stamps every task with its enqueue time so the age of the oldest queued task (queue sojourn time)
+ * can be read from the head of the executor queue without extra bookkeeping.
+ */
+public class SojournTimeTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return new TimedRunnable(runnable, System.nanoTime());
+    }
+
+    /**
+     * Age of the task at the head of the executor queue, or 0 if the queue is empty.
+     */
+    public static long oldestQueuedAgeNanos(ThreadPoolExecutor executor) {
+        Runnable head = executor.getQueue().peek();
+        if (head instanceof TimedRunnable timed) {
+            return Math.max(0, System.nanoTime() - timed.enqueuedNanos);
+        }
+        return 0;
+    }
+
+    private static final class TimedRunnable implements Runnable {
+        private final Runnable delegate;
+        private final long enqueuedNanos;
+
+        private TimedRunnable(Runnable delegate, long enqueuedNanos) {
+            this.delegate = delegate;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+}
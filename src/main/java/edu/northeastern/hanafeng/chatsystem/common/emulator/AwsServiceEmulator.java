@@ -0,0 +1,176 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared behaviour of the in-JVM AWS service emulators: every call is captured for assertions, delayed by
+ * the configured service latency, and rejected with the service's throttling error once the configured
+ * requests per second are exceeded.
+ *
+ * Time-based behaviour (visibility timeouts, retention, TTL, metric timestamps) reads the injected clock,
+ * so tests can advance time without sleeping; latency and long-poll waits use real time.
+ */
+public abstract class AwsServiceEmulator {
+
+    protected final Clock clock;
+
+    private final int callLogCapacity;
+    private final Deque<EmulatorCall> calls = new ArrayDeque<>();
+    private final Map<String, LongAdder> callCounts = new ConcurrentHashMap<>();
+    private final LongAdder throttledCalls = new LongAdder();
+
+    private volatile long latencyMillis;
+    private volatile int maxRequestsPerSecond;
+
+    // Current second in the high 32 bits, requests accepted in that second in the low 32 bits
+    private final AtomicLong throttleWindow = new AtomicLong();
+
+    protected AwsServiceEmulator(Clock clock, int callLogCapacity) {
+        this.clock = clock;
+        this.callLogCapacity = callLogCapacity;
+    }
+
+    /**
+     * Delay added to every call, standing in for the network round trip to the service.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Requests accepted per second before calls fail with the service's throttling error (0 = unlimited).
+     */
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * The most recent calls, oldest first, up to the call log capacity.
+     */
+    public List<EmulatorCall> getCalls() {
+        synchronized (calls) {
+            return new ArrayList<>(calls);
+        }
+    }
+
+    public List<EmulatorCall> getCalls(String operation) {
+        return getCalls().stream().filter(call -> call.operation().equals(operation)).toList();
+    }
+
+    /**
+     * The captured requests of one type, e.g. {@code getRequests(SendMessageBatchRequest.class)}.
+     */
+    public <T> List<T> getRequests(Class<T> requestType) {
+        return getCalls().stream()
+                .map(EmulatorCall::request)
+                .filter(requestType::isInstance)
+                .map(requestType::cast)
+                .toList();
+    }
+
+    /**
+     * Calls of an operation since the last reset, including calls no longer in the call log.
+     */
+    public long getCallCount(String operation) {
+        LongAdder count = callCounts.get(operation);
+        return count != null ? count.sum() : 0;
+    }
+
+    public long getThrottledCalls() {
+        return throttledCalls.sum();
+    }
+
+    public void resetCalls() {
+        synchronized (calls) {
+            calls.clear();
+        }
+        callCounts.clear();
+        throttledCalls.reset();
+    }
+
+    /**
+     * Record a call, then apply throttling and latency. Every emulated operation starts with this.
+     */
+    protected void enter(String operation, Object request) {
+        boolean throttled = !tryAcquire();
+        EmulatorCall call = new EmulatorCall(operation, request, clock.instant(), throttled);
+        synchronized (calls) {
+            if (calls.size() == callLogCapacity) {
+                calls.removeFirst();
+            }
+            calls.addLast(call);
+        }
+        callCounts.computeIfAbsent(operation, key -> new LongAdder()).increment();
+
+        if (throttled) {
+            throttledCalls.increment();
+            throw throttlingException(operation);
+        }
+        long latency = latencyMillis;
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The error the real service returns when a caller exceeds its request rate.
+     */
+    protected abstract RuntimeException throttlingException(String operation);
+
+    /**
+     * Build a service error the way the SDK surfaces it, with error code and message in the error details.
+     */
+    protected static AwsServiceException error(AwsServiceException.Builder builder, String serviceName,
+                                               String code, String message) {
+        return builder
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode(code)
+                        .errorMessage(message)
+                        .serviceName(serviceName)
+                        .build())
+                .build();
+    }
+
+    private boolean tryAcquire() {
+        int max = maxRequestsPerSecond;
+        if (max == 0) {
+            return true;
+        }
+        long second = clock.millis() / 1000;
+        while (true) {
+            long current = throttleWindow.get();
+            long count = (current >>> 32) == second ? current & 0xFFFFFFFFL : 0;
+            if (count >= max) {
+                return false;
+            }
+            if (throttleWindow.compareAndSet(current, (second << 32) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * One captured call.
+     *
+     * @param throttled whether the call was rejected by the emulated request rate limit
+     */
+    public record EmulatorCall(String operation, Object request, Instant timestamp, boolean throttled) {}
+}
@@ -0,0 +1,242 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-JVM CloudWatch metrics behind the {@link CloudWatchClient} interface.
+ *
+ * putMetricData is validated the way the service validates it (namespace, at most 1000 datums per request,
+ * at most 30 dimensions, finite values, storage resolution 1 or 60) and stores every datapoint;
+ * getMetricStatistics aggregates them per period. Operations the services do not use keep the SDK's
+ * default of throwing UnsupportedOperationException.
+ */
+public class CloudWatchEmulator extends AwsServiceEmulator implements CloudWatchClient {
+
+    public static final int MAX_DATUMS_PER_REQUEST = 1000;
+    public static final int MAX_DIMENSIONS = 30;
+
+    private final Map<MetricKey, List<MetricValue>> metrics = new ConcurrentHashMap<>();
+
+    public CloudWatchEmulator(Clock clock, int callLogCapacity) {
+        super(clock, callLogCapacity);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        metrics.clear();
+    }
+
+    @Override
+    public PutMetricDataResponse putMetricData(PutMetricDataRequest request) {
+        enter("PutMetricData", request);
+        String namespace = request.namespace();
+        if (namespace == null || namespace.isEmpty()) {
+            throw error(MissingRequiredParameterException.builder(), "MissingParameter",
+                    "The parameter Namespace is required.");
+        }
+        if (namespace.startsWith("AWS/")) {
+            throw invalidParameter("The value AWS/ for parameter Namespace is invalid.");
+        }
+        if (!request.hasMetricData() || request.metricData().isEmpty()) {
+            throw error(MissingRequiredParameterException.builder(), "MissingParameter",
+                    "The parameter MetricData is required.");
+        }
+        if (request.metricData().size() > MAX_DATUMS_PER_REQUEST) {
+            throw invalidParameter("The collection MetricData must not have a size greater than "
+                    + MAX_DATUMS_PER_REQUEST + ".");
+        }
+
+        // Validate the whole request before storing anything, since the service rejects it as a unit
+        List<MetricDatum> data = request.metricData();
+        for (MetricDatum datum : data) {
+            validate(datum);
+        }
+        Instant received = clock.instant();
+        for (MetricDatum datum : data) {
+            MetricKey key = new MetricKey(namespace, datum.metricName(), dimensions(datum.dimensions()));
+            Instant timestamp = datum.timestamp() != null ? datum.timestamp() : received;
+            metrics.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).addAll(datapoints(datum, timestamp));
+        }
+        return PutMetricDataResponse.builder().build();
+    }
+
+    @Override
+    public GetMetricStatisticsResponse getMetricStatistics(GetMetricStatisticsRequest request) {
+        enter("GetMetricStatistics", request);
+        if (request.period() == null || request.period() <= 0) {
+            throw invalidParameter("The parameter Period must be a positive integer.");
+        }
+        if (request.startTime() == null || request.endTime() == null || !request.startTime().isBefore(request.endTime())) {
+            throw invalidParameter("The parameter StartTime must be before EndTime.");
+        }
+
+        long periodMillis = request.period() * 1000L;
+        long start = request.startTime().toEpochMilli();
+        TreeMap<Long, List<MetricValue>> buckets = new TreeMap<>();
+        MetricKey key = new MetricKey(request.namespace(), request.metricName(), dimensions(request.dimensions()));
+        for (MetricValue datapoint : metrics.getOrDefault(key, List.of())) {
+            if (datapoint.timestamp.isBefore(request.startTime()) || !datapoint.timestamp.isBefore(request.endTime())) {
+                continue;
+            }
+            long bucket = start + (datapoint.timestamp.toEpochMilli() - start) / periodMillis * periodMillis;
+            buckets.computeIfAbsent(bucket, b -> new ArrayList<>()).add(datapoint);
+        }
+
+        List<Datapoint> results = new ArrayList<>();
+        buckets.forEach((bucket, datapoints) -> results.add(aggregate(Instant.ofEpochMilli(bucket), datapoints,
+                request.statistics())));
+        return GetMetricStatisticsResponse.builder()
+                .label(request.metricName())
+                .datapoints(results)
+                .build();
+    }
+
+    /**
+     * Every stored value of a metric, across all dimension combinations, ordered by timestamp.
+     */
+    public List<MetricValue> getValues(String namespace, String metricName) {
+        List<MetricValue> datapoints = new ArrayList<>();
+        metrics.forEach((key, values) -> {
+            if (key.namespace.equals(namespace) && key.metricName.equals(metricName)) {
+                datapoints.addAll(values);
+            }
+        });
+        datapoints.sort(Comparator.comparing(MetricValue::timestamp));
+        return datapoints;
+    }
+
+    /**
+     * The sum of every stored value of a metric, across all dimension combinations.
+     */
+    public double getSum(String namespace, String metricName) {
+        return getValues(namespace, metricName).stream().mapToDouble(d -> d.value * d.count).sum();
+    }
+
+    @Override
+    protected RuntimeException throttlingException(String operation) {
+        return error(CloudWatchException.builder(), "Throttling", "Rate exceeded");
+    }
+
+    private void validate(MetricDatum datum) {
+        if (datum.metricName() == null || datum.metricName().isEmpty()) {
+            throw error(MissingRequiredParameterException.builder(), "MissingParameter",
+                    "The parameter MetricData.member.MetricName is required.");
+        }
+        if (datum.hasDimensions() && datum.dimensions().size() > MAX_DIMENSIONS) {
+            throw invalidParameter("The collection Dimensions must not have a size greater than " + MAX_DIMENSIONS + ".");
+        }
+        Set<String> dimensionNames = new HashSet<>();
+        for (Dimension dimension : datum.dimensions()) {
+            if (dimension.name() == null || dimension.value() == null || !dimensionNames.add(dimension.name())) {
+                throw invalidParameter("Dimensions must have a unique name and a value.");
+            }
+        }
+        Integer resolution = datum.storageResolution();
+        if (resolution != null && resolution != 1 && resolution != 60) {
+            throw invalidParameter("The parameter StorageResolution must be 1 or 60.");
+        }
+        int valueKinds = (datum.value() != null ? 1 : 0) + (datum.hasValues() ? 1 : 0)
+                + (datum.statisticValues() != null ? 1 : 0);
+        if (valueKinds > 1) {
+            throw invalidParameter("Only one of Value, Values and StatisticValues may be set.");
+        }
+        if (datum.value() != null && !Double.isFinite(datum.value())) {
+            throw invalidParameter("The value " + datum.value() + " for parameter MetricData.member.Value is invalid.");
+        }
+        if (datum.hasValues()) {
+            if (datum.hasCounts() && datum.counts().size() != datum.values().size()) {
+                throw invalidParameter("The Values and Counts arrays must have the same size.");
+            }
+            if (datum.values().stream().anyMatch(v -> !Double.isFinite(v))) {
+                throw invalidParameter("The parameter MetricData.member.Values contains an invalid value.");
+            }
+        }
+    }
+
+    private List<MetricValue> datapoints(MetricDatum datum, Instant timestamp) {
+        List<MetricValue> datapoints = new ArrayList<>();
+        if (datum.hasValues()) {
+            for (int i = 0; i < datum.values().size(); i++) {
+                double count = datum.hasCounts() ? datum.counts().get(i) : 1;
+                datapoints.add(new MetricValue(timestamp, datum.values().get(i), count, datum.unit()));
+            }
+        } else if (datum.statisticValues() != null) {
+            StatisticSet set = datum.statisticValues();
+            datapoints.add(new MetricValue(timestamp, set.sum() / set.sampleCount(), set.sampleCount(), datum.unit()));
+        } else {
+            datapoints.add(new MetricValue(timestamp, datum.value() != null ? datum.value() : 0, 1, datum.unit()));
+        }
+        return datapoints;
+    }
+
+    private Datapoint aggregate(
+            Instant bucket, List<MetricValue> datapoints, List<Statistic> statistics) {
+        double sum = 0;
+        double count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (MetricValue datapoint : datapoints) {
+            sum += datapoint.value * datapoint.count;
+            count += datapoint.count;
+            min = Math.min(min, datapoint.value);
+            max = Math.max(max, datapoint.value);
+        }
+
+        var result = Datapoint.builder()
+                .timestamp(bucket)
+                .unit(datapoints.get(0).unit);
+        for (Statistic statistic : statistics) {
+            switch (statistic) {
+                case SUM -> result.sum(sum);
+                case SAMPLE_COUNT -> result.sampleCount(count);
+                case AVERAGE -> result.average(count > 0 ? sum / count : 0);
+                case MINIMUM -> result.minimum(min);
+                case MAXIMUM -> result.maximum(max);
+                default -> throw invalidParameter("Unsupported statistic " + statistic);
+            }
+        }
+        return result.build();
+    }
+
+    private static Map<String, String> dimensions(List<Dimension> dimensions) {
+        Map<String, String> byName = new TreeMap<>();
+        if (dimensions != null) {
+            dimensions.forEach(dimension -> byName.put(dimension.name(), dimension.value()));
+        }
+        return byName;
+    }
+
+    private static AwsServiceException invalidParameter(String message) {
+        return error(InvalidParameterValueException.builder(), "InvalidParameterValue", message);
+    }
+
+    private static AwsServiceException error(AwsServiceException.Builder builder, String code, String message) {
+        return error(builder, "CloudWatch", code, message);
+    }
+
+    private record MetricKey(String namespace, String metricName, Map<String, String> dimensions) {}
+
+    /**
+     * One stored value; count is greater than one for values published with Counts or StatisticValues.
+     */
+    public record MetricValue(Instant timestamp, double value, double count, StandardUnit unit) {}
+}
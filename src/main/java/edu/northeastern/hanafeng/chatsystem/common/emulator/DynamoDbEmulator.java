@@ -0,0 +1,438 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-JVM DynamoDB tables behind the {@link DynamoDbClient} interface.
+ *
+ * Models what the consumer registry relies on: tables with a hash key and optional range key, put/get/delete
+ * with condition expressions and ALL_OLD return values, queries on the hash key with an optional range
+ * condition, filter expressions, limits and pagination, scans, and TTL. As in DynamoDB, expired items are only
+ * deleted some time after their TTL attribute passes (the configurable deletion delay) and stay readable
+ * until then; deletion happens lazily when the table is next accessed.
+ * Operations the services do not use keep the SDK's default of throwing UnsupportedOperationException.
+ */
+public class DynamoDbEmulator extends AwsServiceEmulator implements DynamoDbClient {
+
+    // Range key of every item in a table without a range key
+    private static final AttributeValue NO_RANGE_KEY = AttributeValue.fromS("");
+
+    private final Map<String, EmulatedTable> tables = new ConcurrentHashMap<>();
+    private volatile long ttlDeletionDelaySeconds;
+
+    public DynamoDbEmulator(Clock clock, int callLogCapacity) {
+        super(clock, callLogCapacity);
+    }
+
+    /**
+     * How long after its TTL an item is deleted; real tables take up to a few days.
+     */
+    public void setTtlDeletionDelaySeconds(long ttlDeletionDelaySeconds) {
+        this.ttlDeletionDelaySeconds = ttlDeletionDelaySeconds;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        tables.clear();
+    }
+
+    @Override
+    public CreateTableResponse createTable(CreateTableRequest request) {
+        enter("CreateTable", request);
+        String hashKey = null;
+        String rangeKey = null;
+        for (KeySchemaElement element : request.keySchema()) {
+            if (element.keyType() == KeyType.HASH) {
+                hashKey = element.attributeName();
+            } else if (element.keyType() == KeyType.RANGE) {
+                rangeKey = element.attributeName();
+            }
+        }
+        if (request.tableName() == null || hashKey == null) {
+            throw validation("CreateTable requires a table name and a HASH key");
+        }
+
+        Map<String, ScalarAttributeType> keyTypes = new HashMap<>();
+        for (AttributeDefinition definition : request.attributeDefinitions()) {
+            keyTypes.put(definition.attributeName(), definition.attributeType());
+        }
+        if (!keyTypes.containsKey(hashKey) || (rangeKey != null && !keyTypes.containsKey(rangeKey))) {
+            throw validation("Every key attribute must have an attribute definition");
+        }
+
+        EmulatedTable table = new EmulatedTable(request.tableName(), hashKey, rangeKey, keyTypes, request.keySchema(),
+                request.attributeDefinitions());
+        if (tables.putIfAbsent(table.name, table) != null) {
+            throw error(ResourceInUseException.builder(), "ResourceInUseException",
+                    "Table already exists: " + table.name);
+        }
+        return CreateTableResponse.builder().tableDescription(table.describe()).build();
+    }
+
+    @Override
+    public DeleteTableResponse deleteTable(DeleteTableRequest request) {
+        enter("DeleteTable", request);
+        EmulatedTable table = table(request.tableName());
+        tables.remove(table.name, table);
+        return DeleteTableResponse.builder().tableDescription(table.describe()).build();
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        enter("DescribeTable", request);
+        return DescribeTableResponse.builder().table(table(request.tableName()).describe()).build();
+    }
+
+    @Override
+    public UpdateTimeToLiveResponse updateTimeToLive(UpdateTimeToLiveRequest request) {
+        enter("UpdateTimeToLive", request);
+        EmulatedTable table = table(request.tableName());
+        TimeToLiveSpecification specification = request.timeToLiveSpecification();
+        synchronized (table) {
+            table.ttlAttribute = Boolean.TRUE.equals(specification.enabled()) ? specification.attributeName() : null;
+        }
+        return UpdateTimeToLiveResponse.builder().timeToLiveSpecification(specification).build();
+    }
+
+    @Override
+    public DescribeTimeToLiveResponse describeTimeToLive(DescribeTimeToLiveRequest request) {
+        enter("DescribeTimeToLive", request);
+        EmulatedTable table = table(request.tableName());
+        TimeToLiveDescription.Builder description = TimeToLiveDescription.builder();
+        synchronized (table) {
+            if (table.ttlAttribute != null) {
+                description.timeToLiveStatus(TimeToLiveStatus.ENABLED).attributeName(table.ttlAttribute);
+            } else {
+                description.timeToLiveStatus(TimeToLiveStatus.DISABLED);
+            }
+        }
+        return DescribeTimeToLiveResponse.builder().timeToLiveDescription(description.build()).build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        enter("PutItem", request);
+        EmulatedTable table = table(request.tableName());
+        Map<String, AttributeValue> item = Map.copyOf(request.item());
+        DynamoDbExpression condition = condition(request.conditionExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+
+        synchronized (table) {
+            AttributeValue hash = table.keyValue(item, table.hashKey);
+            AttributeValue range = table.rangeKey != null ? table.keyValue(item, table.rangeKey) : NO_RANGE_KEY;
+            NavigableMap<AttributeValue, Map<String, AttributeValue>> partition = table.partition(hash);
+            Map<String, AttributeValue> existing = table.live(partition, range);
+            checkCondition(condition, existing);
+            partition.put(range, item);
+            return PutItemResponse.builder().attributes(oldValues(request.returnValues(), existing)).build();
+        }
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        enter("GetItem", request);
+        EmulatedTable table = table(request.tableName());
+        synchronized (table) {
+            Map<String, AttributeValue> existing = table.lookup(request.key());
+            return existing != null
+                    ? GetItemResponse.builder().item(existing).build()
+                    : GetItemResponse.builder().build();
+        }
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        enter("DeleteItem", request);
+        EmulatedTable table = table(request.tableName());
+        DynamoDbExpression condition = condition(request.conditionExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+
+        synchronized (table) {
+            Map<String, AttributeValue> existing = table.lookup(request.key());
+            checkCondition(condition, existing);
+            if (existing != null) {
+                AttributeValue range = table.rangeKey != null ? request.key().get(table.rangeKey) : NO_RANGE_KEY;
+                table.partition(request.key().get(table.hashKey)).remove(range);
+            }
+            return DeleteItemResponse.builder().attributes(oldValues(request.returnValues(), existing)).build();
+        }
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        enter("Query", request);
+        EmulatedTable table = table(request.tableName());
+        if (request.keyConditionExpression() == null) {
+            throw validation("Query requires a KeyConditionExpression");
+        }
+        DynamoDbExpression keyCondition = parse(request.keyConditionExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        DynamoDbExpression filter = condition(request.filterExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+        AttributeValue hash = keyCondition.requiredEquality(table.hashKey);
+        if (hash == null) {
+            throw validation("Query key condition must specify an equality condition on " + table.hashKey);
+        }
+
+        synchronized (table) {
+            NavigableMap<AttributeValue, Map<String, AttributeValue>> partition = table.partition(hash);
+            table.expire(partition);
+            NavigableMap<AttributeValue, Map<String, AttributeValue>> ordered =
+                    Boolean.FALSE.equals(request.scanIndexForward()) ? partition.descendingMap() : partition;
+            Map<String, AttributeValue> startKey = request.exclusiveStartKey();
+            if (startKey != null && !startKey.isEmpty()) {
+                AttributeValue startRange = table.rangeKey != null ? startKey.get(table.rangeKey) : NO_RANGE_KEY;
+                ordered = ordered.tailMap(startRange, false);
+            }
+            Page page = page(table, ordered.values(), keyCondition, filter, request.limit());
+            return QueryResponse.builder()
+                    .items(page.items)
+                    .count(page.items.size())
+                    .scannedCount(page.scanned)
+                    .lastEvaluatedKey(page.lastEvaluatedKey)
+                    .build();
+        }
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        enter("Scan", request);
+        EmulatedTable table = table(request.tableName());
+        DynamoDbExpression filter = condition(request.filterExpression(),
+                request.expressionAttributeNames(), request.expressionAttributeValues());
+
+        synchronized (table) {
+            List<Map<String, AttributeValue>> all = new ArrayList<>();
+            for (NavigableMap<AttributeValue, Map<String, AttributeValue>> partition : table.partitions.values()) {
+                table.expire(partition);
+                all.addAll(partition.values());
+            }
+            Page page = page(table, all, null, filter, request.limit());
+            return ScanResponse.builder()
+                    .items(page.items)
+                    .count(page.items.size())
+                    .scannedCount(page.scanned)
+                    .build();
+        }
+    }
+
+    /**
+     * Items currently stored in a table, including expired items not yet deleted (-1 if the table is missing).
+     */
+    public int getItemCount(String tableName) {
+        EmulatedTable table = tables.get(tableName);
+        if (table == null) {
+            return -1;
+        }
+        synchronized (table) {
+            return table.partitions.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+
+    @Override
+    protected RuntimeException throttlingException(String operation) {
+        return error(ProvisionedThroughputExceededException.builder(), "ProvisionedThroughputExceededException",
+                "The level of configured provisioned throughput for the table was exceeded");
+    }
+
+    /**
+     * Evaluate items in order: the limit counts evaluated items, before the filter is applied, as in DynamoDB.
+     */
+    private Page page(EmulatedTable table, Iterable<Map<String, AttributeValue>> candidates,
+                      DynamoDbExpression keyCondition, DynamoDbExpression filter, Integer limit) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        int scanned = 0;
+        Map<String, AttributeValue> lastEvaluated = null;
+        Iterator<Map<String, AttributeValue>> iterator = candidates.iterator();
+        while (iterator.hasNext()) {
+            Map<String, AttributeValue> item = iterator.next();
+            if (keyCondition != null && !keyCondition.matches(item)) {
+                continue;
+            }
+            scanned++;
+            if (filter == null || filter.matches(item)) {
+                items.add(item);
+            }
+            if (limit != null && scanned == limit) {
+                lastEvaluated = iterator.hasNext() ? table.key(item) : null;
+                break;
+            }
+        }
+        return new Page(items, scanned, lastEvaluated);
+    }
+
+    private DynamoDbExpression condition(String expression, Map<String, String> names,
+                                         Map<String, AttributeValue> values) {
+        return expression != null ? parse(expression, names, values) : null;
+    }
+
+    private DynamoDbExpression parse(String expression, Map<String, String> names,
+                                     Map<String, AttributeValue> values) {
+        try {
+            return DynamoDbExpression.parse(expression, names, values);
+        } catch (IllegalArgumentException e) {
+            throw validation("Invalid expression: " + e.getMessage());
+        }
+    }
+
+    private void checkCondition(DynamoDbExpression condition, Map<String, AttributeValue> existing) {
+        if (condition != null && !condition.matches(existing)) {
+            throw error(ConditionalCheckFailedException.builder(), "ConditionalCheckFailedException",
+                    "The conditional request failed");
+        }
+    }
+
+    private Map<String, AttributeValue> oldValues(ReturnValue returnValue, Map<String, AttributeValue> existing) {
+        return returnValue == ReturnValue.ALL_OLD && existing != null ? existing : null;
+    }
+
+    private EmulatedTable table(String tableName) {
+        EmulatedTable table = tableName != null ? tables.get(tableName) : null;
+        if (table == null) {
+            throw error(ResourceNotFoundException.builder(), "ResourceNotFoundException",
+                    "Requested resource not found: Table: " + tableName + " not found");
+        }
+        return table;
+    }
+
+    private static AwsServiceException validation(String message) {
+        return error(DynamoDbException.builder(), "ValidationException", message);
+    }
+
+    private static AwsServiceException error(AwsServiceException.Builder builder, String code, String message) {
+        return error(builder, "DynamoDb", code, message);
+    }
+
+    private record Page(List<Map<String, AttributeValue>> items, int scanned,
+                        Map<String, AttributeValue> lastEvaluatedKey) {}
+
+    /**
+     * One table: partitions by hash key, each ordered by range key. Guarded by the table's monitor.
+     */
+    private final class EmulatedTable {
+        private final String name;
+        private final String hashKey;
+        private final String rangeKey;
+        private final Map<String, ScalarAttributeType> keyTypes;
+        private final List<KeySchemaElement> keySchema;
+        private final List<AttributeDefinition> attributeDefinitions;
+        private final long createdAtMillis = clock.millis();
+        private final Map<AttributeValue, NavigableMap<AttributeValue, Map<String, AttributeValue>>> partitions =
+                new HashMap<>();
+        private String ttlAttribute;
+
+        private EmulatedTable(String name, String hashKey, String rangeKey, Map<String, ScalarAttributeType> keyTypes,
+                              List<KeySchemaElement> keySchema, List<AttributeDefinition> attributeDefinitions) {
+            this.name = name;
+            this.hashKey = hashKey;
+            this.rangeKey = rangeKey;
+            this.keyTypes = keyTypes;
+            this.keySchema = keySchema;
+            this.attributeDefinitions = attributeDefinitions;
+        }
+
+        private NavigableMap<AttributeValue, Map<String, AttributeValue>> partition(AttributeValue hash) {
+            return partitions.computeIfAbsent(hash, key -> new TreeMap<>(DynamoDbExpression::compare));
+        }
+
+        /**
+         * The item with the given primary key, deleting it first if its TTL deletion is due.
+         */
+        private Map<String, AttributeValue> lookup(Map<String, AttributeValue> key) {
+            if (key == null || key.size() != (rangeKey != null ? 2 : 1)) {
+                throw validation("The provided key element does not match the schema");
+            }
+            AttributeValue hash = keyValue(key, hashKey);
+            AttributeValue range = rangeKey != null ? keyValue(key, rangeKey) : NO_RANGE_KEY;
+            return live(partition(hash), range);
+        }
+
+        private Map<String, AttributeValue> live(NavigableMap<AttributeValue, Map<String, AttributeValue>> partition,
+                                                 AttributeValue range) {
+            Map<String, AttributeValue> item = partition.get(range);
+            if (item != null && deletionDue(item)) {
+                partition.remove(range);
+                return null;
+            }
+            return item;
+        }
+
+        private void expire(NavigableMap<AttributeValue, Map<String, AttributeValue>> partition) {
+            if (ttlAttribute != null) {
+                partition.values().removeIf(this::deletionDue);
+            }
+        }
+
+        private boolean deletionDue(Map<String, AttributeValue> item) {
+            if (ttlAttribute == null) {
+                return false;
+            }
+            AttributeValue expiresAt = item.get(ttlAttribute);
+            if (expiresAt == null || expiresAt.n() == null) {
+                // TTL only applies to numeric epoch-second attributes
+                return false;
+            }
+            try {
+                long deleteAt = (long) Double.parseDouble(expiresAt.n()) + ttlDeletionDelaySeconds;
+                return deleteAt <= clock.millis() / 1000;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private AttributeValue keyValue(Map<String, AttributeValue> item, String attribute) {
+            AttributeValue value = item.get(attribute);
+            ScalarAttributeType type = keyTypes.get(attribute);
+            boolean matches = value != null && switch (type) {
+                case S -> value.s() != null && !value.s().isEmpty();
+                case N -> value.n() != null;
+                case B -> value.b() != null;
+                default -> false;
+            };
+            if (!matches) {
+                throw validation("Missing or invalid key attribute " + attribute + " (expected type " + type + ")");
+            }
+            return value;
+        }
+
+        private Map<String, AttributeValue> key(Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> key = new HashMap<>();
+            key.put(hashKey, item.get(hashKey));
+            if (rangeKey != null) {
+                key.put(rangeKey, item.get(rangeKey));
+            }
+            return key;
+        }
+
+        private TableDescription describe() {
+            synchronized (this) {
+                return TableDescription.builder()
+                        .tableName(name)
+                        .tableStatus(TableStatus.ACTIVE)
+                        .keySchema(keySchema)
+                        .attributeDefinitions(attributeDefinitions)
+                        .itemCount((long) partitions.values().stream().mapToInt(Map::size).sum())
+                        .creationDateTime(Instant.ofEpochMilli(createdAtMillis))
+                        .build();
+            }
+        }
+    }
+}
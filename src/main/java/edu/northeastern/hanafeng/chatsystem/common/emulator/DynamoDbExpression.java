@@ -0,0 +1,370 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser and evaluator for the DynamoDB condition, key-condition and filter expression subset the emulator
+ * supports: comparisons ({@code = <> < <= > >=}), {@code BETWEEN}, {@code attribute_exists},
+ * {@code attribute_not_exists}, {@code begins_with}, {@code AND}, {@code OR}, {@code NOT} and parentheses,
+ * over top-level attribute names, {@code #name} placeholders and {@code :value} placeholders.
+ */
+final class DynamoDbExpression {
+
+    private final Node root;
+
+    private DynamoDbExpression(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Parse an expression, resolving placeholders from the request.
+     *
+     * @throws IllegalArgumentException if the expression is malformed or uses an undefined placeholder
+     */
+    static DynamoDbExpression parse(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+        Parser parser = new Parser(tokenize(expression), names, values);
+        Node root = parser.expression();
+        if (parser.position != parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected token in expression: " + parser.tokens.get(parser.position));
+        }
+        return new DynamoDbExpression(root);
+    }
+
+    /**
+     * Evaluate against an item; a missing item (null) has no attributes.
+     */
+    boolean matches(Map<String, AttributeValue> item) {
+        return root.matches(item != null ? item : Map.of());
+    }
+
+    /**
+     * The value the expression requires attribute to equal in a top-level AND chain, as in
+     * {@code roomId = :roomId AND consumerId > :c}; null if there is none.
+     */
+    AttributeValue requiredEquality(String attribute) {
+        List<Node> conjuncts = new ArrayList<>();
+        flattenAnd(root, conjuncts);
+        for (Node node : conjuncts) {
+            if (node instanceof Comparison comparison && comparison.operator.equals("=")
+                    && comparison.left instanceof Path path && path.name.equals(attribute)
+                    && comparison.right instanceof Value value) {
+                return value.value;
+            }
+        }
+        return null;
+    }
+
+    static int compare(AttributeValue left, AttributeValue right) {
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n()));
+        }
+        if (left.s() != null && right.s() != null) {
+            return left.s().compareTo(right.s());
+        }
+        if (left.b() != null && right.b() != null) {
+            return compareBytes(left.b(), right.b());
+        }
+        throw new IllegalArgumentException("Cannot compare values of different types");
+    }
+
+    private static int compareBytes(SdkBytes left, SdkBytes right) {
+        byte[] a = left.asByteArray();
+        byte[] b = right.asByteArray();
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static boolean sameType(AttributeValue left, AttributeValue right) {
+        return (left.n() != null && right.n() != null)
+                || (left.s() != null && right.s() != null)
+                || (left.b() != null && right.b() != null);
+    }
+
+    private static void flattenAnd(Node node, List<Node> conjuncts) {
+        if (node instanceof And and) {
+            flattenAnd(and.left, conjuncts);
+            flattenAnd(and.right, conjuncts);
+        } else {
+            conjuncts.add(node);
+        }
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')' || c == ',') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '<' || c == '>' || c == '=') {
+                int end = i + 1;
+                if (end < expression.length() && (expression.charAt(end) == '=' || (c == '<' && expression.charAt(end) == '>'))) {
+                    end++;
+                }
+                tokens.add(expression.substring(i, end));
+                i = end;
+            } else {
+                int end = i;
+                while (end < expression.length() && isWordCharacter(expression.charAt(end))) {
+                    end++;
+                }
+                if (end == i) {
+                    throw new IllegalArgumentException("Invalid character '" + c + "' in expression");
+                }
+                tokens.add(expression.substring(i, end));
+                i = end;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '#' || c == ':' || c == '.' || c == '-';
+    }
+
+    private interface Node {
+        boolean matches(Map<String, AttributeValue> item);
+    }
+
+    private interface Operand {
+        AttributeValue resolve(Map<String, AttributeValue> item);
+    }
+
+    private record Path(String name) implements Operand {
+        public AttributeValue resolve(Map<String, AttributeValue> item) {
+            return item.get(name);
+        }
+    }
+
+    private record Value(AttributeValue value) implements Operand {
+        public AttributeValue resolve(Map<String, AttributeValue> item) {
+            return value;
+        }
+    }
+
+    private record And(Node left, Node right) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            return left.matches(item) && right.matches(item);
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            return left.matches(item) || right.matches(item);
+        }
+    }
+
+    private record Not(Node node) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            return !node.matches(item);
+        }
+    }
+
+    private record Exists(Path path, boolean expected) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            return item.containsKey(path.name) == expected;
+        }
+    }
+
+    private record BeginsWith(Path path, Operand prefix) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            AttributeValue value = path.resolve(item);
+            AttributeValue start = prefix.resolve(item);
+            return value != null && start != null && value.s() != null && start.s() != null && value.s().startsWith(start.s());
+        }
+    }
+
+    private record Between(Operand operand, Operand low, Operand high) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            AttributeValue value = operand.resolve(item);
+            AttributeValue from = low.resolve(item);
+            AttributeValue to = high.resolve(item);
+            return value != null && from != null && to != null && sameType(value, from) && sameType(value, to)
+                    && compare(value, from) >= 0 && compare(value, to) <= 0;
+        }
+    }
+
+    private record Comparison(Operand left, String operator, Operand right) implements Node {
+        public boolean matches(Map<String, AttributeValue> item) {
+            AttributeValue a = left.resolve(item);
+            AttributeValue b = right.resolve(item);
+            if (a == null || b == null) {
+                // A missing attribute is not equal to anything and compares false otherwise
+                return operator.equals("<>") && (a != null || b != null);
+            }
+            if (operator.equals("=")) {
+                return a.equals(b);
+            }
+            if (operator.equals("<>")) {
+                return !a.equals(b);
+            }
+            if (!sameType(a, b)) {
+                return false;
+            }
+            int result = compare(a, b);
+            return switch (operator) {
+                case "<" -> result < 0;
+                case "<=" -> result <= 0;
+                case ">" -> result > 0;
+                case ">=" -> result >= 0;
+                default -> throw new IllegalArgumentException("Unknown operator " + operator);
+            };
+        }
+    }
+
+    /**
+     * Recursive-descent parser: OR binds loosest, then AND, then NOT.
+     */
+    private static final class Parser {
+        private final List<String> tokens;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private int position;
+
+        private Parser(List<String> tokens, Map<String, String> names, Map<String, AttributeValue> values) {
+            this.tokens = tokens;
+            this.names = names != null ? names : Map.of();
+            this.values = values != null ? values : Map.of();
+        }
+
+        private Node expression() {
+            Node node = conjunction();
+            while (acceptKeyword("OR")) {
+                node = new Or(node, conjunction());
+            }
+            return node;
+        }
+
+        private Node conjunction() {
+            Node node = negation();
+            while (acceptKeyword("AND")) {
+                node = new And(node, negation());
+            }
+            return node;
+        }
+
+        private Node negation() {
+            if (acceptKeyword("NOT")) {
+                return new Not(negation());
+            }
+            return condition();
+        }
+
+        private Node condition() {
+            if (accept("(")) {
+                Node node = expression();
+                expect(")");
+                return node;
+            }
+
+            String token = peek();
+            if (token.equals("attribute_exists") || token.equals("attribute_not_exists")) {
+                position++;
+                expect("(");
+                Path path = path();
+                expect(")");
+                return new Exists(path, token.equals("attribute_exists"));
+            }
+            if (token.equals("begins_with")) {
+                position++;
+                expect("(");
+                Path path = path();
+                expect(",");
+                Operand prefix = operand();
+                expect(")");
+                return new BeginsWith(path, prefix);
+            }
+
+            Operand left = operand();
+            if (acceptKeyword("BETWEEN")) {
+                Operand low = operand();
+                if (!acceptKeyword("AND")) {
+                    throw new IllegalArgumentException("BETWEEN requires AND");
+                }
+                return new Between(left, low, operand());
+            }
+            String operator = next();
+            if (!List.of("=", "<>", "<", "<=", ">", ">=").contains(operator)) {
+                throw new IllegalArgumentException("Expected a comparison operator but found " + operator);
+            }
+            return new Comparison(left, operator, operand());
+        }
+
+        private Operand operand() {
+            String token = peek();
+            if (token.startsWith(":")) {
+                position++;
+                AttributeValue value = values.get(token);
+                if (value == null) {
+                    throw new IllegalArgumentException("Value placeholder " + token + " is not defined");
+                }
+                return new Value(value);
+            }
+            return path();
+        }
+
+        private Path path() {
+            String token = next();
+            if (token.startsWith("#")) {
+                String name = names.get(token);
+                if (name == null) {
+                    throw new IllegalArgumentException("Name placeholder " + token + " is not defined");
+                }
+                return new Path(name);
+            }
+            if (token.startsWith(":") || token.length() == 1 && "(),".contains(token)) {
+                throw new IllegalArgumentException("Expected an attribute name but found " + token);
+            }
+            return new Path(token);
+        }
+
+        private String peek() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Unexpected end of expression");
+            }
+            return tokens.get(position);
+        }
+
+        private String next() {
+            String token = peek();
+            position++;
+            return token;
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw new IllegalArgumentException("Expected '" + token + "' in expression");
+            }
+        }
+    }
+}
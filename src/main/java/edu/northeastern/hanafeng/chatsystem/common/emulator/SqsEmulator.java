@@ -0,0 +1,506 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-JVM standard SQS queues behind the {@link SqsClient} interface.
+ *
+ * Models the behaviour the services rely on: queue lifecycle and URLs, the 256 KiB message and batch
+ * limits, at most 10 entries per batch with per-entry failures, long polling up to 20 seconds, visibility
+ * timeouts with a fresh receipt handle per receive (deletes with an outdated handle succeed but leave the
+ * message in the queue), ApproximateReceiveCount, retention, delay seconds and the in-flight message limit.
+ * Operations the services do not use keep the SDK's default of throwing UnsupportedOperationException.
+ */
+public class SqsEmulator extends AwsServiceEmulator implements SqsClient {
+
+    public static final int MAX_BATCH_ENTRIES = 10;
+    public static final int MAX_MESSAGE_BYTES = 262_144;
+    public static final int MAX_WAIT_SECONDS = 20;
+    public static final int MAX_IN_FLIGHT = 120_000;
+
+    private static final String URL_PREFIX = "https://sqs.emulator.local/000000000000/";
+    private static final Pattern QUEUE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,80}");
+    private static final Pattern BATCH_ENTRY_ID = Pattern.compile("[A-Za-z0-9_-]{1,80}");
+    private static final long LONG_POLL_RECHECK_MILLIS = 50;
+
+    private final Map<String, EmulatedQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicLong receiptSequence = new AtomicLong();
+
+    public SqsEmulator(Clock clock, int callLogCapacity) {
+        super(clock, callLogCapacity);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        for (EmulatedQueue queue : queues.values()) {
+            synchronized (queue) {
+                queue.deleted = true;
+                queue.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public CreateQueueResponse createQueue(CreateQueueRequest request) {
+        enter("CreateQueue", request);
+        String name = request.queueName();
+        if (name == null || !QUEUE_NAME.matcher(name).matches()) {
+            throw error(SqsException.builder(), "InvalidParameterValue", "Invalid queue name: " + name);
+        }
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(QueueAttributeName.VISIBILITY_TIMEOUT.toString(), "30");
+        attributes.put(QueueAttributeName.MESSAGE_RETENTION_PERIOD.toString(), "345600");
+        attributes.put(QueueAttributeName.DELAY_SECONDS.toString(), "0");
+        attributes.put(QueueAttributeName.RECEIVE_MESSAGE_WAIT_TIME_SECONDS.toString(), "0");
+        attributes.putAll(request.attributesAsStrings());
+
+        EmulatedQueue queue = queues.computeIfAbsent(name, key -> new EmulatedQueue(key, attributes));
+        if (!queue.attributes.equals(attributes)) {
+            throw error(QueueNameExistsException.builder(), "QueueAlreadyExists",
+                    "A queue named " + name + " already exists with different attributes");
+        }
+        return CreateQueueResponse.builder().queueUrl(queue.url).build();
+    }
+
+    @Override
+    public GetQueueUrlResponse getQueueUrl(GetQueueUrlRequest request) {
+        enter("GetQueueUrl", request);
+        EmulatedQueue queue = queues.get(request.queueName());
+        if (queue == null) {
+            throw queueDoesNotExist(request.queueName());
+        }
+        return GetQueueUrlResponse.builder().queueUrl(queue.url).build();
+    }
+
+    @Override
+    public ListQueuesResponse listQueues(ListQueuesRequest request) {
+        enter("ListQueues", request);
+        String prefix = request.queueNamePrefix() != null ? request.queueNamePrefix() : "";
+        List<String> urls = queues.values().stream()
+                .filter(queue -> queue.name.startsWith(prefix))
+                .map(queue -> queue.url)
+                .sorted()
+                .toList();
+        return ListQueuesResponse.builder().queueUrls(urls).build();
+    }
+
+    @Override
+    public DeleteQueueResponse deleteQueue(DeleteQueueRequest request) {
+        enter("DeleteQueue", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        queues.remove(queue.name, queue);
+        synchronized (queue) {
+            queue.deleted = true;
+            queue.notifyAll();
+        }
+        return DeleteQueueResponse.builder().build();
+    }
+
+    @Override
+    public PurgeQueueResponse purgeQueue(PurgeQueueRequest request) {
+        enter("PurgeQueue", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        synchronized (queue) {
+            queue.messages.clear();
+            queue.inFlightByHandle.clear();
+        }
+        return PurgeQueueResponse.builder().build();
+    }
+
+    @Override
+    public GetQueueAttributesResponse getQueueAttributes(GetQueueAttributesRequest request) {
+        enter("GetQueueAttributes", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        Map<String, String> all = new LinkedHashMap<>();
+        synchronized (queue) {
+            long now = clock.millis();
+            queue.expire(now);
+            long visible = queue.messages.stream().filter(message -> message.visibleAt <= now).count();
+            all.putAll(queue.attributes);
+            all.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES.toString(), String.valueOf(visible));
+            all.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE.toString(),
+                    String.valueOf(queue.messages.size() - visible));
+            all.put(QueueAttributeName.QUEUE_ARN.toString(), "arn:aws:sqs:emulator:000000000000:" + queue.name);
+        }
+
+        List<String> requested = request.attributeNamesAsStrings();
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : all.entrySet()) {
+            if (requested.contains("All") || requested.contains(entry.getKey())) {
+                attributes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return GetQueueAttributesResponse.builder().attributesWithStrings(attributes).build();
+    }
+
+    @Override
+    public SendMessageResponse sendMessage(SendMessageRequest request) {
+        enter("SendMessage", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        byte[] body = bodyBytes(request.messageBody());
+        if (body.length > MAX_MESSAGE_BYTES) {
+            throw error(SqsException.builder(), "InvalidParameterValue",
+                    "Message must be shorter than " + MAX_MESSAGE_BYTES + " bytes");
+        }
+
+        EmulatedMessage message = queue.add(request.messageBody(), body, request.delaySeconds(), clock.millis());
+        return SendMessageResponse.builder()
+                .messageId(message.messageId)
+                .md5OfMessageBody(message.md5OfBody)
+                .build();
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+        enter("SendMessageBatch", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        List<SendMessageBatchRequestEntry> entries = request.entries();
+        validateBatch(entries.stream().map(SendMessageBatchRequestEntry::id).toList());
+
+        long totalBytes = 0;
+        for (SendMessageBatchRequestEntry entry : entries) {
+            totalBytes += bodyBytes(entry.messageBody()).length;
+        }
+        if (totalBytes > MAX_MESSAGE_BYTES) {
+            throw error(BatchRequestTooLongException.builder(), "AWS.SimpleQueueService.BatchRequestTooLong",
+                    "Batch requests cannot be longer than " + MAX_MESSAGE_BYTES + " bytes");
+        }
+
+        List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+        List<BatchResultErrorEntry> failed = new ArrayList<>();
+        long now = clock.millis();
+        for (SendMessageBatchRequestEntry entry : entries) {
+            if (entry.messageBody() == null || entry.messageBody().isEmpty()) {
+                failed.add(BatchResultErrorEntry.builder()
+                        .id(entry.id()).code("InvalidParameterValue").senderFault(true)
+                        .message("Message body must not be empty").build());
+                continue;
+            }
+            EmulatedMessage message = queue.add(entry.messageBody(), bodyBytes(entry.messageBody()), entry.delaySeconds(), now);
+            successful.add(SendMessageBatchResultEntry.builder()
+                    .id(entry.id())
+                    .messageId(message.messageId)
+                    .md5OfMessageBody(message.md5OfBody)
+                    .build());
+        }
+        return SendMessageBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public ReceiveMessageResponse receiveMessage(ReceiveMessageRequest request) {
+        enter("ReceiveMessage", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        int maxMessages = request.maxNumberOfMessages() != null ? request.maxNumberOfMessages() : 1;
+        int waitSeconds = request.waitTimeSeconds() != null ? request.waitTimeSeconds()
+                : queue.intAttribute(QueueAttributeName.RECEIVE_MESSAGE_WAIT_TIME_SECONDS);
+        if (maxNumberOutOfRange(maxMessages) || waitSeconds < 0 || waitSeconds > MAX_WAIT_SECONDS) {
+            throw error(SqsException.builder(), "InvalidParameterValue",
+                    "MaxNumberOfMessages must be 1-10 and WaitTimeSeconds 0-" + MAX_WAIT_SECONDS);
+        }
+        int visibilityTimeout = request.visibilityTimeout() != null ? request.visibilityTimeout()
+                : queue.intAttribute(QueueAttributeName.VISIBILITY_TIMEOUT);
+
+        List<Message> received = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(waitSeconds);
+        synchronized (queue) {
+            while (true) {
+                if (queue.deleted) {
+                    throw queueDoesNotExist(queue.name);
+                }
+                long now = clock.millis();
+                queue.expire(now);
+                if (queue.inFlightByHandle.size() >= MAX_IN_FLIGHT) {
+                    throw error(OverLimitException.builder(), "OverLimit",
+                            "Too many in-flight messages (" + MAX_IN_FLIGHT + ")");
+                }
+
+                for (EmulatedMessage message : queue.messages) {
+                    if (received.size() == maxMessages) {
+                        break;
+                    }
+                    if (message.visibleAt > now) {
+                        continue;
+                    }
+                    if (message.receiptHandle != null) {
+                        queue.inFlightByHandle.remove(message.receiptHandle);
+                    }
+                    message.receiveCount++;
+                    if (message.firstReceivedAt == 0) {
+                        message.firstReceivedAt = now;
+                    }
+                    message.visibleAt = now + TimeUnit.SECONDS.toMillis(visibilityTimeout);
+                    message.receiptHandle = queue.name + ":" + receiptSequence.incrementAndGet();
+                    queue.inFlightByHandle.put(message.receiptHandle, message);
+                    received.add(message.toMessage(request.attributeNamesAsStrings()));
+                }
+
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (!received.isEmpty() || remainingMillis <= 0) {
+                    break;
+                }
+                try {
+                    // Wake up periodically as well: messages also become visible when the clock passes visibleAt
+                    queue.wait(Math.min(remainingMillis, LONG_POLL_RECHECK_MILLIS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return ReceiveMessageResponse.builder().messages(received).build();
+    }
+
+    @Override
+    public DeleteMessageResponse deleteMessage(DeleteMessageRequest request) {
+        enter("DeleteMessage", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        queue.delete(request.receiptHandle());
+        return DeleteMessageResponse.builder().build();
+    }
+
+    @Override
+    public DeleteMessageBatchResponse deleteMessageBatch(DeleteMessageBatchRequest request) {
+        enter("DeleteMessageBatch", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        validateBatch(request.entries().stream().map(DeleteMessageBatchRequestEntry::id).toList());
+
+        List<DeleteMessageBatchResultEntry> successful = new ArrayList<>();
+        List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (DeleteMessageBatchRequestEntry entry : request.entries()) {
+            try {
+                queue.delete(entry.receiptHandle());
+                successful.add(DeleteMessageBatchResultEntry.builder().id(entry.id()).build());
+            } catch (ReceiptHandleIsInvalidException e) {
+                failed.add(BatchResultErrorEntry.builder()
+                        .id(entry.id()).code("ReceiptHandleIsInvalid").senderFault(true)
+                        .message(e.awsErrorDetails().errorMessage()).build());
+            }
+        }
+        return DeleteMessageBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public ChangeMessageVisibilityResponse changeMessageVisibility(ChangeMessageVisibilityRequest request) {
+        enter("ChangeMessageVisibility", request);
+        EmulatedQueue queue = queue(request.queueUrl());
+        synchronized (queue) {
+            queue.validateHandle(request.receiptHandle());
+            EmulatedMessage message = queue.inFlightByHandle.get(request.receiptHandle());
+            long now = clock.millis();
+            if (message == null || message.visibleAt <= now) {
+                throw error(MessageNotInflightException.builder(), "AWS.SimpleQueueService.MessageNotInflight",
+                        "The message referred to is not in flight");
+            }
+            message.visibleAt = now + TimeUnit.SECONDS.toMillis(request.visibilityTimeout());
+            queue.notifyAll();
+        }
+        return ChangeMessageVisibilityResponse.builder().build();
+    }
+
+    /**
+     * Messages in a queue, visible or in flight; -1 if the queue does not exist.
+     */
+    public int getMessageCount(String queueName) {
+        EmulatedQueue queue = queues.get(queueName);
+        if (queue == null) {
+            return -1;
+        }
+        synchronized (queue) {
+            queue.expire(clock.millis());
+            return queue.messages.size();
+        }
+    }
+
+    @Override
+    protected RuntimeException throttlingException(String operation) {
+        return error(SqsException.builder(), "RequestThrottled", operation + " request rate exceeded");
+    }
+
+    private EmulatedQueue queue(String queueUrl) {
+        String name = queueUrl != null && queueUrl.startsWith(URL_PREFIX) ? queueUrl.substring(URL_PREFIX.length()) : queueUrl;
+        EmulatedQueue queue = queues.get(name);
+        if (queue == null) {
+            throw queueDoesNotExist(name);
+        }
+        return queue;
+    }
+
+    private static void validateBatch(List<String> ids) {
+        if (ids.isEmpty()) {
+            throw error(EmptyBatchRequestException.builder(), "AWS.SimpleQueueService.EmptyBatchRequest",
+                    "There should be at least one entry in the request");
+        }
+        if (ids.size() > MAX_BATCH_ENTRIES) {
+            throw error(TooManyEntriesInBatchRequestException.builder(), "AWS.SimpleQueueService.TooManyEntriesInBatchRequest",
+                    "Maximum number of entries per request are " + MAX_BATCH_ENTRIES + ". You have sent " + ids.size());
+        }
+        Set<String> distinct = new HashSet<>();
+        for (String id : ids) {
+            if (id == null || !BATCH_ENTRY_ID.matcher(id).matches()) {
+                throw error(InvalidBatchEntryIdException.builder(), "AWS.SimpleQueueService.InvalidBatchEntryId",
+                        "A batch entry id can only contain alphanumeric characters, hyphens and underscores");
+            }
+            if (!distinct.add(id)) {
+                throw error(BatchEntryIdsNotDistinctException.builder(), "AWS.SimpleQueueService.BatchEntryIdsNotDistinct",
+                        "Id " + id + " repeated");
+            }
+        }
+    }
+
+    private static boolean maxNumberOutOfRange(int maxMessages) {
+        return maxMessages < 1 || maxMessages > MAX_BATCH_ENTRIES;
+    }
+
+    private static byte[] bodyBytes(String body) {
+        return body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static QueueDoesNotExistException queueDoesNotExist(String name) {
+        return (QueueDoesNotExistException) error(QueueDoesNotExistException.builder(),
+                "AWS.SimpleQueueService.NonExistentQueue", "The specified queue " + name + " does not exist");
+    }
+
+    private static AwsServiceException error(AwsServiceException.Builder builder, String code, String message) {
+        return error(builder, "Sqs", code, message);
+    }
+
+    private static String md5Hex(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("MD5").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One queue; all state is guarded by the queue's monitor, which long-polling receivers wait on.
+     */
+    private final class EmulatedQueue {
+        private final String name;
+        private final String url;
+        private final Map<String, String> attributes;
+        private final List<EmulatedMessage> messages = new ArrayList<>();
+        private final Map<String, EmulatedMessage> inFlightByHandle = new HashMap<>();
+        private boolean deleted;
+
+        private EmulatedQueue(String name, Map<String, String> attributes) {
+            this.name = name;
+            this.url = URL_PREFIX + name;
+            this.attributes = Map.copyOf(attributes);
+        }
+
+        private int intAttribute(QueueAttributeName attribute) {
+            return Integer.parseInt(attributes.get(attribute.toString()));
+        }
+
+        private synchronized EmulatedMessage add(String body, byte[] bytes, Integer delaySeconds, long now) {
+            int delay = delaySeconds != null ? delaySeconds : intAttribute(QueueAttributeName.DELAY_SECONDS);
+            EmulatedMessage message = new EmulatedMessage(UUID.randomUUID().toString(), body, md5Hex(bytes), now,
+                    now + TimeUnit.SECONDS.toMillis(delay));
+            messages.add(message);
+            notifyAll();
+            return message;
+        }
+
+        private synchronized void delete(String receiptHandle) {
+            validateHandle(receiptHandle);
+            EmulatedMessage message = inFlightByHandle.remove(receiptHandle);
+            if (message != null) {
+                messages.remove(message);
+            }
+            // An outdated handle is accepted, but the message stays in the queue
+        }
+
+        private void validateHandle(String receiptHandle) {
+            if (receiptHandle == null || !receiptHandle.startsWith(name + ":")) {
+                throw error(ReceiptHandleIsInvalidException.builder(), "ReceiptHandleIsInvalid",
+                        "The input receipt handle \"" + receiptHandle + "\" is not a valid receipt handle");
+            }
+        }
+
+        private void expire(long now) {
+            long retentionMillis = TimeUnit.SECONDS.toMillis(intAttribute(QueueAttributeName.MESSAGE_RETENTION_PERIOD));
+            for (Iterator<EmulatedMessage> iterator = messages.iterator(); iterator.hasNext(); ) {
+                EmulatedMessage message = iterator.next();
+                if (message.sentAt + retentionMillis <= now) {
+                    iterator.remove();
+                    if (message.receiptHandle != null) {
+                        inFlightByHandle.remove(message.receiptHandle);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class EmulatedMessage {
+        private final String messageId;
+        private final String body;
+        private final String md5OfBody;
+        private final long sentAt;
+        private long visibleAt;
+        private int receiveCount;
+        private long firstReceivedAt;
+        private String receiptHandle;
+
+        private EmulatedMessage(String messageId, String body, String md5OfBody, long sentAt, long visibleAt) {
+            this.messageId = messageId;
+            this.body = body;
+            this.md5OfBody = md5OfBody;
+            this.sentAt = sentAt;
+            this.visibleAt = visibleAt;
+        }
+
+        private Message toMessage(List<String> requestedAttributes) {
+            Map<String, String> attributes = new LinkedHashMap<>();
+            boolean all = requestedAttributes.contains("All");
+            putIfRequested(attributes, requestedAttributes, all, MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, receiveCount);
+            putIfRequested(attributes, requestedAttributes, all, MessageSystemAttributeName.SENT_TIMESTAMP, sentAt);
+            putIfRequested(attributes, requestedAttributes, all,
+                    MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP, firstReceivedAt);
+            return Message.builder()
+                    .messageId(messageId)
+                    .receiptHandle(receiptHandle)
+                    .body(body)
+                    .md5OfBody(md5OfBody)
+                    .attributesWithStrings(attributes)
+                    .build();
+        }
+
+        private static void putIfRequested(Map<String, String> attributes, List<String> requested, boolean all,
+                                           MessageSystemAttributeName name, long value) {
+            if (all || requested.contains(name.toString())) {
+                attributes.put(name.toString(), String.valueOf(value));
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package edu.northeastern.hanafeng.chatsystem.common.interfaces;
+
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Producer side of the server-to-consumer message transport (SQS or the local append-only log),
+ * selected with websocketchat.backend.transport.
+ */
+public interface ChatMessagePublisher {
+
+    /**
+     * Largest batch accepted by {@link #publishBatch}.
+     */
+    int MAX_BATCH_SIZE = 10;
+
+    /**
+     * Publish a chat message to its room.
+     * The returned future completes when the publish finished (successfully or not), so callers can track in-flight publishes.
+     */
+    CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId);
+
+    /**
+     * Publish up to {@value #MAX_BATCH_SIZE} chat messages to a room on the calling thread.
+     *
+     * @return indexes of the messages the transport rejected; empty when all were accepted
+     * @throws Exception if the publish itself failed, in which case no message counts as accepted
+     */
+    List<Integer> publishBatch(String roomId, List<ChatMessage> chatMessages) throws Exception;
+}
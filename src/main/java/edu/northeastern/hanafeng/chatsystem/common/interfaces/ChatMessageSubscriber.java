@@ -0,0 +1,19 @@
+package edu.northeastern.hanafeng.chatsystem.common.interfaces;
+
+/**
+ * Consumer side of the server-to-consumer message transport: delivers every room's messages to one
+ * registered {@link SqsMessageHandler}, so the same handler runs over SQS or the local append-only log.
+ */
+public interface ChatMessageSubscriber {
+
+    /**
+     * Register the handler that processes received messages. Must be called before {@link #start()}.
+     *
+     * @return this for method chaining
+     */
+    ChatMessageSubscriber registerHandler(SqsMessageHandler handler);
+
+    void start();
+
+    void stop();
+}
@@ -0,0 +1,18 @@
+package edu.northeastern.hanafeng.chatsystem.common.interfaces;
+
+/**
+ * Where a server receives the broadcasts of the rooms its clients are in: consumer STOMP topics in the
+ * distributed deployment, or the in-process transport in embedded mode.
+ */
+public interface RoomBroadcastSource {
+
+    /**
+     * Start receiving broadcasts for a room; called when its first client joins.
+     */
+    void subscribe(String roomId);
+
+    /**
+     * Stop receiving broadcasts for a room; called when its last client leaves.
+     */
+    void unsubscribe(String roomId);
+}
@@ -3,13 +3,13 @@ package edu.northeastern.hanafeng.chatsystem.common.interfaces;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 
 /**
- * Interface for handling messages received from SQS.
+ * Interface for handling messages received from the message transport (SQS or the local log).
  * Implementations define how to process messages for specific use cases.
  */
 public interface SqsMessageHandler {
 
     /**
-     * Handle a deserialized message received from SQS for a specific room.
+     * Handle a deserialized message received for a specific room.
      *
      * @param roomId The room identifier
      * @param chatMessage The deserialized chat message
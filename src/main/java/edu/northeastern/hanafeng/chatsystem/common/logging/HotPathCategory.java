@@ -0,0 +1,40 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+/**
+ * Hot-path event categories. Each category is sampled and rate limited independently and is written
+ * to the logger {@code hotpath.<key>}.
+ */
+public enum HotPathCategory {
+
+    INBOUND("inbound"),
+    RESPONSE("response"),
+    BROADCAST("broadcast"),
+    SQS_SEND("sqs-send"),
+    SQS_RECEIVE("sqs-receive"),
+    SQS_PROCESS("sqs-process"),
+    SQS_DELETE("sqs-delete"),
+    STOMP_PUBLISH("stomp-publish"),
+    METRIC_PUBLISH("metric-publish");
+
+    private final String key;
+
+    HotPathCategory(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Name used in property keys, the actuator endpoint and the logger name.
+     */
+    public String key() {
+        return key;
+    }
+
+    public static HotPathCategory fromKey(String key) {
+        for (HotPathCategory category : values()) {
+            if (category.key.equals(key)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hot-path category: " + key);
+    }
+}
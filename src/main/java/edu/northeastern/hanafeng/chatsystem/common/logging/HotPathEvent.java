@@ -0,0 +1,83 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+/**
+ * A kept hot-path event: raw key/value references, formatted only on the appender thread.
+ */
+final class HotPathEvent {
+
+    final HotPathCategory category;
+    private final long timestampMillis;
+    private final String k1;
+    private final Object v1;
+    private final String k2;
+    private final Object v2;
+    private final String k3;
+    private final Object v3;
+    private final String k4;
+    private final Object v4;
+
+    HotPathEvent(HotPathCategory category, long timestampMillis, String k1, Object v1, String k2, Object v2,
+                 String k3, Object v3, String k4, Object v4) {
+        this.category = category;
+        this.timestampMillis = timestampMillis;
+        this.k1 = k1;
+        this.v1 = v1;
+        this.k2 = k2;
+        this.v2 = v2;
+        this.k3 = k3;
+        this.v3 = v3;
+        this.k4 = k4;
+        this.v4 = v4;
+    }
+
+    /**
+     * logfmt line: {@code event=<category> ts=<epoch ms> key=value ...}; values with spaces, quotes or
+     * '=' are quoted and escaped.
+     */
+    String format() {
+        StringBuilder line = new StringBuilder(64);
+        line.append("event=").append(category.key()).append(" ts=").append(timestampMillis);
+        append(line, k1, v1);
+        append(line, k2, v2);
+        append(line, k3, v3);
+        append(line, k4, v4);
+        return line.toString();
+    }
+
+    private static void append(StringBuilder line, String key, Object value) {
+        if (key == null) {
+            return;
+        }
+        line.append(' ').append(key).append('=');
+        String text = String.valueOf(value);
+        if (!needsQuoting(text)) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuoting(String text) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
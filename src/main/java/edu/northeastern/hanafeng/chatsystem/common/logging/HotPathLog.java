@@ -0,0 +1,47 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+/**
+ * Static entry point to the installed {@link HotPathLogger}, so per-message code can record events
+ * the same way it uses its SLF4J logger. Until {@link #install} is called every category is off and
+ * each call costs one volatile read.
+ *
+ * Arguments are evaluated before the category check, so guard calls with {@link #isEnabled} when a value
+ * has to be computed or boxed (small ints are cached and need no guard).
+ */
+public final class HotPathLog {
+
+    private static volatile HotPathLogger logger = new HotPathLogger(2);
+
+    private HotPathLog() {
+    }
+
+    public static void install(HotPathLogger hotPathLogger) {
+        logger = hotPathLogger;
+    }
+
+    public static HotPathLogger get() {
+        return logger;
+    }
+
+    public static boolean isEnabled(HotPathCategory category) {
+        return logger.isEnabled(category);
+    }
+
+    public static void event(HotPathCategory category, String k1, Object v1) {
+        logger.event(category, k1, v1);
+    }
+
+    public static void event(HotPathCategory category, String k1, Object v1, String k2, Object v2) {
+        logger.event(category, k1, v1, k2, v2);
+    }
+
+    public static void event(HotPathCategory category, String k1, Object v1, String k2, Object v2,
+                             String k3, Object v3) {
+        logger.event(category, k1, v1, k2, v2, k3, v3);
+    }
+
+    public static void event(HotPathCategory category, String k1, Object v1, String k2, Object v2,
+                             String k3, Object v3, String k4, Object v4) {
+        logger.event(category, k1, v1, k2, v2, k3, v3, k4, v4);
+    }
+}
@@ -0,0 +1,270 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Sampled, rate-limited, asynchronous structured events for per-message code paths.
+ *
+ * The calling thread only decides whether to keep an event (one volatile read when the category is off,
+ * a random draw and a per-second counter otherwise) and, if kept, stores the raw key/value references in
+ * a bounded multi-producer ring. A single appender thread formats kept events as logfmt
+ * ({@code event=broadcast room=3 sessions=12}) and writes them to the {@code hotpath.<category>} logger.
+ * When the ring is full the event is dropped and counted; the caller never blocks on logging.
+ *
+ * Values are formatted on the appender thread, so callers must only pass immutable values.
+ */
+@Slf4j
+public final class HotPathLogger {
+
+    private static final int SAMPLE_SCALE = 1 << 24;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private final CategoryState[] states;
+    private final AtomicReferenceArray<HotPathEvent> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final LongSupplier clockMillis;
+    private final BiConsumer<HotPathCategory, String> writer;
+
+    private volatile Thread appender;
+    private volatile boolean running;
+
+    public HotPathLogger(int bufferSize) {
+        this(bufferSize, System::currentTimeMillis, HotPathLogger::writeToSlf4j);
+    }
+
+    HotPathLogger(int bufferSize, LongSupplier clockMillis, BiConsumer<HotPathCategory, String> writer) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.clockMillis = clockMillis;
+        this.writer = writer;
+        this.states = new CategoryState[HotPathCategory.values().length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new CategoryState();
+        }
+    }
+
+    /**
+     * Set a category's sampling rate (0 = off, 1 = every event) and its cap on kept events per second
+     * (0 = no cap). Takes effect immediately.
+     */
+    public void configure(HotPathCategory category, double sampleRate, int maxPerSecond) {
+        if (sampleRate < 0 || sampleRate > 1 || maxPerSecond < 0) {
+            throw new IllegalArgumentException("sampleRate must be 0-1 and maxPerSecond >= 0");
+        }
+        CategoryState state = states[category.ordinal()];
+        state.maxPerSecond = maxPerSecond;
+        state.threshold = sampleRate == 0 ? 0 : Math.max(1, (int) Math.round(sampleRate * SAMPLE_SCALE));
+    }
+
+    public boolean isEnabled(HotPathCategory category) {
+        return states[category.ordinal()].threshold != 0;
+    }
+
+    public void event(HotPathCategory category, String k1, Object v1) {
+        if (states[category.ordinal()].threshold != 0) {
+            offer(category, k1, v1, null, null, null, null, null, null);
+        }
+    }
+
+    public void event(HotPathCategory category, String k1, Object v1, String k2, Object v2) {
+        if (states[category.ordinal()].threshold != 0) {
+            offer(category, k1, v1, k2, v2, null, null, null, null);
+        }
+    }
+
+    public void event(HotPathCategory category, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+        if (states[category.ordinal()].threshold != 0) {
+            offer(category, k1, v1, k2, v2, k3, v3, null, null);
+        }
+    }
+
+    public void event(HotPathCategory category, String k1, Object v1, String k2, Object v2,
+                      String k3, Object v3, String k4, Object v4) {
+        if (states[category.ordinal()].threshold != 0) {
+            offer(category, k1, v1, k2, v2, k3, v3, k4, v4);
+        }
+    }
+
+    /**
+     * Start the appender thread that formats and writes kept events.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::appendLoop, "hot-path-appender");
+        thread.setDaemon(true);
+        appender = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the appender after writing the events already in the ring.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = appender;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Format and write up to max kept events; only called from one thread at a time.
+     *
+     * @return the number of events written
+     */
+    int drain(int max) {
+        int written = 0;
+        long position = head.get();
+        while (written < max) {
+            int index = (int) (position & mask);
+            HotPathEvent event = ring.get(index);
+            if (event == null) {
+                // Empty, or claimed by a producer that has not stored its event yet
+                break;
+            }
+            ring.lazySet(index, null);
+            position++;
+            head.set(position);
+            try {
+                writer.accept(event.category, event.format());
+            } catch (Exception e) {
+                log.warn("Failed to write hot-path event: {}", e.getMessage());
+            }
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Current settings and counters per category, for the actuator endpoint.
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> categories = new LinkedHashMap<>();
+        for (HotPathCategory category : HotPathCategory.values()) {
+            CategoryState state = states[category.ordinal()];
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sampleRate", (double) state.threshold / SAMPLE_SCALE);
+            entry.put("maxPerSecond", state.maxPerSecond);
+            entry.put("kept", state.kept.sum());
+            entry.put("sampledOut", state.sampledOut.sum());
+            entry.put("rateLimited", state.rateLimited.sum());
+            entry.put("dropped", state.dropped.sum());
+            categories.put(category.key(), entry);
+        }
+
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("bufferSize", ring.length());
+        description.put("buffered", tail.get() - head.get());
+        description.put("categories", categories);
+        return description;
+    }
+
+    private void offer(HotPathCategory category, String k1, Object v1, String k2, Object v2,
+                       String k3, Object v3, String k4, Object v4) {
+        CategoryState state = states[category.ordinal()];
+        int threshold = state.threshold;
+        if (threshold < SAMPLE_SCALE && ThreadLocalRandom.current().nextInt(SAMPLE_SCALE) >= threshold) {
+            state.sampledOut.increment();
+            return;
+        }
+
+        long now = clockMillis.getAsLong();
+        if (!state.tryAcquire(now)) {
+            state.rateLimited.increment();
+            return;
+        }
+
+        long position;
+        do {
+            position = tail.get();
+            if (position - head.get() >= ring.length()) {
+                state.dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+
+        ring.lazySet((int) (position & mask), new HotPathEvent(category, now, k1, v1, k2, v2, k3, v3, k4, v4));
+        state.kept.increment();
+    }
+
+    private void appendLoop() {
+        while (running) {
+            if (drain(256) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private static void writeToSlf4j(HotPathCategory category, String line) {
+        LoggerHolder.LOGGERS[category.ordinal()].info(line);
+    }
+
+    private static final class LoggerHolder {
+        private static final Logger[] LOGGERS = new Logger[HotPathCategory.values().length];
+
+        static {
+            for (HotPathCategory category : HotPathCategory.values()) {
+                LOGGERS[category.ordinal()] = LoggerFactory.getLogger("hotpath." + category.key());
+            }
+        }
+    }
+
+    /**
+     * Sampling threshold, per-second cap and counters of one category.
+     */
+    private static final class CategoryState {
+        private volatile int threshold;
+        private volatile int maxPerSecond;
+
+        // Current second in the high 32 bits, events kept in that second in the low 32 bits
+        private final AtomicLong window = new AtomicLong();
+
+        private final LongAdder kept = new LongAdder();
+        private final LongAdder sampledOut = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private boolean tryAcquire(long nowMillis) {
+            int max = maxPerSecond;
+            if (max == 0) {
+                return true;
+            }
+            long second = nowMillis / 1000;
+            while (true) {
+                long current = window.get();
+                long count = (current >>> 32) == second ? current & 0xFFFFFFFFL : 0;
+                if (count >= max) {
+                    return false;
+                }
+                if (window.compareAndSet(current, (second << 32) | (count + 1))) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /hotpathlogging} on the management port) to inspect hot-path logging
+ * counters and change a category's sampling at runtime, e.g.
+ * {@code POST /hotpathlogging/broadcast {"sampleRate":0.1,"maxPerSecond":50}}.
+ */
+@Component
+@Endpoint(id = "hotpathlogging")
+@RequiredArgsConstructor
+public class HotPathLoggingEndpoint {
+
+    private final HotPathLogger hotPathLogger;
+
+    @ReadOperation
+    public Map<String, Object> describe() {
+        return hotPathLogger.describe();
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Selector String category, double sampleRate, int maxPerSecond) {
+        hotPathLogger.configure(HotPathCategory.fromKey(category), sampleRate, maxPerSecond);
+        return hotPathLogger.describe();
+    }
+}
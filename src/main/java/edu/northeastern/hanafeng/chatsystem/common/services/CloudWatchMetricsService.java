@@ -1,5 +1,7 @@
 package edu.northeastern.hanafeng.chatsystem.common.services;
 
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
 import edu.northeastern.hanafeng.chatsystem.common.utils.EnvironmentUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,8 +50,9 @@ public class CloudWatchMetricsService {
                     .build();
 
             cloudWatchClient.putMetricData(request);
-            log.info("Published CloudWatch metric: {} = {} to namespace: {} with hostname: {}",
-                     metricName, value, namespace, environmentUtils.getHostname());
+            if (HotPathLog.isEnabled(HotPathCategory.METRIC_PUBLISH)) {
+                HotPathLog.event(HotPathCategory.METRIC_PUBLISH, "metric", metricName, "value", value, "namespace", namespace);
+            }
         } catch (Exception e) {
             log.error("Failed to publish CloudWatch metric: {} to namespace: {}", metricName, namespace, e);
         }
@@ -1,22 +1,34 @@
 package edu.northeastern.hanafeng.chatsystem.common.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import edu.northeastern.hanafeng.chatsystem.model.DLQMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class SqsMessageService {
+@ConditionalOnProperty(name = "websocketchat.backend.transport", havingValue = "sqs", matchIfMissing = true)
+public class SqsMessageService implements ChatMessagePublisher {
 
     private final SqsClient sqsClient;
     private final ObjectMapper objectMapper;
@@ -26,16 +38,51 @@ public class SqsMessageService {
     @Value("${websocketchat.backend.sqs.dlq-name}")
     private String dlqName;
 
+    /**
+     * Send a chat message to its room queue.
+     */
     @Async
-    public void sendChatMessageToQueue(ChatMessage chatMessage, String roomId) {
+    @Override
+    public CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId) {
         try {
             String queueUrl = getOrCreateChatRoomQueueUrl(roomId);
             String messageBody = objectMapper.writeValueAsString(chatMessage);
             sendMessage(queueUrl, messageBody);
-            log.info("Sent message to SQS queue for room: {}", roomId);
+            HotPathLog.event(HotPathCategory.SQS_SEND, "room", roomId, "messageId", chatMessage.getMessageId());
         } catch (Exception e) {
             log.error("Failed to send message to SQS queue for room: {}", roomId, e);
         }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Send chat messages to a room queue in one SendMessageBatch request.
+     */
+    @Override
+    public List<Integer> publishBatch(String roomId, List<ChatMessage> chatMessages) throws Exception {
+        if (chatMessages.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " messages per batch");
+        }
+
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(chatMessages.size());
+        for (int i = 0; i < chatMessages.size(); i++) {
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .messageBody(objectMapper.writeValueAsString(chatMessages.get(i)))
+                    .build());
+        }
+
+        SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                .queueUrl(getOrCreateChatRoomQueueUrl(roomId))
+                .entries(entries)
+                .build());
+
+        List<Integer> failed = new ArrayList<>(response.failed().size());
+        for (BatchResultErrorEntry error : response.failed()) {
+            log.warn("Room {}: SQS rejected batch entry {}: {} {}", roomId, error.id(), error.code(), error.message());
+            failed.add(Integer.parseInt(error.id()));
+        }
+        return failed;
     }
 
     @Async
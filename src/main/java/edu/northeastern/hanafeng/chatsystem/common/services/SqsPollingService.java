@@ -1,12 +1,16 @@
 package edu.northeastern.hanafeng.chatsystem.common.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessageSubscriber;
 import edu.northeastern.hanafeng.chatsystem.common.interfaces.SqsMessageHandler;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
@@ -19,7 +23,8 @@ import java.util.concurrent.TimeUnit;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class SqsPollingService {
+@ConditionalOnProperty(name = "websocketchat.backend.transport", havingValue = "sqs", matchIfMissing = true)
+public class SqsPollingService implements ChatMessageSubscriber {
 
     private final SqsClient sqsClient;
     private final SqsQueueMetadataService sqsQueueMetadataService;
@@ -51,6 +56,7 @@ public class SqsPollingService {
      * @param handler The message handler implementation
      * @return this for method chaining
      */
+    @Override
     public SqsPollingService registerHandler(SqsMessageHandler handler) {
         if (running) {
             throw new IllegalStateException("Cannot register handler while polling service is running");
@@ -61,6 +67,7 @@ public class SqsPollingService {
         return this;
     }
 
+    @Override
     public void start() {
         if (messageHandler == null) {
             throw new IllegalStateException("No message handler registered. Call registerHandler() before start()");
@@ -87,6 +94,7 @@ public class SqsPollingService {
     }
 
     @PreDestroy
+    @Override
     public void stop() {
         log.info("Stopping SQS Polling Service");
         running = false;
@@ -129,7 +137,7 @@ public class SqsPollingService {
                 if (messages.isEmpty()) {
                     log.trace("Room {}: No messages received from queue: {}", roomId, queueName);
                 } else {
-                    log.info("Room {}: Received {} messages from queue: {}", roomId, messages.size(), queueName);
+                    HotPathLog.event(HotPathCategory.SQS_RECEIVE, "room", roomId, "queue", queueName, "messages", messages.size());
                     for (Message message : messages) {
                         processMessageWithRetry(roomId, queueUrl, queueName, message);
                     }
@@ -170,14 +178,13 @@ public class SqsPollingService {
         while (attempt < maxRetries) {
             try {
                 attempt++;
-                log.info("Room {}: Processing message (attempt {}/{})", roomId, attempt, maxRetries);
+                HotPathLog.event(HotPathCategory.SQS_PROCESS, "room", roomId, "attempt", attempt, "maxRetries", maxRetries);
 
                 // Delegate to message handler with deserialized ChatMessage
                 messageHandler.handleMessage(roomId, chatMessage);
 
                 // Delete message after successful handling
                 deleteMessage(roomId, message.receiptHandle());
-                log.info("Room {}: Successfully processed and deleted message", roomId);
                 return;
 
             } catch (Exception e) {
@@ -231,7 +238,7 @@ public class SqsPollingService {
                     .build();
 
             sqsClient.deleteMessage(deleteRequest);
-            log.info("Deleted message from queue for room: {}", roomId);
+            HotPathLog.event(HotPathCategory.SQS_DELETE, "room", roomId);
 
         } catch (Exception e) {
             log.error("Failed to delete message from queue for room: {}", roomId, e);
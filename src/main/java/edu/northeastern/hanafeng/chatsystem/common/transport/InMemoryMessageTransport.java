@@ -0,0 +1,195 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessageSubscriber;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.SqsMessageHandler;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process transport for the embedded single-node mode: published messages go to a bounded, per-room
+ * FIFO queue drained by one delivery thread per room into the registered {@link SqsMessageHandler}, so a
+ * room's messages are handled in publish order without serialization or a network hop.
+ * Messages still queued when the process stops are lost.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "websocketchat.backend.transport", havingValue = "in-memory")
+public class InMemoryMessageTransport implements ChatMessagePublisher, ChatMessageSubscriber {
+
+    private final int queueCapacity;
+    private final int maxRetries;
+
+    private final Map<String, RoomQueue> rooms = new ConcurrentHashMap<>();
+    private SqsMessageHandler messageHandler;
+    private volatile boolean running = false;
+
+    public InMemoryMessageTransport(
+            @Value("${websocketchat.backend.in-memory.queue-capacity:10000}") int queueCapacity,
+            @Value("${websocketchat.backend.in-memory.max-retries:3}") int maxRetries) {
+        this.queueCapacity = queueCapacity;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId) {
+        if (!roomQueue(roomId).queue.offer(chatMessage)) {
+            log.error("In-memory queue for room {} is full, dropping message {}", roomId, chatMessage.getMessageId());
+        } else {
+            HotPathLog.event(HotPathCategory.SQS_SEND, "room", roomId, "messageId", chatMessage.getMessageId());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<Integer> publishBatch(String roomId, List<ChatMessage> chatMessages) {
+        BlockingQueue<ChatMessage> queue = roomQueue(roomId).queue;
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < chatMessages.size(); i++) {
+            if (!queue.offer(chatMessages.get(i))) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public InMemoryMessageTransport registerHandler(SqsMessageHandler handler) {
+        if (running) {
+            throw new IllegalStateException("Cannot register handler while the in-memory transport is running");
+        }
+
+        this.messageHandler = handler;
+        log.info("Registered message handler: {}", handler.getClass().getSimpleName());
+        return this;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (messageHandler == null) {
+            throw new IllegalStateException("No message handler registered. Call registerHandler() before start()");
+        }
+        if (running) {
+            log.warn("In-memory transport is already running");
+            return;
+        }
+
+        running = true;
+        // Rooms published to before start() only get their delivery thread now
+        rooms.values().forEach(RoomQueue::start);
+        log.info("In-memory transport started (queue capacity {} per room)", queueCapacity);
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (RoomQueue room : rooms.values()) {
+            room.stop();
+        }
+        log.info("In-memory transport stopped");
+    }
+
+    /**
+     * Messages waiting for delivery in a room.
+     */
+    public int getQueueDepth(String roomId) {
+        RoomQueue room = rooms.get(roomId);
+        return room != null ? room.queue.size() : 0;
+    }
+
+    private RoomQueue roomQueue(String roomId) {
+        RoomQueue room = rooms.get(roomId);
+        if (room != null) {
+            return room;
+        }
+        synchronized (this) {
+            return rooms.computeIfAbsent(roomId, id -> {
+                RoomQueue created = new RoomQueue(id);
+                if (running) {
+                    created.start();
+                }
+                return created;
+            });
+        }
+    }
+
+    private void deliver(String roomId, ChatMessage chatMessage) {
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            try {
+                HotPathLog.event(HotPathCategory.SQS_PROCESS, "room", roomId, "attempt", attempt, "maxRetries", maxRetries);
+                messageHandler.handleMessage(roomId, chatMessage);
+                return;
+            } catch (Exception e) {
+                log.warn("Room {}: Failed to deliver message (attempt {}/{}): {}",
+                        roomId, attempt, maxRetries, e.getMessage());
+            }
+        }
+        log.error("Room {}: All {} delivery attempts failed for message {}, dropping",
+                roomId, maxRetries, chatMessage.getMessageId());
+    }
+
+    /**
+     * One room's queue and the thread that delivers it in order.
+     */
+    private final class RoomQueue {
+        private final String roomId;
+        private final BlockingQueue<ChatMessage> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private Thread thread;
+
+        private RoomQueue(String roomId) {
+            this.roomId = roomId;
+        }
+
+        private void start() {
+            thread = new Thread(this::deliverLoop, "in-memory-room-" + roomId);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void stop() {
+            if (thread == null) {
+                return;
+            }
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void deliverLoop() {
+            while (running) {
+                ChatMessage chatMessage;
+                try {
+                    chatMessage = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                deliver(roomId, chatMessage);
+            }
+            if (!queue.isEmpty()) {
+                log.warn("Room {}: {} queued messages not delivered at shutdown", roomId, queue.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Writer side of a segmented, memory-mapped, append-only log for one room, shared with readers in other
+ * processes through the files in its directory.
+ *
+ * Each segment is a preallocated file {@code <base offset>.log} holding records
+ * {@code length(int32) crc32(int32) offset(int64) payload}, padded to 8 bytes. The length is stored last
+ * with release semantics, so a reader that sees a positive length sees the whole record; 0 marks the
+ * unwritten tail and {@link #ROLLED} tells readers to continue in the segment named after the next offset.
+ * Next to each segment a sparse {@code <base offset>.index} maps {@code relative offset -> position} every
+ * {@code indexIntervalBytes}, so readers can start at an offset without scanning the whole segment.
+ *
+ * Only one writer may hold a log directory; a file lock enforces this across processes. On open the
+ * writer scans the last segment from its last index entry and zeroes anything after the last intact
+ * record. Segments are created under a temporary name and renamed once fully allocated, and the oldest
+ * segments are deleted when the log exceeds {@code retentionBytes}.
+ */
+@Slf4j
+public final class LocalLog implements Closeable {
+
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".index";
+    static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+    static final int INDEX_ENTRY_BYTES = 2 * Integer.BYTES;
+    static final int ROLLED = -1;
+
+    static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final String LOCK_FILE = "writer.lock";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private final long retentionBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private MappedByteBuffer segment;
+    private MappedByteBuffer index;
+    private long baseOffset;
+    private int position;
+    private int indexEntries;
+    private int lastIndexedPosition;
+    private long nextOffset;
+
+    private LocalLog(Path directory, int segmentBytes, int indexIntervalBytes, long retentionBytes,
+                     FileChannel lockChannel, FileLock lock) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.retentionBytes = retentionBytes;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Open the log in directory for appending, recovering the last segment after a crash.
+     *
+     * @throws IOException if the files cannot be opened or another writer holds the log
+     */
+    public static LocalLog open(Path directory, int segmentBytes, int indexIntervalBytes, long retentionBytes)
+            throws IOException {
+        if (segmentBytes % Long.BYTES != 0 || segmentBytes < HEADER_BYTES * 2) {
+            throw new IllegalArgumentException("segmentBytes must be a multiple of 8 and at least " + HEADER_BYTES * 2);
+        }
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Log " + directory + " is already open by another writer");
+        }
+
+        LocalLog localLog = new LocalLog(directory, segmentBytes, indexIntervalBytes, retentionBytes, lockChannel, lock);
+        try {
+            localLog.recover();
+        } catch (IOException | RuntimeException e) {
+            localLog.close();
+            throw e;
+        }
+        return localLog;
+    }
+
+    /**
+     * Append one record and make it visible to readers.
+     *
+     * @return the offset assigned to the record
+     * @throws IOException if a new segment could not be created
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        int recordBytes = recordBytes(payload.length);
+        if (recordBytes > segmentBytes) {
+            throw new IOException("Record of " + recordBytes + " bytes exceeds the log segment size");
+        }
+        if (position + recordBytes > segmentBytes) {
+            roll();
+        }
+
+        long offset = nextOffset;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segment.put(position + HEADER_BYTES, payload);
+        segment.putLong(position + 2 * Integer.BYTES, offset);
+        segment.putInt(position + Integer.BYTES, (int) crc.getValue());
+        INT_VIEW.setRelease(segment, position, payload.length);
+
+        if (position - lastIndexedPosition >= indexIntervalBytes && position > 0) {
+            appendIndexEntry((int) (offset - baseOffset), position);
+        }
+        position += recordBytes;
+        nextOffset = offset + 1;
+        return offset;
+    }
+
+    /**
+     * Force the current segment to disk; records survive a process crash without this, an OS crash only with it.
+     */
+    public synchronized void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    public synchronized long nextOffset() {
+        return nextOffset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        segment = null;
+        index = null;
+        if (lock.isValid()) {
+            lock.release();
+        }
+        lockChannel.close();
+    }
+
+    /**
+     * Padded size of a record with the given payload length.
+     */
+    static int recordBytes(int payloadLength) {
+        return (HEADER_BYTES + payloadLength + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    static Path segmentFile(Path directory, long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, LOG_SUFFIX));
+    }
+
+    static Path indexFile(Path directory, long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, INDEX_SUFFIX));
+    }
+
+    /**
+     * Base offsets of the complete segment files in directory, oldest first.
+     */
+    static List<Long> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static int indexCapacity(int segmentBytes, int indexIntervalBytes) {
+        return segmentBytes / Math.max(indexIntervalBytes, HEADER_BYTES) + 1;
+    }
+
+    /**
+     * Position of the last index entry at or before offset, 0 if there is none.
+     */
+    static int lookup(MappedByteBuffer index, long baseOffset, long offset) {
+        int found = 0;
+        int entries = index.capacity() / INDEX_ENTRY_BYTES;
+        for (int low = 0, high = entries - 1; low <= high; ) {
+            int middle = (low + high) >>> 1;
+            int entry = middle * INDEX_ENTRY_BYTES;
+            int entryPosition = (int) INT_VIEW.getAcquire(index, entry + Integer.BYTES);
+            if (entryPosition == 0 || baseOffset + index.getInt(entry) > offset) {
+                high = middle - 1;
+            } else {
+                found = entryPosition;
+                low = middle + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Whether a valid record for expectedOffset starts at position.
+     */
+    static boolean isIntact(MappedByteBuffer segment, int position, long expectedOffset) {
+        if (position + HEADER_BYTES > segment.capacity()) {
+            return false;
+        }
+        int length = (int) INT_VIEW.getAcquire(segment, position);
+        if (length <= 0 || position + HEADER_BYTES + length > segment.capacity()
+                || segment.getLong(position + 2 * Integer.BYTES) != expectedOffset) {
+            return false;
+        }
+        byte[] payload = new byte[length];
+        segment.get(position + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == segment.getInt(position + Integer.BYTES);
+    }
+
+    static MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(mode, 0, channel.size());
+        }
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(TEMP_SUFFIX)).toList()) {
+                Files.delete(file);
+            }
+        }
+
+        List<Long> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            createSegment(0);
+            return;
+        }
+
+        baseOffset = segments.get(segments.size() - 1);
+        segment = map(segmentFile(directory, baseOffset), FileChannel.MapMode.READ_WRITE);
+        index = map(indexFile(directory, baseOffset), FileChannel.MapMode.READ_WRITE);
+
+        // Start from the last index entry that still points at an intact record
+        int entries = index.capacity() / INDEX_ENTRY_BYTES;
+        indexEntries = 0;
+        while (indexEntries < entries && index.getInt(indexEntries * INDEX_ENTRY_BYTES + Integer.BYTES) != 0) {
+            indexEntries++;
+        }
+        int scanPosition = 0;
+        long scanOffset = baseOffset;
+        while (indexEntries > 0) {
+            int entry = (indexEntries - 1) * INDEX_ENTRY_BYTES;
+            int entryPosition = index.getInt(entry + Integer.BYTES);
+            long entryOffset = baseOffset + index.getInt(entry);
+            if (isIntact(segment, entryPosition, entryOffset)) {
+                scanPosition = entryPosition;
+                scanOffset = entryOffset;
+                break;
+            }
+            clearIndexEntry(--indexEntries);
+        }
+        lastIndexedPosition = scanPosition;
+
+        while (isIntact(segment, scanPosition, scanOffset)) {
+            scanPosition += recordBytes(segment.getInt(scanPosition));
+            scanOffset++;
+        }
+
+        if (scanPosition + Integer.BYTES <= segment.capacity() && segment.getInt(scanPosition) != 0) {
+            log.warn("Discarding torn record at offset {} in log {}", scanOffset, directory);
+            byte[] zeros = new byte[8192];
+            for (int at = scanPosition; at < segment.capacity(); at += zeros.length) {
+                segment.put(at, zeros, 0, Math.min(zeros.length, segment.capacity() - at));
+            }
+            segment.force();
+        }
+        position = scanPosition;
+        nextOffset = scanOffset;
+        log.info("Opened log {} at offset {} ({} segments)", directory, nextOffset, segments.size());
+    }
+
+    private void roll() throws IOException {
+        MappedByteBuffer previous = segment;
+        int previousPosition = position;
+        createSegment(nextOffset);
+        if (previousPosition + Integer.BYTES <= previous.capacity()) {
+            INT_VIEW.setRelease(previous, previousPosition, ROLLED);
+        }
+        previous.force();
+        enforceRetention();
+    }
+
+    /**
+     * Allocate a segment and its index under temporary names, then publish them by renaming.
+     */
+    private void createSegment(long base) throws IOException {
+        Path indexFile = indexFile(directory, base);
+        Path segmentFile = segmentFile(directory, base);
+        allocate(indexFile, (long) indexCapacity(segmentBytes, indexIntervalBytes) * INDEX_ENTRY_BYTES);
+        allocate(segmentFile, segmentBytes);
+
+        baseOffset = base;
+        segment = map(segmentFile, FileChannel.MapMode.READ_WRITE);
+        index = map(indexFile, FileChannel.MapMode.READ_WRITE);
+        position = 0;
+        indexEntries = 0;
+        lastIndexedPosition = 0;
+        nextOffset = base;
+    }
+
+    private void allocate(Path file, long size) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(temp.toFile(), "rw")) {
+            raf.setLength(size);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void appendIndexEntry(int relativeOffset, int recordPosition) {
+        if (indexEntries * INDEX_ENTRY_BYTES + INDEX_ENTRY_BYTES > index.capacity()) {
+            return;
+        }
+        int entry = indexEntries * INDEX_ENTRY_BYTES;
+        index.putInt(entry, relativeOffset);
+        INT_VIEW.setRelease(index, entry + Integer.BYTES, recordPosition);
+        indexEntries++;
+        lastIndexedPosition = recordPosition;
+    }
+
+    private void clearIndexEntry(int entryNumber) {
+        int entry = entryNumber * INDEX_ENTRY_BYTES;
+        index.putInt(entry + Integer.BYTES, 0);
+        index.putInt(entry, 0);
+    }
+
+    /**
+     * Delete the oldest segments while the log holds more than retentionBytes; readers behind them skip ahead.
+     */
+    private void enforceRetention() throws IOException {
+        List<Long> segments = new ArrayList<>(listSegments(directory));
+        long total = (long) segments.size() * segmentBytes;
+        while (total > retentionBytes && segments.size() > 1) {
+            long oldest = segments.remove(0);
+            Files.deleteIfExists(segmentFile(directory, oldest));
+            Files.deleteIfExists(indexFile(directory, oldest));
+            total -= segmentBytes;
+            log.info("Deleted log segment {} of {} (retention {} bytes)", oldest, directory, retentionBytes);
+        }
+    }
+}
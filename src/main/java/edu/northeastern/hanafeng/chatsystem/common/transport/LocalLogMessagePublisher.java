@@ -0,0 +1,172 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes chat messages to one {@link LocalLog} per room under websocketchat.backend.local-log.directory,
+ * for servers and consumers that share a host or a file system. Appends complete on the calling thread in
+ * well under a microsecond, so publish needs no async executor.
+ *
+ * Each room log has a single writer, so only one server instance may publish to a directory. The publisher
+ * locks the whole directory at startup and fails fast if another instance holds it, rather than letting
+ * every room's first append fail later.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "websocketchat.backend.transport", havingValue = "local-log")
+public class LocalLogMessagePublisher implements ChatMessagePublisher {
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private final long retentionBytes;
+
+    static final String PUBLISHER_LOCK_FILE = "publisher.lock";
+
+    private final Map<String, LocalLog> logs = new ConcurrentHashMap<>();
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    public LocalLogMessagePublisher(
+            ObjectMapper objectMapper,
+            @Value("${websocketchat.backend.local-log.directory:${java.io.tmpdir}/chat-log}") Path directory,
+            @Value("${websocketchat.backend.local-log.segment-bytes:67108864}") int segmentBytes,
+            @Value("${websocketchat.backend.local-log.index-interval-bytes:4096}") int indexIntervalBytes,
+            @Value("${websocketchat.backend.local-log.retention-bytes:1073741824}") long retentionBytes) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.retentionBytes = retentionBytes;
+    }
+
+    /**
+     * Take the directory for this instance.
+     *
+     * @throws IllegalStateException if another server instance already publishes to the directory
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(PUBLISHER_LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Local log directory " + directory + " is already used by another "
+                    + "server instance; the local-log transport supports one server per directory "
+                    + "(give each server its own websocketchat.backend.local-log.directory or use sqs)");
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(ChatMessage chatMessage, String roomId) {
+        try {
+            long offset = getLog(roomId).append(objectMapper.writeValueAsBytes(chatMessage));
+            HotPathLog.event(HotPathCategory.SQS_SEND, "room", roomId, "messageId", chatMessage.getMessageId(),
+                    "offset", offset);
+        } catch (Exception e) {
+            log.error("Failed to append message to local log for room: {}", roomId, e);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<Integer> publishBatch(String roomId, List<ChatMessage> chatMessages) throws Exception {
+        LocalLog roomLog = getLog(roomId);
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < chatMessages.size(); i++) {
+            try {
+                roomLog.append(objectMapper.writeValueAsBytes(chatMessages.get(i)));
+            } catch (IOException e) {
+                log.warn("Room {}: local log rejected batch entry {}: {}", roomId, i, e.getMessage());
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Force appended records to disk; they already survive a server crash, this covers an OS crash.
+     */
+    @Scheduled(fixedRateString = "${websocketchat.backend.local-log.flush-interval-ms:100}")
+    public void flush() {
+        for (Map.Entry<String, LocalLog> entry : logs.entrySet()) {
+            try {
+                entry.getValue().force();
+            } catch (Exception e) {
+                log.error("Failed to flush local log for room {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Map.Entry<String, LocalLog> entry : logs.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (IOException e) {
+                log.error("Failed to close local log for room {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        logs.clear();
+        try {
+            if (lock != null && lock.isValid()) {
+                lock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            log.error("Failed to release local log directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private LocalLog getLog(String roomId) throws IOException {
+        try {
+            return logs.computeIfAbsent(roomId, room -> {
+                try {
+                    return LocalLog.open(roomDirectory(directory, room), segmentBytes, indexIntervalBytes, retentionBytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static Path roomDirectory(Path directory, String roomId) {
+        return directory.resolve("room-" + roomId);
+    }
+}
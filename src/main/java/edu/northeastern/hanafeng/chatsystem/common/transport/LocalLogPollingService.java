@@ -0,0 +1,182 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessageSubscriber;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.SqsMessageHandler;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumes the per-room {@link LocalLog}s written by {@link LocalLogMessagePublisher}, one thread per room,
+ * and commits each room's consumer-group checkpoint after its messages were handled.
+ * A message that still fails after max-retries attempts is logged and skipped; there is no DLQ.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "websocketchat.backend.transport", havingValue = "local-log")
+public class LocalLogPollingService implements ChatMessageSubscriber {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${websocketchat.backend.max-rooms}")
+    private int maxRooms;
+
+    @Value("${websocketchat.backend.local-log.directory:${java.io.tmpdir}/chat-log}")
+    private Path directory;
+
+    @Value("${websocketchat.backend.local-log.consumer-group:broadcast}")
+    private String consumerGroup;
+
+    @Value("${websocketchat.backend.local-log.poll-interval-micros:200}")
+    private long pollIntervalMicros;
+
+    @Value("${websocketchat.backend.local-log.max-messages-per-poll:100}")
+    private int maxMessagesPerPoll;
+
+    @Value("${websocketchat.backend.local-log.max-retries:3}")
+    private int maxRetries;
+
+    private SqsMessageHandler messageHandler;
+    private ExecutorService executorService;
+    private volatile boolean running = false;
+
+    @Override
+    public LocalLogPollingService registerHandler(SqsMessageHandler handler) {
+        if (running) {
+            throw new IllegalStateException("Cannot register handler while polling service is running");
+        }
+
+        this.messageHandler = handler;
+        log.info("Registered message handler: {}", handler.getClass().getSimpleName());
+        return this;
+    }
+
+    @Override
+    public void start() {
+        if (messageHandler == null) {
+            throw new IllegalStateException("No message handler registered. Call registerHandler() before start()");
+        }
+
+        if (running) {
+            log.warn("Local log polling service is already running");
+            return;
+        }
+
+        log.info("Starting local log polling service on {} (group {}, {} rooms)", directory, consumerGroup, maxRooms);
+
+        executorService = Executors.newFixedThreadPool(maxRooms);
+        running = true;
+
+        for (int roomId = 1; roomId <= maxRooms; roomId++) {
+            final String roomIdStr = String.valueOf(roomId);
+            executorService.submit(() -> pollRoomLog(roomIdStr));
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void stop() {
+        log.info("Stopping local log polling service");
+        running = false;
+
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        log.info("Local log polling service stopped");
+    }
+
+    private void pollRoomLog(String roomId) {
+        Path roomDirectory = LocalLogMessagePublisher.roomDirectory(directory, roomId);
+        try (LocalLogReader reader = new LocalLogReader(roomDirectory, consumerGroup)) {
+            log.info("Polling thread started for room: {} (log: {}, offset: {})", roomId, roomDirectory, reader.position());
+            long idleParkNanos = TimeUnit.MICROSECONDS.toNanos(pollIntervalMicros);
+
+            while (running) {
+                try {
+                    List<LocalLogReader.LogEntry> entries = reader.poll(maxMessagesPerPoll);
+                    if (entries.isEmpty()) {
+                        LockSupport.parkNanos(idleParkNanos);
+                        continue;
+                    }
+
+                    HotPathLog.event(HotPathCategory.SQS_RECEIVE, "room", roomId, "offset", entries.get(0).offset(),
+                            "messages", entries.size());
+                    for (LocalLogReader.LogEntry entry : entries) {
+                        processEntryWithRetry(roomId, entry);
+                    }
+                    reader.commit(entries.get(entries.size() - 1).offset() + 1);
+                } catch (Exception e) {
+                    log.error("Room {}: Error polling local log {}", roomId, roomDirectory, e);
+                    if (!sleepUninterruptibly(1000)) {
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Room {}: Failed to open local log {}", roomId, roomDirectory, e);
+        }
+
+        log.info("Polling thread stopped for room: {}", roomId);
+    }
+
+    private void processEntryWithRetry(String roomId, LocalLogReader.LogEntry entry) {
+        ChatMessage chatMessage;
+        try {
+            chatMessage = objectMapper.readValue(entry.payload(), ChatMessage.class);
+        } catch (Exception e) {
+            log.error("Room {}: Failed to deserialize message at offset {}, skipping", roomId, entry.offset(), e);
+            return;
+        }
+
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            try {
+                HotPathLog.event(HotPathCategory.SQS_PROCESS, "room", roomId, "attempt", attempt, "maxRetries", maxRetries);
+                messageHandler.handleMessage(roomId, chatMessage);
+                return;
+            } catch (Exception e) {
+                log.warn("Room {}: Failed to process message at offset {} (attempt {}/{}): {}",
+                        roomId, entry.offset(), attempt, maxRetries, e.getMessage());
+                if (attempt < maxRetries && !sleepUninterruptibly((long) Math.pow(2, attempt - 1) * 1000)) {
+                    break;
+                }
+            }
+        }
+
+        log.error("Room {}: All {} retry attempts failed for message at offset {}, skipping",
+                roomId, maxRetries, entry.offset());
+    }
+
+    private boolean sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader side of a {@link LocalLog}, usually in another process, that resumes from a per-consumer-group
+ * checkpoint.
+ *
+ * The checkpoint is a memory-mapped {@code <group>.checkpoint} file holding the next offset to read and its
+ * complement, so a torn or missing checkpoint is detected and reading starts at the oldest retained record.
+ * Committed offsets survive a process crash immediately and an OS crash once forced; delivery is at least
+ * once. A reader whose position was removed by retention skips to the oldest segment and counts the
+ * records it missed.
+ */
+@Slf4j
+public final class LocalLogReader implements Closeable {
+
+    private static final long PROBE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final Path directory;
+    private final MappedByteBuffer checkpoint;
+
+    private MappedByteBuffer segment;
+    private long baseOffset;
+    private int position;
+    private long nextOffset;
+    private long skippedRecords;
+    private long lastProbeNanos;
+
+    public LocalLogReader(Path directory, String group) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path checkpointFile = directory.resolve(group + ".checkpoint");
+        try (FileChannel channel = FileChannel.open(checkpointFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * Long.BYTES);
+        }
+
+        long committed = checkpoint.getLong(0);
+        if (committed == ~checkpoint.getLong(Long.BYTES)) {
+            nextOffset = committed;
+        } else {
+            nextOffset = -1;
+        }
+        lastProbeNanos = System.nanoTime() - PROBE_INTERVAL_NANOS;
+    }
+
+    /**
+     * Read up to max records from the current position without waiting.
+     *
+     * @return the records read, empty if the writer has not appended past the position yet
+     */
+    public List<LogEntry> poll(int max) throws IOException {
+        List<LogEntry> entries = new ArrayList<>();
+        if (segment == null && !attach()) {
+            return entries;
+        }
+
+        while (entries.size() < max) {
+            int length = position + LocalLog.HEADER_BYTES <= segment.capacity()
+                    ? (int) LocalLog.INT_VIEW.getAcquire(segment, position)
+                    : LocalLog.ROLLED;
+            if (length == LocalLog.ROLLED) {
+                if (openSegment(nextOffset, false) || attach()) {
+                    continue;
+                }
+                break;
+            }
+            if (length == 0) {
+                // Also catches a writer that crashed right after creating a segment, before marking this one rolled
+                if (attach()) {
+                    continue;
+                }
+                break;
+            }
+
+            long offset = segment.getLong(position + 2 * Integer.BYTES);
+            if (!LocalLog.isIntact(segment, position, offset)) {
+                // Torn by a crashed writer; it zeroes the record when it reopens the log
+                break;
+            }
+            if (offset < nextOffset) {
+                position += LocalLog.recordBytes(length);
+                continue;
+            }
+            if (offset > nextOffset) {
+                log.warn("Log {} jumped from offset {} to {}", directory, nextOffset, offset);
+                skippedRecords += offset - nextOffset;
+            }
+
+            byte[] payload = new byte[length];
+            segment.get(position + LocalLog.HEADER_BYTES, payload);
+            entries.add(new LogEntry(offset, payload));
+            position += LocalLog.recordBytes(length);
+            nextOffset = offset + 1;
+        }
+        return entries;
+    }
+
+    /**
+     * Record that every offset before nextOffset has been processed.
+     */
+    public void commit(long nextOffset) {
+        checkpoint.putLong(Long.BYTES, ~nextOffset);
+        checkpoint.putLong(0, nextOffset);
+    }
+
+    /**
+     * Force the checkpoint to disk.
+     */
+    public void force() {
+        checkpoint.force();
+    }
+
+    /**
+     * The offset of the next record to read, -1 before the reader found any segment.
+     */
+    public long position() {
+        return nextOffset;
+    }
+
+    /**
+     * Records lost because retention deleted them before they were read.
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    @Override
+    public void close() {
+        checkpoint.force();
+        segment = null;
+    }
+
+    /**
+     * Find the segment holding nextOffset, or the oldest one if it was already deleted.
+     * Lists the directory at most every {@code PROBE_INTERVAL_NANOS}.
+     */
+    private boolean attach() throws IOException {
+        if (!probeDue()) {
+            return false;
+        }
+        List<Long> segments = LocalLog.listSegments(directory);
+        if (segments.isEmpty()) {
+            return false;
+        }
+
+        long oldest = segments.get(0);
+        if (nextOffset < oldest) {
+            if (nextOffset >= 0) {
+                log.warn("Log {}: offsets {}-{} were deleted by retention before being read",
+                        directory, nextOffset, oldest - 1);
+                skippedRecords += oldest - nextOffset;
+            }
+            nextOffset = oldest;
+        }
+
+        long base = oldest;
+        for (long candidate : segments) {
+            if (candidate <= nextOffset) {
+                base = candidate;
+            }
+        }
+        return openSegment(base, true);
+    }
+
+    /**
+     * Map the segment starting at base and position the reader at nextOffset within it.
+     *
+     * @return false if the segment does not exist (yet)
+     */
+    private boolean openSegment(long base, boolean seek) throws IOException {
+        Path segmentFile = LocalLog.segmentFile(directory, base);
+        if (!Files.exists(segmentFile) || (segment != null && base == baseOffset)) {
+            return false;
+        }
+        MappedByteBuffer mapped;
+        int start = 0;
+        try {
+            mapped = LocalLog.map(segmentFile, FileChannel.MapMode.READ_ONLY);
+            if (seek) {
+                start = LocalLog.lookup(LocalLog.map(LocalLog.indexFile(directory, base), FileChannel.MapMode.READ_ONLY),
+                        base, nextOffset);
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted by retention between the listing and the map
+            return false;
+        }
+        segment = mapped;
+        baseOffset = base;
+        position = start;
+        return true;
+    }
+
+    private boolean probeDue() {
+        long now = System.nanoTime();
+        if (now - lastProbeNanos < PROBE_INTERVAL_NANOS) {
+            return false;
+        }
+        lastProbeNanos = now;
+        return true;
+    }
+
+    /**
+     * One record read from the log.
+     */
+    public record LogEntry(long offset, byte[] payload) {}
+}
@@ -1,6 +1,6 @@
 package edu.northeastern.hanafeng.chatsystem.consumer.config;
 
-import edu.northeastern.hanafeng.chatsystem.common.services.SqsPollingService;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessageSubscriber;
 import edu.northeastern.hanafeng.chatsystem.consumer.handlers.BroadcastSqsMessageHandler;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +10,7 @@ import org.springframework.context.annotation.Profile;
 
 /**
  * Configuration for message consumer.
- * Registers handlers and starts the polling service.
+ * Registers handlers and starts the configured transport subscriber.
  */
 @Configuration
 @Slf4j
@@ -18,7 +18,7 @@ import org.springframework.context.annotation.Profile;
 @Profile("consumer")
 public class MessageConsumerConfig {
 
-    private final SqsPollingService sqsPollingService;
+    private final ChatMessageSubscriber messageSubscriber;
     private final BroadcastSqsMessageHandler broadcastSqsMessageHandler;
 
     @PostConstruct
@@ -26,7 +26,7 @@ public class MessageConsumerConfig {
         log.info("Configuring message consumer");
 
         // Register handler and start polling
-        sqsPollingService
+        messageSubscriber
                 .registerHandler(broadcastSqsMessageHandler)
                 .start();
 
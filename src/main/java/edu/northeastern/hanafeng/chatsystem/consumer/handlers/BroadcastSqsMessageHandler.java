@@ -1,6 +1,8 @@
 package edu.northeastern.hanafeng.chatsystem.consumer.handlers;
 
 import edu.northeastern.hanafeng.chatsystem.common.interfaces.SqsMessageHandler;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
 import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
 import edu.northeastern.hanafeng.chatsystem.model.BroadcastMessage;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
@@ -37,7 +39,7 @@ public class BroadcastSqsMessageHandler implements SqsMessageHandler {
         String destination = topicPrefix + "/" + roomId;
         messagingTemplate.convertAndSend(destination, broadcastMessage);
 
-        log.info("Published message to topic: {} with content: {}", destination, chatMessage);
+        HotPathLog.event(HotPathCategory.STOMP_PUBLISH, "destination", destination, "messageId", chatMessage.getMessageId());
 
         // Record metrics - don't let metrics failure break message delivery
         try {
@@ -0,0 +1,47 @@
+package edu.northeastern.hanafeng.chatsystem.model;
+
+import java.util.Map;
+
+/**
+ * Acknowledgement mode of a chat connection, negotiated per connection through the
+ * {@value #HEADER} handshake header. The server echoes the accepted mode in the same header.
+ *
+ * FULL:       one {@link ResponseMessage} with the full echo per inbound message (default)
+ * COMPACT:    one {@link CompactAck} per inbound message
+ * CUMULATIVE: successes are coalesced into range {@link CompactAck}s, errors are acknowledged individually
+ */
+public enum AckMode {
+    FULL,
+    COMPACT,
+    CUMULATIVE;
+
+    public static final String HEADER = "X-Chat-Ack-Mode";
+    public static final String SESSION_ATTRIBUTE = "ackMode";
+
+    /**
+     * Parse a header or configuration value; unknown or missing values fall back to FULL.
+     */
+    public static AckMode fromValue(String value) {
+        if (value == null) {
+            return FULL;
+        }
+        for (AckMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        return FULL;
+    }
+
+    /**
+     * Mode stored in WebSocket session attributes during the handshake.
+     */
+    public static AckMode of(Map<String, Object> attributes) {
+        Object mode = attributes.get(SESSION_ATTRIBUTE);
+        return mode instanceof AckMode ackMode ? ackMode : FULL;
+    }
+
+    public String headerValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,55 @@
+package edu.northeastern.hanafeng.chatsystem.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Small acknowledgement frame sent instead of {@link ResponseMessage} to connections that negotiated
+ * compact ACKs. It carries no echo of the chat message.
+ *
+ * Every inbound frame on a connection gets a server sequence number (1, 2, 3, ...), so the client can
+ * match ACKs by its own send order. A cumulative ACK (type {@value #TYPE_RANGE}) acknowledges every
+ * successful frame with a sequence number in [fromSequence, sequence]; errors are always acknowledged
+ * individually and never fall inside a cumulative range.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactAck {
+
+    public static final String TYPE_SINGLE = "ack";
+    public static final String TYPE_RANGE = "acks";
+
+    public static final int STATUS_SUCCESS = 0;
+    public static final int STATUS_ERROR = 1;
+
+    @JsonProperty("t")
+    private String type;
+
+    @JsonProperty("id")
+    private String messageId;
+
+    @JsonProperty("st")
+    private int status;
+
+    @JsonProperty("q0")
+    private Long fromSequence;
+
+    @JsonProperty("q")
+    private long sequence;
+
+    /**
+     * Server time in epoch milliseconds
+     */
+    @JsonProperty("ts")
+    private long serverTimestamp;
+
+    @JsonProperty("err")
+    private String error;
+
+    @JsonIgnore
+    public boolean isRange() {
+        return TYPE_RANGE.equals(type);
+    }
+}
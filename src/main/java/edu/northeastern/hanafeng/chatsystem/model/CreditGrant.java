@@ -0,0 +1,32 @@
+package edu.northeastern.hanafeng.chatsystem.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Flow-control frame granting a connection permission to send more chat messages.
+ *
+ * Connections opt in with the {@value #HEADER}: {@value #MODE_CREDITS} handshake header, which the
+ * server echoes when accepted. The client may then only send as many frames as it was granted in
+ * total; the server withholds grants while it is under pressure, which pauses the client.
+ */
+@Data
+@NoArgsConstructor
+public class CreditGrant {
+
+    public static final String HEADER = "X-Chat-Flow-Control";
+    public static final String MODE_CREDITS = "credits";
+    public static final String SESSION_ATTRIBUTE = "flowControl";
+    public static final String TYPE = "credit";
+
+    @JsonProperty("t")
+    private String type = TYPE;
+
+    @JsonProperty("n")
+    private int credits;
+
+    public CreditGrant(int credits) {
+        this.credits = credits;
+    }
+}
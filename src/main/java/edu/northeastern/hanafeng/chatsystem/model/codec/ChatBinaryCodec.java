@@ -0,0 +1,414 @@
+package edu.northeastern.hanafeng.chatsystem.model.codec;
+
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.model.CompactAck;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.ResponseMessage;
+import edu.northeastern.hanafeng.chatsystem.model.validation.ChatMessageValidator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Schema-based binary encoding for chat traffic, negotiated through the
+ * {@value #SUBPROTOCOL} WebSocket subprotocol.
+ *
+ * Every frame starts with a one-byte frame type. Fields follow in the fixed schema order below,
+ * without names, quotes or ISO timestamps:
+ * <pre>
+ * CHAT_MESSAGE: userId, roomId, messageId, username, message, timestamp, messageType
+ * RESPONSE:     status, error, serverTimestamp, hasEcho(byte), [CHAT_MESSAGE fields]
+ * ACK:          status(byte), flags(byte), sequence(int64), serverTimestamp(int64 ms),
+ *               [messageId as 16 raw UUID bytes | messageId string], [error string]
+ * ACK_RANGE:    fromSequence(int64), sequence(int64), serverTimestamp(int64 ms)
+ * CREDIT:       credits(int32)
+ * </pre>
+ * Strings are written as varint(length + 1) followed by UTF-8 bytes (0 encodes null), instants as a
+ * presence byte, zigzag-varint epoch seconds and varint nanos. Field values are carried as-is so the
+ * server still validates them exactly like JSON input.
+ */
+public final class ChatBinaryCodec {
+
+    public static final String SUBPROTOCOL = "chat.binary.v1";
+
+    public static final byte FRAME_CHAT_MESSAGE = 1;
+    public static final byte FRAME_RESPONSE = 2;
+    public static final byte FRAME_ACK = 3;
+    public static final byte FRAME_ACK_RANGE = 4;
+    public static final byte FRAME_CREDIT = 5;
+
+    private static final int ACK_FLAG_UUID = 1;
+    private static final int ACK_FLAG_MESSAGE_ID_STRING = 2;
+    private static final int ACK_FLAG_ERROR = 4;
+
+    private static final int INITIAL_CAPACITY = 128;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private ChatBinaryCodec() {}
+
+    public static byte[] encodeChatMessage(ChatMessage message) {
+        Writer writer = new Writer(INITIAL_CAPACITY + lengthHint(message));
+        writer.writeByte(FRAME_CHAT_MESSAGE);
+        writeChatMessageFields(writer, message);
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeResponse(ResponseMessage response) {
+        ChatMessage echo = response.getEcho();
+        Writer writer = new Writer(INITIAL_CAPACITY + lengthHint(echo));
+        writer.writeByte(FRAME_RESPONSE);
+        writer.writeString(response.getStatus());
+        writer.writeString(response.getError());
+        writer.writeInstant(response.getServerTimestamp());
+        writer.writeByte(echo != null ? 1 : 0);
+        if (echo != null) {
+            writeChatMessageFields(writer, echo);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encode a compact ACK. A successful ACK for a valid messageId is a fixed 35-byte frame;
+     * a cumulative ACK is a fixed 25-byte frame.
+     */
+    public static byte[] encodeCompactAck(CompactAck ack) {
+        Writer writer = new Writer(40);
+        if (ack.isRange()) {
+            writer.writeByte(FRAME_ACK_RANGE);
+            writer.writeLong(ack.getFromSequence());
+            writer.writeLong(ack.getSequence());
+            writer.writeLong(ack.getServerTimestamp());
+            return writer.toByteArray();
+        }
+
+        String messageId = ack.getMessageId();
+        int flags = 0;
+        if (messageId != null) {
+            flags |= ChatMessageValidator.isValidUuid(messageId) ? ACK_FLAG_UUID : ACK_FLAG_MESSAGE_ID_STRING;
+        }
+        if (ack.getError() != null) {
+            flags |= ACK_FLAG_ERROR;
+        }
+
+        writer.writeByte(FRAME_ACK);
+        writer.writeByte(ack.getStatus());
+        writer.writeByte(flags);
+        writer.writeLong(ack.getSequence());
+        writer.writeLong(ack.getServerTimestamp());
+        if ((flags & ACK_FLAG_UUID) != 0) {
+            writer.writeUuid(messageId);
+        } else if ((flags & ACK_FLAG_MESSAGE_ID_STRING) != 0) {
+            writer.writeString(messageId);
+        }
+        if ((flags & ACK_FLAG_ERROR) != 0) {
+            writer.writeString(ack.getError());
+        }
+        return writer.toByteArray();
+    }
+
+    public static CompactAck decodeCompactAck(ByteBuffer buffer) {
+        byte type = readByte(buffer);
+        CompactAck ack = new CompactAck();
+        if (type == FRAME_ACK_RANGE) {
+            ack.setType(CompactAck.TYPE_RANGE);
+            ack.setFromSequence(readLong(buffer));
+            ack.setSequence(readLong(buffer));
+            ack.setServerTimestamp(readLong(buffer));
+            return ack;
+        }
+        if (type != FRAME_ACK) {
+            throw new IllegalArgumentException("Unexpected frame type " + type + ", expected " + FRAME_ACK);
+        }
+
+        ack.setType(CompactAck.TYPE_SINGLE);
+        ack.setStatus(readByte(buffer));
+        int flags = readByte(buffer);
+        ack.setSequence(readLong(buffer));
+        ack.setServerTimestamp(readLong(buffer));
+        if ((flags & ACK_FLAG_UUID) != 0) {
+            ack.setMessageId(readUuid(buffer));
+        } else if ((flags & ACK_FLAG_MESSAGE_ID_STRING) != 0) {
+            ack.setMessageId(readString(buffer));
+        }
+        if ((flags & ACK_FLAG_ERROR) != 0) {
+            ack.setError(readString(buffer));
+        }
+        return ack;
+    }
+
+    public static byte[] encodeCreditGrant(CreditGrant grant) {
+        Writer writer = new Writer(5);
+        writer.writeByte(FRAME_CREDIT);
+        writer.writeInt(grant.getCredits());
+        return writer.toByteArray();
+    }
+
+    public static CreditGrant decodeCreditGrant(ByteBuffer buffer) {
+        expectFrameType(buffer, FRAME_CREDIT);
+        if (buffer.remaining() < Integer.BYTES) {
+            throw new IllegalArgumentException("Truncated binary frame");
+        }
+        return new CreditGrant(buffer.getInt());
+    }
+
+    /**
+     * Read the frame type of an encoded frame without consuming it.
+     */
+    public static byte frameType(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Empty binary frame");
+        }
+        return buffer.get(buffer.position());
+    }
+
+    public static ChatMessage decodeChatMessage(ByteBuffer buffer) {
+        expectFrameType(buffer, FRAME_CHAT_MESSAGE);
+        return readChatMessageFields(buffer);
+    }
+
+    public static ResponseMessage decodeResponse(ByteBuffer buffer) {
+        expectFrameType(buffer, FRAME_RESPONSE);
+        ResponseMessage response = new ResponseMessage();
+        response.setStatus(readString(buffer));
+        response.setError(readString(buffer));
+        response.setServerTimestamp(readInstant(buffer));
+        if (readByte(buffer) != 0) {
+            response.setEcho(readChatMessageFields(buffer));
+        }
+        return response;
+    }
+
+    private static void writeChatMessageFields(Writer writer, ChatMessage message) {
+        writer.writeString(message.getUserId());
+        writer.writeString(message.getRoomId());
+        writer.writeString(message.getMessageId());
+        writer.writeString(message.getUsername());
+        writer.writeString(message.getMessage());
+        writer.writeInstant(message.getTimestamp());
+        writer.writeString(message.getMessageType());
+    }
+
+    private static ChatMessage readChatMessageFields(ByteBuffer buffer) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId(readString(buffer));
+        message.setRoomId(readString(buffer));
+        message.setMessageId(readString(buffer));
+        message.setUsername(readString(buffer));
+        message.setMessage(readString(buffer));
+        message.setTimestamp(readInstant(buffer));
+        message.setMessageType(readString(buffer));
+        return message;
+    }
+
+    private static int lengthHint(ChatMessage message) {
+        if (message == null || message.getMessage() == null) {
+            return 0;
+        }
+        return message.getMessage().length();
+    }
+
+    private static void expectFrameType(ByteBuffer buffer, byte expected) {
+        byte type = readByte(buffer);
+        if (type != expected) {
+            throw new IllegalArgumentException("Unexpected frame type " + type + ", expected " + expected);
+        }
+    }
+
+    private static byte readByte(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Truncated binary frame");
+        }
+        return buffer.get();
+    }
+
+    private static long readLong(ByteBuffer buffer) {
+        if (buffer.remaining() < Long.BYTES) {
+            throw new IllegalArgumentException("Truncated binary frame");
+        }
+        return buffer.getLong();
+    }
+
+    private static String readUuid(ByteBuffer buffer) {
+        long high = readLong(buffer);
+        long low = readLong(buffer);
+        char[] chars = new char[36];
+        int position = 0;
+        for (int i = 0; i < 32; i++) {
+            if (i == 8 || i == 12 || i == 16 || i == 20) {
+                chars[position++] = '-';
+            }
+            long word = i < 16 ? high : low;
+            int nibble = (int) (word >>> (60 - 4 * (i & 15))) & 0xF;
+            chars[position++] = HEX_DIGITS[nibble];
+        }
+        return new String(chars);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte(buffer);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in binary frame");
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        long encodedLength = readVarLong(buffer);
+        if (encodedLength == 0) {
+            return null;
+        }
+        long length = encodedLength - 1;
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds binary frame");
+        }
+        int len = (int) length;
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), len, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + len);
+        } else {
+            byte[] bytes = new byte[len];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static Instant readInstant(ByteBuffer buffer) {
+        if (readByte(buffer) == 0) {
+            return null;
+        }
+        long zigzag = readVarLong(buffer);
+        long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+        long nanos = readVarLong(buffer);
+        try {
+            return Instant.ofEpochSecond(seconds, nanos);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid timestamp in binary frame", e);
+        }
+    }
+
+    /**
+     * Growable byte array writer; one per encoded frame.
+     */
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, position + additional)];
+                System.arraycopy(buffer, 0, grown, 0, position);
+                buffer = grown;
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            ensureCapacity(Integer.BYTES);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        /**
+         * Write a lowercase UUID string (already validated) as two big-endian longs.
+         */
+        private void writeUuid(String uuid) {
+            long high = 0;
+            long low = 0;
+            int digits = 0;
+            for (int i = 0; i < uuid.length(); i++) {
+                char c = uuid.charAt(i);
+                if (c == '-') {
+                    continue;
+                }
+                long nibble = c <= '9' ? c - '0' : c - 'a' + 10;
+                if (digits < 16) {
+                    high = (high << 4) | nibble;
+                } else {
+                    low = (low << 4) | nibble;
+                }
+                digits++;
+            }
+            writeLong(high);
+            writeLong(low);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+
+            int length = value.length();
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+
+            if (ascii) {
+                writeVarLong(length + 1L);
+                ensureCapacity(length);
+                for (int i = 0; i < length; i++) {
+                    buffer[position++] = (byte) value.charAt(i);
+                }
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length + 1L);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        private void writeInstant(Instant value) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            long seconds = value.getEpochSecond();
+            writeVarLong((seconds << 1) ^ (seconds >> 63));
+            writeVarLong(value.getNano());
+        }
+
+        private byte[] toByteArray() {
+            byte[] result = new byte[position];
+            System.arraycopy(buffer, 0, result, 0, position);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package edu.northeastern.hanafeng.chatsystem.model.validation;
+
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Hand-compiled validator for {@link ChatMessage}.
+ *
+ * Mirrors the Bean Validation annotations declared on {@link ChatMessage} with char-level checks
+ * instead of regexes and constraint metadata lookups. Fields are checked in declaration order and
+ * the first failing constraint's message is returned; nothing is allocated when the message is valid.
+ *
+ * Any change to the annotations on {@link ChatMessage} must be reflected here
+ * (ChatMessageValidatorTest compares both validators on the same inputs).
+ */
+@Component
+public class ChatMessageValidator {
+
+    // Error messages - must match the annotation messages on ChatMessage exactly
+    public static final String USER_ID_MISSING = "userId missing";
+    public static final String USER_ID_INVALID = "userId must be 1-100000";
+    public static final String ROOM_ID_MISSING = "roomId missing";
+    public static final String ROOM_ID_INVALID = "roomId must be 1-20 alphanumeric characters";
+    public static final String MESSAGE_ID_MISSING = "messageId missing";
+    public static final String MESSAGE_ID_INVALID = "messageId must be a valid UUID";
+    public static final String USERNAME_MISSING = "username missing";
+    public static final String USERNAME_INVALID = "username must be 3-20 alphanumeric characters";
+    public static final String MESSAGE_MISSING = "message missing";
+    public static final String MESSAGE_INVALID = "message must be 1-5000 characters";
+    public static final String TIMESTAMP_MISSING = "timestamp missing";
+    public static final String TIMESTAMP_INVALID =
+            "timestamp must be a valid ISO-8601 instant between 2020 and current time";
+    public static final String MESSAGE_TYPE_MISSING = "messageType missing";
+    public static final String MESSAGE_TYPE_INVALID = "messageType must be TEXT, JOIN, or LEAVE";
+
+    private static final int MAX_MESSAGE_LENGTH = 5000;
+    private static final long MIN_EPOCH_SECOND = Instant.parse("2020-01-01T00:00:00Z").getEpochSecond();
+    private static final long MAX_FUTURE_SECONDS = 86400;
+
+    /**
+     * Validate a chat message.
+     *
+     * @param message the deserialized message
+     * @return the first violated constraint's message, or null if the message is valid
+     */
+    public String validate(ChatMessage message) {
+        String userId = message.getUserId();
+        if (isBlank(userId)) {
+            return USER_ID_MISSING;
+        }
+        if (!isValidUserId(userId)) {
+            return USER_ID_INVALID;
+        }
+
+        String roomId = message.getRoomId();
+        if (isBlank(roomId)) {
+            return ROOM_ID_MISSING;
+        }
+        if (!isValidRoomId(roomId)) {
+            return ROOM_ID_INVALID;
+        }
+
+        String messageId = message.getMessageId();
+        if (isBlank(messageId)) {
+            return MESSAGE_ID_MISSING;
+        }
+        if (!isValidUuid(messageId)) {
+            return MESSAGE_ID_INVALID;
+        }
+
+        String username = message.getUsername();
+        if (isBlank(username)) {
+            return USERNAME_MISSING;
+        }
+        if (!isValidUsername(username)) {
+            return USERNAME_INVALID;
+        }
+
+        String text = message.getMessage();
+        if (isBlank(text)) {
+            return MESSAGE_MISSING;
+        }
+        if (text.length() > MAX_MESSAGE_LENGTH) {
+            return MESSAGE_INVALID;
+        }
+
+        Instant timestamp = message.getTimestamp();
+        if (timestamp == null) {
+            return TIMESTAMP_MISSING;
+        }
+        if (!isValidTimestamp(timestamp)) {
+            return TIMESTAMP_INVALID;
+        }
+
+        String messageType = message.getMessageType();
+        if (isBlank(messageType)) {
+            return MESSAGE_TYPE_MISSING;
+        }
+        if (!isValidMessageType(messageType)) {
+            return MESSAGE_TYPE_INVALID;
+        }
+
+        return null;
+    }
+
+    /**
+     * Same semantics as @NotBlank: null, empty, or only characters <= ' ' (String.trim()).
+     */
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ^[1-9][0-9]{0,4}$|^100000$
+     */
+    static boolean isValidUserId(String value) {
+        int length = value.length();
+        if (length == 6) {
+            return value.equals("100000");
+        }
+        if (length < 1 || length > 5 || !isNonZeroDigit(value.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ^[1-9]$|^1[0-9]$|^20$
+     */
+    static boolean isValidRoomId(String value) {
+        int length = value.length();
+        if (length == 1) {
+            return isNonZeroDigit(value.charAt(0));
+        }
+        if (length == 2) {
+            char first = value.charAt(0);
+            char second = value.charAt(1);
+            return (first == '1' && isDigit(second)) || (first == '2' && second == '0');
+        }
+        return false;
+    }
+
+    /**
+     * ^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$
+     */
+    public static boolean isValidUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!isDigit(c) && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ^[A-Za-z0-9]{3,20}$
+     */
+    static boolean isValidUsername(String value) {
+        int length = value.length();
+        if (length < 3 || length > 20) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c) && (c < 'A' || c > 'Z') && (c < 'a' || c > 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * TEXT|JOIN|LEAVE
+     */
+    static boolean isValidMessageType(String value) {
+        return value.equals("TEXT") || value.equals("JOIN") || value.equals("LEAVE");
+    }
+
+    /**
+     * Same bounds as {@link TimestampValidator}, compared on epoch fields so no Instant is allocated.
+     */
+    static boolean isValidTimestamp(Instant value) {
+        long seconds = value.getEpochSecond();
+        if (seconds < MIN_EPOCH_SECOND) {
+            return false;
+        }
+
+        long nowMillis = System.currentTimeMillis();
+        long maxSeconds = Math.floorDiv(nowMillis, 1000L) + MAX_FUTURE_SECONDS;
+        long maxNanos = Math.floorMod(nowMillis, 1000L) * 1_000_000L;
+        return seconds < maxSeconds || (seconds == maxSeconds && value.getNano() <= maxNanos);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNonZeroDigit(char c) {
+        return c >= '1' && c <= '9';
+    }
+}
@@ -1,21 +1,27 @@
 package edu.northeastern.hanafeng.chatsystem.server.components;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.RoomBroadcastSource;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
 import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
-import edu.northeastern.hanafeng.chatsystem.server.services.StompSubscriptionService;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -25,27 +31,34 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @Profile("server")
 public class ClientSessionManager {
 
-    private final StompSubscriptionService stompSubscriptionService;
+    private final RoomBroadcastSource roomBroadcastSource;
     private final ObjectMapper objectMapper;
     private final CloudWatchMetricsService metricsService;
 
-    // Track WebSocket client sessions per room
+    // Track WebSocket client sessions per room (a session appears at most once per room)
     private final Map<String, CopyOnWriteArrayList<WebSocketSession>> roomSessions = new ConcurrentHashMap<>();
 
+    // Rooms joined by each session, by session id (several rooms for multiplexed sessions)
+    private final Map<String, Set<String>> sessionRooms = new ConcurrentHashMap<>();
+
     /**
-     * Add a client session to a room
+     * Add a client session to a room. Adding a session that is already in the room is a no-op.
      */
     public void addSession(String roomId, WebSocketSession session) {
         CopyOnWriteArrayList<WebSocketSession> sessions = roomSessions.computeIfAbsent(roomId, k -> new CopyOnWriteArrayList<>());
         boolean isFirstClient = sessions.isEmpty();
-        sessions.add(session);
+        if (!sessions.addIfAbsent(session)) {
+            log.debug("Session {} already in room {}", session.getId(), roomId);
+            return;
+        }
+        sessionRooms.computeIfAbsent(session.getId(), k -> ConcurrentHashMap.newKeySet()).add(roomId);
 
         log.info("Client connected to room: {}, session: {}", roomId, session.getId());
 
-        // Subscribe to consumer STOMP topic if this is the first client in the room
+        // Subscribe to the room's broadcasts if this is the first client in the room
         if (isFirstClient) {
-            log.info("First client in room {}, subscribing to consumer STOMP", roomId);
-            stompSubscriptionService.subscribe(roomId);
+            log.info("First client in room {}, subscribing to its broadcasts", roomId);
+            roomBroadcastSource.subscribe(roomId);
         }
     }
 
@@ -66,14 +79,47 @@ public class ClientSessionManager {
         }
 
         sessions.remove(session);
+        Set<String> rooms = sessionRooms.get(session.getId());
+        if (rooms != null) {
+            rooms.remove(roomId);
+            if (rooms.isEmpty()) {
+                sessionRooms.remove(session.getId(), rooms);
+            }
+        }
         log.info("Client disconnected from room: {}, session: {}", roomId, session.getId());
 
         if (sessions.isEmpty()) {
             roomSessions.remove(roomId);
-            // Unsubscribe from consumer STOMP when last client leaves
-            log.info("Last client left room {}, unsubscribing from consumer STOMP", roomId);
-            stompSubscriptionService.unsubscribe(roomId);
+            // Unsubscribe from the room's broadcasts when last client leaves
+            log.info("Last client left room {}, unsubscribing from its broadcasts", roomId);
+            roomBroadcastSource.unsubscribe(roomId);
+        }
+    }
+
+    /**
+     * Remove a session from every room it joined (used when a multiplexed session closes)
+     */
+    public void removeSessionFromAllRooms(WebSocketSession session) {
+        Set<String> rooms = sessionRooms.get(session.getId());
+        if (rooms == null) {
+            return;
         }
+        for (String roomId : List.copyOf(rooms)) {
+            removeSession(roomId, session);
+        }
+    }
+
+    public boolean isInRoom(String roomId, WebSocketSession session) {
+        Set<String> rooms = sessionRooms.get(session.getId());
+        return rooms != null && rooms.contains(roomId);
+    }
+
+    /**
+     * Rooms currently joined by a session
+     */
+    public Set<String> getRooms(WebSocketSession session) {
+        Set<String> rooms = sessionRooms.get(session.getId());
+        return rooms != null ? Set.copyOf(rooms) : Set.of();
     }
 
     /**
@@ -82,6 +128,15 @@ public class ClientSessionManager {
      */
     @Async
     public void broadcastToRoom(String roomId, ChatMessage chatMessage) {
+        deliverToRoom(roomId, chatMessage);
+    }
+
+    /**
+     * Send a message to all WebSocket clients in a room on the calling thread, so a caller that delivers
+     * a room's messages from one thread keeps them in order.
+     * The message is serialized once per wire format present in the room
+     */
+    public void deliverToRoom(String roomId, ChatMessage chatMessage) {
         CopyOnWriteArrayList<WebSocketSession> sessions = roomSessions.get(roomId);
         if (sessions == null || sessions.isEmpty()) {
             log.debug("No clients connected to room {} for broadcast", roomId);
@@ -89,10 +144,22 @@ public class ClientSessionManager {
         }
 
         try {
-            String messageJson = objectMapper.writeValueAsString(chatMessage);
-            TextMessage textMessage = new TextMessage(messageJson);
+            boolean hasJsonSessions = false;
+            boolean hasBinarySessions = false;
+            for (WebSocketSession session : sessions) {
+                if (SessionWireFormat.of(session) == SessionWireFormat.BINARY) {
+                    hasBinarySessions = true;
+                } else {
+                    hasJsonSessions = true;
+                }
+            }
 
-            log.info("Broadcasting to {} clients in room {}, JSON: {}", sessions.size(), roomId, messageJson);
+            TextMessage textMessage = hasJsonSessions
+                    ? new TextMessage(objectMapper.writeValueAsString(chatMessage)) : null;
+            byte[] binaryPayload = hasBinarySessions ? ChatBinaryCodec.encodeChatMessage(chatMessage) : null;
+
+            HotPathLog.event(HotPathCategory.BROADCAST, "room", roomId, "sessions", sessions.size(),
+                    "messageId", chatMessage.getMessageId());
 
             int successCount = 0;
             int failureCount = 0;
@@ -100,7 +167,12 @@ public class ClientSessionManager {
             for (WebSocketSession session : sessions) {
                 try {
                     if (session.isOpen()) {
-                        session.sendMessage(textMessage);
+                        if (binaryPayload != null && SessionWireFormat.of(session) == SessionWireFormat.BINARY) {
+                            // BinaryMessage wraps a ByteBuffer, so each send gets its own wrapper
+                            session.sendMessage(new BinaryMessage(binaryPayload));
+                        } else {
+                            session.sendMessage(textMessage);
+                        }
                         successCount++;
                     } else {
                         log.warn("Session {} is closed, cannot broadcast message", session.getId());
@@ -112,7 +184,8 @@ public class ClientSessionManager {
                 }
             }
 
-            log.info("Broadcast complete for room {}: {} succeeded, {} failed", roomId, successCount, failureCount);
+            HotPathLog.event(HotPathCategory.BROADCAST, "room", roomId, "messageId", chatMessage.getMessageId(),
+                    "succeeded", successCount, "failed", failureCount);
 
             // Record CloudWatch metrics
             if (successCount > 0) {
@@ -136,18 +209,22 @@ public class ClientSessionManager {
         // Unsubscribe from all rooms before closing sessions
         for (String roomId : roomIds) {
             try {
-                stompSubscriptionService.unsubscribe(roomId);
+                roomBroadcastSource.unsubscribe(roomId);
                 log.debug("Unsubscribed from room {} during cleanup", roomId);
             } catch (Exception e) {
                 log.error("Failed to unsubscribe from room {} during cleanup: {}", roomId, e.getMessage(), e);
             }
         }
 
-        // Close all WebSocket sessions
+        // Close all WebSocket sessions, once each even if a session joined several rooms
+        Set<String> closedSessionIds = new HashSet<>();
         for (String roomId : roomIds) {
             CopyOnWriteArrayList<WebSocketSession> sessions = roomSessions.get(roomId);
             if (sessions != null) {
                 for (WebSocketSession session : sessions) {
+                    if (!closedSessionIds.add(session.getId())) {
+                        continue;
+                    }
                     try {
                         if (session.isOpen()) {
                             session.close();
@@ -162,6 +239,7 @@ public class ClientSessionManager {
 
         // Clear all room sessions
         roomSessions.clear();
+        sessionRooms.clear();
 
         log.info("ClientSessionManager cleanup complete");
     }
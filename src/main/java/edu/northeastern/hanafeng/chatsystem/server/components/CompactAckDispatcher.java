@@ -0,0 +1,182 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.CompactAck;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends {@link CompactAck}s to connections that negotiated {@link AckMode#COMPACT} or
+ * {@link AckMode#CUMULATIVE}.
+ *
+ * Every inbound frame gets the next per-connection sequence number in {@link #onFrameReceived}.
+ * In cumulative mode consecutive successes are held back and sent as one range ACK once the window
+ * fills or on the next scheduled flush; a pending range is always flushed before an error ACK so
+ * ranges never cover failed frames.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class CompactAckDispatcher {
+
+    private final ObjectMapper objectMapper;
+    private final int cumulativeWindow;
+
+    // Sessions that negotiated a compact mode, by session id
+    private final Map<String, AckState> states = new ConcurrentHashMap<>();
+
+    public CompactAckDispatcher(
+            ObjectMapper objectMapper,
+            @Value("${websocketchat.server.ack.cumulative-window:64}") int cumulativeWindow) {
+        this.objectMapper = objectMapper;
+        this.cumulativeWindow = Math.max(1, cumulativeWindow);
+    }
+
+    /**
+     * Assign the next sequence number to an inbound frame. No-op for full-response sessions.
+     */
+    public void onFrameReceived(WebSocketSession session) {
+        AckState state = stateOf(session);
+        if (state != null) {
+            synchronized (state) {
+                state.currentSequence++;
+            }
+        }
+    }
+
+    /**
+     * Whether responses for this session go through this dispatcher instead of full responses.
+     */
+    public boolean handles(WebSocketSession session) {
+        return AckMode.of(session.getAttributes()) != AckMode.FULL;
+    }
+
+    /**
+     * Acknowledge the frame most recently passed to {@link #onFrameReceived}.
+     *
+     * @param messageId message id of the frame, null if it could not be decoded
+     * @param error     error message, null on success
+     */
+    public void acknowledge(WebSocketSession session, String messageId, String error) throws Exception {
+        AckState state = stateOf(session);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            long sequence = state.currentSequence;
+            if (error == null && state.mode == AckMode.CUMULATIVE) {
+                if (state.pendingFrom == 0) {
+                    state.pendingFrom = sequence;
+                }
+                state.pendingTo = sequence;
+                if (state.pendingTo - state.pendingFrom + 1 >= cumulativeWindow) {
+                    flushPending(session, state);
+                }
+                return;
+            }
+
+            flushPending(session, state);
+
+            CompactAck ack = new CompactAck();
+            ack.setType(CompactAck.TYPE_SINGLE);
+            ack.setMessageId(messageId);
+            ack.setStatus(error == null ? CompactAck.STATUS_SUCCESS : CompactAck.STATUS_ERROR);
+            ack.setSequence(sequence);
+            ack.setServerTimestamp(System.currentTimeMillis());
+            ack.setError(error);
+            send(session, ack);
+        }
+    }
+
+    /**
+     * Flush pending cumulative ranges so a quiet connection still gets its ACKs within one interval.
+     */
+    @Scheduled(fixedDelayString = "${websocketchat.server.ack.flush-interval-ms:20}")
+    public void flushAll() {
+        for (AckState state : states.values()) {
+            synchronized (state) {
+                if (state.pendingFrom == 0) {
+                    continue;
+                }
+                try {
+                    flushPending(state.session, state);
+                } catch (Exception e) {
+                    log.warn("Failed to flush cumulative ACK for session {}: {}", state.session.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void onSessionClosed(WebSocketSession session) {
+        states.remove(session.getId());
+    }
+
+    private AckState stateOf(WebSocketSession session) {
+        AckState state = states.get(session.getId());
+        if (state != null) {
+            return state;
+        }
+        AckMode mode = AckMode.of(session.getAttributes());
+        if (mode == AckMode.FULL || !session.isOpen()) {
+            return null;
+        }
+        return states.computeIfAbsent(session.getId(), id -> new AckState(session, mode));
+    }
+
+    private void flushPending(WebSocketSession session, AckState state) throws Exception {
+        if (state.pendingFrom == 0) {
+            return;
+        }
+
+        CompactAck ack = new CompactAck();
+        ack.setType(CompactAck.TYPE_RANGE);
+        ack.setFromSequence(state.pendingFrom);
+        ack.setSequence(state.pendingTo);
+        ack.setServerTimestamp(System.currentTimeMillis());
+
+        state.pendingFrom = 0;
+        state.pendingTo = 0;
+        send(session, ack);
+    }
+
+    private void send(WebSocketSession session, CompactAck ack) throws Exception {
+        if (!session.isOpen()) {
+            log.warn("Cannot send ACK - session {} is already closed", session.getId());
+            return;
+        }
+
+        if (SessionWireFormat.of(session) == SessionWireFormat.BINARY) {
+            session.sendMessage(new BinaryMessage(ChatBinaryCodec.encodeCompactAck(ack)));
+        } else {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(ack)));
+        }
+    }
+
+    /**
+     * Per-connection sequence and pending range, guarded by its own monitor.
+     */
+    private static final class AckState {
+        private final WebSocketSession session;
+        private final AckMode mode;
+        private long currentSequence;
+        private long pendingFrom;
+        private long pendingTo;
+
+        private AckState(WebSocketSession session, AckMode mode) {
+            this.session = session;
+            this.mode = mode;
+        }
+    }
+}
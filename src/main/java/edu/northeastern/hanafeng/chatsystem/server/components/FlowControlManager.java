@@ -0,0 +1,198 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server side of credit-based flow control.
+ *
+ * Each opted-in connection starts with a window of credits and may send one frame per credit. When the
+ * client's outstanding credits fall to half the window the server tops them up, but the window it is
+ * willing to grant shrinks with pressure: a quarter while {@link LoadShedder} sheds TEXT, nothing while it
+ * sheds everything or while the session's own outbound buffer is backed up. Withheld grants pause the
+ * client until a later top-up (on the next frame or the periodic regrant) resumes it, so the client slows
+ * down smoothly instead of being shed or disconnected.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class FlowControlManager {
+
+    private final ObjectMapper objectMapper;
+    private final LoadShedder loadShedder;
+    private final CloudWatchMetricsService metricsService;
+    private final int window;
+    private final int maxOutboundBacklogBytes;
+
+    private final Map<String, CreditState> states = new ConcurrentHashMap<>();
+    private final LongAdder creditViolations = new LongAdder();
+    private final LongAdder withheldGrants = new LongAdder();
+
+    public FlowControlManager(
+            ObjectMapper objectMapper,
+            LoadShedder loadShedder,
+            CloudWatchMetricsService metricsService,
+            @Value("${websocketchat.server.flow-control.window:256}") int window,
+            @Value("${websocketchat.server.flow-control.max-outbound-backlog-bytes:131072}") int maxOutboundBacklogBytes) {
+        this.objectMapper = objectMapper;
+        this.loadShedder = loadShedder;
+        this.metricsService = metricsService;
+        this.window = Math.max(2, window);
+        this.maxOutboundBacklogBytes = maxOutboundBacklogBytes;
+    }
+
+    public static boolean isEnabled(WebSocketSession session) {
+        return Boolean.TRUE.equals(session.getAttributes().get(CreditGrant.SESSION_ATTRIBUTE));
+    }
+
+    /**
+     * Send the initial window to an opted-in session.
+     */
+    public void onSessionOpened(WebSocketSession session) {
+        if (!isEnabled(session)) {
+            return;
+        }
+        CreditState state = new CreditState(session);
+        states.put(session.getId(), state);
+        replenish(state);
+    }
+
+    /**
+     * Count an inbound frame against the session's credits and top them up if they run low.
+     */
+    public void onFrameReceived(WebSocketSession session) {
+        CreditState state = states.get(session.getId());
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.received++;
+            if (state.received > state.granted) {
+                // Client sent without credit; resync so later grants stay meaningful
+                creditViolations.increment();
+                state.granted = state.received;
+            }
+        }
+        replenish(state);
+    }
+
+    public void onSessionClosed(WebSocketSession session) {
+        states.remove(session.getId());
+    }
+
+    /**
+     * Resume sessions whose grants were withheld once pressure has cleared.
+     */
+    @Scheduled(fixedDelayString = "${websocketchat.server.flow-control.regrant-interval-ms:50}")
+    public void regrant() {
+        for (CreditState state : states.values()) {
+            replenish(state);
+        }
+    }
+
+    /**
+     * Publish starvation metrics: sessions currently without credits, withheld grants and credit violations.
+     */
+    @Scheduled(fixedRateString = "${websocketchat.server.flow-control.metrics-interval-ms:60000}")
+    public void publishMetrics() {
+        long starved = states.values().stream().filter(CreditState::isStarved).count();
+        long withheld = withheldGrants.sumThenReset();
+        long violations = creditViolations.sumThenReset();
+        if (states.isEmpty() && withheld == 0 && violations == 0) {
+            return;
+        }
+
+        log.info("Flow control: sessions={}, starved={}, withheldGrants={}, creditViolations={}",
+                states.size(), starved, withheld, violations);
+        try {
+            metricsService.recordMetric("FlowControl.StarvedSessions", starved);
+            metricsService.recordMetric("FlowControl.WithheldGrants", withheld);
+            metricsService.recordMetric("FlowControl.CreditViolations", violations);
+        } catch (Exception e) {
+            log.error("Failed to record flow control metrics: {}", e.getMessage());
+        }
+    }
+
+    private void replenish(CreditState state) {
+        synchronized (state) {
+            long outstanding = state.granted - state.received;
+            if (outstanding > window / 2) {
+                return;
+            }
+
+            int allowed = allowedWindow(state.session);
+            long grant = allowed - outstanding;
+            if (grant <= 0) {
+                if (allowed == 0 && !state.withheld) {
+                    withheldGrants.increment();
+                    state.withheld = true;
+                }
+                return;
+            }
+
+            try {
+                send(state.session, new CreditGrant((int) grant));
+                state.granted += grant;
+                state.withheld = false;
+            } catch (Exception e) {
+                log.warn("Failed to send credit grant to session {}: {}", state.session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private int allowedWindow(WebSocketSession session) {
+        if (session instanceof ConcurrentWebSocketSessionDecorator decorator
+                && decorator.getBufferSize() > maxOutboundBacklogBytes) {
+            return 0;
+        }
+        return switch (loadShedder.getLevel()) {
+            case NORMAL -> window;
+            case SHED_TEXT -> Math.max(1, window / 4);
+            case SHED_ALL -> 0;
+        };
+    }
+
+    private void send(WebSocketSession session, CreditGrant grant) throws Exception {
+        if (!session.isOpen()) {
+            return;
+        }
+        if (SessionWireFormat.of(session) == SessionWireFormat.BINARY) {
+            session.sendMessage(new BinaryMessage(ChatBinaryCodec.encodeCreditGrant(grant)));
+        } else {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(grant)));
+        }
+    }
+
+    /**
+     * Credits granted to and frames received from one session, guarded by its own monitor.
+     */
+    private static final class CreditState {
+        private final WebSocketSession session;
+        private long granted;
+        private long received;
+        private boolean withheld;
+
+        private CreditState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private synchronized boolean isStarved() {
+            return granted - received <= 0;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import edu.northeastern.hanafeng.chatsystem.common.config.SojournTimeTaskDecorator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Priority-aware admission control for the ingress path.
+ *
+ * Four live signals are sampled on a short interval: async executor queue depth, SQS sends in flight,
+ * the age of the oldest queued task and the spool backlog not yet drained to SQS (which stands in for
+ * sends in flight when the spool is enabled). Any signal past its soft limit sheds TEXT messages; any signal
+ * past its hard limit also sheds JOIN/LEAVE. Shed messages are rejected before they are acknowledged or
+ * queued, so the executor never builds up work it cannot finish in time.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class LoadShedder {
+
+    public enum Level {
+        NORMAL,
+        SHED_TEXT,
+        SHED_ALL
+    }
+
+    private final boolean enabled;
+    private final Limits softLimits;
+    private final Limits hardLimits;
+    private final long retryAfterMs;
+    private final IntSupplier queueDepth;
+    private final LongSupplier oldestQueuedAgeNanos;
+    private final LongSupplier spoolBacklogBytes;
+
+    private final AtomicInteger inFlightSends = new AtomicInteger();
+    private volatile Level level = Level.NORMAL;
+
+    @Autowired
+    public LoadShedder(
+            @Qualifier("asyncExecutor") Executor asyncExecutor,
+            MessageSpool messageSpool,
+            @Value("${websocketchat.server.load-shedding.enabled:true}") boolean enabled,
+            @Value("${websocketchat.server.load-shedding.soft.queue-depth:500}") int softQueueDepth,
+            @Value("${websocketchat.server.load-shedding.soft.in-flight:400}") int softInFlight,
+            @Value("${websocketchat.server.load-shedding.soft.sojourn-ms:200}") long softSojournMs,
+            @Value("${websocketchat.server.load-shedding.soft.spool-backlog-bytes:268435456}") long softSpoolBacklog,
+            @Value("${websocketchat.server.load-shedding.hard.queue-depth:900}") int hardQueueDepth,
+            @Value("${websocketchat.server.load-shedding.hard.in-flight:800}") int hardInFlight,
+            @Value("${websocketchat.server.load-shedding.hard.sojourn-ms:1000}") long hardSojournMs,
+            @Value("${websocketchat.server.load-shedding.hard.spool-backlog-bytes:805306368}") long hardSpoolBacklog,
+            @Value("${websocketchat.server.load-shedding.retry-after-ms:500}") long retryAfterMs) {
+        this(enabled,
+                new Limits(softQueueDepth, softInFlight, softSojournMs, softSpoolBacklog),
+                new Limits(hardQueueDepth, hardInFlight, hardSojournMs, hardSpoolBacklog),
+                retryAfterMs,
+                queueDepthOf(asyncExecutor),
+                oldestQueuedAgeOf(asyncExecutor),
+                messageSpool::getBacklogBytes);
+    }
+
+    LoadShedder(boolean enabled, Limits softLimits, Limits hardLimits, long retryAfterMs,
+                IntSupplier queueDepth, LongSupplier oldestQueuedAgeNanos, LongSupplier spoolBacklogBytes) {
+        this.enabled = enabled;
+        this.softLimits = softLimits;
+        this.hardLimits = hardLimits;
+        this.retryAfterMs = retryAfterMs;
+        this.queueDepth = queueDepth;
+        this.oldestQueuedAgeNanos = oldestQueuedAgeNanos;
+        this.spoolBacklogBytes = spoolBacklogBytes;
+    }
+
+    /**
+     * Whether a validated message of this type may be acknowledged and queued. Costs one volatile read.
+     */
+    public boolean admit(String messageType) {
+        Level current = level;
+        if (current == Level.NORMAL) {
+            return true;
+        }
+        if (current == Level.SHED_ALL) {
+            return false;
+        }
+        return !"TEXT".equals(messageType);
+    }
+
+    /**
+     * Count an SQS send as in flight until its future completes.
+     */
+    public void trackSend(CompletableFuture<?> send) {
+        if (send == null || send.isDone()) {
+            return;
+        }
+        inFlightSends.incrementAndGet();
+        send.whenComplete((result, error) -> inFlightSends.decrementAndGet());
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Re-evaluate the shedding level from the live signals.
+     */
+    @Scheduled(fixedDelayString = "${websocketchat.server.load-shedding.sample-interval-ms:10}")
+    public void sample() {
+        if (!enabled) {
+            return;
+        }
+
+        int depth = queueDepth.getAsInt();
+        int inFlight = inFlightSends.get();
+        long sojournMs = TimeUnit.NANOSECONDS.toMillis(oldestQueuedAgeNanos.getAsLong());
+        long backlog = spoolBacklogBytes.getAsLong();
+
+        Level next;
+        if (hardLimits.exceededBy(depth, inFlight, sojournMs, backlog)) {
+            next = Level.SHED_ALL;
+        } else if (softLimits.exceededBy(depth, inFlight, sojournMs, backlog)) {
+            next = Level.SHED_TEXT;
+        } else {
+            next = Level.NORMAL;
+        }
+
+        if (next != level) {
+            log.warn("Load shedding level {} -> {} (queueDepth={}, inFlightSends={}, sojournMs={}, spoolBacklogBytes={})",
+                    level, next, depth, inFlight, sojournMs, backlog);
+            level = next;
+        }
+    }
+
+    private static IntSupplier queueDepthOf(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor taskExecutor) {
+            return () -> taskExecutor.getThreadPoolExecutor().getQueue().size();
+        }
+        log.warn("Async executor is not a ThreadPoolTaskExecutor, queue depth is not available for load shedding");
+        return () -> 0;
+    }
+
+    private static LongSupplier oldestQueuedAgeOf(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor taskExecutor) {
+            return () -> {
+                ThreadPoolExecutor threadPoolExecutor = taskExecutor.getThreadPoolExecutor();
+                return SojournTimeTaskDecorator.oldestQueuedAgeNanos(threadPoolExecutor);
+            };
+        }
+        return () -> 0;
+    }
+
+    /**
+     * Per-signal limits for one shedding level
+     */
+    record Limits(int queueDepth, int inFlightSends, long sojournMs, long spoolBacklogBytes) {
+        boolean exceededBy(int depth, int inFlight, long sojourn, long backlog) {
+            return depth >= queueDepth || inFlight >= inFlightSends || sojourn >= sojournMs
+                    || backlog >= spoolBacklogBytes;
+        }
+    }
+}
@@ -0,0 +1,618 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
+import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe, memory-mapped, append-only spool between accepted chat messages and SQS.
+ *
+ * Records are appended to fixed-size segment files ({@code segment-<base>.spool}, base = the global byte
+ * position of the segment's first byte) as {@code length(int32) crc32(int32) roomLength(int16) room json}.
+ * A zero length marks the unused tail of a segment. The flusher thread forces appended bytes to disk as a
+ * group commit: every waiter that arrives while a force is in progress is covered by the next one. The
+ * drainer thread sends records to SQS in per-room batches and, once SQS has accepted a whole window,
+ * records its end in the {@code checkpoint} file and deletes fully drained segments.
+ *
+ * On startup the spool scans forward from the checkpoint, stops at the first record that is torn or fails
+ * its CRC, and replays everything between the checkpoint and that point to SQS. Delivery is at least once:
+ * a crash between an SQS send and the checkpoint write sends those messages again.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class MessageSpool {
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final ObjectMapper objectMapper;
+    private final ChatMessagePublisher messagePublisher;
+    private final CloudWatchMetricsService metricsService;
+    private final boolean enabled;
+    private final boolean ackAfterSpool;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long capacityBytes;
+    private final long fsyncIntervalMs;
+    private final long durableWaitMs;
+    private final int drainBatchRecords;
+    private final long drainIntervalMs;
+
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object writeLock = new Object();
+    private final Object flushMonitor = new Object();
+
+    // Guarded by writeLock
+    private Segment writeSegment;
+    private long writePosition;
+
+    private volatile long publishedPosition;
+    private volatile long durablePosition;
+    private volatile long checkpointPosition;
+    private boolean flushRequested;
+
+    // Owned by the drainer thread
+    private long drainPosition;
+
+    private final LongAdder drainedMessages = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+
+    private ExecutorService executorService;
+    private volatile boolean running;
+
+    public MessageSpool(
+            ObjectMapper objectMapper,
+            ChatMessagePublisher messagePublisher,
+            CloudWatchMetricsService metricsService,
+            @Value("${websocketchat.server.spool.enabled:false}") boolean enabled,
+            @Value("${websocketchat.server.spool.ack-after-spool:false}") boolean ackAfterSpool,
+            @Value("${websocketchat.server.spool.directory:./data/chat-spool}") Path directory,
+            @Value("${websocketchat.server.spool.segment-bytes:67108864}") int segmentBytes,
+            @Value("${websocketchat.server.spool.capacity-bytes:1073741824}") long capacityBytes,
+            @Value("${websocketchat.server.spool.fsync-interval-ms:5}") long fsyncIntervalMs,
+            @Value("${websocketchat.server.spool.durable-wait-ms:1000}") long durableWaitMs,
+            @Value("${websocketchat.server.spool.drain-batch-records:100}") int drainBatchRecords,
+            @Value("${websocketchat.server.spool.drain-interval-ms:5}") long drainIntervalMs) {
+        this.objectMapper = objectMapper;
+        this.messagePublisher = messagePublisher;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.ackAfterSpool = ackAfterSpool;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.capacityBytes = capacityBytes;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.durableWaitMs = durableWaitMs;
+        this.drainBatchRecords = drainBatchRecords;
+        this.drainIntervalMs = drainIntervalMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether accepted messages must be durably spooled before they are acknowledged to the client.
+     */
+    public boolean isAckAfterSpool() {
+        return enabled && ackAfterSpool;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        recover();
+
+        running = true;
+        executorService = Executors.newFixedThreadPool(2);
+        executorService.submit(this::flushLoop);
+        executorService.submit(this::drainLoop);
+        log.info("Message spool started in {} (ackAfterSpool={}, backlog={} bytes)",
+                directory, ackAfterSpool, publishedPosition - checkpointPosition);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushOnce();
+        log.info("Message spool stopped with {} bytes left to drain", publishedPosition - checkpointPosition);
+    }
+
+    /**
+     * Append an accepted message. The record is visible to the drainer immediately and durable once
+     * {@link #awaitDurable(long)} returns true for the returned position.
+     *
+     * @return the spool position just past the record
+     * @throws IOException if the record could not be written or the spool is full
+     */
+    public long append(String roomId, ChatMessage chatMessage) throws IOException {
+        byte[] room = roomId.getBytes(StandardCharsets.UTF_8);
+        byte[] json = objectMapper.writeValueAsBytes(chatMessage);
+        int bodyLength = Short.BYTES + room.length + json.length;
+        int recordLength = HEADER_BYTES + bodyLength;
+        if (recordLength > segmentBytes) {
+            throw new IOException("Record of " + recordLength + " bytes exceeds the spool segment size");
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        body.putShort((short) room.length).put(room).put(json);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+
+        synchronized (writeLock) {
+            long offset = writePosition - writeSegment.base;
+            if (offset + recordLength > writeSegment.size) {
+                // A zero length tells readers to continue in the next segment
+                if (offset + Integer.BYTES <= writeSegment.size) {
+                    writeSegment.buffer.putInt((int) offset, 0);
+                }
+                writePosition = writeSegment.end();
+                offset = 0;
+            }
+            if (writePosition + recordLength - checkpointPosition > capacityBytes) {
+                throw new IOException("Spool is full (" + (writePosition - checkpointPosition) + " bytes not yet drained)");
+            }
+            if (offset == 0 && writePosition != writeSegment.base) {
+                writeSegment = openSegment(writePosition, segmentBytes);
+            }
+
+            // Length last, so a record is only recognised once its body and checksum are in place
+            MappedByteBuffer buffer = writeSegment.buffer;
+            int index = (int) offset;
+            buffer.put(index + HEADER_BYTES, body.array());
+            buffer.putInt(index + Integer.BYTES, (int) crc.getValue());
+            buffer.putInt(index, bodyLength);
+
+            writePosition += recordLength;
+            publishedPosition = writePosition;
+            return writePosition;
+        }
+    }
+
+    /**
+     * Wait until everything up to position is on disk, requesting a group commit if needed.
+     *
+     * @return true if the position became durable within the configured wait
+     */
+    public boolean awaitDurable(long position) {
+        if (durablePosition >= position) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durableWaitMs);
+        synchronized (flushMonitor) {
+            flushRequested = true;
+            flushMonitor.notifyAll();
+            while (durablePosition < position) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0 || !running) {
+                    return durablePosition >= position;
+                }
+                try {
+                    flushMonitor.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bytes appended but not yet accepted by SQS; 0 when the spool is disabled.
+     */
+    public long getBacklogBytes() {
+        return enabled ? publishedPosition - checkpointPosition : 0;
+    }
+
+    /**
+     * Publish spool metrics: bytes waiting for SQS, messages drained, and failed SQS sends.
+     */
+    @Scheduled(fixedRateString = "${websocketchat.server.spool.metrics-interval-ms:60000}")
+    public void publishMetrics() {
+        if (!enabled) {
+            return;
+        }
+
+        long backlog = publishedPosition - checkpointPosition;
+        long drained = drainedMessages.sumThenReset();
+        long failures = sendFailures.sumThenReset();
+        log.info("Message spool: backlog={} bytes, drained={}, sendFailures={}", backlog, drained, failures);
+        try {
+            metricsService.recordMetric("Spool.BacklogBytes", backlog);
+            metricsService.recordMetric("Spool.DrainedMessages", drained);
+            metricsService.recordMetric("Spool.SendFailures", failures);
+        } catch (Exception e) {
+            log.error("Failed to record spool metrics: {}", e.getMessage());
+        }
+    }
+
+    long getCheckpointPosition() {
+        return checkpointPosition;
+    }
+
+    long getPublishedPosition() {
+        return publishedPosition;
+    }
+
+    /**
+     * Open the segments, position the drainer at the checkpoint and the writer after the last intact record.
+     */
+    void recover() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(MessageSpool::isSegmentFile).toList()) {
+                long base = segmentBase(file);
+                segments.put(base, openSegment(base, (int) Files.size(file)));
+            }
+        }
+
+        long checkpoint = readCheckpoint();
+        if (checkpoint < 0) {
+            checkpoint = segments.isEmpty() ? 0 : segments.firstKey();
+        }
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment.end() <= checkpoint) {
+                deleteSegment(segment);
+            }
+        }
+        if (segments.isEmpty() || segments.floorKey(checkpoint) == null) {
+            openSegment(checkpoint, segmentBytes);
+        }
+
+        // Scan forward from the checkpoint to the first missing, torn or corrupt record
+        long position = checkpoint;
+        long replayed = 0;
+        boolean torn = false;
+        Segment segment = segments.floorEntry(position).getValue();
+        while (true) {
+            int offset = (int) (position - segment.base);
+            int length = offset + HEADER_BYTES <= segment.size ? segment.buffer.getInt(offset) : 0;
+            if (length == 0) {
+                Segment next = segments.get(segment.end());
+                if (next == null) {
+                    break;
+                }
+                segment = next;
+                position = next.base;
+                continue;
+            }
+            if (length < 0 || offset + HEADER_BYTES + length > segment.size || !checksumMatches(segment, offset, length)) {
+                log.warn("Discarding torn spool record at position {}", position);
+                torn = true;
+                break;
+            }
+            position += HEADER_BYTES + length;
+            replayed++;
+        }
+
+        for (Segment later : new ArrayList<>(segments.tailMap(segment.base, false).values())) {
+            deleteSegment(later);
+        }
+        if (torn) {
+            zeroFrom(segment, (int) (position - segment.base));
+        }
+
+        writeSegment = segment;
+        writePosition = position;
+        publishedPosition = position;
+        durablePosition = position;
+        checkpointPosition = checkpoint;
+        drainPosition = checkpoint;
+        if (replayed > 0) {
+            log.info("Replaying {} spooled messages ({} bytes) not confirmed by SQS before restart",
+                    replayed, position - checkpoint);
+        }
+    }
+
+    /**
+     * Force everything appended so far to disk and wake up the waiters it covers.
+     */
+    void flushOnce() {
+        long target = publishedPosition;
+        long from = durablePosition;
+        if (target > from) {
+            for (Segment segment : segments.values()) {
+                if (segment.end() <= from) {
+                    continue;
+                }
+                if (segment.base >= target) {
+                    break;
+                }
+                int start = (int) (Math.max(from, segment.base) - segment.base);
+                int end = (int) (Math.min(target, segment.end()) - segment.base);
+                segment.buffer.force(start, end - start);
+            }
+        }
+        synchronized (flushMonitor) {
+            durablePosition = Math.max(durablePosition, target);
+            flushMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Send the next window of spooled records to SQS and checkpoint it once every record was accepted.
+     *
+     * @return the number of records in the window, 0 if nothing was pending
+     */
+    int drainOnce() throws IOException {
+        List<SpooledMessage> window = new ArrayList<>();
+        long position = drainPosition;
+        long limit = publishedPosition;
+        while (position < limit && window.size() < drainBatchRecords) {
+            Segment segment = segments.floorEntry(position).getValue();
+            int offset = (int) (position - segment.base);
+            int length = offset + HEADER_BYTES <= segment.size ? segment.buffer.getInt(offset) : 0;
+            if (length == 0) {
+                position = segment.end();
+                continue;
+            }
+            window.add(readRecord(segment, offset, length));
+            position += HEADER_BYTES + length;
+        }
+        if (window.isEmpty()) {
+            if (position > drainPosition) {
+                drainPosition = position;
+                writeCheckpoint(position);
+            }
+            return 0;
+        }
+
+        while (!sendWindow(window)) {
+            if (!running) {
+                return window.size();
+            }
+            sleep(Math.max(drainIntervalMs, 100));
+        }
+        drainPosition = position;
+        writeCheckpoint(position);
+        return window.size();
+    }
+
+    /**
+     * Send every record of the window that SQS has not accepted yet, in per-room batches.
+     *
+     * @return true once every record in the window was accepted
+     */
+    private boolean sendWindow(List<SpooledMessage> window) {
+        Map<String, List<SpooledMessage>> byRoom = new LinkedHashMap<>();
+        for (SpooledMessage message : window) {
+            if (!message.sent) {
+                byRoom.computeIfAbsent(message.roomId, room -> new ArrayList<>()).add(message);
+            }
+        }
+
+        boolean allSent = true;
+        for (Map.Entry<String, List<SpooledMessage>> room : byRoom.entrySet()) {
+            List<SpooledMessage> pending = room.getValue();
+            for (int from = 0; from < pending.size(); from += ChatMessagePublisher.MAX_BATCH_SIZE) {
+                List<SpooledMessage> batch = pending.subList(from, Math.min(from + ChatMessagePublisher.MAX_BATCH_SIZE, pending.size()));
+                List<ChatMessage> chatMessages = batch.stream().map(SpooledMessage::chatMessage).toList();
+                try {
+                    List<Integer> failed = messagePublisher.publishBatch(room.getKey(), chatMessages);
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).sent = !failed.contains(i);
+                    }
+                    drainedMessages.add(batch.size() - failed.size());
+                    sendFailures.add(failed.size());
+                    allSent &= failed.isEmpty();
+                } catch (Exception e) {
+                    log.error("Failed to drain {} spooled messages to SQS for room {}: {}",
+                            batch.size(), room.getKey(), e.getMessage());
+                    sendFailures.add(batch.size());
+                    allSent = false;
+                }
+            }
+        }
+        return allSent;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            synchronized (flushMonitor) {
+                if (!flushRequested) {
+                    try {
+                        flushMonitor.wait(fsyncIntervalMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                flushRequested = false;
+            }
+            try {
+                flushOnce();
+            } catch (Exception e) {
+                log.error("Failed to flush message spool: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (drainOnce() == 0) {
+                    sleep(drainIntervalMs);
+                }
+            } catch (Exception e) {
+                log.error("Failed to drain message spool: {}", e.getMessage(), e);
+                sleep(Math.max(drainIntervalMs, 100));
+            }
+        }
+    }
+
+    private SpooledMessage readRecord(Segment segment, int offset, int length) throws IOException {
+        byte[] body = new byte[length];
+        segment.buffer.get(offset + HEADER_BYTES, body);
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        int roomLength = buffer.getShort();
+        String roomId = new String(body, Short.BYTES, roomLength, StandardCharsets.UTF_8);
+        int jsonOffset = Short.BYTES + roomLength;
+        ChatMessage chatMessage = objectMapper.readValue(body, jsonOffset, length - jsonOffset, ChatMessage.class);
+        return new SpooledMessage(roomId, chatMessage);
+    }
+
+    private static boolean checksumMatches(Segment segment, int offset, int length) {
+        byte[] body = new byte[length];
+        segment.buffer.get(offset + HEADER_BYTES, body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == segment.buffer.getInt(offset + Integer.BYTES);
+    }
+
+    /**
+     * Clear leftovers of a torn write so later appends and scans never see stale bytes.
+     */
+    private static void zeroFrom(Segment segment, int offset) {
+        byte[] zeros = new byte[8192];
+        for (int index = offset; index < segment.size; index += zeros.length) {
+            segment.buffer.put(index, zeros, 0, Math.min(zeros.length, segment.size - index));
+        }
+        segment.buffer.force();
+    }
+
+    private Segment openSegment(long base, int size) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(file, base, size, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            segments.put(base, segment);
+            return segment;
+        }
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segments.remove(segment.base);
+        Files.deleteIfExists(segment.file);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() != Long.BYTES * 2 || buffer.getLong(0) != ~buffer.getLong(Long.BYTES)) {
+            log.warn("Ignoring corrupt spool checkpoint; replaying from the oldest segment");
+            return -1;
+        }
+        return buffer.getLong(0);
+    }
+
+    /**
+     * Atomically replace the checkpoint and delete segments that are drained completely.
+     */
+    private void writeCheckpoint(long position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2).putLong(position).putLong(~position).flip();
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE);
+        checkpointPosition = position;
+
+        for (Segment segment : segments.headMap(position, true).values()) {
+            if (segment.end() <= position && segment != writeSegment) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    private static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentBase(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One mapped segment file covering spool positions [base, base + size).
+     */
+    private record Segment(Path file, long base, int size, MappedByteBuffer buffer) {
+        long end() {
+            return base + size;
+        }
+    }
+
+    /**
+     * A record read back for draining; sent tracks SQS acceptance across retries of its window.
+     */
+    private static final class SpooledMessage {
+        private final String roomId;
+        private final ChatMessage chatMessage;
+        private boolean sent;
+
+        private SpooledMessage(String roomId, ChatMessage chatMessage) {
+            this.roomId = roomId;
+            this.chatMessage = chatMessage;
+        }
+
+        private ChatMessage chatMessage() {
+            return chatMessage;
+        }
+    }
+}
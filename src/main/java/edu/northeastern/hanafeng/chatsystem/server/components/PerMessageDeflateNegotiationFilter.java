@@ -0,0 +1,126 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Applies the server's permessage-deflate policy to WebSocket upgrade requests.
+ *
+ * Tomcat negotiates permessage-deflate itself from the raw Sec-WebSocket-Extensions request header
+ * and accepts whatever parameters the client offers, so the policy is applied by rewriting that
+ * header before the upgrade: offers are dropped when compression is disabled, and the configured
+ * no-context-takeover parameters are added otherwise (Tomcat then echoes them in the response).
+ */
+@Slf4j
+public class PerMessageDeflateNegotiationFilter extends OncePerRequestFilter {
+
+    static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final boolean enabled;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    public PerMessageDeflateNegotiationFilter(
+            boolean enabled, boolean serverNoContextTakeover, boolean clientNoContextTakeover) {
+        this.enabled = enabled;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Enumeration<String> headers = request.getHeaders(EXTENSIONS_HEADER);
+        if (headers == null || !headers.hasMoreElements()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        List<String> offers = new ArrayList<>();
+        while (headers.hasMoreElements()) {
+            for (String offer : headers.nextElement().split(",")) {
+                String rewritten = rewriteOffer(offer.trim());
+                if (rewritten != null) {
+                    offers.add(rewritten);
+                }
+            }
+        }
+
+        chain.doFilter(new ExtensionsHeaderRequest(request, offers.isEmpty() ? null : String.join(", ", offers)), response);
+    }
+
+    /**
+     * @return the offer with the configured parameters, or null if the offer must be dropped
+     */
+    String rewriteOffer(String offer) {
+        if (offer.isEmpty()) {
+            return null;
+        }
+
+        int separator = offer.indexOf(';');
+        String name = (separator < 0 ? offer : offer.substring(0, separator)).trim();
+        if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(name)) {
+            return offer;
+        }
+        if (!enabled) {
+            return null;
+        }
+
+        StringBuilder rewritten = new StringBuilder(offer);
+        if (serverNoContextTakeover && !offer.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+            rewritten.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (clientNoContextTakeover && !offer.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+            rewritten.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return rewritten.toString();
+    }
+
+    private static final class ExtensionsHeaderRequest extends HttpServletRequestWrapper {
+
+        private final String extensions;
+
+        private ExtensionsHeaderRequest(HttpServletRequest request, String extensions) {
+            super(request);
+            this.extensions = extensions;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? extensions : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return super.getHeaders(name);
+            }
+            return extensions == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(extensions));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>();
+            for (String name : Collections.list(super.getHeaderNames())) {
+                if (!EXTENSIONS_HEADER.equalsIgnoreCase(name) || extensions != null) {
+                    names.add(name);
+                }
+            }
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Wire format of a client WebSocket session, derived from the negotiated subprotocol.
+ */
+public enum SessionWireFormat {
+    JSON,
+    BINARY;
+
+    public static SessionWireFormat of(WebSocketSession session) {
+        return ChatBinaryCodec.SUBPROTOCOL.equals(session.getAcceptedProtocol()) ? BINARY : JSON;
+    }
+}
@@ -0,0 +1,174 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-session and per-user token buckets kept in flat {@link AtomicLongArray}s.
+ *
+ * Each bucket is one packed long: the high 36 bits hold the last update time in milliseconds since the
+ * limiter started, the low 28 bits hold the token deficit in milli-tokens. A zeroed bucket is full, so
+ * the arrays need no initialization and memory is fixed: one long per userId (1-100000) and one per
+ * session slot. Acquiring a token is a read, a little arithmetic and one CAS, with no allocation.
+ *
+ * Session slots are handed out on connect and recycled on close; if all slots are taken, the session
+ * shares a bucket chosen by its id hash.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class TokenBucketRateLimiter {
+
+    static final String SLOT_ATTRIBUTE = "rateLimitSlot";
+    static final int MAX_USER_ID = 100000;
+
+    private static final int DEFICIT_BITS = 28;
+    private static final long DEFICIT_MASK = (1L << DEFICIT_BITS) - 1;
+    private static final long TIME_MASK = (1L << (64 - DEFICIT_BITS)) - 1;
+    private static final long MILLI_TOKENS = 1000;
+
+    private final boolean enabled;
+    private final Rule sessionRule;
+    private final Rule userRule;
+    private final LongSupplier clockMillis;
+    private final long startMillis;
+
+    private final AtomicLongArray sessionBuckets;
+    private final AtomicLongArray userBuckets = new AtomicLongArray(MAX_USER_ID + 1);
+
+    // Free session slots, used as a stack
+    private final int[] freeSlots;
+    private int freeSlotCount;
+
+    @Autowired
+    public TokenBucketRateLimiter(
+            @Value("${websocketchat.server.rate-limit.enabled:true}") boolean enabled,
+            @Value("${websocketchat.server.rate-limit.max-sessions:65536}") int maxSessions,
+            @Value("${websocketchat.server.rate-limit.session.rate-per-second:5000}") int sessionRatePerSecond,
+            @Value("${websocketchat.server.rate-limit.session.burst:10000}") int sessionBurst,
+            @Value("${websocketchat.server.rate-limit.user.rate-per-second:50}") int userRatePerSecond,
+            @Value("${websocketchat.server.rate-limit.user.burst:100}") int userBurst) {
+        this(enabled, maxSessions, new Rule(sessionRatePerSecond, sessionBurst), new Rule(userRatePerSecond, userBurst),
+                System::currentTimeMillis);
+    }
+
+    TokenBucketRateLimiter(boolean enabled, int maxSessions, Rule sessionRule, Rule userRule, LongSupplier clockMillis) {
+        this.enabled = enabled;
+        this.sessionRule = sessionRule;
+        this.userRule = userRule;
+        this.clockMillis = clockMillis;
+        this.startMillis = clockMillis.getAsLong();
+        this.sessionBuckets = new AtomicLongArray(maxSessions);
+        this.freeSlots = new int[maxSessions];
+        for (int i = 0; i < maxSessions; i++) {
+            freeSlots[i] = maxSessions - 1 - i;
+        }
+        this.freeSlotCount = maxSessions;
+
+        log.info("Rate limiter enabled={}, session: {}/s burst {}, user: {}/s burst {}",
+                enabled, sessionRule.ratePerSecond, sessionRule.burst, userRule.ratePerSecond, userRule.burst);
+    }
+
+    /**
+     * Take one token from the session's bucket. Called before the frame is parsed.
+     */
+    public boolean tryAcquire(WebSocketSession session) {
+        if (!enabled) {
+            return true;
+        }
+        return tryAcquire(sessionBuckets, slotOf(session), sessionRule);
+    }
+
+    /**
+     * Take one token from the user's bucket. The userId must already be validated (1-100000).
+     */
+    public boolean tryAcquireUser(String userId) {
+        if (!enabled) {
+            return true;
+        }
+        int index = 0;
+        for (int i = 0; i < userId.length(); i++) {
+            index = index * 10 + (userId.charAt(i) - '0');
+        }
+        return tryAcquire(userBuckets, index, userRule);
+    }
+
+    /**
+     * Return the session's slot and reset its bucket.
+     */
+    public void release(WebSocketSession session) {
+        Object slot = session.getAttributes().remove(SLOT_ATTRIBUTE);
+        if (!(slot instanceof Integer index)) {
+            return;
+        }
+        sessionBuckets.set(index, 0);
+        synchronized (freeSlots) {
+            freeSlots[freeSlotCount++] = index;
+        }
+    }
+
+    private int slotOf(WebSocketSession session) {
+        Object slot = session.getAttributes().get(SLOT_ATTRIBUTE);
+        if (slot instanceof Integer index) {
+            return index;
+        }
+
+        synchronized (freeSlots) {
+            if (freeSlotCount > 0) {
+                int index = freeSlots[--freeSlotCount];
+                session.getAttributes().put(SLOT_ATTRIBUTE, index);
+                return index;
+            }
+        }
+        // All slots taken: share a bucket (not recorded, so it is never released)
+        return Math.floorMod(session.getId().hashCode(), sessionBuckets.length());
+    }
+
+    private boolean tryAcquire(AtomicLongArray buckets, int index, Rule rule) {
+        long now = (clockMillis.getAsLong() - startMillis) & TIME_MASK;
+        while (true) {
+            long packed = buckets.get(index);
+            long deficit = packed & DEFICIT_MASK;
+            if (deficit > 0) {
+                long elapsed = (now - (packed >>> DEFICIT_BITS)) & TIME_MASK;
+                deficit = Math.max(0, deficit - elapsed * rule.milliTokensPerMilli);
+            }
+            if (deficit + MILLI_TOKENS > rule.capacity) {
+                return false;
+            }
+            long updated = (now << DEFICIT_BITS) | (deficit + MILLI_TOKENS);
+            if (buckets.compareAndSet(index, packed, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sustained rate and burst size of a bucket.
+     */
+    static final class Rule {
+        private final int ratePerSecond;
+        private final int burst;
+        private final long milliTokensPerMilli;
+        private final long capacity;
+
+        Rule(int ratePerSecond, int burst) {
+            if (ratePerSecond < 1 || burst < 1 || burst * MILLI_TOKENS > DEFICIT_MASK) {
+                throw new IllegalArgumentException(
+                        "Rate limit must be >= 1/s with burst between 1 and " + DEFICIT_MASK / MILLI_TOKENS);
+            }
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+            // milli-tokens per millisecond == tokens per second
+            this.milliTokensPerMilli = ratePerSecond;
+            this.capacity = burst * MILLI_TOKENS;
+        }
+    }
+}
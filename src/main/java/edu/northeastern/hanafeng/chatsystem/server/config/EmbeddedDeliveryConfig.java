@@ -0,0 +1,35 @@
+package edu.northeastern.hanafeng.chatsystem.server.config;
+
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessageSubscriber;
+import edu.northeastern.hanafeng.chatsystem.server.handlers.EmbeddedBroadcastMessageHandler;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Configuration for the embedded single-node mode (profiles server,embedded).
+ * The server consumes its own messages and delivers them to its clients, without consumers,
+ * STOMP or the DynamoDB consumer registry.
+ */
+@Configuration
+@Slf4j
+@RequiredArgsConstructor
+@Profile("server & embedded")
+public class EmbeddedDeliveryConfig {
+
+    private final ChatMessageSubscriber messageSubscriber;
+    private final EmbeddedBroadcastMessageHandler embeddedBroadcastMessageHandler;
+
+    @PostConstruct
+    public void configureEmbeddedDelivery() {
+        log.info("Configuring embedded delivery");
+
+        messageSubscriber
+                .registerHandler(embeddedBroadcastMessageHandler)
+                .start();
+
+        log.info("Embedded delivery configured and started");
+    }
+}
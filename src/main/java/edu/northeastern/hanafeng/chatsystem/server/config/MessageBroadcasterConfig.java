@@ -11,7 +11,7 @@ import org.springframework.context.annotation.Profile;
 @Configuration
 @Slf4j
 @RequiredArgsConstructor
-@Profile("server")
+@Profile("server & !embedded")
 public class MessageBroadcasterConfig {
 
     private final StompSubscriptionService stompSubscriptionService;
@@ -9,7 +9,7 @@ import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 
 @Configuration
-@Profile("server")
+@Profile("server & !embedded")
 public class StompClientConfig {
 
     @Bean
@@ -1,11 +1,19 @@
 package edu.northeastern.hanafeng.chatsystem.server.config;
 
+import edu.northeastern.hanafeng.chatsystem.server.components.PerMessageDeflateNegotiationFilter;
+import edu.northeastern.hanafeng.chatsystem.server.handlers.AckModeInterceptor;
 import edu.northeastern.hanafeng.chatsystem.server.handlers.ChatWebSocketEventHandler;
+import edu.northeastern.hanafeng.chatsystem.server.handlers.ConcurrentSessionHandlerDecorator;
+import edu.northeastern.hanafeng.chatsystem.server.handlers.FlowControlInterceptor;
+import edu.northeastern.hanafeng.chatsystem.server.handlers.MultiplexedSessionInterceptor;
 import edu.northeastern.hanafeng.chatsystem.server.handlers.RoomIdInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -18,14 +26,58 @@ public class WebSocketServerConfig implements WebSocketConfigurer {
 
     private final ChatWebSocketEventHandler chatWebSocketEventHandler;
     private final RoomIdInterceptor roomIdInterceptor;
+    private final AckModeInterceptor ackModeInterceptor;
+    private final MultiplexedSessionInterceptor multiplexedSessionInterceptor;
+    private final FlowControlInterceptor flowControlInterceptor;
 
     @Value("${websocketchat.server.api.chat.endpoint}")
     private String chatEndpoint;
 
+    @Value("${websocketchat.server.api.chat-mux.endpoint}")
+    private String chatMuxEndpoint;
+
+    @Value("${websocketchat.server.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${websocketchat.server.compression.server-no-context-takeover:false}")
+    private boolean serverNoContextTakeover;
+
+    @Value("${websocketchat.server.compression.client-no-context-takeover:false}")
+    private boolean clientNoContextTakeover;
+
+    @Value("${spring.websocket.server.send-time-limit:60000}")
+    private int sendTimeLimitMs;
+
+    @Value("${spring.websocket.server.send-buffer-size-limit:512000}")
+    private int sendBufferSizeLimit;
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(chatWebSocketEventHandler, chatEndpoint)
-                .addInterceptors(roomIdInterceptor)
+        // Thread-safe sends for responses, broadcasts, ACK flushes and credit grants
+        WebSocketHandler handler = new ConcurrentSessionHandlerDecorator(
+                chatWebSocketEventHandler, sendTimeLimitMs, sendBufferSizeLimit);
+
+        registry.addHandler(handler, chatEndpoint)
+                .addInterceptors(roomIdInterceptor, ackModeInterceptor, flowControlInterceptor)
+                .setAllowedOrigins("*");
+
+        // One session for many rooms; the room is carried in each message
+        registry.addHandler(handler, chatMuxEndpoint)
+                .addInterceptors(multiplexedSessionInterceptor, ackModeInterceptor, flowControlInterceptor)
                 .setAllowedOrigins("*");
     }
+
+    /**
+     * permessage-deflate policy for the chat endpoint, applied before Tomcat negotiates the extension.
+     */
+    @Bean
+    public FilterRegistrationBean<PerMessageDeflateNegotiationFilter> perMessageDeflateNegotiationFilter() {
+        FilterRegistrationBean<PerMessageDeflateNegotiationFilter> registration = new FilterRegistrationBean<>(
+                new PerMessageDeflateNegotiationFilter(compressionEnabled, serverNoContextTakeover, clientNoContextTakeover));
+        int variableStart = chatEndpoint.indexOf('{');
+        registration.addUrlPatterns(
+                variableStart < 0 ? chatEndpoint : chatEndpoint.substring(0, variableStart) + "*",
+                chatMuxEndpoint);
+        return registration;
+    }
 }
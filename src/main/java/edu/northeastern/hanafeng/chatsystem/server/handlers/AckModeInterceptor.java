@@ -0,0 +1,42 @@
+package edu.northeastern.hanafeng.chatsystem.server.handlers;
+
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Negotiates the acknowledgement mode requested by the client in the {@value AckMode#HEADER} header.
+ * Never rejects a handshake: unknown values fall back to full responses.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class AckModeInterceptor implements HandshakeInterceptor {
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String requested = request.getHeaders().getFirst(AckMode.HEADER);
+        AckMode ackMode = AckMode.fromValue(requested);
+
+        attributes.put(AckMode.SESSION_ATTRIBUTE, ackMode);
+        if (requested != null) {
+            response.getHeaders().set(AckMode.HEADER, ackMode.headerValue());
+            log.debug("Ack mode requested: {}, accepted: {}", requested, ackMode);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                WebSocketHandler wsHandler, Exception exception) {
+        // Nothing to do
+    }
+}
@@ -15,7 +15,7 @@ import java.lang.reflect.Type;
 @Component
 @Slf4j
 @RequiredArgsConstructor
-@Profile("server")
+@Profile("server & !embedded")
 public class BroadcastStompEventHandler extends StompSessionHandlerAdapter {
 
     private final ClientSessionManager clientSessionManager;
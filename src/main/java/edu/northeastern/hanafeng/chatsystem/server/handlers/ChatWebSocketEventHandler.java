@@ -2,41 +2,74 @@ package edu.northeastern.hanafeng.chatsystem.server.handlers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathCategory;
+import edu.northeastern.hanafeng.chatsystem.common.logging.HotPathLog;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
 import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
-import edu.northeastern.hanafeng.chatsystem.common.services.SqsMessageService;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import edu.northeastern.hanafeng.chatsystem.model.ResponseMessage;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import edu.northeastern.hanafeng.chatsystem.model.validation.ChatMessageValidator;
 import edu.northeastern.hanafeng.chatsystem.server.components.ClientSessionManager;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
+import edu.northeastern.hanafeng.chatsystem.server.components.CompactAckDispatcher;
+import edu.northeastern.hanafeng.chatsystem.server.components.FlowControlManager;
+import edu.northeastern.hanafeng.chatsystem.server.components.LoadShedder;
+import edu.northeastern.hanafeng.chatsystem.server.components.MessageSpool;
+import edu.northeastern.hanafeng.chatsystem.server.components.SessionWireFormat;
+import edu.northeastern.hanafeng.chatsystem.server.components.TokenBucketRateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 import java.time.Instant;
-import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 @Profile("server")
-public class ChatWebSocketEventHandler extends TextWebSocketHandler {
+public class ChatWebSocketEventHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
+
+    static final String RATE_LIMITED_ERROR = "Rate limit exceeded";
+    static final String OVERLOADED_ERROR_PREFIX = "Server overloaded, retry after ";
+    static final String SPOOL_UNAVAILABLE_ERROR = "Server could not persist message, please retry";
 
     private final ObjectMapper objectMapper;
-    private final Validator validator;
+    private final ChatMessageValidator chatMessageValidator;
     private final CloudWatchMetricsService metricsService;
-    private final SqsMessageService sqsMessageService;
+    private final ChatMessagePublisher messagePublisher;
     private final ClientSessionManager clientSessionManager;
+    private final CompactAckDispatcher compactAckDispatcher;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final LoadShedder loadShedder;
+    private final FlowControlManager flowControlManager;
+    private final MessageSpool messageSpool;
+
+    private final LongAdder rateLimitedMessages = new LongAdder();
+    private final LongAdder shedMessages = new LongAdder();
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         try {
-            String roomId = (String) session.getAttributes().get("roomId");
+            Map<String, Object> attributes = session.getAttributes();
+            if (MultiplexedSessionInterceptor.isMultiplexed(attributes)) {
+                // Rooms are joined later through JOIN messages
+                log.info("Multiplexed client connected, session: {}", session.getId());
+                flowControlManager.onSessionOpened(session);
+                return;
+            }
+
+            String roomId = (String) attributes.get("roomId");
 
             if (roomId == null) {
                 log.error("Connection established without roomId, closing session: {}", session.getId());
@@ -45,6 +78,7 @@ public class ChatWebSocketEventHandler extends TextWebSocketHandler {
             }
 
             clientSessionManager.addSession(roomId, session);
+            flowControlManager.onSessionOpened(session);
         } catch (Exception e) {
             log.error("Error in afterConnectionEstablished for session {}: {}", session.getId(), e.getMessage(), e);
             try {
@@ -55,31 +89,113 @@ public class ChatWebSocketEventHandler extends TextWebSocketHandler {
         }
     }
 
+    /**
+     * Subprotocols offered during the handshake. Clients that request none keep the default text JSON format.
+     */
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(ChatBinaryCodec.SUBPROTOCOL);
+    }
+
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) {
-        log.info("Receive Message: {}", message.getPayload());
+        compactAckDispatcher.onFrameReceived(session);
+        flowControlManager.onFrameReceived(session);
+        if (!rateLimiter.tryAcquire(session)) {
+            sendRateLimitedMessage(session);
+            return;
+        }
 
         try {
             ChatMessage chatMessage = objectMapper.readValue(message.getPayload(), ChatMessage.class);
-            Set<ConstraintViolation<ChatMessage>> violations = validator.validate(chatMessage);
-            if (!violations.isEmpty()) {
-                sendErrorMessage(session, violations.iterator().next().getMessage());
-            } else {
-                sendSuccessMessage(session, chatMessage);
-            }
+            handleChatMessage(session, chatMessage, message.getPayloadLength());
         } catch (JsonProcessingException e) {
             log.error("JSON parsing error from session {}: {}", session.getId(), e.getMessage());
             sendErrorMessage(session, "Invalid JSON format: " + e.getMessage());
-        } catch (IllegalStateException e) {
+        } catch (Exception e) {
+            handleProcessingFailure(session, e);
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        compactAckDispatcher.onFrameReceived(session);
+        flowControlManager.onFrameReceived(session);
+        if (!rateLimiter.tryAcquire(session)) {
+            sendRateLimitedMessage(session);
+            return;
+        }
+
+        try {
+            ChatMessage chatMessage = ChatBinaryCodec.decodeChatMessage(message.getPayload());
+            handleChatMessage(session, chatMessage, message.getPayloadLength());
+        } catch (IllegalArgumentException e) {
+            log.error("Binary decoding error from session {}: {}", session.getId(), e.getMessage());
+            sendErrorMessage(session, "Invalid binary format: " + e.getMessage());
+        } catch (Exception e) {
+            handleProcessingFailure(session, e);
+        }
+    }
+
+    private void handleChatMessage(WebSocketSession session, ChatMessage chatMessage, int payloadLength) {
+        // Identifiers and size only: message bodies never go to the logs
+        if (HotPathLog.isEnabled(HotPathCategory.INBOUND)) {
+            HotPathLog.event(HotPathCategory.INBOUND, "messageId", chatMessage.getMessageId(),
+                    "userId", chatMessage.getUserId(), "type", chatMessage.getMessageType(), "bytes", payloadLength);
+        }
+        String violation = chatMessageValidator.validate(chatMessage);
+        if (violation == null && !rateLimiter.tryAcquireUser(chatMessage.getUserId())) {
+            sendRateLimitedMessage(session);
+            return;
+        }
+        if (violation == null && MultiplexedSessionInterceptor.isMultiplexed(session)) {
+            violation = checkRoomMembership(session, chatMessage);
+        }
+        if (violation != null) {
+            sendErrorMessage(session, violation);
+        } else if (!loadShedder.admit(chatMessage.getMessageType())) {
+            // Shed before touching membership, so a rejected JOIN or LEAVE can simply be retried
+            sendOverloadedMessage(session);
+        } else {
+            sendSuccessMessage(session, chatMessage);
+        }
+    }
+
+    /**
+     * @return an error if a multiplexed session sends TEXT or LEAVE to a room it is not in, otherwise null
+     */
+    private String checkRoomMembership(WebSocketSession session, ChatMessage chatMessage) {
+        String roomId = chatMessage.getRoomId();
+        if ("JOIN".equals(chatMessage.getMessageType()) || clientSessionManager.isInRoom(roomId, session)) {
+            return null;
+        }
+        return "Not joined to room " + roomId;
+    }
+
+    /**
+     * Join or leave the message's room on a multiplexed session, once the message is admitted and queued.
+     */
+    private void applyRoomMembership(WebSocketSession session, ChatMessage chatMessage) {
+        String roomId = chatMessage.getRoomId();
+        switch (chatMessage.getMessageType()) {
+            case "JOIN" -> clientSessionManager.addSession(roomId, session);
+            case "LEAVE" -> clientSessionManager.removeSession(roomId, session);
+            default -> { }
+        }
+    }
+
+    private void handleProcessingFailure(WebSocketSession session, Exception e) {
+        if (e instanceof IllegalStateException) {
             log.warn("Session {} closed while processing message: {}", session.getId(), e.getMessage());
             // Don't try to send error - session is already closed
-        } catch (Exception e) {
-            log.error("Error handling message from session {}: {}", session.getId(), e.getMessage(), e);
-            try {
-                sendErrorMessage(session, "Server error: " + e.getMessage());
-            } catch (Exception sendEx) {
-                log.error("Failed to send error message to session {}: {}", session.getId(), sendEx.getMessage());
-            }
+            return;
+        }
+
+        log.error("Error handling message from session {}: {}", session.getId(), e.getMessage(), e);
+        try {
+            sendErrorMessage(session, "Server error: " + e.getMessage());
+        } catch (Exception sendEx) {
+            log.error("Failed to send error message to session {}: {}", session.getId(), sendEx.getMessage());
         }
     }
 
@@ -91,17 +207,50 @@ public class ChatWebSocketEventHandler extends TextWebSocketHandler {
             return;
         }
 
+        if (compactAckDispatcher.handles(session)) {
+            compactAckDispatcher.acknowledge(session, chatMessage != null ? chatMessage.getMessageId() : null, error);
+            return;
+        }
+
         ResponseMessage responseMessage = new ResponseMessage();
         responseMessage.setEcho(chatMessage);
         responseMessage.setServerTimestamp(Instant.now());
         responseMessage.setStatus(status);
         responseMessage.setError(error);
+
+        if (SessionWireFormat.of(session) == SessionWireFormat.BINARY) {
+            session.sendMessage(new BinaryMessage(ChatBinaryCodec.encodeResponse(responseMessage)));
+            return;
+        }
+
         String responseJson = objectMapper.writeValueAsString(responseMessage);
-        log.info("Response JSON: {}", responseJson);
+        if (HotPathLog.isEnabled(HotPathCategory.RESPONSE)) {
+            HotPathLog.event(HotPathCategory.RESPONSE, "session", session.getId(),
+                    "messageId", chatMessage != null ? chatMessage.getMessageId() : null,
+                    "status", status, "bytes", responseJson.length());
+        }
         session.sendMessage(new TextMessage(responseJson));
     }
 
     private void sendSuccessMessage(WebSocketSession session, ChatMessage chatMessage) {
+        // Multiplexed sessions carry the room in each message
+        String roomId = MultiplexedSessionInterceptor.isMultiplexed(session)
+                ? chatMessage.getRoomId()
+                : (String) session.getAttributes().get("roomId");
+
+        // The spool takes the message before the ACK, so a full or failing spool never loses an ACKed message
+        boolean queued = false;
+        if (roomId != null && messageSpool.isEnabled()) {
+            if (!spool(session, chatMessage, roomId)) {
+                sendErrorMessage(session, SPOOL_UNAVAILABLE_ERROR);
+                return;
+            }
+            queued = true;
+        }
+        if (MultiplexedSessionInterceptor.isMultiplexed(session)) {
+            applyRoomMembership(session, chatMessage);
+        }
+
         try {
             sendResponseMessage(session, chatMessage, "success", null);
         } catch (Exception e) {
@@ -116,17 +265,53 @@ public class ChatWebSocketEventHandler extends TextWebSocketHandler {
             // Continue - metrics failure shouldn't block message delivery
         }
 
-        String roomId = (String) session.getAttributes().get("roomId");
-        if (roomId != null) {
-            try {
-                sqsMessageService.sendChatMessageToQueue(chatMessage, roomId);
-            } catch (Exception e) {
-                log.error("Failed to send message to SQS for room {}, session {}: {}",
-                         roomId, session.getId(), e.getMessage(), e);
-                // Message already acknowledged to client - log but don't fail
-            }
-        } else {
+        if (roomId == null) {
             log.error("Cannot send to SQS: roomId is null for session {}", session.getId());
+        } else if (!queued) {
+            forwardToQueue(session, chatMessage, roomId);
+        }
+    }
+
+    /**
+     * Append an admitted message to the spool before it is acknowledged. In ack-after-spool mode the message
+     * must also be on disk; otherwise a failed append falls back to sending it to SQS directly.
+     *
+     * @return whether the message was spooled or handed to SQS, so it may be acknowledged
+     */
+    private boolean spool(WebSocketSession session, ChatMessage chatMessage, String roomId) {
+        try {
+            long position = messageSpool.append(roomId, chatMessage);
+            if (!messageSpool.isAckAfterSpool() || messageSpool.awaitDurable(position)) {
+                return true;
+            }
+            log.error("Timed out persisting message for room {}, session {}", roomId, session.getId());
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to spool message for room {}, session {}: {}", roomId, session.getId(), e.getMessage(), e);
+        }
+        if (messageSpool.isAckAfterSpool()) {
+            return false;
+        }
+        try {
+            loadShedder.trackSend(messagePublisher.publish(chatMessage, roomId));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to send unspooled message to SQS for room {}, session {}: {}",
+                    roomId, session.getId(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Hand an acknowledged message to SQS when the spool is disabled.
+     */
+    private void forwardToQueue(WebSocketSession session, ChatMessage chatMessage, String roomId) {
+        try {
+            loadShedder.trackSend(messagePublisher.publish(chatMessage, roomId));
+        } catch (Exception e) {
+            log.error("Failed to send message to SQS for room {}, session {}: {}",
+                     roomId, session.getId(), e.getMessage(), e);
+            // Message already acknowledged to client - log but don't fail
         }
     }
 
@@ -144,14 +329,67 @@ public class ChatWebSocketEventHandler extends TextWebSocketHandler {
         }
     }
 
+    /**
+     * Reject a frame over its session's or user's rate limit. Only counted here, so a flooding client
+     * cannot queue a metric publish on the async executor per rejected frame.
+     */
+    private void sendRateLimitedMessage(WebSocketSession session) {
+        rateLimitedMessages.increment();
+        try {
+            sendResponseMessage(session, null, "error", RATE_LIMITED_ERROR);
+        } catch (Exception e) {
+            log.error("Failed to send rate limited response to session {}: {}", session.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publish the frames rejected since the last run: rate limited and shed messages.
+     */
+    @Scheduled(fixedRateString = "${websocketchat.server.rejection-metrics-interval-ms:60000}")
+    public void publishRejectionMetrics() {
+        long rateLimited = rateLimitedMessages.sumThenReset();
+        long shed = shedMessages.sumThenReset();
+        if (rateLimited == 0 && shed == 0) {
+            return;
+        }
+
+        log.info("Rejected frames: rateLimited={}, shed={}", rateLimited, shed);
+        try {
+            metricsService.recordMetric("RateLimitedMessages", rateLimited);
+            metricsService.recordMetric("ShedMessages", shed);
+        } catch (Exception e) {
+            log.error("Failed to record rejection metrics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reject a shed message with an explicit retry-after hint. Not counted as a failed message, and only
+     * counted here: a metric publish per shed message would add to the executor backlog that shedding
+     * is relieving.
+     */
+    private void sendOverloadedMessage(WebSocketSession session) {
+        shedMessages.increment();
+        try {
+            sendResponseMessage(session, null, "error", OVERLOADED_ERROR_PREFIX + loadShedder.getRetryAfterMs() + " ms");
+        } catch (Exception e) {
+            log.error("Failed to send overloaded response to session {}: {}", session.getId(), e.getMessage(), e);
+        }
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         try {
-            String roomId = (String) session.getAttributes().get("roomId");
+            Map<String, Object> attributes = session.getAttributes();
+            String roomId = (String) attributes.get("roomId");
 
-            if (roomId != null) {
+            if (MultiplexedSessionInterceptor.isMultiplexed(attributes)) {
+                clientSessionManager.removeSessionFromAllRooms(session);
+            } else if (roomId != null) {
                 clientSessionManager.removeSession(roomId, session);
             }
+            compactAckDispatcher.onSessionClosed(session);
+            flowControlManager.onSessionClosed(session);
+            rateLimiter.release(session);
 
             log.info("Client disconnected from room: {}, session: {}, status: {}", roomId, session.getId(), status);
         } catch (Exception e) {
@@ -0,0 +1,57 @@
+package edu.northeastern.hanafeng.chatsystem.server.handlers;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands the delegate a {@link ConcurrentWebSocketSessionDecorator} for every session, so responses,
+ * broadcasts, ACK flushes and flow-control frames sent from different threads are serialized and
+ * buffered instead of failing on Tomcat's single-writer endpoint. The decorator's buffer size is the
+ * session's outbound backlog.
+ */
+public class ConcurrentSessionHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimit;
+    private final Map<String, WebSocketSession> decoratedSessions = new ConcurrentHashMap<>();
+
+    public ConcurrentSessionHandlerDecorator(WebSocketHandler delegate, int sendTimeLimitMs, int sendBufferSizeLimit) {
+        super(delegate);
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferSizeLimit);
+        decoratedSessions.put(session.getId(), decorated);
+        super.afterConnectionEstablished(decorated);
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        super.handleMessage(decorated(session), message);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        super.handleTransportError(decorated(session), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        WebSocketSession decorated = decoratedSessions.remove(session.getId());
+        super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+    }
+
+    private WebSocketSession decorated(WebSocketSession session) {
+        return decoratedSessions.getOrDefault(session.getId(), session);
+    }
+}
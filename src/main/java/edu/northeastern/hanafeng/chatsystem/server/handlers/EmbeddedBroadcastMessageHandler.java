@@ -0,0 +1,25 @@
+package edu.northeastern.hanafeng.chatsystem.server.handlers;
+
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.SqsMessageHandler;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.server.components.ClientSessionManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embedded-mode counterpart of the consumer's broadcast handler: delivers each message straight to the
+ * room's WebSocket clients on the transport's per-room thread instead of publishing it to a STOMP topic.
+ */
+@Component
+@RequiredArgsConstructor
+@Profile("server & embedded")
+public class EmbeddedBroadcastMessageHandler implements SqsMessageHandler {
+
+    private final ClientSessionManager clientSessionManager;
+
+    @Override
+    public void handleMessage(String roomId, ChatMessage chatMessage) {
+        clientSessionManager.deliverToRoom(roomId, chatMessage);
+    }
+}
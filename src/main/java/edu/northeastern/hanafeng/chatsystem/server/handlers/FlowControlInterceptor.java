@@ -0,0 +1,41 @@
+package edu.northeastern.hanafeng.chatsystem.server.handlers;
+
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Enables credit-based flow control for connections that request it with the
+ * {@value CreditGrant#HEADER} handshake header. Never rejects a handshake.
+ */
+@Component
+@Profile("server")
+public class FlowControlInterceptor implements HandshakeInterceptor {
+
+    @Value("${websocketchat.server.flow-control.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String requested = request.getHeaders().getFirst(CreditGrant.HEADER);
+        if (enabled && CreditGrant.MODE_CREDITS.equalsIgnoreCase(requested)) {
+            attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+            response.getHeaders().set(CreditGrant.HEADER, CreditGrant.MODE_CREDITS);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                WebSocketHandler wsHandler, Exception exception) {
+        // Nothing to do
+    }
+}
@@ -0,0 +1,48 @@
+package edu.northeastern.hanafeng.chatsystem.server.handlers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Marks sessions opened on the multiplexed chat endpoint. A multiplexed session is not bound to a
+ * room at handshake time; it joins and leaves rooms with the roomId carried in JOIN/LEAVE messages.
+ */
+@Slf4j
+@Component
+@Profile("server")
+public class MultiplexedSessionInterceptor implements HandshakeInterceptor {
+
+    public static final String MULTIPLEXED_ATTRIBUTE = "multiplexed";
+
+    public static boolean isMultiplexed(WebSocketSession session) {
+        return isMultiplexed(session.getAttributes());
+    }
+
+    public static boolean isMultiplexed(Map<String, Object> attributes) {
+        return Boolean.TRUE.equals(attributes.get(MULTIPLEXED_ATTRIBUTE));
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        log.info("Multiplexed WebSocket handshake attempt for path: {}", request.getURI().getPath());
+        attributes.put(MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                WebSocketHandler wsHandler, Exception exception) {
+        if (exception != null) {
+            log.error("Error during multiplexed WebSocket handshake: {}", exception.getMessage(), exception);
+        }
+    }
+}
@@ -16,7 +16,7 @@ import java.util.Map;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-@Profile("server")
+@Profile("server & !embedded")
 public class ConsumerDiscoveryService {
 
     private final DynamoDbClient dynamoDbClient;
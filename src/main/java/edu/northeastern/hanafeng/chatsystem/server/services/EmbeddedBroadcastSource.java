@@ -0,0 +1,26 @@
+package edu.northeastern.hanafeng.chatsystem.server.services;
+
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.RoomBroadcastSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * In embedded mode every room's messages are delivered in-process whether or not it has clients,
+ * so there is nothing to subscribe to.
+ */
+@Service
+@Slf4j
+@Profile("server & embedded")
+public class EmbeddedBroadcastSource implements RoomBroadcastSource {
+
+    @Override
+    public void subscribe(String roomId) {
+        log.debug("Room {} receives in-process broadcasts, no subscription needed", roomId);
+    }
+
+    @Override
+    public void unsubscribe(String roomId) {
+        log.debug("Room {} receives in-process broadcasts, no subscription to remove", roomId);
+    }
+}
@@ -1,5 +1,6 @@
 package edu.northeastern.hanafeng.chatsystem.server.services;
 
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.RoomBroadcastSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,8 +21,8 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-@Profile("server")
-public class StompSubscriptionService {
+@Profile("server & !embedded")
+public class StompSubscriptionService implements RoomBroadcastSource {
 
     private final ConsumerDiscoveryService consumerDiscoveryService;
     private final WebSocketStompClient webSocketStompClient;
@@ -236,6 +237,7 @@ public class StompSubscriptionService {
      * This method is async to avoid blocking WebSocket connection establishment
      */
     @Async
+    @Override
     public void subscribe(String roomId) {
         // Check if handler is registered
         if (sessionHandler == null) {
@@ -280,6 +282,7 @@ public class StompSubscriptionService {
      * Unsubscribe from a room's STOMP topic
      * Note: This method is NOT async when called from @PreDestroy to ensure cleanup completes
      */
+    @Override
     public void unsubscribe(String roomId) {
         // Get and remove the subscription
         StompSession.Subscription subscription = subscriptions.remove(roomId);
@@ -0,0 +1,125 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogAnalyzerTest {
+
+    private static final long START_EPOCH_MICROS = 1_700_000_000_000_000L;
+    private static final int RECORDS = 64;
+    private static final int SEGMENT_RECORDS = 16;
+    private static final int OUT_OF_ORDER_USER = 9;
+
+    @TempDir
+    Path directory;
+
+    private List<Path> segments;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Background traffic of users 1-4 in order; user 9 breaks the order right at the leaf boundaries of
+        // an 8-record split (8, 16, 32, 48 and the segment boundaries 16, 32, 48 among them) and inside one leaf
+        EventRingBuffer ring = new EventRingBuffer(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            long timestamp = START_EPOCH_MICROS + i * 1000L;
+            switch (i) {
+                case 7 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 5, 50, EventRecord.ACK, EventRecord.TEXT);
+                case 8 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 3, 50, EventRecord.ACK, EventRecord.TEXT);
+                case 15 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 8, 50, EventRecord.ACK, EventRecord.TEXT);
+                case 16 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 8, 50, EventRecord.ACK, EventRecord.TEXT);
+                case 31 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 4, 70, EventRecord.BROADCAST,
+                        EventRecord.TEXT);
+                case 32 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 2, 70, EventRecord.BROADCAST,
+                        EventRecord.TEXT);
+                case 47 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 10, -1, EventRecord.SEND, EventRecord.TEXT);
+                case 48 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 10, -1, EventRecord.SEND, EventRecord.TEXT);
+                case 52 -> ring.offer(timestamp, OUT_OF_ORDER_USER, 1, 9, -1, EventRecord.SEND, EventRecord.TEXT);
+                default -> {
+                    int userId = 1 + i % 4;
+                    boolean send = (i / 4) % 2 == 0;
+                    ring.offer(timestamp, userId, 1 + userId % 2, i / 8, send ? -1 : 100 + i,
+                            send ? EventRecord.SEND : EventRecord.ACK, EventRecord.TEXT);
+                }
+            }
+        }
+        EventSegmentWriter writer = new EventSegmentWriter(directory, EventLogSegment.runPrefix("20260101_000000"),
+                EventLogSegment.HEADER_SIZE + SEGMENT_RECORDS * EventRecord.SIZE, START_EPOCH_MICROS);
+        ring.drain(writer::write, RECORDS);
+        writer.close();
+        segments = writer.getSegments();
+    }
+
+    @Test
+    void testAnalyze_WholeRangeLeaf_FindsBoundaryViolations() throws IOException {
+        // When
+        EventLogAnalysis analysis = analyze(1, Long.MAX_VALUE);
+
+        // Then
+        assertEquals(RECORDS / SEGMENT_RECORDS, segments.size());
+        assertEquals(RECORDS, analysis.records);
+        assertEquals(1, analysis.violations(EventLogAnalysis.ACK_KIND)[OUT_OF_ORDER_USER]);
+        assertEquals(1, analysis.violations(EventLogAnalysis.BROADCAST_KIND)[OUT_OF_ORDER_USER]);
+        assertEquals(1, analysis.violations(EventLogAnalysis.SEND_KIND)[OUT_OF_ORDER_USER]);
+        assertEquals(1, analysis.duplicates[EventLogAnalysis.ACK_KIND]);
+        assertEquals(1, analysis.duplicates[EventLogAnalysis.SEND_KIND]);
+        assertEquals(0, analysis.duplicates[EventLogAnalysis.BROADCAST_KIND]);
+        for (int userId = 1; userId <= 4; userId++) {
+            for (int kind = 0; kind < EventLogAnalysis.ORDERED_KINDS; kind++) {
+                assertEquals(0, analysis.violations(kind)[userId], "user " + userId + " kind " + kind);
+            }
+        }
+        assertEquals(2, analysis.latency(EventLogAnalysis.BROADCAST_KIND).getTotalCount());
+    }
+
+    @Test
+    void testAnalyze_ResultIndependentOfSplit() throws IOException {
+        // Given
+        EventLogAnalysis sequential = analyze(1, Long.MAX_VALUE);
+
+        // When
+        EventLogAnalysis byLeafBoundaries = analyze(4, 8);
+        EventLogAnalysis perRecord = analyze(4, 1);
+
+        // Then
+        assertSameAnalysis(sequential, byLeafBoundaries);
+        assertSameAnalysis(sequential, perRecord);
+    }
+
+    private EventLogAnalysis analyze(int parallelism, long leafRecords) throws IOException {
+        EventLogAnalyzer analyzer = new EventLogAnalyzer(segments, 10, parallelism, leafRecords);
+        analyzer.analyze();
+        return (EventLogAnalysis) ReflectionTestUtils.getField(analyzer, "analysis");
+    }
+
+    private static void assertSameAnalysis(EventLogAnalysis expected, EventLogAnalysis actual) {
+        assertEquals(expected.records, actual.records);
+        assertEquals(expected.firstMicros, actual.firstMicros);
+        assertEquals(expected.lastMicros, actual.lastMicros);
+        assertArrayEquals(expected.counts, actual.counts);
+        assertArrayEquals(expected.duplicates, actual.duplicates);
+        for (int kind = 0; kind < EventLogAnalysis.ORDERED_KINDS; kind++) {
+            assertArrayEquals(expected.violations(kind), actual.violations(kind),
+                    EventLogAnalysis.ORDERED_KIND_NAMES[kind]);
+            Histogram expectedLatency = expected.latency(kind);
+            Histogram actualLatency = actual.latency(kind);
+            assertEquals(expectedLatency.getTotalCount(), actualLatency.getTotalCount());
+            assertEquals(expectedLatency.getMaxValue(), actualLatency.getMaxValue());
+            assertEquals(expectedLatency.getMean(), actualLatency.getMean());
+        }
+        assertEquals(expected.acksPerBucket.keySet(), actual.acksPerBucket.keySet());
+        expected.acksPerBucket.forEach((roomId, buckets) ->
+                assertArrayEquals(buckets, actual.acksPerBucket.get(roomId), "ACKs of room " + roomId));
+        assertEquals(expected.sendsPerBucket.keySet(), actual.sendsPerBucket.keySet());
+        expected.sendsPerBucket.forEach((roomId, buckets) ->
+                assertArrayEquals(buckets, actual.sendsPerBucket.get(roomId), "sends of room " + roomId));
+    }
+}
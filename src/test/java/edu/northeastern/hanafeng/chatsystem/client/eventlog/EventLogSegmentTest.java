@@ -0,0 +1,104 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip_EveryFieldThroughRingWriterAndReader() throws IOException {
+        // Given
+        EventRingBuffer ring = new EventRingBuffer(8);
+        ring.offer(1_700_000_000_123_456L, 42, 7, 3, 1500, EventRecord.ACK, EventRecord.TEXT);
+        ring.offer(1_700_000_000_999_999L, Integer.MAX_VALUE, 20, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                EventRecord.BROADCAST, EventRecord.JOIN);
+        ring.offer(0L, 0, 0, -1, -1, EventRecord.ERROR, EventRecord.UNKNOWN_TYPE);
+        EventSegmentWriter writer = new EventSegmentWriter(directory, EventLogSegment.runPrefix("20260101_000000"),
+                1 << 16, 1_700_000_000_000_000L);
+
+        // When
+        ring.drain(writer::write, 10);
+        writer.close();
+        EventLogSegment segment = EventLogSegment.open(writer.getSegments().get(0));
+        ByteBuffer records = segment.records();
+
+        // Then
+        assertEquals(3, segment.getRecordCount());
+        assertEquals(1_700_000_000_000_000L, segment.getStartEpochMicros());
+        assertRecord(records, 0, 1_700_000_000_123_456L, 42, 7, 3, 1500, EventRecord.ACK, EventRecord.TEXT);
+        assertRecord(records, 1, 1_700_000_000_999_999L, Integer.MAX_VALUE, 20, Integer.MAX_VALUE,
+                Integer.MAX_VALUE, EventRecord.BROADCAST, EventRecord.JOIN);
+        assertRecord(records, 2, 0L, 0, 0, -1, -1, EventRecord.ERROR, EventRecord.UNKNOWN_TYPE);
+        assertEquals("BROADCAST", EventRecord.eventName(EventRecord.eventType(records, EventRecord.SIZE)));
+        assertEquals("JOIN", EventRecord.messageName(EventRecord.messageType(records, EventRecord.SIZE)));
+    }
+
+    @Test
+    void testRecords_IndependentViews() throws IOException {
+        // Given
+        EventSegmentWriter writer = new EventSegmentWriter(directory, EventLogSegment.runPrefix("20260101_000000"),
+                1 << 16, 0);
+        writer.write(5, 0, 0, 0);
+        writer.close();
+        EventLogSegment segment = EventLogSegment.open(writer.getSegments().get(0));
+
+        // When
+        segment.records().position(EventRecord.SIZE);
+
+        // Then
+        assertEquals(0, segment.records().position());
+        assertEquals(EventRecord.SIZE, segment.records().remaining());
+    }
+
+    @Test
+    void testSegmentsOf_DirectoryPicksLatestRun() throws IOException {
+        // Given
+        Files.createFile(directory.resolve(EventLogSegment.runPrefix("20260101_000000") + "_00000.bin"));
+        Files.createFile(directory.resolve(EventLogSegment.runPrefix("20260102_000000") + "_00001.bin"));
+        Files.createFile(directory.resolve(EventLogSegment.runPrefix("20260102_000000") + "_00000.bin"));
+        Files.createFile(directory.resolve("unrelated.bin"));
+
+        // When
+        List<Path> segments = EventLogSegment.segmentsOf(directory);
+
+        // Then
+        assertEquals(List.of(directory.resolve("user_events_20260102_000000_00000.bin"),
+                directory.resolve("user_events_20260102_000000_00001.bin")), segments);
+        Path file = segments.get(0);
+        assertEquals(List.of(file), EventLogSegment.segmentsOf(file));
+    }
+
+    @Test
+    void testOpen_NotASegment_Throws() throws IOException {
+        // Given
+        Path tooShort = Files.write(directory.resolve("short.bin"), new byte[10]);
+        Path wrongMagic = Files.write(directory.resolve("magic.bin"), new byte[EventLogSegment.HEADER_SIZE]);
+
+        // Then
+        assertThrows(IOException.class, () -> EventLogSegment.open(tooShort));
+        assertThrows(IOException.class, () -> EventLogSegment.open(wrongMagic));
+    }
+
+    private static void assertRecord(ByteBuffer records, int index, long timestamp, int userId, int roomId,
+                                     int sequence, int latency, byte eventType, byte messageType) {
+        int offset = index * EventRecord.SIZE;
+        assertEquals(timestamp, EventRecord.timestampMicros(records, offset));
+        assertEquals(userId, EventRecord.userId(records, offset));
+        assertEquals(roomId, EventRecord.roomId(records, offset));
+        assertEquals(sequence, EventRecord.sequence(records, offset));
+        assertEquals(latency, EventRecord.latencyMicros(records, offset));
+        assertEquals(eventType, EventRecord.eventType(records, offset));
+        assertEquals(messageType, EventRecord.messageType(records, offset));
+    }
+}
@@ -0,0 +1,157 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingBufferTest {
+
+    @Test
+    void testConstructor_CapacityNotPowerOfTwo_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new EventRingBuffer(6));
+        assertThrows(IllegalArgumentException.class, () -> new EventRingBuffer(1));
+        assertEquals(8, new EventRingBuffer(8).getCapacity());
+    }
+
+    @Test
+    void testOffer_FullRing_DropsAndCounts() {
+        // Given
+        EventRingBuffer ring = new EventRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(offer(ring, i));
+        }
+
+        // When
+        boolean accepted = offer(ring, 4);
+        offer(ring, 5);
+
+        // Then
+        assertFalse(accepted);
+        assertEquals(2, ring.getDropped());
+        assertEquals(4, ring.getPending());
+        assertEquals(List.of(0L, 1L, 2L, 3L), drainTimestamps(ring, 10));
+    }
+
+    @Test
+    void testWraparound_KeepsOrderAcrossManyLaps() {
+        // Given
+        EventRingBuffer ring = new EventRingBuffer(4);
+        List<Long> drained = new ArrayList<>();
+        long next = 0;
+
+        // When: fill three slots, drain two, repeatedly, so the indexes lap the ring many times
+        for (int lap = 0; lap < 50; lap++) {
+            for (int i = 0; i < 3; i++) {
+                if (offer(ring, next)) {
+                    next++;
+                }
+            }
+            drained.addAll(drainTimestamps(ring, 2));
+        }
+        drained.addAll(drainTimestamps(ring, 10));
+
+        // Then
+        assertEquals(next, drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            assertEquals(i, drained.get(i));
+        }
+        assertEquals(150 - next, ring.getDropped());
+        assertEquals(0, ring.getPending());
+    }
+
+    @Test
+    void testDrain_PartialBatchThenFreedSlotsReused() {
+        // Given
+        EventRingBuffer ring = new EventRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            offer(ring, i);
+        }
+
+        // When
+        List<Long> first = drainTimestamps(ring, 3);
+        boolean[] accepted = {offer(ring, 4), offer(ring, 5), offer(ring, 6), offer(ring, 7)};
+
+        // Then
+        assertEquals(List.of(0L, 1L, 2L), first);
+        assertArrayEquals(new boolean[] {true, true, true, false}, accepted);
+        assertEquals(List.of(3L, 4L, 5L, 6L), drainTimestamps(ring, 10));
+        assertEquals(1, ring.getDropped());
+    }
+
+    @Test
+    void testOffer_PacksAllFields() {
+        // Given
+        EventRingBuffer ring = new EventRingBuffer(2);
+        ring.offer(123_456_789L, Integer.MAX_VALUE, -1, -1, Integer.MAX_VALUE, EventRecord.ACK_FAILED,
+                EventRecord.LEAVE);
+
+        // When
+        long[][] words = new long[1][];
+        ring.drain((w0, w1, w2, w3) -> words[0] = new long[] {w0, w1, w2, w3}, 1);
+
+        // Then
+        assertEquals(123_456_789L, words[0][0]);
+        assertEquals(Integer.MAX_VALUE, (int) (words[0][1] >>> 32));
+        assertEquals(-1, (int) words[0][1]);
+        assertEquals(-1, (int) (words[0][2] >>> 32));
+        assertEquals(Integer.MAX_VALUE, (int) words[0][2]);
+        assertEquals(EventRecord.ACK_FAILED, (byte) (words[0][3] >>> 56));
+        assertEquals(EventRecord.LEAVE, (byte) (words[0][3] >>> 48));
+    }
+
+    @Test
+    void testConcurrentProducers_EveryEventDrainedOrDropped() throws InterruptedException {
+        // Given
+        EventRingBuffer ring = new EventRingBuffer(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(i, producer, 0, i, 0, EventRecord.SEND, EventRecord.TEXT);
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        // When
+        long[] lastPerProducer = {-1, -1, -1, -1};
+        long[] drained = {0};
+        boolean[] ordered = {true};
+        EventRingBuffer.RecordSink sink = (w0, w1, w2, w3) -> {
+            int producer = (int) (w1 >>> 32);
+            ordered[0] &= w0 > lastPerProducer[producer];
+            lastPerProducer[producer] = w0;
+            drained[0]++;
+        };
+        while (done.getCount() > 0) {
+            ring.drain(sink, 16);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        while (ring.drain(sink, 1024) > 0) {
+            // drain the rest
+        }
+
+        // Then
+        assertEquals((long) producers * perProducer, drained[0] + ring.getDropped());
+        assertTrue(ordered[0], "events of one producer drained out of order");
+    }
+
+    private static boolean offer(EventRingBuffer ring, long timestamp) {
+        return ring.offer(timestamp, 1, 1, (int) timestamp, 0, EventRecord.SEND, EventRecord.TEXT);
+    }
+
+    private static List<Long> drainTimestamps(EventRingBuffer ring, int max) {
+        List<Long> timestamps = new ArrayList<>();
+        ring.drain((w0, w1, w2, w3) -> timestamps.add(w0), max);
+        return timestamps;
+    }
+}
@@ -0,0 +1,99 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSegmentWriterTest {
+
+    private static final String PREFIX = EventLogSegment.runPrefix("20260101_120000");
+    private static final long START_EPOCH_MICROS = 1_767_268_800_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWrite_SegmentFull_RollsOverAndTruncatesOnClose() throws IOException {
+        // Given: room for three records per segment
+        EventSegmentWriter writer = new EventSegmentWriter(directory, PREFIX,
+                EventLogSegment.HEADER_SIZE + 3L * EventRecord.SIZE, START_EPOCH_MICROS);
+
+        // When
+        for (int i = 0; i < 7; i++) {
+            writer.write(i, 0, 0, 0);
+        }
+        writer.close();
+
+        // Then
+        assertEquals(7, writer.getTotalRecords());
+        List<Path> segments = writer.getSegments();
+        assertEquals(List.of(directory.resolve(PREFIX + "_00000.bin"), directory.resolve(PREFIX + "_00001.bin"),
+                directory.resolve(PREFIX + "_00002.bin")), segments);
+        assertEquals(segments, EventLogSegment.segmentsOf(directory));
+        int[] expectedCounts = {3, 3, 1};
+        long timestamp = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            EventLogSegment segment = EventLogSegment.open(segments.get(i));
+            assertEquals(i, segment.getIndex());
+            assertEquals(START_EPOCH_MICROS, segment.getStartEpochMicros());
+            assertEquals(expectedCounts[i], segment.getRecordCount());
+            assertEquals(EventLogSegment.HEADER_SIZE + (long) expectedCounts[i] * EventRecord.SIZE,
+                    Files.size(segments.get(i)));
+            ByteBuffer records = segment.records();
+            for (int r = 0; r < segment.getRecordCount(); r++) {
+                assertEquals(timestamp++, EventRecord.timestampMicros(records, r * EventRecord.SIZE));
+            }
+        }
+    }
+
+    @Test
+    void testConstructor_RoundsSegmentDownToWholeRecords() throws IOException {
+        // Given: two and a half records of space
+        EventSegmentWriter writer = new EventSegmentWriter(directory, PREFIX,
+                EventLogSegment.HEADER_SIZE + 2L * EventRecord.SIZE + EventRecord.SIZE / 2, START_EPOCH_MICROS);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            writer.write(i, 0, 0, 0);
+        }
+        writer.close();
+
+        // Then
+        assertEquals(2, writer.getSegments().size());
+        assertEquals(2, EventLogSegment.open(writer.getSegments().get(0)).getRecordCount());
+    }
+
+    @Test
+    void testCommit_ReaderSeesOnlyCommittedRecords() throws IOException {
+        // Given
+        EventSegmentWriter writer = new EventSegmentWriter(directory, PREFIX, 1 << 16, START_EPOCH_MICROS);
+        writer.write(1, 0, 0, 0);
+        writer.write(2, 0, 0, 0);
+        writer.commit();
+        writer.write(3, 0, 0, 0);
+
+        // When
+        EventLogSegment whileWriting = EventLogSegment.open(writer.getSegments().get(0));
+        writer.close();
+        EventLogSegment closed = EventLogSegment.open(writer.getSegments().get(0));
+
+        // Then
+        assertEquals(2, whileWriting.getRecordCount());
+        assertEquals(3, closed.getRecordCount());
+    }
+
+    @Test
+    void testConstructor_InvalidSegmentSize_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EventSegmentWriter(directory, PREFIX, EventLogSegment.HEADER_SIZE, START_EPOCH_MICROS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EventSegmentWriter(directory, PREFIX, 1L << 32, START_EPOCH_MICROS));
+    }
+}
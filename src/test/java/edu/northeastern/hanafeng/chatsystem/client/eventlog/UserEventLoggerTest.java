@@ -0,0 +1,100 @@
+package edu.northeastern.hanafeng.chatsystem.client.eventlog;
+
+import edu.northeastern.hanafeng.chatsystem.client.support.MessageIds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserEventLoggerTest {
+
+    @TempDir
+    Path directory;
+
+    private UserEventLogger userEventLogger;
+
+    @BeforeEach
+    void setUp() {
+        userEventLogger = new UserEventLogger();
+        ReflectionTestUtils.setField(userEventLogger, "logsDirectory", directory.toString());
+        ReflectionTestUtils.setField(userEventLogger, "enabled", true);
+        ReflectionTestUtils.setField(userEventLogger, "ringCapacity", 1024);
+        ReflectionTestUtils.setField(userEventLogger, "segmentBytes", EventLogSegment.HEADER_SIZE + 100L * EventRecord.SIZE);
+    }
+
+    @Test
+    void testShutdown_DrainsRingAndClosesSegments() throws IOException {
+        // Given
+        userEventLogger.initialize();
+        for (int i = 1; i <= 250; i++) {
+            userEventLogger.logEvent(EventRecord.SEND, 9, 2, "TEXT", MessageIds.format(9, i), -1);
+        }
+
+        // When
+        userEventLogger.shutdown();
+        userEventLogger.logEvent(EventRecord.SEND, 9, 2, "TEXT", MessageIds.format(9, 251), -1);
+
+        // Then
+        List<Path> segments = EventLogSegment.segmentsOf(directory);
+        assertEquals(3, segments.size());
+        int sequence = 1;
+        for (Path file : segments) {
+            EventLogSegment segment = EventLogSegment.open(file);
+            assertEquals(EventLogSegment.HEADER_SIZE + (long) segment.getRecordCount() * EventRecord.SIZE,
+                    Files.size(file), "segment not truncated on close");
+            ByteBuffer records = segment.records();
+            for (int r = 0; r < segment.getRecordCount(); r++) {
+                int offset = r * EventRecord.SIZE;
+                assertEquals(9, EventRecord.userId(records, offset));
+                assertEquals(2, EventRecord.roomId(records, offset));
+                assertEquals(sequence++, EventRecord.sequence(records, offset));
+                assertEquals(-1, EventRecord.latencyMicros(records, offset));
+                assertEquals(EventRecord.TEXT, EventRecord.messageType(records, offset));
+            }
+        }
+        assertEquals(251, sequence);
+        assertEquals(0, userEventLogger.getDroppedCount());
+    }
+
+    @Test
+    void testShutdown_WriterOverrunsWait_WriterClosesSegment() throws Exception {
+        // Given: shutdown has already given up on a writer that is still running
+        userEventLogger.initialize();
+        userEventLogger.logEvent(EventRecord.ACK, 1, 1, "JOIN", MessageIds.format(1, 0), 10);
+        ReflectionTestUtils.setField(userEventLogger, "abandoned", true);
+        Thread writerThread = (Thread) ReflectionTestUtils.getField(userEventLogger, "writerThread");
+
+        // When
+        writerThread.join(5000);
+
+        // Then: the writer stopped and closed (truncated) the segment on its way out
+        assertFalse(writerThread.isAlive());
+        Path file = EventLogSegment.segmentsOf(directory).get(0);
+        EventLogSegment segment = EventLogSegment.open(file);
+        assertEquals(EventLogSegment.HEADER_SIZE + (long) segment.getRecordCount() * EventRecord.SIZE, Files.size(file));
+        userEventLogger.shutdown();
+    }
+
+    @Test
+    void testDisabled_WritesNothing() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(userEventLogger, "enabled", false);
+        userEventLogger.initialize();
+
+        // When
+        userEventLogger.logEvent(EventRecord.SEND, 1, 1, "TEXT", MessageIds.format(1, 1), -1);
+        userEventLogger.shutdown();
+
+        // Then
+        assertTrue(EventLogSegment.segmentsOf(directory).isEmpty());
+        assertEquals(0, userEventLogger.getDroppedCount());
+    }
+}
@@ -0,0 +1,195 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyStatisticsTest {
+
+    private LatencyStatistics latencyStatistics;
+
+    @BeforeEach
+    void setUp() {
+        latencyStatistics = new LatencyStatistics();
+        ReflectionTestUtils.setField(latencyStatistics, "enabled", true);
+        ReflectionTestUtils.setField(latencyStatistics, "trackingCapacity", 4096);
+        ReflectionTestUtils.setField(latencyStatistics, "trackingTimeoutMs", 1000L);
+        latencyStatistics.initialize();
+    }
+
+    @Test
+    void testRecordAck_SentMessage_ReturnsLatency() {
+        // Given
+        String messageId = UUID.randomUUID().toString();
+        latencyStatistics.recordSend(messageId);
+
+        // When
+        long micros = latencyStatistics.recordAck(1, "TEXT", messageId);
+
+        // Then
+        assertTrue(micros >= 0);
+        assertEquals(1, latencyStatistics.takeWindow(LatencyStatistics.Kind.ACK).getTotalCount());
+        assertEquals(0, latencyStatistics.takeWindow(LatencyStatistics.Kind.BROADCAST).getTotalCount());
+    }
+
+    @Test
+    void testRecordAck_NotSentOrAlreadyAcked_ReturnsMiss() {
+        // Given
+        String messageId = UUID.randomUUID().toString();
+        latencyStatistics.recordSend(messageId);
+        latencyStatistics.recordAck(1, "TEXT", messageId);
+
+        // When / Then
+        assertEquals(-1, latencyStatistics.recordAck(1, "TEXT", messageId));
+        assertEquals(-1, latencyStatistics.recordAck(1, "TEXT", UUID.randomUUID().toString()));
+        assertEquals(-1, latencyStatistics.recordBroadcast(1, "TEXT", "not-a-uuid"));
+        assertEquals(-1, latencyStatistics.recordBroadcast(1, "TEXT", null));
+    }
+
+    @Test
+    void testRecordSend_InvalidId_CountsUntracked() {
+        // When
+        latencyStatistics.recordSend("not-a-uuid");
+        latencyStatistics.recordSend(null);
+
+        // Then
+        assertEquals(2, latencyStatistics.getUntrackedCount());
+    }
+
+    @Test
+    void testRecordAck_Disabled_RecordsNothing() {
+        // Given
+        ReflectionTestUtils.setField(latencyStatistics, "enabled", false);
+        String messageId = UUID.randomUUID().toString();
+        latencyStatistics.recordSend(messageId);
+
+        // When
+        long micros = latencyStatistics.recordAck(1, "TEXT", messageId);
+
+        // Then
+        assertEquals(-1, micros);
+        assertTrue(latencyStatistics.summarize().isEmpty());
+    }
+
+    @Test
+    void testSummarize_KnownLatencies_ReportsPercentiles() {
+        // Given: acks for messages sent 1..100 ms ago, in room 3
+        List<UUID> ids = IntStream.rangeClosed(1, 100).mapToObj(i -> UUID.randomUUID()).toList();
+        long now = System.nanoTime();
+        for (int i = 1; i <= 100; i++) {
+            sentAt(ids.get(i - 1), now - TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        for (UUID id : ids) {
+            latencyStatistics.recordAck(3, "TEXT", id.toString());
+        }
+        // Every sample is its send offset plus at most the time spent recording
+        double slackMs = (System.nanoTime() - now) / 1e6 + 1.0;
+
+        // When
+        latencyStatistics.finish();
+        List<LatencyStatistics.SeriesSummary> rows = latencyStatistics.summarize();
+
+        // Then
+        assertEquals(2, rows.size());
+        LatencyStatistics.SeriesSummary room = rows.get(0);
+        assertEquals(LatencyStatistics.Kind.ACK, room.kind());
+        assertEquals(3, room.roomId());
+        assertEquals("TEXT", room.messageType());
+        assertEquals(100, room.count());
+        assertBetween(50.0, 50.0 + slackMs, room.p50Ms());
+        assertBetween(90.0, 90.0 + slackMs, room.p90Ms());
+        assertBetween(99.0, 99.0 + slackMs, room.p99Ms());
+        assertBetween(100.0, 100.0 + slackMs, room.maxMs());
+        assertTrue(room.p50Ms() <= room.p90Ms() && room.p90Ms() <= room.p99Ms() && room.p99Ms() <= room.maxMs());
+
+        LatencyStatistics.SeriesSummary all = rows.get(1);
+        assertEquals(0, all.roomId());
+        assertEquals("ALL", all.messageType());
+        assertEquals(room.count(), all.count());
+        assertEquals(room.p50Ms(), all.p50Ms());
+    }
+
+    @Test
+    void testSummarize_OrdersByKindRoomAndType_ThenAllRooms() {
+        // Given
+        ackAndBroadcast(2, "TEXT");
+        ackAndBroadcast(1, "TEXT");
+        ackAndBroadcast(1, "JOIN");
+
+        // When
+        latencyStatistics.finish();
+        List<LatencyStatistics.SeriesSummary> rows = latencyStatistics.summarize();
+
+        // Then
+        assertEquals(List.of("ACK 1 JOIN", "ACK 1 TEXT", "ACK 2 TEXT",
+                        "BROADCAST 1 JOIN", "BROADCAST 1 TEXT", "BROADCAST 2 TEXT",
+                        "ACK 0 ALL", "BROADCAST 0 ALL"),
+                rows.stream().map(row -> row.kind() + " " + row.roomId() + " " + row.messageType()).toList());
+        assertEquals(3, rows.get(6).count());
+        assertEquals(3, rows.get(7).count());
+    }
+
+    @Test
+    void testFinish_CollectsIntervalAndExpiresUnacknowledged() {
+        // Given
+        UUID lost = UUID.randomUUID();
+        sentAt(lost, System.nanoTime() - TimeUnit.SECONDS.toNanos(5));
+        ackAndBroadcast(1, "TEXT");
+
+        // When
+        latencyStatistics.finish();
+        latencyStatistics.finish();
+
+        // Then
+        assertEquals(1, latencyStatistics.getUnacknowledgedCount());
+        assertEquals(-1, latencyStatistics.recordAck(1, "TEXT", lost.toString()));
+        List<LatencyStatistics.IntervalSample> intervals = latencyStatistics.getIntervals();
+        assertEquals(2, intervals.size());
+        assertEquals(LatencyStatistics.Kind.ACK, intervals.get(0).kind());
+        assertEquals(1, intervals.get(0).count());
+        assertEquals(LatencyStatistics.Kind.BROADCAST, intervals.get(1).kind());
+        assertEquals(1, intervals.get(1).count());
+    }
+
+    @Test
+    void testTakeWindow_ResetsBetweenTakes() {
+        // Given
+        ackAndBroadcast(1, "TEXT");
+        ackAndBroadcast(1, "TEXT");
+
+        // When
+        Histogram first = latencyStatistics.takeWindow(LatencyStatistics.Kind.BROADCAST);
+        Histogram second = latencyStatistics.takeWindow(LatencyStatistics.Kind.BROADCAST);
+
+        // Then
+        assertEquals(2, first.getTotalCount());
+        assertEquals(0, second.getTotalCount());
+    }
+
+    private void ackAndBroadcast(int roomId, String messageType) {
+        String messageId = UUID.randomUUID().toString();
+        latencyStatistics.recordSend(messageId);
+        latencyStatistics.recordAck(roomId, messageType, messageId);
+        latencyStatistics.recordBroadcast(roomId, messageType, messageId);
+    }
+
+    private static void assertBetween(double low, double high, double actual) {
+        // HdrHistogram with 3 significant digits may round a value down by up to 0.1%
+        assertTrue(actual >= low * 0.999 && actual <= high, actual + " not in [" + low + ", " + high + "]");
+    }
+
+    private void sentAt(UUID id, long sendNanos) {
+        MessageCorrelationTable inFlight =
+                (MessageCorrelationTable) ReflectionTestUtils.getField(latencyStatistics, "inFlight");
+        assertNotNull(inFlight);
+        assertTrue(inFlight.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), sendNanos));
+    }
+}
@@ -0,0 +1,180 @@
+package edu.northeastern.hanafeng.chatsystem.client.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCorrelationTableTest {
+
+    private final MessageCorrelationTable table = new MessageCorrelationTable(1024);
+
+    @Test
+    void testComplete_RegisteredMessage_ReturnsSendTime() {
+        // Given
+        UUID id = UUID.randomUUID();
+        table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), 1_000L);
+
+        // When
+        long sentAt = complete(id, MessageCorrelationTable.ACKED);
+
+        // Then
+        assertEquals(1_000L, sentAt);
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testComplete_UnknownMessage_ReturnsMiss() {
+        // Given
+        table.register(1L, 2L, 1_000L);
+
+        // When
+        long sentAt = complete(UUID.randomUUID(), MessageCorrelationTable.ACKED);
+
+        // Then
+        assertEquals(-1, sentAt);
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testComplete_SameEventTwice_SecondIsMiss() {
+        // Given
+        UUID id = UUID.randomUUID();
+        table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), 1_000L);
+        complete(id, MessageCorrelationTable.BROADCAST);
+
+        // When
+        long sentAt = complete(id, MessageCorrelationTable.BROADCAST);
+
+        // Then
+        assertEquals(-1, sentAt);
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testComplete_AckAndBroadcast_RemovesEntry() {
+        // Given
+        UUID id = UUID.randomUUID();
+        table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), 1_000L);
+
+        // When
+        long ackSentAt = complete(id, MessageCorrelationTable.ACKED);
+        long broadcastSentAt = complete(id, MessageCorrelationTable.BROADCAST);
+
+        // Then
+        assertEquals(1_000L, ackSentAt);
+        assertEquals(1_000L, broadcastSentAt);
+        assertEquals(0, table.size());
+        assertEquals(-1, complete(id, MessageCorrelationTable.ACKED));
+    }
+
+    @Test
+    void testRegister_Resend_RestartsTimingAndClearsEvents() {
+        // Given
+        UUID id = UUID.randomUUID();
+        table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), 1_000L);
+        complete(id, MessageCorrelationTable.ACKED);
+
+        // When
+        table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), 5_000L);
+
+        // Then
+        assertEquals(1, table.size());
+        assertEquals(5_000L, complete(id, MessageCorrelationTable.ACKED));
+    }
+
+    @Test
+    void testExpire_CountsOnlyUnacknowledged() {
+        // Given
+        UUID acked = UUID.randomUUID();
+        UUID lost = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        table.register(acked.getMostSignificantBits(), acked.getLeastSignificantBits(), 100L);
+        table.register(lost.getMostSignificantBits(), lost.getLeastSignificantBits(), 200L);
+        table.register(recent.getMostSignificantBits(), recent.getLeastSignificantBits(), 900L);
+        complete(acked, MessageCorrelationTable.ACKED);
+
+        // When
+        int unacknowledged = table.expire(500L);
+
+        // Then
+        assertEquals(1, unacknowledged);
+        assertEquals(1, table.size());
+        assertEquals(-1, complete(acked, MessageCorrelationTable.BROADCAST));
+        assertEquals(-1, complete(lost, MessageCorrelationTable.ACKED));
+        assertEquals(900L, complete(recent, MessageCorrelationTable.ACKED));
+    }
+
+    @Test
+    void testExpire_ComparesAcrossNanoTimeWraparound() {
+        // Given
+        UUID id = UUID.randomUUID();
+        table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), Long.MAX_VALUE - 10);
+
+        // When
+        int unacknowledged = table.expire(Long.MIN_VALUE + 10);
+
+        // Then
+        assertEquals(1, unacknowledged);
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void testRegister_FullTable_RejectsAndKeepsExistingEntries() {
+        // Given
+        Random random = new Random(42);
+        List<UUID> tracked = new ArrayList<>();
+        UUID rejected = null;
+        while (rejected == null) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            if (table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), tracked.size())) {
+                tracked.add(id);
+            } else {
+                rejected = id;
+            }
+        }
+
+        // When
+        long rejectedSentAt = complete(rejected, MessageCorrelationTable.ACKED);
+
+        // Then
+        assertEquals(-1, rejectedSentAt);
+        assertEquals(tracked.size(), table.size());
+        for (int i = 0; i < tracked.size(); i++) {
+            assertEquals(i, complete(tracked.get(i), MessageCorrelationTable.ACKED));
+        }
+    }
+
+    @Test
+    void testRemove_ManyEntries_LaterProbesStillFound() {
+        // Given
+        Random random = new Random(7);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            if (table.register(id.getMostSignificantBits(), id.getLeastSignificantBits(), i)) {
+                ids.add(id);
+            }
+        }
+
+        // When
+        for (int i = 0; i < ids.size(); i += 2) {
+            complete(ids.get(i), MessageCorrelationTable.ACKED);
+            complete(ids.get(i), MessageCorrelationTable.BROADCAST);
+        }
+
+        // Then
+        assertEquals(ids.size() / 2, table.size());
+        for (int i = 1; i < ids.size(); i += 2) {
+            assertNotEquals(-1, complete(ids.get(i), MessageCorrelationTable.ACKED), "entry " + i + " lost");
+        }
+    }
+
+    private long complete(UUID id, int event) {
+        return table.complete(id.getMostSignificantBits(), id.getLeastSignificantBits(), event);
+    }
+}
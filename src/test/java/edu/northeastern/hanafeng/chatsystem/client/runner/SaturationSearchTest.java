@@ -0,0 +1,222 @@
+package edu.northeastern.hanafeng.chatsystem.client.runner;
+
+import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.config.SaturationSearchConfig;
+import edu.northeastern.hanafeng.chatsystem.client.messagehandle.MessageSequenceGenerator;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.AckTimeoutStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.BroadcastStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.CapacityReportWriter;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.CapacityStep;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.ErrorResponseStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.metrics.LatencyStatistics;
+import edu.northeastern.hanafeng.chatsystem.client.transport.WebSocketClientManager;
+import edu.northeastern.hanafeng.chatsystem.client.workload.RatePacer;
+import edu.northeastern.hanafeng.chatsystem.client.workload.WorkloadPlan;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaturationSearchTest {
+
+    private static final long STEP_MS = 50;
+
+    @Mock
+    private WorkloadPlan workloadPlan;
+
+    @Mock
+    private MessageSequenceGenerator messageSequenceGenerator;
+
+    @Mock
+    private WebSocketClientManager wsClientManager;
+
+    @Mock
+    private LatencyStatistics latencyStatistics;
+
+    @Mock
+    private BroadcastStatistics broadcastStatistics;
+
+    @Mock
+    private AckTimeoutStatistics ackTimeoutStatistics;
+
+    @Mock
+    private ErrorResponseStatistics errorResponseStatistics;
+
+    @Mock
+    private CapacityReportWriter capacityReportWriter;
+
+    private final SaturationSearchConfig config = new SaturationSearchConfig();
+    private SaturationSearch saturationSearch;
+    private RatePacer pacer;
+
+    @BeforeEach
+    void setUp() {
+        config.setEnabled(true);
+        config.setStartRate(500);
+        config.setGrowthFactor(2.0);
+        config.setMaxRate(200_000);
+        config.setTolerance(0.05);
+        config.setMaxSteps(20);
+        config.setInitialWarmupMs(0);
+        config.setWarmupMs(0);
+        config.setStepDurationMs(STEP_MS);
+        config.setCooldownMs(0);
+        // A short step's ACK count is off by scheduling jitter; the collapse past the knee is far below this
+        config.getSlo().setMinAchievedRatio(0.5);
+
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setTotalMessages(Long.MAX_VALUE);
+
+        saturationSearch = new SaturationSearch(config, clientConfig, workloadPlan, messageSequenceGenerator,
+                wsClientManager, latencyStatistics, broadcastStatistics, ackTimeoutStatistics,
+                errorResponseStatistics, capacityReportWriter);
+        when(latencyStatistics.isEnabled()).thenReturn(true);
+
+        saturationSearch.prepare();
+        ArgumentCaptor<RatePacer> pacerCaptor = ArgumentCaptor.forClass(RatePacer.class);
+        verify(workloadPlan).paceBy(pacerCaptor.capture());
+        pacer = pacerCaptor.getValue();
+    }
+
+    @Test
+    void testRun_SharpKnee_ConvergesWithinTolerance() throws InterruptedException {
+        // Given
+        double knee = 3700;
+        stubServerCurve(knee);
+
+        // When
+        saturationSearch.run();
+
+        // Then
+        Report report = captureReport();
+        assertEquals("converged", report.outcome());
+        assertTrue(report.kneeRate() <= knee, "reported knee " + report.kneeRate() + " above the real one");
+        assertTrue(report.kneeRate() >= knee * (1 - config.getTolerance()),
+                "reported knee " + report.kneeRate() + " not within tolerance");
+
+        List<Double> offered = report.steps().stream().map(CapacityStep::offeredRate).toList();
+        assertEquals(List.of(500.0, 1000.0, 2000.0, 4000.0, 3000.0, 3500.0, 3750.0, 3625.0), offered);
+        for (CapacityStep step : report.steps()) {
+            assertEquals(step.offeredRate() <= knee, step.passed(), "step at " + step.offeredRate());
+        }
+        verify(messageSequenceGenerator).stop();
+    }
+
+    @Test
+    void testRun_KneeAtEveryStartRate_Bisects() throws InterruptedException {
+        for (double knee : new double[] {650, 1234, 9999, 52_000}) {
+            // Given
+            reset(capacityReportWriter, latencyStatistics);
+            when(latencyStatistics.isEnabled()).thenReturn(true);
+            stubServerCurve(knee);
+
+            // When
+            saturationSearch.run();
+
+            // Then
+            Report report = captureReport();
+            assertEquals("converged", report.outcome(), "knee " + knee);
+            assertTrue(report.kneeRate() <= knee && report.kneeRate() >= knee * (1 - config.getTolerance()),
+                    "knee " + knee + " reported as " + report.kneeRate());
+        }
+    }
+
+    @Test
+    void testRun_MaxRateSustained_StopsAtMaxRate() throws InterruptedException {
+        // Given
+        config.setMaxRate(3000);
+        stubServerCurve(10_000);
+
+        // When
+        saturationSearch.run();
+
+        // Then
+        Report report = captureReport();
+        assertEquals("max rate met the SLO", report.outcome());
+        assertEquals(3000.0, report.kneeRate());
+        assertEquals(List.of(500.0, 1000.0, 2000.0, 3000.0),
+                report.steps().stream().map(CapacityStep::offeredRate).toList());
+    }
+
+    @Test
+    void testRun_NothingPasses_ReportsNoKnee() throws InterruptedException {
+        // Given: 500, 250, 125 all fail
+        config.setMaxSteps(3);
+        stubServerCurve(10);
+
+        // When
+        saturationSearch.run();
+
+        // Then
+        Report report = captureReport();
+        assertEquals(0.0, report.kneeRate());
+        assertEquals("step limit reached", report.outcome());
+        assertEquals(List.of(500.0, 250.0, 125.0), report.steps().stream().map(CapacityStep::offeredRate).toList());
+        assertTrue(report.steps().stream().noneMatch(CapacityStep::passed));
+        assertTrue(report.steps().get(0).violations().contains("ACK p99"));
+    }
+
+    @Test
+    void testRun_LatencyTrackingDisabled_Skips() throws InterruptedException {
+        // Given
+        when(latencyStatistics.isEnabled()).thenReturn(false);
+
+        // When
+        saturationSearch.run();
+
+        // Then
+        verify(capacityReportWriter).writeReport(eq(List.of()), eq(0.0), eq("latency tracking disabled"), any());
+        verify(latencyStatistics, never()).takeWindow(any());
+    }
+
+    /**
+     * A server that keeps up with any offered rate up to the knee at 20 ms ACK p99; past it the achieved rate
+     * collapses to a third of the knee and p99 jumps to 2 s. Like a recorder, each window holds the ACKs
+     * delivered at that rate since the previous take of the same kind.
+     */
+    private void stubServerCurve(double knee) {
+        long[] lastTakeNanos = new long[LatencyStatistics.Kind.values().length];
+        Arrays.fill(lastTakeNanos, System.nanoTime());
+        lenient().when(latencyStatistics.takeWindow(any())).thenAnswer(invocation -> {
+            LatencyStatistics.Kind kind = invocation.getArgument(0);
+            long now = System.nanoTime();
+            double seconds = (now - lastTakeNanos[kind.ordinal()]) / 1e9;
+            lastTakeNanos[kind.ordinal()] = now;
+            double rate = pacer.getRate();
+            Histogram histogram = new Histogram(TimeUnit.SECONDS.toMicros(10), 2);
+            if (rate == 0) {
+                return histogram;
+            }
+            boolean sustained = rate <= knee;
+            double achieved = sustained ? rate : knee / 3;
+            long micros = sustained ? 20_000 : 2_000_000;
+            histogram.recordValueWithCount(kind == LatencyStatistics.Kind.ACK ? micros : micros / 2,
+                    (long) Math.ceil(achieved * seconds));
+            return histogram;
+        });
+    }
+
+    private Report captureReport() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CapacityStep>> steps = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Double> knee = ArgumentCaptor.forClass(Double.class);
+        ArgumentCaptor<String> outcome = ArgumentCaptor.forClass(String.class);
+        verify(capacityReportWriter).writeReport(steps.capture(), knee.capture(), outcome.capture(), any());
+        return new Report(steps.getValue(), knee.getValue(), outcome.getValue());
+    }
+
+    private record Report(List<CapacityStep> steps, double kneeRate, String outcome) {}
+}
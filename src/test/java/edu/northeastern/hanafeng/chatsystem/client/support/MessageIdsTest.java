@@ -0,0 +1,72 @@
+package edu.northeastern.hanafeng.chatsystem.client.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageIdsTest {
+
+    @Test
+    void testFormat_IsUuidCarryingRunUserAndSequence() {
+        // When
+        UUID first = UUID.fromString(MessageIds.format(42, 7));
+        UUID second = UUID.fromString(MessageIds.format(43, 8));
+
+        // Then
+        assertEquals(first.getMostSignificantBits(), second.getMostSignificantBits(), "run ID differs");
+        assertEquals(42L, first.getLeastSignificantBits() >>> 32);
+        assertEquals(7L, first.getLeastSignificantBits() & 0xFFFFFFFFL);
+        assertEquals(43L, second.getLeastSignificantBits() >>> 32);
+        assertEquals(8L, second.getLeastSignificantBits() & 0xFFFFFFFFL);
+    }
+
+    @Test
+    void testSequence_RoundTripsFormat() {
+        for (int sequence : new int[] {0, 1, 15, 16, 255, 65_535, 65_536, 1_000_000}) {
+            assertEquals(sequence, MessageIds.sequence(MessageIds.format(123, sequence)));
+        }
+    }
+
+    @Test
+    void testFormat_MaxUserIdAndSequence_RoundTrip() {
+        // When
+        String messageId = MessageIds.format(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        UUID uuid = UUID.fromString(messageId);
+
+        // Then
+        assertEquals(36, messageId.length());
+        assertTrue(messageId.endsWith("-7fff-ffff7fffffff"), messageId);
+        assertEquals(Integer.MAX_VALUE, uuid.getLeastSignificantBits() >>> 32);
+        assertEquals(Integer.MAX_VALUE, MessageIds.sequence(messageId));
+    }
+
+    @Test
+    void testSequence_RolloverPastMaxValue_DecodesNegative() {
+        // Given: a sequence counter that wrapped around
+        int wrapped = Integer.MAX_VALUE + 1;
+
+        // When
+        int decoded = MessageIds.sequence(MessageIds.format(1, wrapped));
+
+        // Then: keeps its 32 bits, so callers that only accept positive sequences ignore it
+        assertEquals(Integer.MIN_VALUE, decoded);
+        assertTrue(decoded < 0);
+    }
+
+    @Test
+    void testSequence_ForeignIds_ReturnMinusOne() {
+        // Given
+        String own = MessageIds.format(1, 5);
+        String otherRun = (own.charAt(0) == '0' ? '1' : '0') + own.substring(1);
+
+        // Then
+        assertEquals(-1, MessageIds.sequence(null));
+        assertEquals(-1, MessageIds.sequence(""));
+        assertEquals(-1, MessageIds.sequence(UUID.randomUUID().toString()));
+        assertEquals(-1, MessageIds.sequence(otherRun));
+        assertEquals(-1, MessageIds.sequence(own.substring(0, 35)));
+        assertEquals(-1, MessageIds.sequence(own.substring(0, 35) + "g"));
+    }
+}
@@ -0,0 +1,141 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import edu.northeastern.hanafeng.chatsystem.client.metrics.RunSummaryWriter.RunSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CellResultTest {
+
+    private static final double DELTA = 1e-3;
+
+    @Test
+    void testThroughput_NoRuns_AllNaN() {
+        // Given
+        CellResult cell = new CellResult(1, Map.of());
+
+        // When
+        CellResult.Estimate estimate = cell.throughput();
+
+        // Then
+        assertTrue(Double.isNaN(estimate.mean()));
+        assertTrue(Double.isNaN(estimate.stddev()));
+        assertTrue(Double.isNaN(estimate.ci95()));
+    }
+
+    @Test
+    void testThroughput_OneRun_MeanWithoutInterval() {
+        // Given
+        CellResult cell = cellWithThroughputs(1234.5);
+
+        // When
+        CellResult.Estimate estimate = cell.throughput();
+
+        // Then
+        assertEquals(1234.5, estimate.mean());
+        assertTrue(Double.isNaN(estimate.stddev()));
+        assertTrue(Double.isNaN(estimate.ci95()));
+    }
+
+    @Test
+    void testThroughput_TwoRuns_UsesT1() {
+        // Given: mean 2, sample stddev sqrt(2)
+        CellResult cell = cellWithThroughputs(1, 3);
+
+        // When
+        CellResult.Estimate estimate = cell.throughput();
+
+        // Then: 12.706 * sqrt(2) / sqrt(2)
+        assertEquals(2.0, estimate.mean(), DELTA);
+        assertEquals(Math.sqrt(2), estimate.stddev(), DELTA);
+        assertEquals(12.706, estimate.ci95(), DELTA);
+    }
+
+    @Test
+    void testThroughput_ThreeRuns_UsesT2() {
+        // Given: mean 12, sample stddev 2
+        CellResult cell = cellWithThroughputs(10, 12, 14);
+
+        // When
+        CellResult.Estimate estimate = cell.throughput();
+
+        // Then: 4.303 * 2 / sqrt(3)
+        assertEquals(12.0, estimate.mean(), DELTA);
+        assertEquals(2.0, estimate.stddev(), DELTA);
+        assertEquals(4.9687, estimate.ci95(), DELTA);
+    }
+
+    @Test
+    void testThroughput_LastTableEntryAndNormalBeyond() {
+        // Given: 0..30 (30 degrees of freedom) and 0..31 (31, past the table)
+        CellResult thirtyOne = cellWithThroughputs(range(31));
+        CellResult thirtyTwo = cellWithThroughputs(range(32));
+
+        // Then: stddev of 0..n-1 is sqrt(n(n+1)/12)
+        assertEquals(2.042 * Math.sqrt(31 * 32 / 12.0) / Math.sqrt(31), thirtyOne.throughput().ci95(), DELTA);
+        assertEquals(1.96 * Math.sqrt(32 * 33 / 12.0) / Math.sqrt(32), thirtyTwo.throughput().ci95(), DELTA);
+    }
+
+    @Test
+    void testAckP99_IdenticalRuns_ZeroWidthInterval() {
+        // Given
+        CellResult cell = new CellResult(1, Map.of());
+        cell.addRun(run(100, 25.0));
+        cell.addRun(run(200, 25.0));
+
+        // When
+        CellResult.Estimate estimate = cell.ackP99();
+
+        // Then
+        assertEquals(25.0, estimate.mean());
+        assertEquals(0.0, estimate.ci95());
+    }
+
+    @Test
+    void testOverlaps() {
+        CellResult.Estimate a = new CellResult.Estimate(100, 5, 10);
+        assertTrue(a.overlaps(new CellResult.Estimate(115, 5, 5)));
+        assertTrue(a.overlaps(new CellResult.Estimate(120, 5, 10)));
+        assertFalse(a.overlaps(new CellResult.Estimate(121, 5, 10)));
+        assertFalse(a.overlaps(new CellResult.Estimate(100, Double.NaN, Double.NaN)));
+    }
+
+    @Test
+    void testErrorsAndLabel() {
+        // Given
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("client.sender-threads", "64");
+        settings.put("server.port", "9090");
+        CellResult cell = new CellResult(4, settings);
+        cell.addRun(new RunSummary(100, 97, 1, 0, 0, 10, 1, 2, 3, 0, 0, 0, 2, 3, 0));
+        cell.addRun(new RunSummary(100, 100, 4, 0, 0, 10, 1, 2, 3, 0, 0, 5, 0, 0, 0));
+
+        // Then: failed sends, ACK failures and error responses; ACK timeouts are not errors here
+        assertEquals(10, cell.errors());
+        assertEquals("sender-threads=64, server.port=9090", cell.label());
+    }
+
+    static RunSummary run(double throughput, double ackP99Ms) {
+        return new RunSummary(1000, 1000, 0, 1000, 1000, throughput, ackP99Ms / 2, ackP99Ms, ackP99Ms * 2,
+                0, 0, 0, 0, 0, 0);
+    }
+
+    private static CellResult cellWithThroughputs(double... throughputs) {
+        CellResult cell = new CellResult(1, Map.of());
+        for (double throughput : throughputs) {
+            cell.addRun(run(throughput, 10));
+        }
+        return cell;
+    }
+
+    private static double[] range(int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+}
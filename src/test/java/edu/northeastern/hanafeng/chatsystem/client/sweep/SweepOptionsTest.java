@@ -0,0 +1,82 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepOptionsTest {
+
+    @Test
+    void testCells_FirstAxisVariesSlowest() {
+        // Given
+        SweepOptions options = SweepOptions.parse(new String[] {
+                "--sweep.axis=client.sender-threads:32,64",
+                "--sweep.axis=client.dispatcher-threads: 2, 5 ,10"});
+
+        // When
+        List<Map<String, String>> cells = options.cells();
+
+        // Then
+        assertEquals(6, cells.size());
+        List<String> labels = cells.stream()
+                .map(cell -> cell.get("client.sender-threads") + "/" + cell.get("client.dispatcher-threads"))
+                .toList();
+        assertEquals(List.of("32/2", "32/5", "32/10", "64/2", "64/5", "64/10"), labels);
+        assertEquals(List.of("client.sender-threads", "client.dispatcher-threads"),
+                List.copyOf(cells.get(0).keySet()));
+    }
+
+    @Test
+    void testCells_ThreeAxes_FullProduct() {
+        // Given
+        SweepOptions options = SweepOptions.parse(new String[] {
+                "--sweep.axis=a:1,2", "--sweep.axis=b:x,y,z", "--sweep.axis=c:on,off"});
+
+        // When
+        List<Map<String, String>> cells = options.cells();
+
+        // Then
+        assertEquals(12, cells.size());
+        assertEquals(12, cells.stream().distinct().count());
+        assertEquals(Map.of("a", "1", "b", "x", "c", "on"), cells.get(0));
+        assertEquals(Map.of("a", "1", "b", "x", "c", "off"), cells.get(1));
+        assertEquals(Map.of("a", "2", "b", "z", "c", "off"), cells.get(11));
+    }
+
+    @Test
+    void testParse_OptionsAndPassThroughArgs() {
+        // When
+        SweepOptions options = SweepOptions.parse(new String[] {
+                "--client.ws-base=ws://target", "--sweep.axis=a:1", "--sweep.repeats=5",
+                "--sweep.timeout-seconds=60", "--sweep.pause-seconds=0", "--sweep.output-dir=/tmp/out",
+                "--sweep.jvm-args= -Xmx1g  -XX:+UseZGC ", "--sweep.rank-by=p99", "--spring.profiles.active=x"});
+
+        // Then
+        assertEquals(5, options.repeats());
+        assertEquals(60, options.timeoutSeconds());
+        assertEquals(0, options.pauseSeconds());
+        assertEquals(Paths.get("/tmp/out"), options.outputDir());
+        assertEquals(List.of("-Xmx1g", "-XX:+UseZGC"), options.jvmArgs());
+        assertEquals("p99", options.rankBy());
+        assertEquals(List.of("--client.ws-base=ws://target", "--spring.profiles.active=x"), options.clientArgs());
+    }
+
+    @Test
+    void testParse_Invalid_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> SweepOptions.parse(new String[] {}));
+        assertThrows(IllegalArgumentException.class, () -> SweepOptions.parse(new String[] {"--sweep.axis=a"}));
+        assertThrows(IllegalArgumentException.class, () -> SweepOptions.parse(new String[] {"--sweep.axis=:1"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> SweepOptions.parse(new String[] {"--sweep.axis=a:1", "--sweep.repeats=0"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> SweepOptions.parse(new String[] {"--sweep.axis=a:1", "--sweep.rank-by=latency"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> SweepOptions.parse(new String[] {"--sweep.axis=a:1", "--sweep.colour=red"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> SweepOptions.parse(new String[] {"--sweep.axis=a:1", "--sweep.repeats"}));
+    }
+}
@@ -0,0 +1,115 @@
+package edu.northeastern.hanafeng.chatsystem.client.sweep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepReportTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWrite_RankedByThroughput_HighestFirstFailedLast() throws IOException {
+        // Given
+        SweepOptions options = options("throughput");
+        List<CellResult> cells = cells(options);
+
+        // When
+        new SweepReport(options, objectMapper).write(cells);
+
+        // Then
+        List<String[]> rows = csvRows();
+        assertEquals(List.of("2", "4", "1", "3"), rows.stream().map(row -> row[1]).toList());
+        assertEquals(List.of("1", "2", "3", ""), rows.stream().map(row -> row[0]).toList());
+        // Cell 4 (200 +/- 127) overlaps the best (300 +/- 127), cell 1 (100 +/- 12.7) does not
+        assertEquals(List.of("false", "true", "false", "false"), rows.stream().map(row -> row[row.length - 1]).toList());
+        assertEquals(List.of(2, 4, 1, 3), jsonCellOrder());
+    }
+
+    @Test
+    void testWrite_RankedByP99_LowestFirstFailedLast() throws IOException {
+        // Given
+        SweepOptions options = options("p99");
+        List<CellResult> cells = cells(options);
+
+        // When
+        new SweepReport(options, objectMapper).write(cells);
+
+        // Then
+        assertEquals(List.of("4", "1", "2", "3"), csvRows().stream().map(row -> row[1]).toList());
+        assertEquals(List.of(4, 1, 2, 3), jsonCellOrder());
+    }
+
+    @Test
+    void testWrite_CsvColumnsAndHeatmaps() throws IOException {
+        // Given
+        SweepOptions options = options("throughput");
+
+        // When
+        new SweepReport(options, objectMapper).write(cells(options));
+
+        // Then
+        String header = Files.readAllLines(directory.resolve("sweep_results.csv")).get(0);
+        assertTrue(header.startsWith("rank,cell,a,b,runs,failedRuns,throughputMean"), header);
+        String[] best = csvRows().get(0);
+        assertEquals("1", best[2]);
+        assertEquals("y", best[3]);
+        assertEquals("2", best[4]);
+        assertEquals("300.0", best[6]);
+        assertTrue(Files.exists(directory.resolve("sweep_heatmap_throughput.png")));
+        assertTrue(Files.exists(directory.resolve("sweep_heatmap_ack_p99.png")));
+    }
+
+    private SweepOptions options(String rankBy) {
+        return SweepOptions.parse(new String[] {
+                "--sweep.axis=a:1,2", "--sweep.axis=b:x,y", "--sweep.repeats=2",
+                "--sweep.output-dir=" + directory, "--sweep.rank-by=" + rankBy});
+    }
+
+    /**
+     * Cell 1: 100 msg/s, p99 20 ms; cell 2: 300 msg/s, p99 50 ms; cell 3: no successful run;
+     * cell 4: 200 msg/s, p99 10 ms.
+     */
+    private static List<CellResult> cells(SweepOptions options) {
+        List<CellResult> cells = new ArrayList<>();
+        for (Map<String, String> settings : options.cells()) {
+            cells.add(new CellResult(cells.size() + 1, settings));
+        }
+        addRuns(cells.get(0), 99, 101, 20);
+        addRuns(cells.get(1), 290, 310, 50);
+        cells.get(2).addFailure("rep-1: exit code 1");
+        cells.get(2).addFailure("rep-2: exit code 1");
+        addRuns(cells.get(3), 190, 210, 10);
+        return cells;
+    }
+
+    private static void addRuns(CellResult cell, double first, double second, double ackP99Ms) {
+        cell.addRun(CellResultTest.run(first, ackP99Ms));
+        cell.addRun(CellResultTest.run(second, ackP99Ms));
+    }
+
+    private List<String[]> csvRows() throws IOException {
+        List<String> lines = Files.readAllLines(directory.resolve("sweep_results.csv"));
+        return lines.subList(1, lines.size()).stream().map(line -> line.split(",", -1)).toList();
+    }
+
+    private List<Integer> jsonCellOrder() throws IOException {
+        JsonNode report = objectMapper.readTree(directory.resolve("sweep_report.json").toFile());
+        List<Integer> order = new ArrayList<>();
+        report.get("cells").forEach(cell -> order.add(cell.get("cell").asInt()));
+        return order;
+    }
+}
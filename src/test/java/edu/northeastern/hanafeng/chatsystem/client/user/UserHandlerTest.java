@@ -0,0 +1,225 @@
+package edu.northeastern.hanafeng.chatsystem.client.user;
+
+import edu.northeastern.hanafeng.chatsystem.client.support.MessageIds;
+import edu.northeastern.hanafeng.chatsystem.client.workload.MessageBodies;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UserHandlerTest {
+
+    private static final int USER_ID = 17;
+
+    @Mock
+    private UserHandlerManager manager;
+
+    @Test
+    void testLifecycle_SequencesJoinTextsLeave() {
+        // Given
+        UserHandler handler = newHandler(3, 1, 0);
+
+        // When
+        ChatMessage join = handler.getNextMessageToSend();
+        handler.handleEchoback("JOIN", join.getMessageId());
+        List<ChatMessage> texts = sendTexts(handler, 3);
+        texts.forEach(text -> handler.handleEchoback("TEXT", text.getMessageId()));
+        ChatMessage leave = handler.getNextMessageToSend();
+        handler.handleEchoback("LEAVE", leave.getMessageId());
+
+        // Then
+        assertEquals(MessageIds.format(USER_ID, 0), join.getMessageId());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("TEXT", texts.get(i).getMessageType());
+            assertEquals(MessageIds.format(USER_ID, i + 1), texts.get(i).getMessageId());
+        }
+        assertEquals("LEAVE", leave.getMessageType());
+        assertEquals(MessageIds.format(USER_ID, 4), leave.getMessageId());
+        assertTrue(handler.isComplete());
+        assertTrue(handler.allTextMessagesConfirmed());
+    }
+
+    @Test
+    void testHandleEchoback_DuplicateConfirmation_CountedOnce() {
+        // Given
+        UserHandler handler = joinedHandler(3);
+        List<ChatMessage> texts = sendTexts(handler, 3);
+
+        // When
+        handler.handleEchoback("TEXT", texts.get(0).getMessageId());
+        handler.handleEchoback("TEXT", texts.get(0).getMessageId());
+        handler.handleAckFailure("TEXT", texts.get(0).getMessageId());
+
+        // Then
+        assertEquals(2, handler.getPendingTextConfirmationCount());
+        assertEquals(UserHandler.State.TEXTING, handler.getCurrentState());
+    }
+
+    @Test
+    void testHandleEchoback_MissingConfirmation_HoldsLeave() {
+        // Given
+        UserHandler handler = joinedHandler(4);
+        List<ChatMessage> texts = sendTexts(handler, 4);
+
+        // When: every TEXT but the third is confirmed
+        for (int i = 0; i < texts.size(); i++) {
+            if (i != 2) {
+                handler.handleEchoback("TEXT", texts.get(i).getMessageId());
+            }
+        }
+
+        // Then
+        assertEquals(1, handler.getPendingTextConfirmationCount());
+        assertEquals(UserHandler.State.TEXTING, handler.getCurrentState());
+        assertFalse(handler.hasMessageToSend());
+
+        // When: the missing one arrives
+        handler.handleEchoback("TEXT", texts.get(2).getMessageId());
+
+        // Then
+        assertEquals(0, handler.getPendingTextConfirmationCount());
+        assertEquals(UserHandler.State.ALL_TEXTS_CONFIRMED, handler.getCurrentState());
+        assertTrue(handler.hasMessageToSend());
+    }
+
+    @Test
+    void testHandleEchoback_UnknownOrForeignIds_Ignored() {
+        // Given
+        UserHandler handler = joinedHandler(2);
+        sendTexts(handler, 2);
+
+        // When
+        handler.handleEchoback("TEXT", MessageIds.format(USER_ID, 0));   // the JOIN's sequence
+        handler.handleEchoback("TEXT", MessageIds.format(USER_ID, 99));  // never sent
+        handler.handleEchoback("TEXT", MessageIds.format(USER_ID, Integer.MAX_VALUE + 1));
+        handler.handleEchoback("TEXT", "00000000-0000-0000-0000-000000000001");
+        handler.handleEchoback("TEXT", null);
+
+        // Then
+        assertEquals(2, handler.getPendingTextConfirmationCount());
+    }
+
+    @Test
+    void testInFlightWindow_FullWindowLeavesIndexUntilConfirmed() {
+        // Given
+        UserHandler handler = newHandler(5, 1, 2);
+        handler.handleEchoback("JOIN", handler.getNextMessageToSend().getMessageId());
+
+        // When
+        List<ChatMessage> texts = sendTexts(handler, 2);
+
+        // Then
+        verify(manager).moveIndex(USER_ID, UserHandler.State.TEXTING, null);
+        assertTrue(handler.hasMessageToSend());
+
+        // When
+        handler.handleEchoback("TEXT", texts.get(1).getMessageId());
+
+        // Then
+        verify(manager).moveIndex(USER_ID, null, UserHandler.State.TEXTING);
+        assertEquals(1, handler.getPendingTextConfirmationCount());
+    }
+
+    @Test
+    void testSessions_SequenceContinuesAcrossRejoin() {
+        // Given: 3 TEXTs over 2 sessions, split 1 + 2
+        UserHandler handler = newHandler(3, 2, 0);
+
+        // When
+        handler.handleEchoback("JOIN", handler.getNextMessageToSend().getMessageId());
+        List<ChatMessage> firstTexts = sendTexts(handler, 1);
+        handler.handleEchoback("TEXT", firstTexts.get(0).getMessageId());
+        handler.handleEchoback("LEAVE", handler.getNextMessageToSend().getMessageId());
+        ChatMessage rejoin = handler.getNextMessageToSend();
+        handler.handleEchoback("JOIN", rejoin.getMessageId());
+        List<ChatMessage> secondTexts = sendTexts(handler, 2);
+
+        // Then
+        assertEquals("JOIN", rejoin.getMessageType());
+        assertEquals(MessageIds.format(USER_ID, 3), rejoin.getMessageId());
+        assertEquals(MessageIds.format(USER_ID, 4), secondTexts.get(0).getMessageId());
+        assertEquals(MessageIds.format(USER_ID, 5), secondTexts.get(1).getMessageId());
+        assertFalse(handler.hasMessageToSend());
+        assertEquals(2, handler.getPendingTextConfirmationCount());
+        assertNull(handler.getNextMessageToSend());
+    }
+
+    @Test
+    void testInFlightWindow_ConcurrentProducers_NeverExceedWindow() throws InterruptedException {
+        // Given: producers that all sample the same user, as when they pick it from the index at once
+        int texts = 500;
+        int maxInFlight = 3;
+        UserHandler handler = newHandler(texts, 1, maxInFlight);
+        Queue<ChatMessage> sent = new ConcurrentLinkedQueue<>();
+        AtomicInteger textsSent = new AtomicInteger();
+        AtomicInteger maxPending = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                while (!handler.isComplete() && System.nanoTime() < deadline) {
+                    ChatMessage message = handler.getNextMessageToSend();
+                    if (message == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if ("TEXT".equals(message.getMessageType())) {
+                        textsSent.incrementAndGet();
+                        maxPending.accumulateAndGet(handler.getPendingTextConfirmationCount(), Math::max);
+                    }
+                    sent.add(message);
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            while (!handler.isComplete() && System.nanoTime() < deadline) {
+                ChatMessage message = sent.poll();
+                if (message != null) {
+                    handler.handleEchoback(message.getMessageType(), message.getMessageId());
+                }
+            }
+        }));
+
+        // When
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertTrue(handler.isComplete());
+        assertEquals(texts, textsSent.get());
+        assertTrue(maxPending.get() <= maxInFlight, "in flight reached " + maxPending.get());
+    }
+
+    private UserHandler newHandler(int texts, int sessions, int maxInFlight) {
+        return new UserHandler(USER_ID, 1, texts, sessions, maxInFlight, ThinkTime.NONE, 0,
+                MessageBodies.builtIn(), manager);
+    }
+
+    private UserHandler joinedHandler(int texts) {
+        UserHandler handler = newHandler(texts, 1, 0);
+        handler.handleEchoback("JOIN", handler.getNextMessageToSend().getMessageId());
+        return handler;
+    }
+
+    private static List<ChatMessage> sendTexts(UserHandler handler, int count) {
+        List<ChatMessage> texts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            texts.add(handler.getNextMessageToSend());
+        }
+        return texts;
+    }
+}
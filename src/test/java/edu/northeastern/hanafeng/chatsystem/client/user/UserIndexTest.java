@@ -0,0 +1,108 @@
+package edu.northeastern.hanafeng.chatsystem.client.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserIndexTest {
+
+    @Test
+    void testPickRandom_Empty_ReturnsMinusOne() {
+        // Given
+        UserIndex index = new UserIndex(10);
+
+        // Then
+        assertTrue(index.isEmpty());
+        assertEquals(-1, index.pickRandom());
+    }
+
+    @Test
+    void testAdd_Duplicate_KeptOnce() {
+        // Given
+        UserIndex index = new UserIndex(10);
+
+        // When
+        index.add(3);
+        index.add(3);
+        index.remove(3);
+
+        // Then
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void testRemove_NotMember_Ignored() {
+        // Given
+        UserIndex index = new UserIndex(10);
+        index.add(4);
+
+        // When
+        index.remove(5);
+
+        // Then
+        assertEquals(4, index.pickRandom());
+    }
+
+    @Test
+    void testRemove_SwapsLastMemberIn() {
+        // Given
+        UserIndex index = new UserIndex(10);
+        index.add(1);
+        index.add(2);
+        index.add(3);
+
+        // When
+        index.remove(1);
+        index.remove(3);
+
+        // Then
+        for (int i = 0; i < 20; i++) {
+            assertEquals(2, index.pickRandom());
+        }
+    }
+
+    @Test
+    void testBoundaries_FirstAndMaxUserId() {
+        // Given
+        UserIndex index = new UserIndex(1000);
+
+        // When
+        index.add(1);
+        index.add(1000);
+
+        // Then
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            picked.add(index.pickRandom());
+        }
+        assertEquals(Set.of(1, 1000), picked);
+        index.remove(1000);
+        index.remove(1);
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void testAdd_AllUsers_FillsIndex() {
+        // Given
+        UserIndex index = new UserIndex(50);
+
+        // When
+        for (int userId = 50; userId >= 1; userId--) {
+            index.add(userId);
+        }
+        for (int userId = 1; userId <= 50; userId += 2) {
+            index.remove(userId);
+        }
+
+        // Then
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            picked.add(index.pickRandom());
+        }
+        assertEquals(25, picked.size());
+        assertTrue(picked.stream().allMatch(userId -> userId % 2 == 0));
+    }
+}
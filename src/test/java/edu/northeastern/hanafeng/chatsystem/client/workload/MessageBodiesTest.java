@@ -0,0 +1,92 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import edu.northeastern.hanafeng.chatsystem.client.support.MessageTextPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageBodiesTest {
+
+    @Test
+    void testOf_EmptyHistogram_UsesBuiltInPool() {
+        // When
+        MessageBodies bodies = MessageBodies.of("", 100, new Random(1));
+
+        // Then
+        assertArrayEquals(MessageTextPool.POOL, pool(bodies));
+        assertTrue(Arrays.asList(MessageTextPool.POOL).contains(bodies.next()));
+    }
+
+    @Test
+    void testOf_SameSeed_SamePool() {
+        // When
+        MessageBodies first = MessageBodies.of("50:1,500:1", 256, new Random(99));
+        MessageBodies second = MessageBodies.of("50:1,500:1", 256, new Random(99));
+        MessageBodies otherSeed = MessageBodies.of("50:1,500:1", 256, new Random(100));
+
+        // Then
+        assertArrayEquals(pool(first), pool(second));
+        assertFalse(Arrays.equals(pool(first), pool(otherSeed)));
+    }
+
+    @Test
+    void testOf_SizeClasses_FollowHistogram() {
+        // Given: a quarter up to 10 chars, a quarter 11-100, half 101-1000
+        MessageBodies bodies = MessageBodies.of("10:1, 100:1, 1000:2", 8000, new Random(42));
+
+        // When
+        int[] perClass = new int[3];
+        for (String body : pool(bodies)) {
+            int length = body.length();
+            assertTrue(length >= 1 && length <= 1000, "length " + length);
+            perClass[length <= 10 ? 0 : length <= 100 ? 1 : 2]++;
+        }
+
+        // Then
+        assertEquals(0.25, perClass[0] / 8000.0, 0.02);
+        assertEquals(0.25, perClass[1] / 8000.0, 0.02);
+        assertEquals(0.50, perClass[2] / 8000.0, 0.02);
+        assertTrue(bodies.getMaxLength() <= 1000);
+        assertEquals((5.5 + 55.5 + 2 * 550.5) / 4, bodies.getMeanLength(), 15.0);
+    }
+
+    @Test
+    void testOf_ZeroWeightBucket_NeverDrawn() {
+        // When
+        MessageBodies bodies = MessageBodies.of("10:0,20:1", 1000, new Random(3));
+
+        // Then
+        assertTrue(Arrays.stream(pool(bodies)).allMatch(body -> body.length() > 10 && body.length() <= 20));
+    }
+
+    @Test
+    void testOf_Bodies_StartWithWordAndAllowMaxLength() {
+        // When
+        MessageBodies bodies = MessageBodies.of("4999:0,5000:1", 64, new Random(5));
+
+        // Then
+        for (String body : pool(bodies)) {
+            assertEquals(MessageBodies.MAX_LENGTH, body.length());
+            assertNotEquals(' ', body.charAt(0));
+        }
+    }
+
+    @Test
+    void testOf_InvalidHistogram_Throws() {
+        Random random = new Random(0);
+        assertThrows(IllegalArgumentException.class, () -> MessageBodies.of("100", 16, random));
+        assertThrows(IllegalArgumentException.class, () -> MessageBodies.of("100:1,50:1", 16, random));
+        assertThrows(IllegalArgumentException.class, () -> MessageBodies.of("5001:1", 16, random));
+        assertThrows(IllegalArgumentException.class, () -> MessageBodies.of("0:1", 16, random));
+        assertThrows(IllegalArgumentException.class, () -> MessageBodies.of("10:-1", 16, random));
+        assertThrows(IllegalArgumentException.class, () -> MessageBodies.of("10:0,20:0", 16, random));
+    }
+
+    private static String[] pool(MessageBodies bodies) {
+        return (String[]) ReflectionTestUtils.getField(bodies, "pool");
+    }
+}
@@ -0,0 +1,78 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseScheduleTest {
+
+    @Test
+    void testParse_Empty_Unpaced() {
+        assertNull(PhaseSchedule.parse(null));
+        assertNull(PhaseSchedule.parse("  "));
+    }
+
+    @Test
+    void testParse_DurationsAndRates() {
+        // When
+        PhaseSchedule schedule = PhaseSchedule.parse("1s:100, 500ms:0,2m:50.5");
+
+        // Then
+        assertEquals(List.of(new PhaseSchedule.Phase(TimeUnit.SECONDS.toNanos(1), 100),
+                        new PhaseSchedule.Phase(TimeUnit.MILLISECONDS.toNanos(500), 0),
+                        new PhaseSchedule.Phase(TimeUnit.MINUTES.toNanos(2), 50.5)),
+                schedule.getPhases());
+    }
+
+    @Test
+    void testParse_Invalid_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> PhaseSchedule.parse("1s"));
+        assertThrows(IllegalArgumentException.class, () -> PhaseSchedule.parse("1s:-5"));
+        assertThrows(IllegalArgumentException.class, () -> PhaseSchedule.parse("0s:10"));
+        assertThrows(IllegalArgumentException.class, () -> PhaseSchedule.parse("1s:0,2s:0"));
+        assertThrows(IllegalArgumentException.class, () -> PhaseSchedule.parse("soon:10"));
+    }
+
+    @Test
+    void testDueNanos_SpacingWithinPhase() {
+        // Given
+        PhaseSchedule schedule = PhaseSchedule.parse("1s:100");
+
+        // Then
+        assertEquals(0, schedule.dueNanos(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), schedule.dueNanos(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(990), schedule.dueNanos(99));
+    }
+
+    @Test
+    void testDueNanos_TransitionsSkipPausesAndRepeat() {
+        // Given: 100 messages in the first second, a half-second pause, then 100 over two seconds
+        PhaseSchedule schedule = PhaseSchedule.parse("1s:100,500ms:0,2s:50");
+
+        // Then
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(990), schedule.dueNanos(99));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), schedule.dueNanos(100));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1520), schedule.dueNanos(101));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3480), schedule.dueNanos(199));
+        // Next cycle starts after 3.5 s
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3500), schedule.dueNanos(200));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3500 + 1500), schedule.dueNanos(300));
+    }
+
+    @Test
+    void testDueNanos_NonDecreasing() {
+        // Given
+        PhaseSchedule schedule = PhaseSchedule.parse("200ms:1000,100ms:0,300ms:3000,1s:7");
+
+        // Then
+        long previous = -1;
+        for (long n = 0; n < 5000; n++) {
+            long due = schedule.dueNanos(n);
+            assertTrue(due >= previous, "message " + n + " due before its predecessor");
+            previous = due;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatePacerTest {
+
+    @Test
+    void testAwaitSlot_SpacesSlotsByRate() throws InterruptedException {
+        // Given
+        RatePacer pacer = new RatePacer();
+        pacer.setRate(1000);
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < 51; i++) {
+            pacer.awaitSlot();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Then: the 51st slot is due 50 ms after the rate was set
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(49), "took " + elapsed + " ns");
+    }
+
+    @Test
+    void testSetRate_RestartsSchedule() throws InterruptedException {
+        // Given: slots already consumed at a slow rate
+        RatePacer pacer = new RatePacer();
+        pacer.setRate(1);
+        pacer.awaitSlot();
+
+        // When
+        pacer.setRate(1_000_000);
+        long start = System.nanoTime();
+        pacer.awaitSlot();
+
+        // Then: the next slot is due at once instead of a second after the last one
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(1_000_000, pacer.getRate());
+    }
+
+    @Test
+    void testZeroRate_HoldsUntilRateChanges() throws InterruptedException {
+        // Given
+        RatePacer pacer = new RatePacer();
+        pacer.setRate(0);
+        CountDownLatch passed = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                pacer.awaitSlot();
+                passed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        producer.start();
+
+        // Then
+        assertFalse(passed.await(100, TimeUnit.MILLISECONDS));
+        pacer.setRate(100);
+        assertTrue(passed.await(5, TimeUnit.SECONDS));
+        producer.join(5000);
+    }
+
+    @Test
+    void testRelease_LetsWaitingProducersGo() throws InterruptedException {
+        // Given
+        RatePacer pacer = new RatePacer();
+        CountDownLatch passed = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                pacer.awaitSlot();
+                passed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        assertFalse(passed.await(100, TimeUnit.MILLISECONDS));
+
+        // When
+        pacer.release();
+
+        // Then
+        assertTrue(passed.await(5, TimeUnit.SECONDS));
+        pacer.setRate(0);
+        pacer.awaitSlot();
+        producer.join(5000);
+    }
+
+    @Test
+    void testSetRate_Negative_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new RatePacer().setRate(-1));
+    }
+}
@@ -0,0 +1,150 @@
+package edu.northeastern.hanafeng.chatsystem.client.workload;
+
+import edu.northeastern.hanafeng.chatsystem.client.config.ClientConfig;
+import edu.northeastern.hanafeng.chatsystem.client.config.WorkloadProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadPlanTest {
+
+    @Test
+    void testBuild_DefaultProfile_RoundRobinAndEqualTexts() {
+        // Given
+        WorkloadPlan plan = plan(10, 3, 10 * 2 + 50, new WorkloadProfile());
+
+        // When
+        plan.build();
+
+        // Then
+        assertEquals(List.of(1, 2, 3, 1, 2, 3, 1, 2, 3, 1),
+                IntStream.rangeClosed(1, 10).map(plan::roomOf).boxed().toList());
+        IntStream.rangeClosed(1, 10).forEach(userId -> assertEquals(5, plan.textsOf(userId)));
+        assertEquals("all", plan.rateClassOf(1).name());
+        assertNull(plan.getPhaseSchedule());
+    }
+
+    @Test
+    void testBuild_RoomSkew_FollowsZipf() {
+        // Given: 1/k over 4 rooms is 12:6:4:3 of 25
+        WorkloadProfile profile = new WorkloadProfile();
+        profile.setRoomSkew(1.0);
+        WorkloadPlan plan = plan(1000, 4, 2000, profile);
+
+        // When
+        plan.build();
+
+        // Then
+        int[] usersPerRoom = new int[5];
+        IntStream.rangeClosed(1, 1000).forEach(userId -> usersPerRoom[plan.roomOf(userId)]++);
+        assertArrayEquals(new int[] {0, 480, 240, 160, 120}, usersPerRoom);
+    }
+
+    @Test
+    void testBuild_SameSeed_SamePopulation() {
+        // Given
+        WorkloadPlan first = skewedPlan(7);
+        WorkloadPlan second = skewedPlan(7);
+        WorkloadPlan otherSeed = skewedPlan(8);
+
+        // When
+        first.build();
+        second.build();
+        otherSeed.build();
+
+        // Then
+        List<String> firstUsers = describe(first);
+        assertEquals(firstUsers, describe(second));
+        assertNotEquals(firstUsers, describe(otherSeed));
+    }
+
+    @Test
+    void testBuild_RateClasses_SplitUsersAndTextsByShareAndWeight() {
+        // Given: 10 heavy users send ten times as many TEXTs as the 90 light ones
+        WorkloadProfile profile = new WorkloadProfile();
+        profile.setRateClasses("heavy:0.1:10, light:0.9:1");
+        WorkloadPlan plan = plan(100, 5, 100 * 2 + 1900, profile);
+
+        // When
+        plan.build();
+
+        // Then
+        long heavyUsers = IntStream.rangeClosed(1, 100).filter(u -> plan.rateClassOf(u).name().equals("heavy")).count();
+        assertEquals(10, heavyUsers);
+        for (int userId = 1; userId <= 100; userId++) {
+            assertEquals(plan.rateClassOf(userId).name().equals("heavy") ? 100 : 10, plan.textsOf(userId));
+        }
+    }
+
+    @Test
+    void testBuild_TotalBelowLifecycleMessages_SendsNoTexts() {
+        // Given: 2 sessions per user cost 4 messages each
+        WorkloadProfile profile = new WorkloadProfile();
+        profile.setSessionsPerUser(2);
+        WorkloadPlan plan = plan(10, 2, 30, profile);
+
+        // When
+        plan.build();
+
+        // Then
+        assertEquals(2, plan.getSessionsPerUser());
+        IntStream.rangeClosed(1, 10).forEach(userId -> assertEquals(0, plan.textsOf(userId)));
+    }
+
+    @Test
+    void testApportion_SumsExactlyByLargestRemainder() {
+        // When
+        long[] parts = WorkloadPlan.apportion(10, new double[] {1, 1, 1});
+
+        // Then
+        assertArrayEquals(new long[] {4, 3, 3}, parts);
+        assertEquals(1001, Arrays.stream(WorkloadPlan.apportion(1001, new double[] {0.3, 0.5, 0.2, 1e-9})).sum());
+        assertArrayEquals(new long[] {0, 7}, WorkloadPlan.apportion(7, new double[] {0, 2}));
+    }
+
+    @Test
+    void testParseRateClasses_Valid() {
+        // When
+        List<WorkloadPlan.RateClass> classes = WorkloadPlan.parseRateClasses(" a:0.25:4 ,b:0.75:1");
+
+        // Then
+        assertEquals(List.of(new WorkloadPlan.RateClass("a", 0.25, 4), new WorkloadPlan.RateClass("b", 0.75, 1)),
+                classes);
+        assertEquals(List.of(new WorkloadPlan.RateClass("all", 1, 1)), WorkloadPlan.parseRateClasses(" "));
+    }
+
+    @Test
+    void testParseRateClasses_Invalid_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> WorkloadPlan.parseRateClasses("a:1"));
+        assertThrows(IllegalArgumentException.class, () -> WorkloadPlan.parseRateClasses("a:1:0"));
+        assertThrows(IllegalArgumentException.class, () -> WorkloadPlan.parseRateClasses("a:-1:1"));
+        assertThrows(IllegalArgumentException.class, () -> WorkloadPlan.parseRateClasses("a:0:1,b:0:2"));
+        assertThrows(NumberFormatException.class, () -> WorkloadPlan.parseRateClasses("a:x:1"));
+    }
+
+    private static WorkloadPlan skewedPlan(long seed) {
+        WorkloadProfile profile = new WorkloadProfile();
+        profile.setSeed(seed);
+        profile.setRoomSkew(0.8);
+        profile.setRateClasses("fast:0.2:5,slow:0.8:1");
+        return plan(200, 6, 5000, profile);
+    }
+
+    private static List<String> describe(WorkloadPlan plan) {
+        return IntStream.rangeClosed(1, plan.getNumUsers())
+                .mapToObj(u -> plan.roomOf(u) + "/" + plan.rateClassOf(u).name() + "/" + plan.textsOf(u))
+                .toList();
+    }
+
+    private static WorkloadPlan plan(int users, int rooms, long totalMessages, WorkloadProfile profile) {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setNumUsers(users);
+        clientConfig.setNumRooms(rooms);
+        clientConfig.setTotalMessages(totalMessages);
+        return new WorkloadPlan(clientConfig, profile);
+    }
+}
@@ -0,0 +1,113 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.model.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloudWatchEmulatorTest {
+
+    private static final String NAMESPACE = "WebSocketChat";
+
+    private TestClock clock;
+    private CloudWatchEmulator cloudWatch;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestClock(Instant.parse("2024-01-01T00:00:00Z"));
+        cloudWatch = new CloudWatchEmulator(clock, 100);
+    }
+
+    @Test
+    void testPutMetricData_StoresValuesAndSums() {
+        // When
+        put(datum("MessagesSent", 3.0));
+        put(datum("MessagesSent", 4.0));
+
+        // Then
+        assertEquals(2, cloudWatch.getValues(NAMESPACE, "MessagesSent").size());
+        assertEquals(7.0, cloudWatch.getSum(NAMESPACE, "MessagesSent"));
+        assertEquals(1, cloudWatch.getRequests(PutMetricDataRequest.class).get(0).metricData().size());
+    }
+
+    @Test
+    void testPutMetricData_RejectsInvalidRequests() {
+        assertThrows(InvalidParameterValueException.class, () -> cloudWatch.putMetricData(PutMetricDataRequest.builder()
+                .namespace("AWS/SQS").metricData(datum("MessagesSent", 1.0)).build()));
+        assertThrows(MissingRequiredParameterException.class, () -> cloudWatch.putMetricData(PutMetricDataRequest.builder()
+                .metricData(datum("MessagesSent", 1.0)).build()));
+        assertThrows(InvalidParameterValueException.class, () -> put(datum("MessagesSent", Double.NaN)));
+        assertThrows(InvalidParameterValueException.class, () -> put(datum("MessagesSent", 1.0).toBuilder()
+                .storageResolution(5).build()));
+
+        List<MetricDatum> tooMany = new ArrayList<>();
+        for (int i = 0; i <= CloudWatchEmulator.MAX_DATUMS_PER_REQUEST; i++) {
+            tooMany.add(datum("MessagesSent", 1.0));
+        }
+        assertThrows(InvalidParameterValueException.class, () -> cloudWatch.putMetricData(PutMetricDataRequest.builder()
+                .namespace(NAMESPACE).metricData(tooMany).build()));
+        assertTrue(cloudWatch.getValues(NAMESPACE, "MessagesSent").isEmpty());
+    }
+
+    @Test
+    void testGetMetricStatistics_AggregatesPerPeriod() {
+        // Given
+        Instant start = clock.instant();
+        put(datum("Latency", 10.0));
+        put(datum("Latency", 30.0));
+        clock.advance(Duration.ofSeconds(60));
+        put(datum("Latency", 5.0));
+
+        // When
+        GetMetricStatisticsResponse response = cloudWatch.getMetricStatistics(GetMetricStatisticsRequest.builder()
+                .namespace(NAMESPACE)
+                .metricName("Latency")
+                .dimensions(Dimension.builder().name("Hostname").value("server-1").build())
+                .startTime(start)
+                .endTime(start.plusSeconds(120))
+                .period(60)
+                .statistics(Statistic.SUM, Statistic.AVERAGE, Statistic.MAXIMUM, Statistic.SAMPLE_COUNT)
+                .build());
+
+        // Then
+        List<Datapoint> datapoints = response.datapoints();
+        assertEquals(2, datapoints.size());
+        assertEquals(40.0, datapoints.get(0).sum());
+        assertEquals(20.0, datapoints.get(0).average());
+        assertEquals(30.0, datapoints.get(0).maximum());
+        assertEquals(2.0, datapoints.get(0).sampleCount());
+        assertEquals(5.0, datapoints.get(1).sum());
+    }
+
+    @Test
+    void testThrottling_ReturnsThrottlingError() {
+        // Given
+        cloudWatch.setMaxRequestsPerSecond(1);
+        put(datum("MessagesSent", 1.0));
+
+        // Then
+        CloudWatchException e = assertThrows(CloudWatchException.class, () -> put(datum("MessagesSent", 1.0)));
+        assertEquals("Throttling", e.awsErrorDetails().errorCode());
+        assertEquals(1.0, cloudWatch.getSum(NAMESPACE, "MessagesSent"));
+    }
+
+    private MetricDatum datum(String metricName, double value) {
+        return MetricDatum.builder()
+                .metricName(metricName)
+                .value(value)
+                .unit(StandardUnit.COUNT)
+                .dimensions(Dimension.builder().name("Hostname").value("server-1").build())
+                .storageResolution(1)
+                .build();
+    }
+
+    private void put(MetricDatum datum) {
+        cloudWatch.putMetricData(PutMetricDataRequest.builder().namespace(NAMESPACE).metricData(datum).build());
+    }
+}
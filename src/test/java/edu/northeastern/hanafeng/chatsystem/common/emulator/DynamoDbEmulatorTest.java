@@ -0,0 +1,200 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamoDbEmulatorTest {
+
+    private static final String TABLE = "WebSocketChatConsumerRegistry";
+
+    private TestClock clock;
+    private DynamoDbEmulator dynamoDb;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestClock(Instant.parse("2024-01-01T00:00:00Z"));
+        dynamoDb = new DynamoDbEmulator(clock, 100);
+        dynamoDb.createTable(CreateTableRequest.builder()
+                .tableName(TABLE)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName("roomId").keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName("consumerId").keyType(KeyType.RANGE).build())
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("roomId").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("consumerId").attributeType(ScalarAttributeType.S).build())
+                .build());
+        dynamoDb.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                .tableName(TABLE)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder().enabled(true).attributeName("expiresAt").build())
+                .build());
+    }
+
+    @Test
+    void testPutItem_ReplacesItemAndReturnsOldValues() {
+        // Given
+        put("1", "consumer-a", "http://a", 120);
+
+        // When
+        PutItemResponse response = dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(TABLE)
+                .item(item("1", "consumer-a", "http://a2", 120))
+                .returnValues(ReturnValue.ALL_OLD)
+                .build());
+
+        // Then
+        assertEquals("http://a", response.attributes().get("endpoint").s());
+        assertEquals("http://a2", get("1", "consumer-a").get("endpoint").s());
+        assertEquals(1, dynamoDb.getItemCount(TABLE));
+    }
+
+    @Test
+    void testPutItem_ConditionExpressionFailure() {
+        // Given
+        put("1", "consumer-a", "http://a", 120);
+
+        // Then
+        assertThrows(ConditionalCheckFailedException.class, () -> dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(TABLE)
+                .item(item("1", "consumer-a", "http://b", 120))
+                .conditionExpression("attribute_not_exists(#r)")
+                .expressionAttributeNames(Map.of("#r", "roomId"))
+                .build()));
+        assertEquals("http://a", get("1", "consumer-a").get("endpoint").s());
+    }
+
+    @Test
+    void testPutItem_MissingKeyAttributeRejected() {
+        DynamoDbException e = assertThrows(DynamoDbException.class, () -> dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(TABLE)
+                .item(Map.of("roomId", AttributeValue.fromS("1")))
+                .build()));
+        assertEquals("ValidationException", e.awsErrorDetails().errorCode());
+    }
+
+    @Test
+    void testQuery_HashKeyWithLimitAndPagination() {
+        // Given
+        put("1", "consumer-a", "http://a", 120);
+        put("1", "consumer-b", "http://b", 120);
+        put("1", "consumer-c", "http://c", 120);
+        put("2", "consumer-z", "http://z", 120);
+
+        // When
+        QueryResponse firstPage = query("1", 2, null);
+        QueryResponse secondPage = query("1", 2, firstPage.lastEvaluatedKey());
+
+        // Then
+        assertEquals(List.of("consumer-a", "consumer-b"), consumerIds(firstPage));
+        assertEquals(List.of("consumer-c"), consumerIds(secondPage));
+        assertFalse(secondPage.hasLastEvaluatedKey() && !secondPage.lastEvaluatedKey().isEmpty());
+    }
+
+    @Test
+    void testQuery_RangeConditionFilterAndDescendingOrder() {
+        // Given
+        put("1", "consumer-a", "http://a", 120);
+        put("1", "consumer-b", "http://b", 120);
+        put("1", "consumer-c", "http://c", 120);
+
+        // When
+        QueryResponse response = dynamoDb.query(QueryRequest.builder()
+                .tableName(TABLE)
+                .keyConditionExpression("roomId = :roomId AND consumerId >= :from")
+                .filterExpression("endpoint <> :skip")
+                .expressionAttributeValues(Map.of(
+                        ":roomId", AttributeValue.fromS("1"),
+                        ":from", AttributeValue.fromS("consumer-b"),
+                        ":skip", AttributeValue.fromS("http://c")))
+                .scanIndexForward(false)
+                .build());
+
+        // Then
+        assertEquals(List.of("consumer-b"), consumerIds(response));
+        assertEquals(2, response.scannedCount());
+    }
+
+    @Test
+    void testQuery_WithoutHashKeyEqualityRejected() {
+        assertThrows(DynamoDbException.class, () -> dynamoDb.query(QueryRequest.builder()
+                .tableName(TABLE)
+                .keyConditionExpression("consumerId = :c")
+                .expressionAttributeValues(Map.of(":c", AttributeValue.fromS("consumer-a")))
+                .build()));
+    }
+
+    @Test
+    void testTtl_ExpiredItemReadableUntilDeletionDelayPasses() {
+        // Given
+        dynamoDb.setTtlDeletionDelaySeconds(60);
+        put("1", "consumer-a", "http://a", 10);
+
+        // When - past expiresAt but inside the deletion delay
+        clock.advance(Duration.ofSeconds(30));
+
+        // Then
+        assertNotNull(get("1", "consumer-a"));
+        clock.advance(Duration.ofSeconds(60));
+        assertNull(get("1", "consumer-a"));
+        assertEquals(0, query("1", null, null).count());
+        assertEquals(0, dynamoDb.getItemCount(TABLE));
+    }
+
+    @Test
+    void testMissingTableAndThrottling() {
+        // Given
+        dynamoDb.setMaxRequestsPerSecond(1);
+        put("1", "consumer-a", "http://a", 120);
+
+        // Then
+        assertThrows(ProvisionedThroughputExceededException.class, () -> get("1", "consumer-a"));
+        clock.advance(Duration.ofSeconds(1));
+        assertThrows(ResourceNotFoundException.class, () -> dynamoDb.getItem(GetItemRequest.builder()
+                .tableName("missing").key(Map.of("roomId", AttributeValue.fromS("1"))).build()));
+        assertEquals(1, dynamoDb.getThrottledCalls());
+        assertEquals(2, dynamoDb.getCallCount("GetItem"));
+    }
+
+    private Map<String, AttributeValue> item(String roomId, String consumerId, String endpoint, long ttlSeconds) {
+        long now = clock.instant().getEpochSecond();
+        return Map.of(
+                "roomId", AttributeValue.fromS(roomId),
+                "consumerId", AttributeValue.fromS(consumerId),
+                "endpoint", AttributeValue.fromS(endpoint),
+                "lastHeartbeat", AttributeValue.fromN(Long.toString(now)),
+                "expiresAt", AttributeValue.fromN(Long.toString(now + ttlSeconds)));
+    }
+
+    private void put(String roomId, String consumerId, String endpoint, long ttlSeconds) {
+        dynamoDb.putItem(PutItemRequest.builder().tableName(TABLE).item(item(roomId, consumerId, endpoint, ttlSeconds)).build());
+    }
+
+    private Map<String, AttributeValue> get(String roomId, String consumerId) {
+        GetItemResponse response = dynamoDb.getItem(GetItemRequest.builder()
+                .tableName(TABLE)
+                .key(Map.of("roomId", AttributeValue.fromS(roomId), "consumerId", AttributeValue.fromS(consumerId)))
+                .build());
+        return response.hasItem() ? response.item() : null;
+    }
+
+    private QueryResponse query(String roomId, Integer limit, Map<String, AttributeValue> startKey) {
+        return dynamoDb.query(QueryRequest.builder()
+                .tableName(TABLE)
+                .keyConditionExpression("roomId = :roomId")
+                .expressionAttributeValues(Map.of(":roomId", AttributeValue.fromS(roomId)))
+                .limit(limit)
+                .exclusiveStartKey(startKey)
+                .build());
+    }
+
+    private List<String> consumerIds(QueryResponse response) {
+        return response.items().stream().map(item -> item.get("consumerId").s()).toList();
+    }
+}
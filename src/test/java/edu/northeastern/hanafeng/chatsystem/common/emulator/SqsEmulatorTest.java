@@ -0,0 +1,189 @@
+package edu.northeastern.hanafeng.chatsystem.common.emulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqsEmulatorTest {
+
+    private TestClock clock;
+    private SqsEmulator sqs;
+    private String queueUrl;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestClock(Instant.parse("2024-01-01T00:00:00Z"));
+        sqs = new SqsEmulator(clock, 100);
+        queueUrl = sqs.createQueue(CreateQueueRequest.builder().queueName("chat-room-1").build()).queueUrl();
+    }
+
+    @Test
+    void testCreateQueue_IdempotentButRejectsDifferentAttributes() {
+        // When
+        String again = sqs.createQueue(CreateQueueRequest.builder().queueName("chat-room-1").build()).queueUrl();
+
+        // Then
+        assertEquals(queueUrl, again);
+        assertThrows(QueueNameExistsException.class, () -> sqs.createQueue(CreateQueueRequest.builder()
+                .queueName("chat-room-1")
+                .attributes(Map.of(QueueAttributeName.VISIBILITY_TIMEOUT, "60"))
+                .build()));
+    }
+
+    @Test
+    void testGetQueueUrl_MissingQueueThrows() {
+        assertThrows(QueueDoesNotExistException.class,
+                () -> sqs.getQueueUrl(GetQueueUrlRequest.builder().queueName("chat-room-2").build()));
+    }
+
+    @Test
+    void testSendMessageBatch_EnforcesBatchLimits() {
+        // Given
+        List<SendMessageBatchRequestEntry> eleven = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            eleven.add(SendMessageBatchRequestEntry.builder().id("m" + i).messageBody("body").build());
+        }
+
+        // Then
+        assertThrows(TooManyEntriesInBatchRequestException.class, () -> sqs.sendMessageBatch(
+                SendMessageBatchRequest.builder().queueUrl(queueUrl).entries(eleven).build()));
+        assertThrows(BatchEntryIdsNotDistinctException.class, () -> sqs.sendMessageBatch(
+                SendMessageBatchRequest.builder().queueUrl(queueUrl).entries(
+                        SendMessageBatchRequestEntry.builder().id("a").messageBody("x").build(),
+                        SendMessageBatchRequestEntry.builder().id("a").messageBody("y").build()).build()));
+        assertThrows(BatchRequestTooLongException.class, () -> sqs.sendMessageBatch(
+                SendMessageBatchRequest.builder().queueUrl(queueUrl).entries(
+                        SendMessageBatchRequestEntry.builder().id("a").messageBody("x".repeat(200_000)).build(),
+                        SendMessageBatchRequestEntry.builder().id("b").messageBody("y".repeat(100_000)).build()).build()));
+        assertEquals(0, sqs.getMessageCount("chat-room-1"));
+    }
+
+    @Test
+    void testSendMessageBatch_ReportsInvalidEntriesIndividually() {
+        // When
+        SendMessageBatchResponse response = sqs.sendMessageBatch(SendMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(
+                        SendMessageBatchRequestEntry.builder().id("ok").messageBody("hello").build(),
+                        SendMessageBatchRequestEntry.builder().id("empty").messageBody("").build())
+                .build());
+
+        // Then
+        assertEquals(List.of("ok"), response.successful().stream().map(SendMessageBatchResultEntry::id).toList());
+        assertEquals(List.of("empty"), response.failed().stream().map(BatchResultErrorEntry::id).toList());
+        assertEquals(1, sqs.getMessageCount("chat-room-1"));
+    }
+
+    @Test
+    void testReceiveMessage_HiddenUntilVisibilityTimeoutThenRedeliveredWithReceiveCount() {
+        // Given
+        send("hello");
+        Message first = receive(30).get(0);
+        assertEquals("1", first.attributesAsStrings().get("ApproximateReceiveCount"));
+
+        // When - still in flight
+        assertTrue(receive(30).isEmpty());
+        clock.advance(Duration.ofSeconds(31));
+        Message second = receive(30).get(0);
+
+        // Then
+        assertEquals(first.messageId(), second.messageId());
+        assertNotEquals(first.receiptHandle(), second.receiptHandle());
+        assertEquals("2", second.attributesAsStrings().get("ApproximateReceiveCount"));
+    }
+
+    @Test
+    void testDeleteMessage_OutdatedReceiptHandleLeavesMessageInQueue() {
+        // Given
+        send("hello");
+        Message first = receive(30).get(0);
+        clock.advance(Duration.ofSeconds(31));
+        Message second = receive(30).get(0);
+
+        // When
+        sqs.deleteMessage(DeleteMessageRequest.builder().queueUrl(queueUrl).receiptHandle(first.receiptHandle()).build());
+
+        // Then
+        assertEquals(1, sqs.getMessageCount("chat-room-1"));
+        sqs.deleteMessage(DeleteMessageRequest.builder().queueUrl(queueUrl).receiptHandle(second.receiptHandle()).build());
+        assertEquals(0, sqs.getMessageCount("chat-room-1"));
+        assertThrows(ReceiptHandleIsInvalidException.class, () -> sqs.deleteMessage(
+                DeleteMessageRequest.builder().queueUrl(queueUrl).receiptHandle("not-a-handle").build()));
+    }
+
+    @Test
+    void testReceiveMessage_LongPollReturnsWhenMessageArrives() throws Exception {
+        // Given
+        CompletableFuture<ReceiveMessageResponse> poll = CompletableFuture.supplyAsync(() -> sqs.receiveMessage(
+                ReceiveMessageRequest.builder().queueUrl(queueUrl).waitTimeSeconds(5).build()));
+        Thread.sleep(100);
+        assertFalse(poll.isDone());
+
+        // When
+        send("hello");
+
+        // Then
+        ReceiveMessageResponse response = poll.get(2, TimeUnit.SECONDS);
+        assertEquals("hello", response.messages().get(0).body());
+    }
+
+    @Test
+    void testReceiveMessage_ExpiredMessagesAreDropped() {
+        // Given
+        sqs.createQueue(CreateQueueRequest.builder().queueName("short")
+                .attributes(Map.of(QueueAttributeName.MESSAGE_RETENTION_PERIOD, "60")).build());
+        String shortUrl = sqs.getQueueUrl(GetQueueUrlRequest.builder().queueName("short").build()).queueUrl();
+        sqs.sendMessage(SendMessageRequest.builder().queueUrl(shortUrl).messageBody("hello").build());
+
+        // When
+        clock.advance(Duration.ofSeconds(61));
+
+        // Then
+        assertEquals(0, sqs.getMessageCount("short"));
+    }
+
+    @Test
+    void testThrottling_RejectsCallsOverRateAndCapturesThem() {
+        // Given
+        sqs.resetCalls();
+        sqs.setMaxRequestsPerSecond(2);
+
+        // When
+        send("a");
+        send("b");
+        SqsException throttled = assertThrows(SqsException.class, () -> send("c"));
+        clock.advance(Duration.ofSeconds(1));
+        send("d");
+
+        // Then
+        assertEquals("RequestThrottled", throttled.awsErrorDetails().errorCode());
+        assertEquals(4, sqs.getCallCount("SendMessage"));
+        assertEquals(1, sqs.getThrottledCalls());
+        assertEquals(List.of("a", "b", "c", "d"), sqs.getRequests(SendMessageRequest.class).stream()
+                .map(SendMessageRequest::messageBody).toList());
+        assertEquals(3, sqs.getMessageCount("chat-room-1"));
+    }
+
+    private void send(String body) {
+        sqs.sendMessage(SendMessageRequest.builder().queueUrl(queueUrl).messageBody(body).build());
+    }
+
+    private List<Message> receive(int visibilityTimeout) {
+        return sqs.receiveMessage(ReceiveMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .maxNumberOfMessages(10)
+                .visibilityTimeout(visibilityTimeout)
+                .attributeNamesWithStrings("All")
+                .build()).messages();
+    }
+}
@@ -0,0 +1,54 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-call cost of hot-path events compared with SLF4J. Not part of the regular test run:
+ * {@code ./gradlew benchmark}. Results are printed; compare them on the target instance type.
+ */
+@Tag("benchmark")
+class HotPathLoggerBenchmark {
+
+    private static final Logger SLF4J = LoggerFactory.getLogger("hotpath.benchmark");
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 20_000_000;
+
+    private static volatile Object sink;
+
+    @Test
+    void benchmarkPerCallOverhead() {
+        HotPathLogger disabled = new HotPathLogger(8192, System::currentTimeMillis, (category, line) -> sink = line);
+
+        HotPathLogger sampled = new HotPathLogger(8192, System::currentTimeMillis, (category, line) -> sink = line);
+        sampled.configure(HotPathCategory.INBOUND, 0.01, 100);
+        sampled.start();
+
+        String session = "session-1";
+        String payload = "{\"userId\":\"123\",\"roomId\":\"1\",\"message\":\"hello\",\"messageType\":\"TEXT\"}";
+
+        report("hot-path event, category off", measure(() -> disabled.event(HotPathCategory.INBOUND, "session", session, "payload", payload)));
+        report("hot-path event, 1% sampled, 100/s cap", measure(() -> sampled.event(HotPathCategory.INBOUND, "session", session, "payload", payload)));
+        report("slf4j debug, level off", measure(() -> SLF4J.debug("Receive Message: {} {}", session, payload)));
+        report("string concat (eager formatting)", measure(() -> sink = "Receive Message: " + session + " " + payload));
+
+        sampled.stop();
+    }
+
+    private static double measure(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return (double) (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static void report(String name, double nanosPerCall) {
+        System.out.printf("%-40s %8.2f ns/call%n", name, nanosPerCall);
+    }
+}
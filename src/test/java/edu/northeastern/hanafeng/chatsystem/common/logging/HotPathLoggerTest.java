@@ -0,0 +1,149 @@
+package edu.northeastern.hanafeng.chatsystem.common.logging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotPathLoggerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final List<String> lines = new ArrayList<>();
+    private HotPathLogger logger;
+
+    @BeforeEach
+    void setUp() {
+        logger = new HotPathLogger(8, clock::get, (category, line) -> lines.add(line));
+    }
+
+    @Test
+    void testUnconfiguredCategory_IsOff() {
+        // When
+        logger.event(HotPathCategory.INBOUND, "session", "s1");
+
+        // Then
+        assertFalse(logger.isEnabled(HotPathCategory.INBOUND));
+        assertEquals(0, logger.drain(Integer.MAX_VALUE));
+        assertEquals(0L, counter(HotPathCategory.INBOUND, "sampledOut"));
+    }
+
+    @Test
+    void testKeptEvent_FormattedAsLogfmtOnDrain() {
+        // Given
+        logger.configure(HotPathCategory.BROADCAST, 1.0, 0);
+
+        // When
+        logger.event(HotPathCategory.BROADCAST, "room", "3", "sessions", 12, "payload", "say \"hi\" a=b");
+
+        // Then
+        assertTrue(lines.isEmpty());
+        assertEquals(1, logger.drain(Integer.MAX_VALUE));
+        assertEquals("event=broadcast ts=1700000000000 room=3 sessions=12 payload=\"say \\\"hi\\\" a=b\"", lines.get(0));
+    }
+
+    @Test
+    void testSampling_KeepsRoughlyTheConfiguredRate() {
+        // Given
+        logger = new HotPathLogger(1 << 16, clock::get, (category, line) -> lines.add(line));
+        logger.configure(HotPathCategory.SQS_SEND, 0.1, 0);
+
+        // When
+        for (int i = 0; i < 20_000; i++) {
+            logger.event(HotPathCategory.SQS_SEND, "room", "1");
+        }
+
+        // Then
+        long kept = counter(HotPathCategory.SQS_SEND, "kept");
+        assertTrue(kept > 1_500 && kept < 2_500, "kept " + kept);
+        assertEquals(20_000L, kept + counter(HotPathCategory.SQS_SEND, "sampledOut"));
+    }
+
+    @Test
+    void testRateLimit_CapsKeptEventsPerSecond() {
+        // Given
+        logger.configure(HotPathCategory.RESPONSE, 1.0, 3);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            logger.event(HotPathCategory.RESPONSE, "i", i);
+        }
+        logger.drain(Integer.MAX_VALUE);
+        clock.addAndGet(1000);
+        logger.event(HotPathCategory.RESPONSE, "i", 5);
+        logger.drain(Integer.MAX_VALUE);
+
+        // Then
+        assertEquals(4, lines.size());
+        assertEquals(2L, counter(HotPathCategory.RESPONSE, "rateLimited"));
+    }
+
+    @Test
+    void testFullRing_DropsInsteadOfBlocking() {
+        // Given
+        logger.configure(HotPathCategory.INBOUND, 1.0, 0);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            logger.event(HotPathCategory.INBOUND, "i", i);
+        }
+
+        // Then
+        assertEquals(8, logger.drain(Integer.MAX_VALUE));
+        assertEquals(2L, counter(HotPathCategory.INBOUND, "dropped"));
+
+        // Space is reused after draining
+        logger.event(HotPathCategory.INBOUND, "i", 10);
+        assertEquals(1, logger.drain(Integer.MAX_VALUE));
+        assertEquals("event=inbound ts=1700000000000 i=10", lines.get(8));
+    }
+
+    @Test
+    void testRuntimeReconfiguration_TurnsCategoryOff() {
+        // Given
+        logger.configure(HotPathCategory.SQS_DELETE, 1.0, 0);
+        logger.event(HotPathCategory.SQS_DELETE, "room", "1");
+
+        // When
+        logger.configure(HotPathCategory.SQS_DELETE, 0.0, 0);
+        logger.event(HotPathCategory.SQS_DELETE, "room", "2");
+
+        // Then
+        assertEquals(1, logger.drain(Integer.MAX_VALUE));
+        assertFalse(logger.isEnabled(HotPathCategory.SQS_DELETE));
+    }
+
+    @Test
+    void testConfigure_InvalidRate_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> logger.configure(HotPathCategory.INBOUND, 1.5, 0));
+        assertThrows(IllegalArgumentException.class, () -> HotPathCategory.fromKey("nope"));
+    }
+
+    @Test
+    void testAppenderThread_WritesKeptEvents() throws Exception {
+        // Given
+        List<String> written = new java.util.concurrent.CopyOnWriteArrayList<>();
+        HotPathLogger threaded = new HotPathLogger(64, clock::get, (category, line) -> written.add(line));
+        threaded.configure(HotPathCategory.STOMP_PUBLISH, 1.0, 0);
+        threaded.start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            threaded.event(HotPathCategory.STOMP_PUBLISH, "i", i);
+        }
+        threaded.stop();
+
+        // Then
+        assertEquals(10, written.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long counter(HotPathCategory category, String name) {
+        Map<String, Object> categories = (Map<String, Object>) logger.describe().get("categories");
+        return (Long) ((Map<String, Object>) categories.get(category.key())).get(name);
+    }
+}
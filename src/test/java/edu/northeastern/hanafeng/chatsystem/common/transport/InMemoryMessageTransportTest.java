@@ -0,0 +1,118 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryMessageTransportTest {
+
+    private InMemoryMessageTransport transport;
+
+    @AfterEach
+    void tearDown() {
+        if (transport != null) {
+            transport.stop();
+        }
+    }
+
+    @Test
+    void testPublish_DeliversEachRoomInPublishOrder() throws Exception {
+        // Given
+        transport = new InMemoryMessageTransport(1000, 3);
+        List<String> room1 = Collections.synchronizedList(new ArrayList<>());
+        List<String> room2 = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch delivered = new CountDownLatch(200);
+        transport.registerHandler((roomId, chatMessage) -> {
+            ("1".equals(roomId) ? room1 : room2).add(chatMessage.getMessage());
+            delivered.countDown();
+        }).start();
+
+        // When
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            transport.publish(createChatMessage("message " + i), "1");
+            transport.publish(createChatMessage("message " + i), "2");
+            expected.add("message " + i);
+        }
+
+        // Then
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(expected, room1);
+        assertEquals(expected, room2);
+    }
+
+    @Test
+    void testPublishBeforeStart_DeliveredOnceStarted() throws Exception {
+        // Given
+        transport = new InMemoryMessageTransport(1000, 3);
+        CountDownLatch delivered = new CountDownLatch(1);
+        transport.publish(createChatMessage("early"), "1");
+        transport.registerHandler((roomId, chatMessage) -> delivered.countDown());
+
+        // When
+        transport.start();
+
+        // Then
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testPublishBatch_FullQueueRejectsOverflow() {
+        // Given - not started, so nothing is drained
+        transport = new InMemoryMessageTransport(2, 3);
+
+        // When
+        List<Integer> failed = transport.publishBatch("1",
+                List.of(createChatMessage("a"), createChatMessage("b"), createChatMessage("c")));
+
+        // Then
+        assertEquals(List.of(2), failed);
+        assertEquals(2, transport.getQueueDepth("1"));
+    }
+
+    @Test
+    void testHandlerFailure_RetriedUpToMaxRetries() throws Exception {
+        // Given
+        transport = new InMemoryMessageTransport(1000, 3);
+        CountDownLatch attempts = new CountDownLatch(3);
+        CountDownLatch next = new CountDownLatch(1);
+        transport.registerHandler((roomId, chatMessage) -> {
+            if ("next".equals(chatMessage.getMessage())) {
+                next.countDown();
+                return;
+            }
+            attempts.countDown();
+            throw new IllegalStateException("broadcast failed");
+        }).start();
+
+        // When
+        transport.publish(createChatMessage("failing"), "1");
+        transport.publish(createChatMessage("next"), "1");
+
+        // Then - the failing message is dropped after three attempts and the room keeps flowing
+        assertTrue(attempts.await(5, TimeUnit.SECONDS));
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStart_WithoutHandlerThrows() {
+        transport = new InMemoryMessageTransport(1000, 3);
+        assertThrows(IllegalStateException.class, () -> transport.start());
+    }
+
+    private ChatMessage createChatMessage(String text) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId("123");
+        message.setMessage(text);
+        message.setMessageType("TEXT");
+        return message;
+    }
+}
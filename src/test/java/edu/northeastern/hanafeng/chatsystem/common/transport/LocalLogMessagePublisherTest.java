@@ -0,0 +1,71 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalLogMessagePublisherTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testSecondInstanceOnSameDirectory_FailsAtStartup() throws Exception {
+        // Given
+        LocalLogMessagePublisher first = newPublisher();
+        first.start();
+        LocalLogMessagePublisher second = newPublisher();
+
+        try {
+            // When
+            IllegalStateException error = assertThrows(IllegalStateException.class, second::start);
+
+            // Then
+            assertTrue(error.getMessage().contains("one server per directory"));
+            assertTrue(first.publishBatch("1", List.of(message())).isEmpty());
+        } finally {
+            first.close();
+        }
+    }
+
+    @Test
+    void testDirectoryReleasedOnClose_NextInstanceStarts() throws Exception {
+        // Given
+        LocalLogMessagePublisher first = newPublisher();
+        first.start();
+        first.publishBatch("1", List.of(message()));
+        first.close();
+
+        // When
+        LocalLogMessagePublisher next = newPublisher();
+        next.start();
+
+        // Then
+        try {
+            assertTrue(next.publishBatch("1", List.of(message())).isEmpty());
+        } finally {
+            next.close();
+        }
+    }
+
+    private LocalLogMessagePublisher newPublisher() {
+        return new LocalLogMessagePublisher(objectMapper, directory, 1 << 16, 4096, 1 << 20);
+    }
+
+    private static ChatMessage message() {
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setUserId("1");
+        chatMessage.setRoomId("1");
+        chatMessage.setMessageType("TEXT");
+        chatMessage.setMessage("hello");
+        return chatMessage;
+    }
+}
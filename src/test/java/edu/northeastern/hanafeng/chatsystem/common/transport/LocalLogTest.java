@@ -0,0 +1,208 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalLogTest {
+
+    private static final int SEGMENT_BYTES = 1024;
+    private static final int INDEX_INTERVAL_BYTES = 128;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndPoll_ReturnsRecordsInOffsetOrder() throws Exception {
+        // Given
+        try (LocalLog log = openLog(1 << 20)) {
+            assertEquals(0, log.append(bytes("first")));
+            assertEquals(1, log.append(bytes("second")));
+
+            // When
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                List<LocalLogReader.LogEntry> entries = reader.poll(10);
+
+                // Then
+                assertEquals(List.of("first", "second"), payloads(entries));
+                assertEquals(0, entries.get(0).offset());
+                assertEquals(2, reader.position());
+                assertTrue(reader.poll(10).isEmpty());
+
+                // Records appended after the reader caught up are picked up by the next poll
+                log.append(bytes("third"));
+                assertEquals(List.of("third"), payloads(reader.poll(10)));
+            }
+        }
+    }
+
+    @Test
+    void testSegmentRoll_ReaderFollowsIntoNextSegment() throws Exception {
+        // Given
+        try (LocalLog log = openLog(1 << 20)) {
+            List<String> appended = appendMessages(log, 50);
+            assertTrue(LocalLog.listSegments(directory).size() > 1);
+
+            // When
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                List<String> read = readAll(reader);
+
+                // Then
+                assertEquals(appended, read);
+            }
+        }
+    }
+
+    @Test
+    void testCheckpoint_NewReaderResumesAfterCommittedOffset() throws Exception {
+        // Given
+        try (LocalLog log = openLog(1 << 20)) {
+            List<String> appended = appendMessages(log, 40);
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                List<LocalLogReader.LogEntry> entries = reader.poll(25);
+                reader.commit(entries.get(entries.size() - 1).offset() + 1);
+            }
+
+            // When
+            try (LocalLogReader resumed = new LocalLogReader(directory, "group");
+                 LocalLogReader otherGroup = new LocalLogReader(directory, "other")) {
+
+                // Then
+                assertEquals(appended.subList(25, 40), readAll(resumed));
+                assertEquals(appended, readAll(otherGroup));
+            }
+        }
+    }
+
+    @Test
+    void testIndex_SeeksNearCommittedOffsetInLargeSegment() throws Exception {
+        // Given - one segment with many index entries
+        try (LocalLog log = LocalLog.open(directory, 1 << 16, INDEX_INTERVAL_BYTES, 1 << 20)) {
+            List<String> appended = appendMessages(log, 500);
+            assertEquals(1, LocalLog.listSegments(directory).size());
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                reader.commit(321);
+            }
+
+            // When
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                List<LocalLogReader.LogEntry> entries = reader.poll(1);
+
+                // Then
+                assertEquals(321, entries.get(0).offset());
+                assertEquals(appended.get(321), payloads(entries).get(0));
+            }
+        }
+    }
+
+    @Test
+    void testRetention_DeletesOldestSegmentsAndReaderSkipsAhead() throws Exception {
+        // Given
+        try (LocalLog log = openLog(3 * SEGMENT_BYTES)) {
+            List<String> appended = appendMessages(log, 200);
+
+            // Then
+            List<Long> segments = LocalLog.listSegments(directory);
+            assertTrue(segments.size() <= 3);
+            long oldest = segments.get(0);
+            assertTrue(oldest > 0);
+
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                List<String> read = readAll(reader);
+                assertEquals(appended.subList((int) oldest, 200), read);
+            }
+        }
+    }
+
+    @Test
+    void testReopen_ContinuesOffsetsAfterLastRecord() throws Exception {
+        // Given
+        try (LocalLog log = openLog(1 << 20)) {
+            appendMessages(log, 30);
+        }
+
+        // When
+        try (LocalLog reopened = openLog(1 << 20)) {
+
+            // Then
+            assertEquals(30, reopened.nextOffset());
+            assertEquals(30, reopened.append(bytes("after restart")));
+        }
+    }
+
+    @Test
+    void testTornRecord_DiscardedOnReopen() throws Exception {
+        // Given
+        long tornPosition;
+        try (LocalLog log = openLog(1 << 20)) {
+            log.append(bytes("intact"));
+            tornPosition = LocalLog.recordBytes(bytes("intact").length);
+            log.append(bytes("torn"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(LocalLog.segmentFile(directory, 0).toFile(), "rw")) {
+            file.seek(tornPosition + LocalLog.HEADER_BYTES);
+            file.write('X');
+        }
+
+        // When
+        try (LocalLog reopened = openLog(1 << 20)) {
+
+            // Then
+            assertEquals(1, reopened.nextOffset());
+            reopened.append(bytes("replacement"));
+            try (LocalLogReader reader = new LocalLogReader(directory, "group")) {
+                assertEquals(List.of("intact", "replacement"), payloads(reader.poll(10)));
+            }
+        }
+    }
+
+    @Test
+    void testSecondWriter_Rejected() throws Exception {
+        try (LocalLog log = openLog(1 << 20)) {
+            assertThrows(IOException.class, () -> openLog(1 << 20));
+
+            // The rejected writer leaves the first one intact
+            log.append(bytes("still writable"));
+            assertEquals(1, log.nextOffset());
+        }
+    }
+
+    private LocalLog openLog(long retentionBytes) throws IOException {
+        return LocalLog.open(directory, SEGMENT_BYTES, INDEX_INTERVAL_BYTES, retentionBytes);
+    }
+
+    private static List<String> appendMessages(LocalLog log, int count) throws IOException {
+        List<String> appended = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String message = "message " + i;
+            log.append(bytes(message));
+            appended.add(message);
+        }
+        return appended;
+    }
+
+    private static List<String> readAll(LocalLogReader reader) throws IOException {
+        List<String> read = new ArrayList<>();
+        List<LocalLogReader.LogEntry> entries;
+        while (!(entries = reader.poll(7)).isEmpty()) {
+            read.addAll(payloads(entries));
+        }
+        return read;
+    }
+
+    private static List<String> payloads(List<LocalLogReader.LogEntry> entries) {
+        return entries.stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
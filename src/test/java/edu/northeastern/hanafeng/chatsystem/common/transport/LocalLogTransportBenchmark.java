@@ -0,0 +1,106 @@
+package edu.northeastern.hanafeng.chatsystem.common.transport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Append cost, throughput and append-to-read latency of the local log transport. Not part of the regular
+ * test run: {@code ./gradlew benchmark}. Results are printed; compare them with SQS send/receive latency
+ * on the target instance type.
+ */
+@Tag("benchmark")
+class LocalLogTransportBenchmark {
+
+    private static final int MESSAGES = 2_000_000;
+    private static final int PACED_MESSAGES = 200_000;
+    private static final long PACED_INTERVAL_NANOS = 10_000;
+    private static final int PAYLOAD_BYTES = 200;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void benchmarkAppendAndTail() throws Exception {
+        // Unpaced: how fast one writer appends and one reader keeps up
+        long[] saturated = run(directory.resolve("saturated"), MESSAGES, 0);
+
+        // Paced at 100k msg/s: append-to-read latency without a backlog
+        long[] paced = run(directory.resolve("paced"), PACED_MESSAGES, PACED_INTERVAL_NANOS);
+        Arrays.sort(paced, 1, paced.length);
+        System.out.printf("%-40s %8.2f us%n", "append-to-read p50 @100k msg/s", paced[paced.length / 2] / 1e3);
+        System.out.printf("%-40s %8.2f us%n", "append-to-read p99 @100k msg/s", paced[(int) (paced.length * 0.99)] / 1e3);
+        System.out.printf("%-40s %8.2f us%n", "append-to-read p99.9 @100k msg/s", paced[(int) (paced.length * 0.999)] / 1e3);
+        assertEquals(MESSAGES, saturated.length);
+    }
+
+    /**
+     * Append messages (every intervalNanos, or back to back when 0) while a reader thread tails the log.
+     *
+     * @return the append-to-read latency of every message
+     */
+    private static long[] run(Path logDirectory, int messages, long intervalNanos) throws Exception {
+        long[] latencies = new long[messages];
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+
+        try (LocalLog log = LocalLog.open(logDirectory, 64 << 20, 4096, 1L << 30)) {
+            Thread readerThread = new Thread(() -> {
+                try (LocalLogReader reader = new LocalLogReader(logDirectory, "benchmark")) {
+                    int read = 0;
+                    while (read < messages) {
+                        List<LocalLogReader.LogEntry> entries = reader.poll(256);
+                        long now = System.nanoTime();
+                        for (LocalLogReader.LogEntry entry : entries) {
+                            latencies[read++] = now - ByteBuffer.wrap(entry.payload()).getLong();
+                        }
+                        if (!entries.isEmpty()) {
+                            reader.commit(entries.get(entries.size() - 1).offset() + 1);
+                        } else {
+                            Thread.onSpinWait();
+                        }
+                    }
+                } catch (Throwable e) {
+                    readerFailure.set(e);
+                }
+            }, "local-log-benchmark-reader");
+
+            // Create the first segment before the reader starts looking for it; this record waits for the reader
+            byte[] payload = new byte[PAYLOAD_BYTES];
+            ByteBuffer.wrap(payload).putLong(System.nanoTime());
+            log.append(payload);
+            readerThread.start();
+
+            long start = System.nanoTime();
+            for (int i = 1; i < messages; i++) {
+                if (intervalNanos > 0) {
+                    long due = start + i * intervalNanos;
+                    while (System.nanoTime() < due) {
+                        Thread.onSpinWait();
+                    }
+                }
+                ByteBuffer.wrap(payload).putLong(System.nanoTime());
+                log.append(payload);
+            }
+            long appendNanos = System.nanoTime() - start;
+            readerThread.join(TimeUnit.MINUTES.toMillis(2));
+            long totalNanos = System.nanoTime() - start;
+
+            assertNull(readerFailure.get());
+            if (intervalNanos == 0) {
+                System.out.printf("%-40s %8.2f ns/op%n", "append (" + PAYLOAD_BYTES + " B)", (double) appendNanos / messages);
+                System.out.printf("%-40s %8.0f msg/s%n", "append + tail throughput", messages / (totalNanos / 1e9));
+            }
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.northeastern.hanafeng.chatsystem.model.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import edu.northeastern.hanafeng.chatsystem.model.CompactAck;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.ResponseMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatBinaryCodecTest {
+
+    @Test
+    void testChatMessage_RoundTrip() {
+        // Given
+        ChatMessage message = createChatMessage("Hello – naïve ünïcode ✓");
+
+        // When
+        byte[] encoded = ChatBinaryCodec.encodeChatMessage(message);
+        ChatMessage decoded = ChatBinaryCodec.decodeChatMessage(ByteBuffer.wrap(encoded));
+
+        // Then
+        assertEquals(message, decoded);
+    }
+
+    @Test
+    void testChatMessage_NullFieldsRoundTrip() {
+        // Given
+        ChatMessage message = new ChatMessage();
+        message.setUserId("1");
+
+        // When
+        ChatMessage decoded = ChatBinaryCodec.decodeChatMessage(ByteBuffer.wrap(ChatBinaryCodec.encodeChatMessage(message)));
+
+        // Then
+        assertEquals(message, decoded);
+        assertNull(decoded.getTimestamp());
+        assertNull(decoded.getMessageType());
+    }
+
+    @Test
+    void testResponse_RoundTripWithAndWithoutEcho() {
+        // Given
+        ResponseMessage success = new ResponseMessage();
+        success.setEcho(createChatMessage("hi"));
+        success.setServerTimestamp(Instant.parse("2025-01-25T10:00:01.123456789Z"));
+        success.setStatus("success");
+
+        ResponseMessage error = new ResponseMessage();
+        error.setServerTimestamp(Instant.parse("2025-01-25T10:00:01Z"));
+        error.setStatus("error");
+        error.setError("userId missing");
+
+        // Then
+        assertEquals(success, ChatBinaryCodec.decodeResponse(ByteBuffer.wrap(ChatBinaryCodec.encodeResponse(success))));
+        assertEquals(error, ChatBinaryCodec.decodeResponse(ByteBuffer.wrap(ChatBinaryCodec.encodeResponse(error))));
+    }
+
+    @Test
+    void testCompactAck_RoundTrip() {
+        // Given
+        CompactAck success = new CompactAck();
+        success.setType(CompactAck.TYPE_SINGLE);
+        success.setMessageId("123e4567-e89b-12d3-a456-426614174000");
+        success.setStatus(CompactAck.STATUS_SUCCESS);
+        success.setSequence(42);
+        success.setServerTimestamp(1737799200000L);
+
+        CompactAck error = new CompactAck();
+        error.setType(CompactAck.TYPE_SINGLE);
+        error.setStatus(CompactAck.STATUS_ERROR);
+        error.setSequence(43);
+        error.setServerTimestamp(1737799200001L);
+        error.setError("messageId must be a valid UUID");
+
+        CompactAck range = new CompactAck();
+        range.setType(CompactAck.TYPE_RANGE);
+        range.setFromSequence(44L);
+        range.setSequence(107);
+        range.setServerTimestamp(1737799200002L);
+
+        // When
+        byte[] successBytes = ChatBinaryCodec.encodeCompactAck(success);
+        byte[] rangeBytes = ChatBinaryCodec.encodeCompactAck(range);
+
+        // Then
+        assertEquals(35, successBytes.length);
+        assertEquals(25, rangeBytes.length);
+        assertEquals(success, ChatBinaryCodec.decodeCompactAck(ByteBuffer.wrap(successBytes)));
+        assertEquals(error, ChatBinaryCodec.decodeCompactAck(ByteBuffer.wrap(ChatBinaryCodec.encodeCompactAck(error))));
+        assertEquals(range, ChatBinaryCodec.decodeCompactAck(ByteBuffer.wrap(rangeBytes)));
+    }
+
+    @Test
+    void testCompactAck_NonUuidMessageIdKeptAsString() {
+        CompactAck ack = new CompactAck();
+        ack.setType(CompactAck.TYPE_SINGLE);
+        ack.setMessageId("not-a-uuid");
+        ack.setStatus(CompactAck.STATUS_ERROR);
+
+        assertEquals(ack, ChatBinaryCodec.decodeCompactAck(ByteBuffer.wrap(ChatBinaryCodec.encodeCompactAck(ack))));
+    }
+
+    @Test
+    void testCreditGrant_RoundTrip() {
+        // Given
+        byte[] encoded = ChatBinaryCodec.encodeCreditGrant(new CreditGrant(256));
+
+        // Then
+        assertEquals(5, encoded.length);
+        assertEquals(new CreditGrant(256), ChatBinaryCodec.decodeCreditGrant(ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    void testFrameType_DoesNotConsume() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.wrap(ChatBinaryCodec.encodeChatMessage(createChatMessage("x")));
+
+        // Then
+        assertEquals(ChatBinaryCodec.FRAME_CHAT_MESSAGE, ChatBinaryCodec.frameType(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void testDecode_WrongFrameTypeOrTruncated_Throws() {
+        byte[] encoded = ChatBinaryCodec.encodeChatMessage(createChatMessage("hello"));
+        byte[] truncated = java.util.Arrays.copyOf(encoded, encoded.length - 3);
+
+        assertThrows(IllegalArgumentException.class, () -> ChatBinaryCodec.decodeResponse(ByteBuffer.wrap(encoded)));
+        assertThrows(IllegalArgumentException.class, () -> ChatBinaryCodec.decodeChatMessage(ByteBuffer.wrap(truncated)));
+        assertThrows(IllegalArgumentException.class, () -> ChatBinaryCodec.decodeChatMessage(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void testEncodedResponse_SmallerThanJson() throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        ResponseMessage response = new ResponseMessage();
+        response.setEcho(createChatMessage("short message"));
+        response.setServerTimestamp(Instant.now());
+        response.setStatus("success");
+
+        // When
+        int jsonBytes = objectMapper.writeValueAsString(response).getBytes(StandardCharsets.UTF_8).length;
+        int binaryBytes = ChatBinaryCodec.encodeResponse(response).length;
+
+        // Then
+        assertTrue(binaryBytes * 2 < jsonBytes, "binary=" + binaryBytes + " json=" + jsonBytes);
+    }
+
+    private ChatMessage createChatMessage(String text) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId("100000");
+        message.setRoomId("20");
+        message.setMessageId("123e4567-e89b-12d3-a456-426614174000");
+        message.setUsername("ABC100000");
+        message.setMessage(text);
+        message.setTimestamp(Instant.parse("2025-01-25T10:00:00.5Z"));
+        message.setMessageType("TEXT");
+        return message;
+    }
+}
@@ -0,0 +1,215 @@
+package edu.northeastern.hanafeng.chatsystem.model.validation;
+
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: the hand-compiled validator must agree with the annotation-driven
+ * Bean Validation on ChatMessage for every input.
+ */
+class ChatMessageValidatorTest {
+
+    // Field declaration order on ChatMessage - the hand-compiled validator reports the first failing field
+    private static final List<String> FIELD_ORDER =
+            List.of("userId", "roomId", "messageId", "username", "message", "timestamp", "messageType");
+
+    private static final String[] USER_IDS = {
+            null, "", " ", "\t", "0", "1", "9", "10", "99999", "100000", "100001", "000001", "012",
+            "123456", "1a", "-1", " 1", "1 ", "1\n", "５", "１"
+    };
+    private static final String[] ROOM_IDS = {
+            null, "", "  ", "0", "1", "9", "10", "19", "20", "21", "01", "2", "200", "a", "1.", "\n"
+    };
+    private static final String[] MESSAGE_IDS = {
+            null, "", " ",
+            "123e4567-e89b-12d3-a456-426614174000",
+            "123E4567-E89B-12D3-A456-426614174000",
+            "123e4567e89b12d3a456426614174000",
+            "123e4567-e89b-12d3-a456-42661417400",
+            "123e4567-e89b-12d3-a456-4266141740000",
+            "123e4567-e89b-12d3-a456_426614174000",
+            "g23e4567-e89b-12d3-a456-426614174000",
+            "00000000-0000-0000-0000-000000000000"
+    };
+    private static final String[] USERNAMES = {
+            null, "", "   ", "ab", "abc", "ABC123", "a1b2c3d4e5f6g7h8i9j0", "a1b2c3d4e5f6g7h8i9j0k",
+            "user_1", "user 1", "usér", "Zz9"
+    };
+    private static final String[] MESSAGES = {
+            null, "", " ", "\t\n", "a", " a ", "hello world", "x".repeat(5000), "x".repeat(5001), "é"
+    };
+    private static final Instant[] TIMESTAMPS = {
+            null,
+            Instant.parse("2019-12-31T23:59:59.999Z"),
+            Instant.parse("2020-01-01T00:00:00Z"),
+            Instant.parse("2025-01-25T10:00:00Z"),
+            Instant.now().plusSeconds(3600),
+            Instant.now().plusSeconds(86400 + 3600),
+            Instant.EPOCH,
+            Instant.MAX,
+            Instant.MIN
+    };
+    private static final String[] MESSAGE_TYPES = {
+            null, "", " ", "TEXT", "JOIN", "LEAVE", "text", "TEXTJOIN", "TEXT|JOIN", "LEAV", "JOIN "
+    };
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator beanValidator;
+    private final ChatMessageValidator validator = new ChatMessageValidator();
+
+    @BeforeAll
+    static void setUpFactory() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void testValidMessage_ReturnsNull() {
+        assertNull(validator.validate(validMessage()));
+        assertTrue(beanValidator.validate(validMessage()).isEmpty());
+    }
+
+    @Test
+    void testErrorMessages_MatchAnnotations() {
+        ChatMessage message = validMessage();
+        message.setUserId("");
+        assertEquals("userId missing", validator.validate(message));
+
+        message = validMessage();
+        message.setRoomId("21");
+        assertEquals("roomId must be 1-20 alphanumeric characters", validator.validate(message));
+
+        message = validMessage();
+        message.setMessage("x".repeat(5001));
+        assertEquals("message must be 1-5000 characters", validator.validate(message));
+
+        message = validMessage();
+        message.setTimestamp(Instant.parse("2019-01-01T00:00:00Z"));
+        assertEquals("timestamp must be a valid ISO-8601 instant between 2020 and current time",
+                validator.validate(message));
+    }
+
+    @Test
+    void testEachField_AgreesWithBeanValidation() {
+        for (String value : USER_IDS) {
+            ChatMessage message = validMessage();
+            message.setUserId(value);
+            assertAgrees(message);
+        }
+        for (String value : ROOM_IDS) {
+            ChatMessage message = validMessage();
+            message.setRoomId(value);
+            assertAgrees(message);
+        }
+        for (String value : MESSAGE_IDS) {
+            ChatMessage message = validMessage();
+            message.setMessageId(value);
+            assertAgrees(message);
+        }
+        for (String value : USERNAMES) {
+            ChatMessage message = validMessage();
+            message.setUsername(value);
+            assertAgrees(message);
+        }
+        for (String value : MESSAGES) {
+            ChatMessage message = validMessage();
+            message.setMessage(value);
+            assertAgrees(message);
+        }
+        for (Instant value : TIMESTAMPS) {
+            ChatMessage message = validMessage();
+            message.setTimestamp(value);
+            assertAgrees(message);
+        }
+        for (String value : MESSAGE_TYPES) {
+            ChatMessage message = validMessage();
+            message.setMessageType(value);
+            assertAgrees(message);
+        }
+    }
+
+    @Test
+    void testRandomCombinations_AgreeWithBeanValidation() {
+        Random random = new Random(6650);
+        for (int i = 0; i < 5000; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setUserId(random.nextInt(3) == 0 ? randomDigits(random) : pick(random, USER_IDS));
+            message.setRoomId(random.nextInt(3) == 0 ? randomDigits(random) : pick(random, ROOM_IDS));
+            message.setMessageId(pick(random, MESSAGE_IDS));
+            message.setUsername(pick(random, USERNAMES));
+            message.setMessage(pick(random, MESSAGES));
+            message.setTimestamp(TIMESTAMPS[random.nextInt(TIMESTAMPS.length)]);
+            message.setMessageType(pick(random, MESSAGE_TYPES));
+            assertAgrees(message);
+        }
+    }
+
+    private void assertAgrees(ChatMessage message) {
+        Set<ConstraintViolation<ChatMessage>> violations = beanValidator.validate(message);
+        String result = validator.validate(message);
+
+        if (violations.isEmpty()) {
+            assertNull(result, () -> "Expected valid but got '" + result + "' for " + message);
+            return;
+        }
+
+        assertNotNull(result, () -> "Expected violations " + violations + " for " + message);
+
+        // Only the first failing field (declaration order) is reported; its message must be one of the
+        // annotation messages raised for that field
+        String firstField = violations.stream()
+                .map(v -> v.getPropertyPath().toString())
+                .min((a, b) -> Integer.compare(FIELD_ORDER.indexOf(a), FIELD_ORDER.indexOf(b)))
+                .orElseThrow();
+        Set<String> expectedMessages = violations.stream()
+                .filter(v -> v.getPropertyPath().toString().equals(firstField))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toSet());
+        assertTrue(expectedMessages.contains(result),
+                () -> "Got '" + result + "', expected one of " + expectedMessages + " for " + message);
+
+        // A blank value always reports the "missing" message first, like the @NotBlank constraint
+        if (expectedMessages.size() > 1) {
+            assertTrue(result.endsWith("missing"), () -> "Expected missing message but got '" + result + "'");
+        }
+    }
+
+    private static ChatMessage validMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setUserId("123");
+        message.setRoomId("5");
+        message.setMessageId("123e4567-e89b-12d3-a456-426614174000");
+        message.setUsername("user123");
+        message.setMessage("hello");
+        message.setTimestamp(Instant.parse("2025-01-25T10:00:00Z"));
+        message.setMessageType("TEXT");
+        return message;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String randomDigits(Random random) {
+        return String.valueOf(random.nextInt(200001) - 50);
+    }
+}
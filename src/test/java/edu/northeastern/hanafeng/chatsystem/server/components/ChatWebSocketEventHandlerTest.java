@@ -1,30 +1,37 @@
 package edu.northeastern.hanafeng.chatsystem.server.components;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
 import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
-import edu.northeastern.hanafeng.chatsystem.common.services.SqsMessageService;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
 import edu.northeastern.hanafeng.chatsystem.model.ResponseMessage;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import edu.northeastern.hanafeng.chatsystem.model.validation.ChatMessageValidator;
 import edu.northeastern.hanafeng.chatsystem.server.handlers.ChatWebSocketEventHandler;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
+import edu.northeastern.hanafeng.chatsystem.server.handlers.MultiplexedSessionInterceptor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,17 +41,32 @@ class ChatWebSocketEventHandlerTest {
     private ObjectMapper objectMapper;
 
     @Mock
-    private Validator validator;
+    private ChatMessageValidator chatMessageValidator;
 
     @Mock
     private CloudWatchMetricsService metricsService;
 
     @Mock
-    private SqsMessageService sqsMessageService;
+    private ChatMessagePublisher messagePublisher;
 
     @Mock
     private ClientSessionManager clientSessionManager;
 
+    @Mock
+    private CompactAckDispatcher compactAckDispatcher;
+
+    @Mock
+    private TokenBucketRateLimiter rateLimiter;
+
+    @Mock
+    private LoadShedder loadShedder;
+
+    @Mock
+    private FlowControlManager flowControlManager;
+
+    @Mock
+    private MessageSpool messageSpool;
+
     @Mock
     private WebSocketSession session;
 
@@ -52,12 +74,15 @@ class ChatWebSocketEventHandlerTest {
 
     @BeforeEach
     void setUp() {
-        handler = new ChatWebSocketEventHandler(objectMapper, validator, metricsService, sqsMessageService, clientSessionManager);
+        handler = new ChatWebSocketEventHandler(objectMapper, chatMessageValidator, metricsService, messagePublisher, clientSessionManager, compactAckDispatcher, rateLimiter, loadShedder, flowControlManager, messageSpool);
         Map<String, Object> attributes = new HashMap<>();
         attributes.put("roomId", "1");
         lenient().when(session.getAttributes()).thenReturn(attributes);
         lenient().when(session.getId()).thenReturn("test-session-id");
         lenient().when(session.isOpen()).thenReturn(true);
+        lenient().when(rateLimiter.tryAcquire(session)).thenReturn(true);
+        lenient().when(rateLimiter.tryAcquireUser(any())).thenReturn(true);
+        lenient().when(loadShedder.admit(any())).thenReturn(true);
     }
 
     @Test
@@ -74,7 +99,7 @@ class ChatWebSocketEventHandlerTest {
         chatMessage.setMessageType("TEXT");
 
         when(objectMapper.readValue(payload, ChatMessage.class)).thenReturn(chatMessage);
-        when(validator.validate(chatMessage)).thenReturn(Collections.emptySet());
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
         when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"success\"}");
 
         // When
@@ -103,12 +128,8 @@ class ChatWebSocketEventHandlerTest {
         chatMessage.setTimestamp(Instant.parse("2025-01-25T10:00:00Z"));
         chatMessage.setMessageType("TEXT");
 
-        @SuppressWarnings("unchecked")
-        ConstraintViolation<ChatMessage> violation = mock(ConstraintViolation.class);
-        when(violation.getMessage()).thenReturn("userId missing");
-
         when(objectMapper.readValue(payload, ChatMessage.class)).thenReturn(chatMessage);
-        when(validator.validate(chatMessage)).thenReturn(Set.of(violation));
+        when(chatMessageValidator.validate(chatMessage)).thenReturn("userId missing");
         when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\",\"error\":\"userId missing\"}");
 
         // When
@@ -141,6 +162,387 @@ class ChatWebSocketEventHandlerTest {
         verify(metricsService).recordMetric("FailedMessages", 1.0);
     }
 
+    @Test
+    void testHandleBinaryMessage_Success_RespondsInBinary() throws Exception {
+        // Given
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setUserId("123");
+        chatMessage.setRoomId("1");
+        chatMessage.setMessageId("123e4567-e89b-12d3-a456-426614174000");
+        chatMessage.setUsername("user123");
+        chatMessage.setMessage("test");
+        chatMessage.setTimestamp(Instant.parse("2025-01-25T10:00:00Z"));
+        chatMessage.setMessageType("TEXT");
+
+        when(session.getAcceptedProtocol()).thenReturn(ChatBinaryCodec.SUBPROTOCOL);
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        ArgumentCaptor<BinaryMessage> captor = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(session).sendMessage(captor.capture());
+        ResponseMessage response = ChatBinaryCodec.decodeResponse(captor.getValue().getPayload());
+        assertEquals("success", response.getStatus());
+        assertEquals(chatMessage, response.getEcho());
+        verify(objectMapper, never()).writeValueAsString(any());
+        verify(messagePublisher).publish(chatMessage, "1");
+    }
+
+    @Test
+    void testHandleBinaryMessage_Malformed_SendsError() throws Exception {
+        // Given
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ByteBuffer.wrap(new byte[]{9, 9})));
+
+        // Then
+        verify(session).sendMessage(any(TextMessage.class));
+        verify(metricsService).recordMetric("FailedMessages", 1.0);
+    }
+
+    @Test
+    void testHandleTextMessage_CompactAckMode_SendsCompactAck() throws Exception {
+        // Given
+        String payload = "{\"messageType\":\"TEXT\"}";
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setMessageId("123e4567-e89b-12d3-a456-426614174000");
+
+        when(objectMapper.readValue(payload, ChatMessage.class)).thenReturn(chatMessage);
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(compactAckDispatcher.handles(session)).thenReturn(true);
+
+        // When
+        handler.handleMessage(session, new TextMessage(payload));
+
+        // Then
+        verify(compactAckDispatcher).onFrameReceived(session);
+        verify(compactAckDispatcher).acknowledge(session, "123e4567-e89b-12d3-a456-426614174000", null);
+        verify(objectMapper, never()).writeValueAsString(any());
+        verify(session, never()).sendMessage(any());
+        verify(messagePublisher).publish(chatMessage, "1");
+    }
+
+    @Test
+    void testMultiplexed_JoinAddsRoomAndQueuesToMessageRoom() throws Exception {
+        // Given
+        session.getAttributes().remove("roomId");
+        session.getAttributes().put(MultiplexedSessionInterceptor.MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        ChatMessage join = createMultiplexedMessage("7", "JOIN");
+        when(chatMessageValidator.validate(join)).thenReturn(null);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"success\"}");
+
+        // When
+        handler.afterConnectionEstablished(session);
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(join)));
+
+        // Then
+        verify(clientSessionManager).addSession("7", session);
+        verify(messagePublisher).publish(join, "7");
+    }
+
+    @Test
+    void testMultiplexed_TextToRoomNotJoined_SendsError() throws Exception {
+        // Given
+        session.getAttributes().put(MultiplexedSessionInterceptor.MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        ChatMessage text = createMultiplexedMessage("7", "TEXT");
+        when(chatMessageValidator.validate(text)).thenReturn(null);
+        when(clientSessionManager.isInRoom("7", session)).thenReturn(false);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(text)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("Not joined to room 7", captor.getValue().getError());
+        verify(messagePublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testMultiplexed_LeaveAndClose_RemovesRooms() throws Exception {
+        // Given
+        session.getAttributes().put(MultiplexedSessionInterceptor.MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        ChatMessage leave = createMultiplexedMessage("7", "LEAVE");
+        when(chatMessageValidator.validate(leave)).thenReturn(null);
+        when(clientSessionManager.isInRoom("7", session)).thenReturn(true);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"success\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(leave)));
+        handler.afterConnectionClosed(session, null);
+
+        // Then
+        verify(clientSessionManager).removeSession("7", session);
+        verify(messagePublisher).publish(leave, "7");
+        verify(clientSessionManager).removeSessionFromAllRooms(session);
+    }
+
+    @Test
+    void testHandleTextMessage_SessionRateLimited_RespondsWithoutParsing() throws Exception {
+        // Given
+        when(rateLimiter.tryAcquire(session)).thenReturn(false);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new TextMessage("{}"));
+
+        // Then
+        verify(objectMapper, never()).readValue(anyString(), eq(ChatMessage.class));
+        verify(session).sendMessage(any(TextMessage.class));
+        verifyNoInteractions(metricsService);
+    }
+
+    @Test
+    void testHandleBinaryMessage_UserRateLimited_NotQueued() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(rateLimiter.tryAcquireUser("123")).thenReturn(false);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("Rate limit exceeded", captor.getValue().getError());
+        verify(messagePublisher, never()).publish(any(), any());
+        verifyNoInteractions(metricsService);
+    }
+
+    @Test
+    void testPublishRejectionMetrics_RateLimitedFrames_PublishedOncePerInterval() throws Exception {
+        // Given: a flooding session, every frame over its limit
+        when(rateLimiter.tryAcquire(session)).thenReturn(false);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+        for (int i = 0; i < 1000; i++) {
+            handler.handleMessage(session, new TextMessage("{}"));
+        }
+
+        // When
+        handler.publishRejectionMetrics();
+        handler.publishRejectionMetrics();
+
+        // Then
+        verify(session, times(1000)).sendMessage(any(TextMessage.class));
+        verify(metricsService, times(2)).recordMetric(anyString(), anyDouble());
+        verify(metricsService).recordMetric("RateLimitedMessages", 1000.0);
+        verify(metricsService).recordMetric("ShedMessages", 0.0);
+    }
+
+    @Test
+    void testHandleBinaryMessage_Shed_RespondsRetryAfterWithoutQueueing() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(loadShedder.admit("TEXT")).thenReturn(false);
+        when(loadShedder.getRetryAfterMs()).thenReturn(500L);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("Server overloaded, retry after 500 ms", captor.getValue().getError());
+        verify(messagePublisher, never()).publish(any(), any());
+        verifyNoInteractions(metricsService);
+
+        // When
+        handler.publishRejectionMetrics();
+
+        // Then
+        verify(metricsService).recordMetric("ShedMessages", 1.0);
+        verify(metricsService).recordMetric("RateLimitedMessages", 0.0);
+        verify(metricsService, never()).recordMetric("FailedMessages", 1.0);
+    }
+
+    @Test
+    void testMultiplexed_JoinShed_DoesNotJoinRoom() throws Exception {
+        // Given
+        session.getAttributes().put(MultiplexedSessionInterceptor.MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        ChatMessage join = createMultiplexedMessage("7", "JOIN");
+        when(chatMessageValidator.validate(join)).thenReturn(null);
+        when(loadShedder.admit("JOIN")).thenReturn(false);
+        when(loadShedder.getRetryAfterMs()).thenReturn(500L);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(join)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("Server overloaded, retry after 500 ms", captor.getValue().getError());
+        verify(clientSessionManager, never()).addSession(any(), any());
+        verify(messagePublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testMultiplexed_LeaveShed_StaysInRoomAndRetrySucceeds() throws Exception {
+        // Given
+        session.getAttributes().put(MultiplexedSessionInterceptor.MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        ChatMessage leave = createMultiplexedMessage("7", "LEAVE");
+        when(chatMessageValidator.validate(leave)).thenReturn(null);
+        when(clientSessionManager.isInRoom("7", session)).thenReturn(true);
+        when(loadShedder.admit("LEAVE")).thenReturn(false, true);
+        when(loadShedder.getRetryAfterMs()).thenReturn(500L);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class)))
+                .thenReturn("{\"status\":\"error\"}", "{\"status\":\"success\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(leave)));
+        verify(clientSessionManager, never()).removeSession(any(), any());
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(leave)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper, times(2)).writeValueAsString(captor.capture());
+        assertEquals("Server overloaded, retry after 500 ms", captor.getAllValues().get(0).getError());
+        assertEquals("success", captor.getAllValues().get(1).getStatus());
+        verify(clientSessionManager, times(1)).removeSession("7", session);
+        verify(messagePublisher, times(1)).publish(leave, "7");
+    }
+
+    @Test
+    void testHandleBinaryMessage_SpoolEnabled_SpoolsThenAcks() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(messageSpool.isEnabled()).thenReturn(true);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"success\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        InOrder inOrder = inOrder(messageSpool, session);
+        inOrder.verify(messageSpool).append("1", chatMessage);
+        inOrder.verify(session).sendMessage(any(TextMessage.class));
+        verify(messageSpool, never()).awaitDurable(anyLong());
+        verify(messagePublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testHandleBinaryMessage_SpoolFull_FallsBackToDirectSend() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        CompletableFuture<Void> send = new CompletableFuture<>();
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(messageSpool.isEnabled()).thenReturn(true);
+        when(messageSpool.append("1", chatMessage)).thenThrow(new IOException("Spool is full"));
+        doReturn(send).when(messagePublisher).publish(chatMessage, "1");
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"success\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        InOrder inOrder = inOrder(messagePublisher, session);
+        inOrder.verify(messagePublisher).publish(chatMessage, "1");
+        inOrder.verify(session).sendMessage(any(TextMessage.class));
+        verify(loadShedder).trackSend(send);
+        verify(metricsService).recordMetric("SuccessfulMessages", 1.0);
+    }
+
+    @Test
+    void testHandleBinaryMessage_SpoolAndDirectSendFail_SendsErrorWithoutAck() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(messageSpool.isEnabled()).thenReturn(true);
+        when(messageSpool.append("1", chatMessage)).thenThrow(new IOException("Spool is full"));
+        when(messagePublisher.publish(chatMessage, "1")).thenThrow(new RuntimeException("SQS unavailable"));
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("Server could not persist message, please retry", captor.getValue().getError());
+        verify(metricsService, never()).recordMetric("SuccessfulMessages", 1.0);
+    }
+
+    @Test
+    void testHandleBinaryMessage_AckAfterSpool_AcksOnceDurable() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(messageSpool.isEnabled()).thenReturn(true);
+        when(messageSpool.isAckAfterSpool()).thenReturn(true);
+        when(messageSpool.append("1", chatMessage)).thenReturn(42L);
+        when(messageSpool.awaitDurable(42L)).thenReturn(true);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"success\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("success", captor.getValue().getStatus());
+        verify(messageSpool, times(1)).append("1", chatMessage);
+        verify(messagePublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testHandleBinaryMessage_AckAfterSpool_NotDurable_SendsError() throws Exception {
+        // Given
+        ChatMessage chatMessage = createMultiplexedMessage("1", "TEXT");
+        when(chatMessageValidator.validate(chatMessage)).thenReturn(null);
+        when(messageSpool.isEnabled()).thenReturn(true);
+        when(messageSpool.isAckAfterSpool()).thenReturn(true);
+        when(messageSpool.append("1", chatMessage)).thenReturn(42L);
+        when(messageSpool.awaitDurable(42L)).thenReturn(false);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(chatMessage)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("error", captor.getValue().getStatus());
+        assertEquals("Server could not persist message, please retry", captor.getValue().getError());
+        verify(metricsService, never()).recordMetric("SuccessfulMessages", 1.0);
+    }
+
+    @Test
+    void testMultiplexed_JoinNotDurable_DoesNotJoinRoom() throws Exception {
+        // Given
+        session.getAttributes().put(MultiplexedSessionInterceptor.MULTIPLEXED_ATTRIBUTE, Boolean.TRUE);
+        ChatMessage join = createMultiplexedMessage("7", "JOIN");
+        when(chatMessageValidator.validate(join)).thenReturn(null);
+        when(messageSpool.isEnabled()).thenReturn(true);
+        when(messageSpool.isAckAfterSpool()).thenReturn(true);
+        when(messageSpool.append("7", join)).thenReturn(42L);
+        when(messageSpool.awaitDurable(42L)).thenReturn(false);
+        when(objectMapper.writeValueAsString(any(ResponseMessage.class))).thenReturn("{\"status\":\"error\"}");
+
+        // When
+        handler.handleMessage(session, new BinaryMessage(ChatBinaryCodec.encodeChatMessage(join)));
+
+        // Then
+        ArgumentCaptor<ResponseMessage> captor = ArgumentCaptor.forClass(ResponseMessage.class);
+        verify(objectMapper).writeValueAsString(captor.capture());
+        assertEquals("Server could not persist message, please retry", captor.getValue().getError());
+        verify(clientSessionManager, never()).addSession(any(), any());
+        verify(messagePublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void testGetSubProtocols_OffersBinary() {
+        assertEquals(java.util.List.of(ChatBinaryCodec.SUBPROTOCOL), handler.getSubProtocols());
+    }
+
     @Test
     void testAfterConnectionEstablished() throws Exception {
         // When
@@ -149,6 +551,7 @@ class ChatWebSocketEventHandlerTest {
         // Then
         verify(session).getAttributes();
         verify(clientSessionManager).addSession("1", session);
+        verify(flowControlManager).onSessionOpened(session);
     }
 
     @Test
@@ -160,6 +563,20 @@ class ChatWebSocketEventHandlerTest {
         handler.afterConnectionClosed(session, null);
 
         // Then
+        verify(compactAckDispatcher).onSessionClosed(session);
+        verify(flowControlManager).onSessionClosed(session);
         verify(clientSessionManager).removeSession("1", session);
     }
+
+    private ChatMessage createMultiplexedMessage(String roomId, String messageType) {
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setUserId("123");
+        chatMessage.setRoomId(roomId);
+        chatMessage.setMessageId("123e4567-e89b-12d3-a456-426614174000");
+        chatMessage.setUsername("user123");
+        chatMessage.setMessage("test");
+        chatMessage.setTimestamp(Instant.parse("2025-01-25T10:00:00Z"));
+        chatMessage.setMessageType(messageType);
+        return chatMessage;
+    }
 }
@@ -1,9 +1,9 @@
 package edu.northeastern.hanafeng.chatsystem.server.components;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.RoomBroadcastSource;
 import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
 import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
-import edu.northeastern.hanafeng.chatsystem.server.services.StompSubscriptionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,7 +13,9 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.time.Instant;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -22,7 +24,7 @@ import static org.mockito.Mockito.*;
 class ClientSessionManagerTest {
 
     @Mock
-    private StompSubscriptionService stompSubscriptionService;
+    private RoomBroadcastSource roomBroadcastSource;
 
     @Mock
     private ObjectMapper objectMapper;
@@ -40,7 +42,7 @@ class ClientSessionManagerTest {
 
     @BeforeEach
     void setUp() {
-        clientSessionManager = new ClientSessionManager(stompSubscriptionService, objectMapper, metricsService);
+        clientSessionManager = new ClientSessionManager(roomBroadcastSource, objectMapper, metricsService);
         lenient().when(session1.getId()).thenReturn("session-1");
         lenient().when(session1.isOpen()).thenReturn(true);
         lenient().when(session2.getId()).thenReturn("session-2");
@@ -53,20 +55,20 @@ class ClientSessionManagerTest {
         clientSessionManager.addSession("room1", session1);
 
         // Then
-        verify(stompSubscriptionService).subscribe("room1");
+        verify(roomBroadcastSource).subscribe("room1");
     }
 
     @Test
     void testAddSession_SecondClient_ShouldNotSubscribe() {
         // Given
         clientSessionManager.addSession("room1", session1);
-        reset(stompSubscriptionService);
+        reset(roomBroadcastSource);
 
         // When
         clientSessionManager.addSession("room1", session2);
 
         // Then
-        verify(stompSubscriptionService, never()).subscribe(any());
+        verify(roomBroadcastSource, never()).subscribe(any());
     }
 
     @Test
@@ -78,7 +80,7 @@ class ClientSessionManagerTest {
         clientSessionManager.removeSession("room1", session1);
 
         // Then
-        verify(stompSubscriptionService).unsubscribe("room1");
+        verify(roomBroadcastSource).unsubscribe("room1");
     }
 
     @Test
@@ -86,13 +88,13 @@ class ClientSessionManagerTest {
         // Given
         clientSessionManager.addSession("room1", session1);
         clientSessionManager.addSession("room1", session2);
-        reset(stompSubscriptionService);
+        reset(roomBroadcastSource);
 
         // When
         clientSessionManager.removeSession("room1", session1);
 
         // Then
-        verify(stompSubscriptionService, never()).unsubscribe(any());
+        verify(roomBroadcastSource, never()).unsubscribe(any());
     }
 
     @Test
@@ -101,7 +103,7 @@ class ClientSessionManagerTest {
         clientSessionManager.removeSession("nonexistent", session1);
 
         // Then
-        verify(stompSubscriptionService, never()).unsubscribe(any());
+        verify(roomBroadcastSource, never()).unsubscribe(any());
     }
 
     @Test
@@ -113,7 +115,65 @@ class ClientSessionManagerTest {
         clientSessionManager.removeSession("room1", session2);
 
         // Then
-        verify(stompSubscriptionService, never()).unsubscribe(any());
+        verify(roomBroadcastSource, never()).unsubscribe(any());
+    }
+
+    @Test
+    void testAddSession_SameSessionTwice_JoinsOnce() throws Exception {
+        // Given
+        clientSessionManager.addSession("room1", session1);
+        clientSessionManager.addSession("room1", session1);
+        when(objectMapper.writeValueAsString(any(ChatMessage.class))).thenReturn("{}");
+
+        // When
+        clientSessionManager.broadcastToRoom("room1", new ChatMessage());
+
+        // Then
+        verify(roomBroadcastSource).subscribe("room1");
+        verify(session1).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testMultiRoomSession_IndexesRoomsPerSession() {
+        // When
+        clientSessionManager.addSession("room1", session1);
+        clientSessionManager.addSession("room2", session1);
+        clientSessionManager.addSession("room2", session2);
+
+        // Then
+        assertEquals(Set.of("room1", "room2"), clientSessionManager.getRooms(session1));
+        assertTrue(clientSessionManager.isInRoom("room2", session2));
+        assertFalse(clientSessionManager.isInRoom("room1", session2));
+    }
+
+    @Test
+    void testRemoveSessionFromAllRooms_UnsubscribesEmptiedRoomsOnly() {
+        // Given
+        clientSessionManager.addSession("room1", session1);
+        clientSessionManager.addSession("room2", session1);
+        clientSessionManager.addSession("room2", session2);
+
+        // When
+        clientSessionManager.removeSessionFromAllRooms(session1);
+
+        // Then
+        verify(roomBroadcastSource).unsubscribe("room1");
+        verify(roomBroadcastSource, never()).unsubscribe("room2");
+        assertTrue(clientSessionManager.getRooms(session1).isEmpty());
+        assertTrue(clientSessionManager.isInRoom("room2", session2));
+    }
+
+    @Test
+    void testCleanup_ClosesMultiRoomSessionOnce() throws Exception {
+        // Given
+        clientSessionManager.addSession("room1", session1);
+        clientSessionManager.addSession("room2", session1);
+
+        // When
+        clientSessionManager.cleanup();
+
+        // Then
+        verify(session1, times(1)).close();
     }
 
     @Test
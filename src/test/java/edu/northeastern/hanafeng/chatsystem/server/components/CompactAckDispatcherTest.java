@@ -0,0 +1,173 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import edu.northeastern.hanafeng.chatsystem.model.CompactAck;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompactAckDispatcherTest {
+
+    private static final String MESSAGE_ID = "123e4567-e89b-12d3-a456-426614174000";
+
+    @Mock
+    private WebSocketSession session;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CompactAckDispatcher dispatcher;
+    private Map<String, Object> attributes;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new CompactAckDispatcher(objectMapper, 3);
+        attributes = new HashMap<>();
+        lenient().when(session.getAttributes()).thenReturn(attributes);
+        lenient().when(session.getId()).thenReturn("test-session-id");
+        lenient().when(session.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void testFullMode_NotHandled() throws Exception {
+        // Given
+        attributes.put(AckMode.SESSION_ATTRIBUTE, AckMode.FULL);
+
+        // When
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, MESSAGE_ID, null);
+
+        // Then
+        assertFalse(dispatcher.handles(session));
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void testCompactMode_SendsSequencedAckPerFrame() throws Exception {
+        // Given
+        attributes.put(AckMode.SESSION_ATTRIBUTE, AckMode.COMPACT);
+
+        // When
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, MESSAGE_ID, null);
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, null, "Invalid JSON format: x");
+
+        // Then
+        assertTrue(dispatcher.handles(session));
+        List<CompactAck> acks = capturedTextAcks(2);
+        assertEquals(1, acks.get(0).getSequence());
+        assertEquals(MESSAGE_ID, acks.get(0).getMessageId());
+        assertEquals(CompactAck.STATUS_SUCCESS, acks.get(0).getStatus());
+        assertEquals(2, acks.get(1).getSequence());
+        assertEquals(CompactAck.STATUS_ERROR, acks.get(1).getStatus());
+        assertEquals("Invalid JSON format: x", acks.get(1).getError());
+    }
+
+    @Test
+    void testCumulativeMode_CoalescesUntilWindowFills() throws Exception {
+        // Given
+        attributes.put(AckMode.SESSION_ATTRIBUTE, AckMode.CUMULATIVE);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            dispatcher.onFrameReceived(session);
+            dispatcher.acknowledge(session, MESSAGE_ID, null);
+        }
+
+        // Then
+        CompactAck range = capturedTextAcks(1).get(0);
+        assertTrue(range.isRange());
+        assertEquals(1L, range.getFromSequence());
+        assertEquals(3, range.getSequence());
+    }
+
+    @Test
+    void testCumulativeMode_FlushesRangeBeforeError() throws Exception {
+        // Given
+        attributes.put(AckMode.SESSION_ATTRIBUTE, AckMode.CUMULATIVE);
+
+        // When
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, MESSAGE_ID, null);
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, null, "userId missing");
+
+        // Then
+        List<CompactAck> acks = capturedTextAcks(2);
+        assertTrue(acks.get(0).isRange());
+        assertEquals(1L, acks.get(0).getFromSequence());
+        assertEquals(1, acks.get(0).getSequence());
+        assertFalse(acks.get(1).isRange());
+        assertEquals(2, acks.get(1).getSequence());
+        assertEquals(CompactAck.STATUS_ERROR, acks.get(1).getStatus());
+    }
+
+    @Test
+    void testFlushAll_SendsPartialRange_InBinaryForBinarySessions() throws Exception {
+        // Given
+        attributes.put(AckMode.SESSION_ATTRIBUTE, AckMode.CUMULATIVE);
+        when(session.getAcceptedProtocol()).thenReturn(ChatBinaryCodec.SUBPROTOCOL);
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, MESSAGE_ID, null);
+        verify(session, never()).sendMessage(any());
+
+        // When
+        dispatcher.flushAll();
+        dispatcher.flushAll();
+
+        // Then
+        ArgumentCaptor<BinaryMessage> captor = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(session).sendMessage(captor.capture());
+        CompactAck range = ChatBinaryCodec.decodeCompactAck(captor.getValue().getPayload());
+        assertTrue(range.isRange());
+        assertEquals(1L, range.getFromSequence());
+        assertEquals(1, range.getSequence());
+    }
+
+    @Test
+    void testOnSessionClosed_DropsPendingRange() throws Exception {
+        // Given
+        attributes.put(AckMode.SESSION_ATTRIBUTE, AckMode.CUMULATIVE);
+        dispatcher.onFrameReceived(session);
+        dispatcher.acknowledge(session, MESSAGE_ID, null);
+
+        // When
+        dispatcher.onSessionClosed(session);
+        dispatcher.flushAll();
+
+        // Then
+        verify(session, never()).sendMessage(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CompactAck> capturedTextAcks(int expected) throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, times(expected)).sendMessage(captor.capture());
+        return captor.getAllValues().stream()
+                .map(message -> {
+                    try {
+                        return objectMapper.readValue(((TextMessage) message).getPayload(), CompactAck.class);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,190 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
+import edu.northeastern.hanafeng.chatsystem.model.CreditGrant;
+import edu.northeastern.hanafeng.chatsystem.model.codec.ChatBinaryCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlowControlManagerTest {
+
+    private static final int WINDOW = 8;
+
+    @Mock
+    private WebSocketSession session;
+
+    @Mock
+    private LoadShedder loadShedder;
+
+    @Mock
+    private CloudWatchMetricsService metricsService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FlowControlManager manager;
+    private Map<String, Object> attributes;
+
+    @BeforeEach
+    void setUp() {
+        manager = new FlowControlManager(objectMapper, loadShedder, metricsService, WINDOW, 1024);
+        attributes = new HashMap<>();
+        lenient().when(session.getAttributes()).thenReturn(attributes);
+        lenient().when(session.getId()).thenReturn("test-session-id");
+        lenient().when(session.isOpen()).thenReturn(true);
+        lenient().when(loadShedder.getLevel()).thenReturn(LoadShedder.Level.NORMAL);
+    }
+
+    @Test
+    void testNotOptedIn_NoGrants() throws Exception {
+        // When
+        manager.onSessionOpened(session);
+        manager.onFrameReceived(session);
+        manager.regrant();
+
+        // Then
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void testOpen_GrantsFullWindow() throws Exception {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+
+        // When
+        manager.onSessionOpened(session);
+
+        // Then
+        assertEquals(List.of(WINDOW), capturedTextGrants(1));
+    }
+
+    @Test
+    void testReplenishesAtHalfWindow() throws Exception {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+        manager.onSessionOpened(session);
+
+        // When - three frames leave 5 outstanding, the fourth leaves 4 (half the window)
+        for (int i = 0; i < 4; i++) {
+            manager.onFrameReceived(session);
+        }
+
+        // Then
+        assertEquals(List.of(WINDOW, 4), capturedTextGrants(2));
+    }
+
+    @Test
+    void testShedAll_WithholdsUntilPressureClears() throws Exception {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+        manager.onSessionOpened(session);
+        when(loadShedder.getLevel()).thenReturn(LoadShedder.Level.SHED_ALL);
+
+        // When - the client spends its whole window while the server is overloaded
+        for (int i = 0; i < WINDOW; i++) {
+            manager.onFrameReceived(session);
+        }
+        manager.regrant();
+
+        // Then - paused
+        verify(session, times(1)).sendMessage(any());
+
+        // When - pressure clears
+        when(loadShedder.getLevel()).thenReturn(LoadShedder.Level.NORMAL);
+        manager.regrant();
+
+        // Then - resumed with a full window
+        assertEquals(List.of(WINDOW, WINDOW), capturedTextGrants(2));
+    }
+
+    @Test
+    void testShedText_GrantsQuarterWindow() throws Exception {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+        when(loadShedder.getLevel()).thenReturn(LoadShedder.Level.SHED_TEXT);
+
+        // When
+        manager.onSessionOpened(session);
+
+        // Then
+        assertEquals(List.of(WINDOW / 4), capturedTextGrants(1));
+    }
+
+    @Test
+    void testCreditViolation_Recorded() {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+        when(loadShedder.getLevel()).thenReturn(LoadShedder.Level.SHED_ALL);
+        manager.onSessionOpened(session);
+
+        // When - frame sent without any credit
+        manager.onFrameReceived(session);
+        manager.publishMetrics();
+
+        // Then
+        verify(metricsService).recordMetric("FlowControl.CreditViolations", 1.0);
+        verify(metricsService).recordMetric("FlowControl.StarvedSessions", 1.0);
+    }
+
+    @Test
+    void testBinarySession_SendsBinaryGrant() throws Exception {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+        when(session.getAcceptedProtocol()).thenReturn(ChatBinaryCodec.SUBPROTOCOL);
+
+        // When
+        manager.onSessionOpened(session);
+
+        // Then
+        ArgumentCaptor<BinaryMessage> captor = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(session).sendMessage(captor.capture());
+        assertEquals(WINDOW, ChatBinaryCodec.decodeCreditGrant(captor.getValue().getPayload()).getCredits());
+    }
+
+    @Test
+    void testClosedSession_Forgotten() throws Exception {
+        // Given
+        attributes.put(CreditGrant.SESSION_ATTRIBUTE, Boolean.TRUE);
+        manager.onSessionOpened(session);
+
+        // When
+        manager.onSessionClosed(session);
+        for (int i = 0; i < WINDOW; i++) {
+            manager.onFrameReceived(session);
+        }
+        manager.regrant();
+
+        // Then
+        verify(session, times(1)).sendMessage(any());
+    }
+
+    private List<Integer> capturedTextGrants(int count) throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, times(count)).sendMessage(captor.capture());
+        return captor.getAllValues().stream()
+                .map(message -> {
+                    try {
+                        return objectMapper.readValue(((TextMessage) message).getPayload(), CreditGrant.class).getCredits();
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,121 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadShedderTest {
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong oldestQueuedAgeNanos = new AtomicLong();
+    private final AtomicLong spoolBacklogBytes = new AtomicLong();
+    private LoadShedder loadShedder;
+
+    @BeforeEach
+    void setUp() {
+        loadShedder = new LoadShedder(true,
+                new LoadShedder.Limits(10, 2, 100, 1000),
+                new LoadShedder.Limits(20, 4, 500, 5000),
+                250,
+                queueDepth::get,
+                oldestQueuedAgeNanos::get,
+                spoolBacklogBytes::get);
+    }
+
+    @Test
+    void testNormal_AdmitsEverything() {
+        loadShedder.sample();
+
+        assertEquals(LoadShedder.Level.NORMAL, loadShedder.getLevel());
+        assertTrue(loadShedder.admit("TEXT"));
+        assertTrue(loadShedder.admit("JOIN"));
+    }
+
+    @Test
+    void testSoftQueueDepth_ShedsTextOnly() {
+        // Given
+        queueDepth.set(10);
+
+        // When
+        loadShedder.sample();
+
+        // Then
+        assertEquals(LoadShedder.Level.SHED_TEXT, loadShedder.getLevel());
+        assertFalse(loadShedder.admit("TEXT"));
+        assertTrue(loadShedder.admit("JOIN"));
+        assertTrue(loadShedder.admit("LEAVE"));
+    }
+
+    @Test
+    void testHardSojourn_ShedsControlMessagesToo() {
+        // Given
+        oldestQueuedAgeNanos.set(TimeUnit.MILLISECONDS.toNanos(600));
+
+        // When
+        loadShedder.sample();
+
+        // Then
+        assertEquals(LoadShedder.Level.SHED_ALL, loadShedder.getLevel());
+        assertFalse(loadShedder.admit("JOIN"));
+        assertFalse(loadShedder.admit("LEAVE"));
+    }
+
+    @Test
+    void testSpoolBacklog_ShedsTextThenEverything() {
+        // Given
+        spoolBacklogBytes.set(1000);
+
+        // When
+        loadShedder.sample();
+        LoadShedder.Level softBacklog = loadShedder.getLevel();
+        spoolBacklogBytes.set(5000);
+        loadShedder.sample();
+        LoadShedder.Level hardBacklog = loadShedder.getLevel();
+        spoolBacklogBytes.set(0);
+        loadShedder.sample();
+
+        // Then
+        assertEquals(LoadShedder.Level.SHED_TEXT, softBacklog);
+        assertEquals(LoadShedder.Level.SHED_ALL, hardBacklog);
+        assertEquals(LoadShedder.Level.NORMAL, loadShedder.getLevel());
+    }
+
+    @Test
+    void testInFlightSends_TrackedUntilCompletion() {
+        // Given
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        loadShedder.trackSend(first);
+        loadShedder.trackSend(second);
+        loadShedder.trackSend(CompletableFuture.completedFuture(null));
+        loadShedder.trackSend(null);
+
+        // When
+        loadShedder.sample();
+        LoadShedder.Level whileInFlight = loadShedder.getLevel();
+        first.complete(null);
+        second.completeExceptionally(new RuntimeException("send failed"));
+        loadShedder.sample();
+
+        // Then
+        assertEquals(LoadShedder.Level.SHED_TEXT, whileInFlight);
+        assertEquals(LoadShedder.Level.NORMAL, loadShedder.getLevel());
+    }
+
+    @Test
+    void testDisabled_NeverSheds() {
+        LoadShedder disabled = new LoadShedder(false,
+                new LoadShedder.Limits(0, 0, 0, 0), new LoadShedder.Limits(0, 0, 0, 0), 250, () -> 100, () -> 0,
+                () -> 0);
+
+        disabled.sample();
+
+        assertTrue(disabled.admit("TEXT"));
+    }
+}
@@ -0,0 +1,251 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.northeastern.hanafeng.chatsystem.common.interfaces.ChatMessagePublisher;
+import edu.northeastern.hanafeng.chatsystem.common.services.CloudWatchMetricsService;
+import edu.northeastern.hanafeng.chatsystem.model.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private ChatMessagePublisher messagePublisher;
+
+    @Mock
+    private CloudWatchMetricsService metricsService;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+    }
+
+    @Test
+    void testAppendAndDrain_SendsPerRoomBatchesAndCheckpoints() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1 << 16, 1 << 20);
+        when(messagePublisher.publishBatch(any(), anyList())).thenReturn(List.of());
+        ChatMessage first = createChatMessage("first");
+        ChatMessage second = createChatMessage("second");
+        ChatMessage other = createChatMessage("other room");
+        spool.append("1", first);
+        spool.append("2", other);
+        long end = spool.append("1", second);
+
+        // When
+        int drained = spool.drainOnce();
+
+        // Then
+        assertEquals(3, drained);
+        verify(messagePublisher).publishBatch("1", List.of(first, second));
+        verify(messagePublisher).publishBatch("2", List.of(other));
+        assertEquals(end, spool.getCheckpointPosition());
+        assertEquals(0, spool.drainOnce());
+    }
+
+    @Test
+    void testRestart_ReplaysMessagesNotConfirmedBySqs() throws Exception {
+        // Given - appended and flushed, but never drained
+        MessageSpool spool = openSpool(1 << 16, 1 << 20);
+        List<ChatMessage> messages = List.of(createChatMessage("a"), createChatMessage("b"), createChatMessage("c"));
+        for (ChatMessage message : messages) {
+            spool.append("3", message);
+        }
+        spool.flushOnce();
+
+        // When
+        MessageSpool restarted = openSpool(1 << 16, 1 << 20);
+        when(messagePublisher.publishBatch(any(), anyList())).thenReturn(List.of());
+
+        // Then
+        assertEquals(3, restarted.drainOnce());
+        verify(messagePublisher).publishBatch("3", messages);
+    }
+
+    @Test
+    void testRestart_DoesNotResendCheckpointedMessages() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1 << 16, 1 << 20);
+        when(messagePublisher.publishBatch(any(), anyList())).thenReturn(List.of());
+        spool.append("1", createChatMessage("drained"));
+        spool.drainOnce();
+        ChatMessage pending = createChatMessage("pending");
+        spool.append("1", pending);
+        spool.flushOnce();
+
+        // When
+        MessageSpool restarted = openSpool(1 << 16, 1 << 20);
+
+        // Then
+        assertEquals(1, restarted.drainOnce());
+        verify(messagePublisher).publishBatch("1", List.of(pending));
+    }
+
+    @Test
+    void testSqsFailure_CheckpointHeldUntilAccepted() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1 << 16, 1 << 20);
+        ChatMessage message = createChatMessage("retry me");
+        long end = spool.append("1", message);
+        when(messagePublisher.publishBatch(any(), anyList()))
+                .thenThrow(new RuntimeException("throttled"))
+                .thenReturn(List.of());
+
+        // When
+        spool.drainOnce();
+
+        // Then
+        assertEquals(0, spool.getCheckpointPosition());
+
+        // When
+        spool.drainOnce();
+
+        // Then
+        assertEquals(end, spool.getCheckpointPosition());
+        verify(messagePublisher, times(2)).publishBatch("1", List.of(message));
+    }
+
+    @Test
+    void testTornRecord_DiscardedOnRecovery() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1 << 16, 1 << 20);
+        ChatMessage intact = createChatMessage("intact");
+        long intactEnd = spool.append("1", intact);
+        spool.append("1", createChatMessage("torn"));
+        spool.flushOnce();
+        corruptByteAt(intactEnd + 20);
+
+        // When
+        MessageSpool restarted = openSpool(1 << 16, 1 << 20);
+        when(messagePublisher.publishBatch(any(), anyList())).thenReturn(List.of());
+
+        // Then
+        assertEquals(intactEnd, restarted.getPublishedPosition());
+        assertEquals(1, restarted.drainOnce());
+        verify(messagePublisher).publishBatch("1", List.of(intact));
+
+        // Appends continue after the last intact record
+        ChatMessage next = createChatMessage("next");
+        restarted.append("1", next);
+        restarted.drainOnce();
+        verify(messagePublisher).publishBatch("1", List.of(next));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSmallSegments_RollAndDeleteDrainedSegments() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1024, 1 << 20);
+        when(messagePublisher.publishBatch(any(), anyList())).thenReturn(List.of());
+        List<ChatMessage> appended = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ChatMessage message = createChatMessage("message " + i);
+            appended.add(message);
+            spool.append("5", message);
+        }
+        assertTrue(segmentCount() > 1);
+
+        // When
+        while (spool.drainOnce() > 0) {
+            // drain everything
+        }
+
+        // Then
+        ArgumentCaptor<List<ChatMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(messagePublisher, atLeastOnce()).publishBatch(eq("5"), captor.capture());
+        assertEquals(appended, captor.getAllValues().stream().flatMap(List::stream).toList());
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void testAwaitDurable_TrueOnceFlushed() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1 << 16, 1 << 20);
+        long position = spool.append("1", createChatMessage("durable"));
+
+        // When
+        spool.flushOnce();
+
+        // Then
+        assertTrue(spool.awaitDurable(position));
+    }
+
+    @Test
+    void testCapacityExceeded_AppendFails() throws Exception {
+        // Given
+        MessageSpool spool = openSpool(1 << 16, 512);
+        spool.append("1", createChatMessage("fits"));
+
+        // Then
+        assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                spool.append("1", createChatMessage("overflow " + i));
+            }
+        });
+    }
+
+    private MessageSpool openSpool(int segmentBytes, long capacityBytes) throws IOException {
+        MessageSpool spool = new MessageSpool(objectMapper, messagePublisher, metricsService,
+                true, false, directory, segmentBytes, capacityBytes, 5, 100, 100, 5);
+        spool.recover();
+        return spool;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".spool")).count();
+        }
+    }
+
+    private void corruptByteAt(long position) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(file -> file.getFileName().toString().endsWith(".spool")).findFirst().orElseThrow();
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(position);
+                int value = file.read();
+                file.seek(position);
+                file.write(value ^ 0xFF);
+            }
+        }
+    }
+
+    private ChatMessage createChatMessage(String text) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId("123");
+        message.setRoomId("1");
+        message.setMessageId(UUID.randomUUID().toString());
+        message.setUsername("user123");
+        message.setMessage(text);
+        message.setTimestamp(Instant.parse("2025-01-25T10:00:00Z"));
+        message.setMessageType("TEXT");
+        return message;
+    }
+}
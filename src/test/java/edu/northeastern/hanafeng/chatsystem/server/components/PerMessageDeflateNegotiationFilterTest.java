@@ -0,0 +1,96 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerMessageDeflateNegotiationFilterTest {
+
+    private static final String HEADER = PerMessageDeflateNegotiationFilter.EXTENSIONS_HEADER;
+
+    @Test
+    void testEnabled_AddsConfiguredNoContextTakeover() throws Exception {
+        // Given
+        PerMessageDeflateNegotiationFilter filter = new PerMessageDeflateNegotiationFilter(true, true, true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/chat/1");
+        request.addHeader(HEADER, "permessage-deflate; client_max_window_bits");
+
+        // When
+        HttpServletRequest filtered = doFilter(filter, request);
+
+        // Then
+        assertEquals("permessage-deflate; client_max_window_bits; server_no_context_takeover; client_no_context_takeover",
+                filtered.getHeader(HEADER));
+    }
+
+    @Test
+    void testEnabled_KeepsOfferedParametersWithoutDuplicates() throws Exception {
+        // Given
+        PerMessageDeflateNegotiationFilter filter = new PerMessageDeflateNegotiationFilter(true, true, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/chat/1");
+        request.addHeader(HEADER, "permessage-deflate; server_no_context_takeover; client_no_context_takeover");
+
+        // When
+        HttpServletRequest filtered = doFilter(filter, request);
+
+        // Then
+        assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+                filtered.getHeader(HEADER));
+    }
+
+    @Test
+    void testDisabled_DropsDeflateOffersOnly() throws Exception {
+        // Given
+        PerMessageDeflateNegotiationFilter filter = new PerMessageDeflateNegotiationFilter(false, false, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/chat/1");
+        request.addHeader(HEADER, "permessage-deflate, x-other-extension");
+
+        // When
+        HttpServletRequest filtered = doFilter(filter, request);
+
+        // Then
+        assertEquals("x-other-extension", filtered.getHeader(HEADER));
+    }
+
+    @Test
+    void testDisabled_RemovesHeaderWhenNothingLeft() throws Exception {
+        // Given
+        PerMessageDeflateNegotiationFilter filter = new PerMessageDeflateNegotiationFilter(false, false, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/chat/1");
+        request.addHeader(HEADER, "permessage-deflate; client_max_window_bits");
+
+        // When
+        HttpServletRequest filtered = doFilter(filter, request);
+
+        // Then
+        assertNull(filtered.getHeader(HEADER));
+        assertFalse(filtered.getHeaders(HEADER).hasMoreElements());
+        assertFalse(Collections.list(filtered.getHeaderNames()).contains(HEADER));
+    }
+
+    @Test
+    void testNoExtensionsHeader_PassesRequestThrough() throws Exception {
+        // Given
+        PerMessageDeflateNegotiationFilter filter = new PerMessageDeflateNegotiationFilter(true, true, true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/chat/1");
+
+        // When
+        HttpServletRequest filtered = doFilter(filter, request);
+
+        // Then
+        assertSame(request, filtered);
+    }
+
+    private HttpServletRequest doFilter(PerMessageDeflateNegotiationFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return (HttpServletRequest) chain.getRequest();
+    }
+}
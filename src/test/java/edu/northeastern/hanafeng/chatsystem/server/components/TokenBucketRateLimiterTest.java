@@ -0,0 +1,141 @@
+package edu.northeastern.hanafeng.chatsystem.server.components;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBucketRateLimiterTest {
+
+    @Mock
+    private WebSocketSession session1;
+
+    @Mock
+    private WebSocketSession session2;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private TokenBucketRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new TokenBucketRateLimiter(true, 1,
+                new TokenBucketRateLimiter.Rule(10, 5), new TokenBucketRateLimiter.Rule(2, 3), clock::get);
+        Map<String, Object> attributes1 = new HashMap<>();
+        Map<String, Object> attributes2 = new HashMap<>();
+        lenient().when(session1.getAttributes()).thenReturn(attributes1);
+        lenient().when(session2.getAttributes()).thenReturn(attributes2);
+        lenient().when(session1.getId()).thenReturn("session-1");
+        lenient().when(session2.getId()).thenReturn("session-2");
+    }
+
+    @Test
+    void testSession_AllowsBurstThenRejects() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(session1));
+        }
+        assertFalse(rateLimiter.tryAcquire(session1));
+    }
+
+    @Test
+    void testSession_RefillsAtConfiguredRate() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(session1);
+        }
+
+        // When - 10 tokens/s refills one token every 100ms
+        clock.addAndGet(99);
+        boolean beforeRefill = rateLimiter.tryAcquire(session1);
+        clock.addAndGet(1);
+        boolean afterRefill = rateLimiter.tryAcquire(session1);
+
+        // Then
+        assertFalse(beforeRefill);
+        assertTrue(afterRefill);
+        assertFalse(rateLimiter.tryAcquire(session1));
+    }
+
+    @Test
+    void testSession_RefillCappedAtBurst() {
+        // Given
+        rateLimiter.tryAcquire(session1);
+
+        // When
+        clock.addAndGet(60_000);
+
+        // Then
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(session1));
+        }
+        assertFalse(rateLimiter.tryAcquire(session1));
+    }
+
+    @Test
+    void testUser_BucketsAreIndependentPerUser() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquireUser("100000"));
+        }
+        assertFalse(rateLimiter.tryAcquireUser("100000"));
+        assertTrue(rateLimiter.tryAcquireUser("1"));
+
+        clock.addAndGet(500);
+        assertTrue(rateLimiter.tryAcquireUser("100000"));
+    }
+
+    @Test
+    void testRelease_RecyclesSlotWithFullBucket() {
+        // Given - single slot, owned by session1 and drained
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(session1);
+        }
+
+        // When
+        rateLimiter.release(session1);
+
+        // Then - session2 gets the recycled slot, starting full
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(session2));
+        }
+        assertEquals(0, session2.getAttributes().get(TokenBucketRateLimiter.SLOT_ATTRIBUTE));
+        assertFalse(session1.getAttributes().containsKey(TokenBucketRateLimiter.SLOT_ATTRIBUTE));
+    }
+
+    @Test
+    void testSlotsExhausted_SharesHashedBucket() {
+        // Given
+        rateLimiter.tryAcquire(session1);
+
+        // When
+        boolean acquired = rateLimiter.tryAcquire(session2);
+
+        // Then
+        assertTrue(acquired);
+        assertFalse(session2.getAttributes().containsKey(TokenBucketRateLimiter.SLOT_ATTRIBUTE));
+    }
+
+    @Test
+    void testDisabled_AlwaysAllows() {
+        TokenBucketRateLimiter disabled = new TokenBucketRateLimiter(false, 1,
+                new TokenBucketRateLimiter.Rule(1, 1), new TokenBucketRateLimiter.Rule(1, 1), clock::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(disabled.tryAcquire(session1));
+            assertTrue(disabled.tryAcquireUser("5"));
+        }
+    }
+
+    @Test
+    void testRule_RejectsBurstBeyondPackedRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter.Rule(10, 300_000));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter.Rule(0, 10));
+    }
+}
@@ -0,0 +1,85 @@
+package edu.northeastern.hanafeng.chatsystem.server.handlers;
+
+import edu.northeastern.hanafeng.chatsystem.model.AckMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AckModeInterceptorTest {
+
+    @Mock
+    private ServerHttpRequest request;
+
+    @Mock
+    private ServerHttpResponse response;
+
+    @Mock
+    private WebSocketHandler wsHandler;
+
+    private AckModeInterceptor interceptor;
+    private Map<String, Object> attributes;
+    private HttpHeaders requestHeaders;
+    private HttpHeaders responseHeaders;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new AckModeInterceptor();
+        attributes = new HashMap<>();
+        requestHeaders = new HttpHeaders();
+        responseHeaders = new HttpHeaders();
+        when(request.getHeaders()).thenReturn(requestHeaders);
+        lenient().when(response.getHeaders()).thenReturn(responseHeaders);
+    }
+
+    @Test
+    void testBeforeHandshake_NoHeader_DefaultsToFull() {
+        // When
+        boolean result = interceptor.beforeHandshake(request, response, wsHandler, attributes);
+
+        // Then
+        assertTrue(result);
+        assertEquals(AckMode.FULL, attributes.get(AckMode.SESSION_ATTRIBUTE));
+        assertNull(responseHeaders.getFirst(AckMode.HEADER));
+    }
+
+    @Test
+    void testBeforeHandshake_CumulativeRequested_EchoesAcceptedMode() {
+        // Given
+        requestHeaders.set(AckMode.HEADER, "Cumulative");
+
+        // When
+        boolean result = interceptor.beforeHandshake(request, response, wsHandler, attributes);
+
+        // Then
+        assertTrue(result);
+        assertEquals(AckMode.CUMULATIVE, attributes.get(AckMode.SESSION_ATTRIBUTE));
+        assertEquals("cumulative", responseHeaders.getFirst(AckMode.HEADER));
+    }
+
+    @Test
+    void testBeforeHandshake_UnknownMode_FallsBackToFull() {
+        // Given
+        requestHeaders.set(AckMode.HEADER, "bogus");
+
+        // When
+        boolean result = interceptor.beforeHandshake(request, response, wsHandler, attributes);
+
+        // Then
+        assertTrue(result);
+        assertEquals(AckMode.FULL, attributes.get(AckMode.SESSION_ATTRIBUTE));
+        assertEquals("full", responseHeaders.getFirst(AckMode.HEADER));
+    }
+}